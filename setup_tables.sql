@@ -26,38 +26,15 @@
  *  POSSIBILITY OF SUCH DAMAGE.
  */
 
-/* Execute this SQL file against a database to prepare tables for use with IRCBot. */
+/*
+ * IRCBot creates its tables and indexes automatically on startup and upgrades
+ * existing databases as required (see SchemaMigrator). Execute this SQL file
+ * against a database only to reset it; the tables will be recreated the next
+ * time IRCBot is started.
+ */
 
 DROP TABLE IF EXISTS Quotes;
 DROP TABLE IF EXISTS Seen;
 DROP TABLE IF EXISTS GameStatus;
 DROP TABLE IF EXISTS GameList;
-
-CREATE TABLE IF NOT EXISTS Quotes (
-	ID INT PRIMARY KEY AUTO_INCREMENT,
-	Nick VARCHAR(255) NOT NULL,
-	Date DATETIME NOT NULL,
-	Channel VARCHAR(32) NOT NULL,
-	Quote VARCHAR(255) NOT NULL,
-	Deleted BOOLEAN NOT NULL
-);
-
-CREATE TABLE IF NOT EXISTS Seen (
-	ID INT PRIMARY KEY AUTO_INCREMENT,
-	Nick VARCHAR(255) NOT NULL,
-	Date DATETIME NOT NULL,
-	Channel VARCHAR(32) NOT NULL
-);
-
-CREATE TABLE IF NOT EXISTS GameStatus (
-	ID INT PRIMARY KEY AUTO_INCREMENT,
-	Nick VARCHAR(255) NOT NULL,
-	Date DATETIME NOT NULL,
-	Game VARCHAR(255) NOT NULL
-);
-
-CREATE TABLE IF NOT EXISTS GameList (
-	ID INT PRIMARY KEY AUTO_INCREMENT,
-	GameID VARCHAR(10) NOT NULL,
-	GameName VARCHAR(255) NOT NULL
-);
+DROP TABLE IF EXISTS SchemaVersion;
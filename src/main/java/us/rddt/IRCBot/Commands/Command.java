@@ -0,0 +1,110 @@
+package us.rddt.IRCBot.Commands;
+
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.MessageEvent;
+
+import us.rddt.IRCBot.UserUtils;
+import us.rddt.IRCBot.Enums.CommandPrivileges;
+import us.rddt.IRCBot.Enums.WorkerPools;
+import us.rddt.IRCBot.Execution.TaskDispatcher;
+
+/**
+ * A channel command recognized by the bot. Each command registers the verb it
+ * responds to, the privilege a user needs to run it and the feature key that
+ * can be used to disable it in IRCBot.properties.
+ * 
+ * @see us.rddt.IRCBot.Commands.CommandRegistry
+ * @author Ryan Morrison
+ */
+public abstract class Command {
+    /*
+     * Class variables.
+     */
+    private final String verb;
+    private final boolean exact;
+    private final CommandPrivileges privilege;
+    private final String feature;
+    private final WorkerPools pool;
+
+    /**
+     * Class constructor
+     * @param verb the text following the command prefix that triggers the command
+     * @param exact true if the message must equal the verb, false if the message only has to start with it
+     * @param privilege the privilege required to run the command
+     * @param feature the key used to disable the command, or null if it cannot be disabled
+     * @param pool the worker pool the command's task runs on
+     */
+    public Command(String verb, boolean exact, CommandPrivileges privilege, String feature, WorkerPools pool) {
+        this.verb = verb;
+        this.exact = exact;
+        this.privilege = privilege;
+        this.feature = feature;
+        this.pool = pool;
+    }
+
+    /**
+     * Creates the task which handles the command
+     * @param event the MessageEvent containing the command
+     * @return the task to run
+     */
+    public abstract Runnable createTask(MessageEvent<PircBotX> event);
+
+    /**
+     * Runs the command. By default the command's task is submitted to its worker pool.
+     * @param event the MessageEvent containing the command
+     */
+    public void execute(MessageEvent<PircBotX> event) {
+        TaskDispatcher.submit(pool, createTask(event));
+    }
+
+    /**
+     * Checks to see if a user has the privilege required to run the command
+     * @param user the user to check
+     * @param channel the channel the command was sent to
+     * @return true if the user may run the command, false if they may not
+     */
+    public boolean isPermitted(User user, Channel channel) {
+        switch(privilege) {
+        case ADMIN:
+            return UserUtils.isBotAdmin(user);
+        case OPERATOR:
+            return UserUtils.isOperator(user, channel);
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Returns the verb that triggers the command
+     * @return the verb that triggers the command
+     */
+    public String getVerb() {
+        return verb;
+    }
+
+    /**
+     * Returns if the message must equal the verb exactly
+     * @return true if the message must equal the verb, false if it only has to start with it
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Returns the privilege required to run the command
+     * @return the privilege required to run the command
+     */
+    public CommandPrivileges getPrivilege() {
+        return privilege;
+    }
+
+    /**
+     * Returns the key used to disable the command
+     * @return the key used to disable the command, or null if it cannot be disabled
+     */
+    public String getFeature() {
+        return feature;
+    }
+}
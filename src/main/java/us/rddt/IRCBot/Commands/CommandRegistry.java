@@ -0,0 +1,85 @@
+package us.rddt.IRCBot.Commands;
+
+/**
+ * Maps command verbs to their commands using a character trie. Looking up a
+ * message walks the trie once, so dispatch costs O(length of the command) no
+ * matter how many commands are registered and never allocates. When several
+ * verbs match a message (for example "who delete --purge " and "who "), the
+ * longest one wins.
+ * 
+ * @author Ryan Morrison
+ */
+public class CommandRegistry {
+    /**
+     * A single node of the trie
+     */
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        // Command matched when the message ends at this node
+        private Command exactCommand;
+        // Command matched when the message continues past this node
+        private Command prefixCommand;
+
+        private Node getChild(char c) {
+            for(int i = 0; i < keys.length; i++) {
+                if(keys[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        private Node addChild(char c) {
+            Node child = getChild(c);
+            if(child != null) return child;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, keys.length);
+            System.arraycopy(children, 0, newChildren, 0, children.length);
+            newKeys[keys.length] = c;
+            newChildren[children.length] = child = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Registers a command
+     * @param command the command to register
+     * @throws IllegalArgumentException if another command is already registered with the same verb
+     */
+    public synchronized void register(Command command) {
+        Node node = root;
+        for(int i = 0; i < command.getVerb().length(); i++) {
+            node = node.addChild(command.getVerb().charAt(i));
+        }
+        if(command.isExact()) {
+            if(node.exactCommand != null) throw new IllegalArgumentException("Command already registered: " + command.getVerb());
+            node.exactCommand = command;
+        } else {
+            if(node.prefixCommand != null) throw new IllegalArgumentException("Command already registered: " + command.getVerb());
+            node.prefixCommand = command;
+        }
+    }
+
+    /**
+     * Finds the command matching a message
+     * @param message the message to match
+     * @param offset the index of the first character after the command prefix
+     * @return the matching command, or null if no command matches
+     */
+    public Command lookup(String message, int offset) {
+        Command match = null;
+        Node node = root;
+        for(int i = offset; i < message.length(); i++) {
+            node = node.getChild(message.charAt(i));
+            if(node == null) return match;
+            if(node.prefixCommand != null) match = node.prefixCommand;
+        }
+        // The whole message was consumed, so an exact match takes precedence
+        if(node.exactCommand != null) return node.exactCommand;
+        return match;
+    }
+}
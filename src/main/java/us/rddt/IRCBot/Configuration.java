@@ -1,15 +1,21 @@
 package us.rddt.IRCBot;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.pircbotx.PircBotX;
@@ -17,15 +23,22 @@ import org.pircbotx.PircBotX;
 import twitter4j.Twitter;
 import twitter4j.TwitterFactory;
 import twitter4j.conf.ConfigurationBuilder;
+import us.rddt.IRCBot.Execution.TaskDispatcher;
+import us.rddt.IRCBot.Execution.WatcherScheduler;
+import us.rddt.IRCBot.Handlers.SeenBuffer;
 import us.rddt.IRCBot.Implementations.DatabaseCleaner;
 import us.rddt.IRCBot.Implementations.RedditWatcher;
+import us.rddt.IRCBot.Implementations.URLPipeline;
 import us.rddt.IRCBot.Implementations.YouTubeWatcher;
 import us.rddt.IRCBot.Logging.IRCLogger;
+import us.rddt.IRCBot.Network.HttpClient;
 
 /**
  * Class which maintains the bot's configuration settings. Settings are loaded upon
  * bot startup and can be reloaded on the fly via a command provided by a bot
- * administrator.
+ * administrator, or automatically when the properties file is saved. The settings
+ * are held in an immutable snapshot which a reload replaces in one step, and only
+ * the parts of the bot whose settings changed are reconfigured.
  * 
  * @author Ryan Morrison
  */
@@ -40,102 +53,119 @@ public class Configuration {
     /*
      * Class variables.
      */
-    private static String nick;
-    private static String user;
-    private static String server;
-    private static int port;
-    private static String password;
-    private static boolean use_ssl;
-    private static boolean ssl_verify;
-    private static String[] channels;
+    private static volatile ConfigurationSnapshot current;
+    private static volatile long loadedModified = 0;
 
-    private static char command_prefix;
+    private static final String PROPERTIES_FILE = "IRCBot.properties";
 
-    private static String channel_announcement;
-    private static String[] channel_participating;
+    // Settings which are only read while connecting, so changing them needs a restart
+    private static final String[] RESTART_KEYS = { "nick", "user", "server", "port", "password", "use_ssl", "ssl_verify", "channels", "log_output", "watcher_state_file" };
+    private static final String[] RESTART_FUNCTIONS = { "tweetstatistics", "tweetmentions" };
 
-    private static List<String> disabled_functions;
+    // Most subreddits fetched in one multireddit request, keeping the URL a reasonable length
+    private static final int MULTIREDDIT_SIZE = 50;
 
-    private static String main_channel;
-
-    private static String[] watchSubreddits;
-    private static String[] watchYouTubers;
-
-    private static int votekickDuration;
-    private static int votekickPassPercent;
-
-    private static String admin_nick;
-    private static String admin_hostmask;
-
-    private static String database_driver;
-
-    private static String mysql_server;
-    private static String mysql_user;
-    private static String mysql_password;
-    private static String mysql_database;
-
-    private static String sqlite_database;
-
-    private static ScheduledExecutorService watchScheduler;
-    private static ScheduledExecutorService cleanupScheduler;
-    private static ScheduledExecutorService youtubeScheduler;
+    // Database cleanup and the properties file check share one scheduler, watchers have their own
+    private static ScheduledThreadPoolExecutor scheduler;
+    private static ScheduledFuture<?> cleanupTask;
+    private static ScheduledFuture<?> fileWatchTask;
 
     private static IRCLogger logger;
-    private static String log_output;
 
-    private static String user_agent;
-
-    private static String steam_api_key;
-
-    private static Twitter twitter_instance;
-    private static String twitter_access_token;
-    private static String twitter_access_secret;
-    private static String twitter_consumer_key;
-    private static String twitter_consumer_secret;
+    private static volatile Twitter twitter_instance;
 
     /**
      * Loads the configuration provided via a properties file
      * @throws FileNotFoundException if the properties file does not exist
      * @throws IOException if an exception is raised reading the properties file
+     * @throws IllegalArgumentException if a required setting is missing or invalid
+     */
+    public static synchronized void loadConfiguration() throws FileNotFoundException, IOException {
+        File file = new File(PROPERTIES_FILE);
+        long modified = file.lastModified();
+        current = readSnapshot(file);
+        loadedModified = modified;
+    }
+
+    /**
+     * Loads the properties file again and reconfigures the parts of the bot whose settings have changed.
+     * If the file cannot be read the current settings are kept.
+     * @param bot the IRC bot
+     * @return the names of the settings which changed
+     * @throws FileNotFoundException if the properties file does not exist
+     * @throws IOException if an exception is raised reading the properties file
+     * @throws IllegalArgumentException if a required setting is missing or invalid
+     */
+    public static synchronized Set<String> reloadConfiguration(PircBotX bot) throws FileNotFoundException, IOException {
+        File file = new File(PROPERTIES_FILE);
+        long modified = file.lastModified();
+        ConfigurationSnapshot previous = current;
+        ConfigurationSnapshot snapshot = readSnapshot(file);
+        Set<String> changed = snapshot.getChangedKeys(previous);
+        current = snapshot;
+        loadedModified = modified;
+        if(!changed.isEmpty()) {
+            getLogger().write(Level.INFO, "Settings changed: " + changed);
+            reconfigure(bot, previous, snapshot, changed);
+        }
+        return changed;
+    }
+
+    /**
+     * Reads a snapshot of the settings from the properties file
      */
-    public static void loadConfiguration() throws FileNotFoundException, IOException {
+    private static ConfigurationSnapshot readSnapshot(File file) throws FileNotFoundException, IOException {
         Properties config = new Properties();
-        config.load(new FileInputStream("IRCBot.properties"));
-        nick = config.getProperty("nick");
-        user = config.getProperty("user");
-        server = config.getProperty("server");
-        port = Integer.parseInt(config.getProperty("port"));
-        password = config.getProperty("password");
-        use_ssl = Boolean.parseBoolean(config.getProperty("use_ssl"));
-        ssl_verify = Boolean.parseBoolean(config.getProperty("ssl_verify"));
-        channels = config.getProperty("channels").split(",");
-        command_prefix = config.getProperty("command_prefix").charAt(0);
-        channel_announcement = config.getProperty("channel_announcement");
-        channel_participating = config.getProperty("channel_participating").split(",");
-        disabled_functions = new ArrayList<String>(Arrays.asList(config.getProperty("disabled_functions").split(",")));
-        main_channel = config.getProperty("main_channel");
-        watchSubreddits = config.getProperty("watch_subreddits").split(",");
-        watchYouTubers = config.getProperty("watch_youtubers").split(",");
-        votekickDuration = Integer.parseInt(config.getProperty("votekick_duration"));
-        votekickPassPercent = Integer.parseInt(config.getProperty("votekick_pass_percent"));
-        admin_nick = config.getProperty("admin_nick");
-        admin_hostmask = config.getProperty("admin_hostmask");
-        database_driver = config.getProperty("database_driver");
-        if(database_driver.equalsIgnoreCase("mysql")) {
-            mysql_server = config.getProperty("mysql_server");
-            mysql_user = config.getProperty("mysql_user");
-            mysql_password = config.getProperty("mysql_password");
-            mysql_database = config.getProperty("mysql_database");
-        } else if(database_driver.equalsIgnoreCase("sqlite")) {
-            sqlite_database = config.getProperty("sqlite_database");
+        FileInputStream in = new FileInputStream(file);
+        try {
+            config.load(in);
+        } finally {
+            in.close();
         }
-        log_output = config.getProperty("log_output");
-        user_agent = config.getProperty("user_agent");
-        steam_api_key = config.getProperty("steam_api_key");
-        twitter_access_token = config.getProperty("twitter_access_token");
-        twitter_access_secret = config.getProperty("twitter_access_secret");
-        twitter_consumer_key = config.getProperty("twitter_consumer_key");
-        twitter_consumer_secret = config.getProperty("twitter_consumer_secret");
+        return new ConfigurationSnapshot(config);
+    }
+
+    /**
+     * Reconfigures only the parts of the bot using the settings which changed
+     */
+    private static void reconfigure(PircBotX bot, ConfigurationSnapshot previous, ConfigurationSnapshot snapshot, Set<String> changed) {
+        Set<String> toggled = snapshot.getToggledFunctions(previous);
+        if(hasChanged(changed, "worker_")) TaskDispatcher.configure();
+        if(hasChanged(changed, "database_", "mysql_", "sqlite_")) {
+            try {
+                Database.configurePool();
+            } catch (Exception ex) {
+                getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            }
+        }
+        if(hasChanged(changed, "seen_flush_")) SeenBuffer.schedule();
+        if(hasChanged(changed, "http_")) HttpClient.configure();
+        if(changed.contains("url_max_in_flight")) URLPipeline.configure();
+        if(changed.contains("watcher_threads")) WatcherScheduler.configure();
+        if(changed.contains("watch_subreddits") || toggled.contains("watcher_reddit")) scheduleRedditWatchers(bot);
+        if(changed.contains("watch_youtubers") || toggled.contains("watcher_youtube")) scheduleYouTubeWatchers(bot);
+        if(toggled.contains("dbcleanup")) scheduleCleanup();
+        if(changed.contains("config_watch_interval")) watchConfiguration(bot);
+        // The Twitter client is created again with the new credentials the next time it's needed
+        if(hasChanged(changed, "twitter_")) twitter_instance = null;
+        for(String key : RESTART_KEYS) {
+            if(changed.contains(key)) getLogger().write(Level.INFO, "The " + key + " setting will take effect when the bot is restarted");
+        }
+        for(String function : RESTART_FUNCTIONS) {
+            if(toggled.contains(function)) getLogger().write(Level.INFO, "Enabling or disabling " + function + " will take effect when the bot is restarted");
+        }
+    }
+
+    /**
+     * Returns if any of the changed settings starts with one of the given prefixes
+     */
+    private static boolean hasChanged(Set<String> changed, String... prefixes) {
+        for(String key : changed) {
+            for(String prefix : prefixes) {
+                if(key.startsWith(prefix)) return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -143,38 +173,105 @@ public class Configuration {
      * @param bot the IRC bot
      */
     public static void startScheduler(PircBotX bot) {
-        if(watchSubreddits.length > 0 && !watchSubreddits[0].equals("") && !disabled_functions.contains("watcher_reddit")) {
-            if(watchScheduler != null) {
-                Configuration.getLogger().write(Level.INFO, "Shutting down existing subreddit updates");
-                watchScheduler.shutdownNow();
+        scheduleRedditWatchers(bot);
+        scheduleCleanup();
+        scheduleYouTubeWatchers(bot);
+        watchConfiguration(bot);
+    }
+
+    /**
+     * Schedules updates for each watched subreddit, replacing any already scheduled
+     */
+    private static synchronized void scheduleRedditWatchers(PircBotX bot) {
+        ConfigurationSnapshot snapshot = current;
+        WatcherScheduler.cancel("reddit");
+        if(snapshot.watchSubreddits.length > 0 && !snapshot.watchSubreddits[0].equals("") && !snapshot.disabled_functions.contains("watcher_reddit")) {
+            // Subreddits checked at the same frequency are fetched together as one multireddit
+            Map<Integer, List<String>> batches = new TreeMap<Integer, List<String>>();
+            for(int i = 0; i < snapshot.watchSubreddits.length; i++) {
+                String[] configuration = snapshot.watchSubreddits[i].split(":");
+                int frequency = Integer.parseInt(configuration[1].trim());
+                List<String> batch = batches.get(frequency);
+                if(batch == null) {
+                    batch = new ArrayList<String>();
+                    batches.put(frequency, batch);
+                }
+                batch.add(configuration[0].trim());
             }
-            watchScheduler = Executors.newScheduledThreadPool(watchSubreddits.length + 1);
-            for(int i = 0; i < watchSubreddits.length; i++) {
-                String[] configuration = watchSubreddits[i].split(":");
-                String subreddit = configuration[0];
-                int frequency = Integer.parseInt(configuration[1]);
-                Configuration.getLogger().write(Level.INFO, "Scheduling subreddit updates for r/" + subreddit + " starting in " + (5 * i) + " minutes (frequency: " + frequency + " minutes)");
-                watchScheduler.scheduleWithFixedDelay(new RedditWatcher(bot, subreddit), (5 * i), frequency, TimeUnit.MINUTES);
+            for(Map.Entry<Integer, List<String>> batch : batches.entrySet()) {
+                List<String> subreddits = batch.getValue();
+                for(int i = 0; i < subreddits.size(); i += MULTIREDDIT_SIZE) {
+                    RedditWatcher watcher = new RedditWatcher(bot, subreddits.subList(i, Math.min(subreddits.size(), i + MULTIREDDIT_SIZE)));
+                    Configuration.getLogger().write(Level.INFO, "Scheduling subreddit updates for " + watcher.getName() + " (frequency: " + batch.getKey() + " minutes)");
+                    WatcherScheduler.schedule("reddit", watcher, TimeUnit.MINUTES.toMillis(batch.getKey()));
+                }
             }
         }
-        if(!disabled_functions.contains("dbcleanup")) {
-            if(cleanupScheduler != null) {
-                cleanupScheduler.shutdownNow();
+    }
+
+    /**
+     * Schedules updates for each watched YouTube user, replacing any already scheduled
+     */
+    private static synchronized void scheduleYouTubeWatchers(PircBotX bot) {
+        ConfigurationSnapshot snapshot = current;
+        WatcherScheduler.cancel("youtube");
+        if(snapshot.watchYouTubers.length > 0 && !snapshot.watchYouTubers[0].equals("") && !snapshot.disabled_functions.contains("watcher_youtube")) {
+            for(int i = 0; i < snapshot.watchYouTubers.length; i++) {
+                Configuration.getLogger().write(Level.INFO, "Scheduling YouTube updates for user " + snapshot.watchYouTubers[i] + ".");
+                WatcherScheduler.schedule("youtube", new YouTubeWatcher(bot, snapshot.watchYouTubers[i]), TimeUnit.MINUTES.toMillis(5));
             }
-            cleanupScheduler = Executors.newScheduledThreadPool(1);
-            cleanupScheduler.scheduleWithFixedDelay(new DatabaseCleaner(), 1, 12, TimeUnit.HOURS);
         }
-        if(watchYouTubers.length > 0 && !watchYouTubers[0].equals("") && !disabled_functions.contains("watcher_youtube")) {
-            if(youtubeScheduler != null) {
-                Configuration.getLogger().write(Level.INFO, "Shutting down existing YouTube updates");
-                youtubeScheduler.shutdownNow();
-            }
-            youtubeScheduler = Executors.newScheduledThreadPool(watchYouTubers.length + 1);
-            for(int i = 0; i < watchYouTubers.length; i++) {
-                Configuration.getLogger().write(Level.INFO, "Scheduling YouTube updates for user " + watchYouTubers[i] + " starting in " + (2 * i) + " minutes.");
-                youtubeScheduler.scheduleWithFixedDelay(new YouTubeWatcher(bot, watchYouTubers[i]), (2 * i), 5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Schedules the database cleanup, or cancels it if it has been disabled
+     */
+    private static synchronized void scheduleCleanup() {
+        if(cleanupTask != null) cleanupTask.cancel(true);
+        cleanupTask = null;
+        if(!isFunctionDisabled("dbcleanup")) {
+            cleanupTask = getScheduler().scheduleWithFixedDelay(new DatabaseCleaner(), 1, 12, TimeUnit.HOURS);
+        }
+    }
+
+    /**
+     * Checks the properties file for changes periodically, reloading it when it has been modified
+     * @param bot the IRC bot
+     */
+    private static synchronized void watchConfiguration(final PircBotX bot) {
+        if(fileWatchTask != null) fileWatchTask.cancel(false);
+        fileWatchTask = null;
+        int interval = current.config_watch_interval;
+        if(interval <= 0) return;
+        fileWatchTask = getScheduler().scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                long modified = new File(PROPERTIES_FILE).lastModified();
+                // Wait for the file to settle so a save in progress isn't read half written
+                if(modified == 0 || modified == loadedModified || System.currentTimeMillis() - modified < 1000) return;
+                try {
+                    Set<String> changed = reloadConfiguration(bot);
+                    getLogger().write(Level.INFO, "Reloaded " + PROPERTIES_FILE + " after it was modified (" + changed.size() + " settings changed)");
+                } catch (Exception ex) {
+                    // Keep the current settings and don't try again until the file is saved again
+                    loadedModified = modified;
+                    getLogger().write(Level.WARNING, "Unable to reload " + PROPERTIES_FILE + ", keeping the current settings: " + IRCUtils.getStackTraceString(ex));
+                }
             }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+        if(scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "IRCBot-scheduler-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
         }
+        return scheduler;
     }
 
     /**
@@ -189,17 +286,19 @@ public class Configuration {
      * Returns a new or existing Twitter instance.
      * @return a Twitter instance
      */
-    public static Twitter getTwitterInstance() {
+    public static synchronized Twitter getTwitterInstance() {
         if(twitter_instance != null) return twitter_instance;
         else {
-            if(getTwitterConsumerKey() != null && getTwitterConsumerSecret() != null && getTwitterAccessToken() != null && getTwitterAccessSecret() != null) {
+            // Read all four credentials from the same snapshot in case the configuration is being reloaded
+            ConfigurationSnapshot snapshot = current;
+            if(snapshot.twitter_consumer_key != null && snapshot.twitter_consumer_secret != null && snapshot.twitter_access_token != null && snapshot.twitter_access_secret != null) {
                 getLogger().write(Level.INFO, "Twitter credentials provided, making an authentication attempt.");
                 ConfigurationBuilder cb = new ConfigurationBuilder();
                 cb.setDebugEnabled(true)
-                .setOAuthConsumerKey(Configuration.getTwitterConsumerKey())
-                .setOAuthConsumerSecret(Configuration.getTwitterConsumerSecret())
-                .setOAuthAccessToken(Configuration.getTwitterAccessToken())
-                .setOAuthAccessTokenSecret(Configuration.getTwitterAccessSecret());
+                .setOAuthConsumerKey(snapshot.twitter_consumer_key)
+                .setOAuthConsumerSecret(snapshot.twitter_consumer_secret)
+                .setOAuthAccessToken(snapshot.twitter_access_token)
+                .setOAuthAccessTokenSecret(snapshot.twitter_access_secret);
                 twitter_instance = new TwitterFactory(cb.build()).getInstance();
             } else {
                 getLogger().write(Level.INFO, "Twitter credentials not provided, skipping authentication.");
@@ -214,7 +313,7 @@ public class Configuration {
      * @return the bot's nickname
      */
     public static String getNick() {
-        return nick;
+        return current.nick;
     }
 
     /**
@@ -222,7 +321,7 @@ public class Configuration {
      * @return the bot's username
      */
     public static String getUser() {
-        return user;
+        return current.user;
     }
 
     /**
@@ -230,7 +329,7 @@ public class Configuration {
      * @return the server to connect to
      */
     public static String getServer() {
-        return server;
+        return current.server;
     }
 
     /**
@@ -238,7 +337,7 @@ public class Configuration {
      * @return the server's port
      */
     public static int getPort() {
-        return port;
+        return current.port;
     }
 
     /**
@@ -246,7 +345,7 @@ public class Configuration {
      * @return the server's password
      */
     public static String getPassword() {
-        return password;
+        return current.password;
     }
 
     /**
@@ -254,7 +353,7 @@ public class Configuration {
      * @return the channels to join
      */
     public static String[] getChannels() {
-        return channels;
+        return current.channels;
     }
 
     /**
@@ -262,7 +361,7 @@ public class Configuration {
      * @return the command prefix
      */
     public static char getCommandPrefix() {
-        return command_prefix;
+        return current.command_prefix;
     }
 
     /**
@@ -270,7 +369,7 @@ public class Configuration {
      * @return the channel announcement
      */
     public static String getChannelAnnouncement() {
-        return channel_announcement;
+        return current.channel_announcement;
     }
 
     /**
@@ -278,15 +377,24 @@ public class Configuration {
      * @return the list of participating channels to send announcements in
      */
     public static String[] getChannelsParticipating() {
-        return channel_participating;
+        return current.channel_participating;
     }
 
     /**
-     * Returns the list of functions to disable
-     * @return the list of functions to disable
+     * Returns the set of functions to disable
+     * @return the set of functions to disable
      */
-    public static List<String> getDisabledFunctions() {
-        return disabled_functions;
+    public static Set<String> getDisabledFunctions() {
+        return current.disabled_functions;
+    }
+
+    /**
+     * Returns if a function has been disabled
+     * @param function the key of the function to check, or null for functions that cannot be disabled
+     * @return true if the function is disabled, false if it is enabled
+     */
+    public static boolean isFunctionDisabled(String function) {
+        return function != null && current.disabled_functions.contains(function);
     }
 
     /**
@@ -294,7 +402,7 @@ public class Configuration {
      * @return the main channel
      */
     public static String getMainChannel() {
-        return main_channel;
+        return current.main_channel;
     }
 
     /**
@@ -302,7 +410,7 @@ public class Configuration {
      * @return the subreddits to watch
      */
     public static String[] getWatchSubreddits() {
-        return watchSubreddits;
+        return current.watchSubreddits;
     }
 
     /**
@@ -310,7 +418,7 @@ public class Configuration {
      * @return the duration of votekicks in seconds
      */
     public static int getVotekickDuration() {
-        return votekickDuration;
+        return current.votekickDuration;
     }
 
     /**
@@ -318,14 +426,14 @@ public class Configuration {
      * @return the percentage required for a votekick to pass
      */
     public static int getVotekickPassPercent() {
-        return votekickPassPercent;
+        return current.votekickPassPercent;
     }
     /**
      * Returns the nick of the administrator
      * @return the nick of the administrator
      */
     public static String getAdminNick() {
-        return admin_nick;
+        return current.admin_nick;
     }
 
     /**
@@ -333,7 +441,7 @@ public class Configuration {
      * @return the hostmask of the administrator
      */
     public static String getAdminHostmask() {
-        return admin_hostmask;
+        return current.admin_hostmask;
     }
 
     /**
@@ -341,7 +449,7 @@ public class Configuration {
      * @return the database driver to use
      */
     public static String getDatabaseDriver() {
-        return database_driver;
+        return current.database_driver;
     }
 
     /**
@@ -349,7 +457,7 @@ public class Configuration {
      * @return the MySQL server
      */
     public static String getMySQLServer() {
-        return mysql_server;
+        return current.mysql_server;
     }
 
     /**
@@ -357,7 +465,7 @@ public class Configuration {
      * @return the MySQL user
      */
     public static String getMySQLUser() {
-        return mysql_user;
+        return current.mysql_user;
     }
 
     /**
@@ -365,7 +473,7 @@ public class Configuration {
      * @return the MySQL password
      */
     public static String getMySQLPassword() {
-        return mysql_password;
+        return current.mysql_password;
     }
 
     /**
@@ -373,7 +481,7 @@ public class Configuration {
      * @return the MySQL database
      */
     public static String getMySQLDatabase() {
-        return mysql_database;
+        return current.mysql_database;
     }
 
     /**
@@ -381,7 +489,283 @@ public class Configuration {
      * @return the SQLite database
      */
     public static String getSQLiteDatabase() {
-        return sqlite_database;
+        return current.sqlite_database;
+    }
+
+    /**
+     * Returns the number of database connections to keep open
+     * @return the minimum size of the database connection pool
+     */
+    public static int getDatabasePoolMin() {
+        return current.database_pool_min;
+    }
+
+    /**
+     * Returns the maximum number of database connections to open
+     * @return the maximum size of the database connection pool
+     */
+    public static int getDatabasePoolMax() {
+        return current.database_pool_max;
+    }
+
+    /**
+     * Returns the query used to check pooled database connections are alive
+     * @return the validation query of the database connection pool
+     */
+    public static String getDatabasePoolValidationQuery() {
+        return current.database_pool_validation_query;
+    }
+
+    /**
+     * Returns the time after which idle database connections are closed
+     * @return the idle timeout in milliseconds
+     */
+    public static long getDatabasePoolIdleTimeout() {
+        return current.database_pool_idle_timeout;
+    }
+
+    /**
+     * Returns the time after which a borrowed database connection is reported as leaked
+     * @return the leak threshold in milliseconds
+     */
+    public static long getDatabasePoolLeakThreshold() {
+        return current.database_pool_leak_threshold;
+    }
+
+    /**
+     * Returns the time after which a leaked database connection is forcibly closed
+     * @return the abandon timeout in milliseconds, or 0 to never close leaked connections
+     */
+    public static long getDatabasePoolAbandonTimeout() {
+        return current.database_pool_abandon_timeout;
+    }
+
+    /**
+     * Returns the time to wait for a database connection when the pool is exhausted
+     * @return the wait timeout in milliseconds
+     */
+    public static long getDatabasePoolWaitTimeout() {
+        return current.database_pool_wait_timeout;
+    }
+
+    /**
+     * Returns the number of users tracked per channel for each statistic
+     * @return the number of users tracked per channel for each statistic
+     */
+    public static int getStatisticsTrackedUsers() {
+        return current.statistics_tracked_users;
+    }
+
+    /**
+     * Returns how often buffered seen updates are written to the database
+     * @return the flush interval in seconds
+     */
+    public static int getSeenFlushInterval() {
+        return current.seen_flush_interval;
+    }
+
+    /**
+     * Returns the number of buffered seen updates which triggers an early write to the database
+     * @return the flush threshold
+     */
+    public static int getSeenFlushSize() {
+        return current.seen_flush_size;
+    }
+
+    /**
+     * Returns the maximum number of URL summaries to cache
+     * @return the maximum number of URL summaries to cache
+     */
+    public static int getURLCacheSize() {
+        return current.url_cache_size;
+    }
+
+    /**
+     * Returns how long a URL summary from a site is cached for
+     * @param site the site the summary came from
+     * @return the time to cache the summary in milliseconds, or 0 if it should not be cached
+     */
+    public static long getURLCacheTTL(String site) {
+        Map<String, Long> ttls = current.url_cache_ttl;
+        Long ttl = ttls.get(site.toLowerCase(Locale.ENGLISH));
+        if(ttl == null) ttl = ttls.get("url");
+        return ttl == null ? 0 : ttl;
+    }
+
+    /**
+     * Returns how long a failed URL lookup is cached for
+     * @return the time to cache the failure in milliseconds
+     */
+    public static long getURLCacheErrorTTL() {
+        return current.url_cache_error_ttl;
+    }
+
+    /**
+     * Returns how long to wait for an HTTP connection to be established
+     * @return the connect timeout in milliseconds
+     */
+    public static int getHttpConnectTimeout() {
+        return current.http_connect_timeout;
+    }
+
+    /**
+     * Returns how long to wait for data from an HTTP server before giving up
+     * @return the read timeout in milliseconds
+     */
+    public static int getHttpReadTimeout() {
+        return current.http_read_timeout;
+    }
+
+    /**
+     * Returns the longest an HTTP response may take to be read in full
+     * @return the request timeout in milliseconds
+     */
+    public static long getHttpRequestTimeout() {
+        return current.http_request_timeout;
+    }
+
+    /**
+     * Returns the maximum number of concurrent HTTP requests to a single host
+     * @return the maximum number of requests per host
+     */
+    public static int getHttpMaxPerHost() {
+        return current.http_max_per_host;
+    }
+
+    /**
+     * Returns the maximum number of redirects followed for an HTTP request
+     * @return the maximum number of redirects
+     */
+    public static int getHttpMaxRedirects() {
+        return current.http_max_redirects;
+    }
+
+    /**
+     * Returns the number of times an HTTP request is retried after a timeout or temporary error
+     * @return the number of retries
+     */
+    public static int getHttpRetries() {
+        return current.http_retries;
+    }
+
+    /**
+     * Returns the delay before the first retry of an HTTP request, which doubles for each further retry
+     * @return the retry delay in milliseconds
+     */
+    public static int getHttpRetryDelay() {
+        return current.http_retry_delay;
+    }
+
+    /**
+     * Returns the largest HTTP response body which will be read
+     * @return the maximum body size in bytes
+     */
+    public static int getHttpMaxBodySize() {
+        return current.http_max_body_size;
+    }
+
+    /**
+     * Returns the most bytes of a page read while looking for its title
+     * @return the maximum number of bytes to read
+     */
+    public static int getURLTitleMaxBytes() {
+        return current.url_title_max_bytes;
+    }
+
+    /**
+     * Returns the maximum number of URL lookups in progress at once across all channels
+     * @return the maximum number of URL lookups in progress
+     */
+    public static int getURLMaxInFlight() {
+        return current.url_max_in_flight;
+    }
+
+    /**
+     * Returns the number of lines which may be sent at once before messages are slowed down
+     * @return the number of lines which may be sent at once
+     */
+    public static int getMessageBurst() {
+        return current.message_burst;
+    }
+
+    /**
+     * Returns the milliseconds between lines once a burst has been sent
+     * @return the milliseconds between lines
+     */
+    public static int getMessageInterval() {
+        return current.message_interval;
+    }
+
+    /**
+     * Returns the most messages which may wait to be sent in each priority
+     * @return the most messages waiting in each priority
+     */
+    public static int getMessageQueueSize() {
+        return current.message_queue_size;
+    }
+
+    /**
+     * Returns the worker pool settings
+     * @return the worker pool settings
+     */
+    public static String[] getWorkerPools() {
+        return current.worker_pools;
+    }
+
+    /**
+     * Returns if handlers should be run on virtual threads
+     * @return true to use virtual threads, false to use platform threads
+     */
+    public static boolean isVirtualWorkers() {
+        return current.worker_virtual;
+    }
+
+    /**
+     * Returns how often the properties file is checked for changes
+     * @return the seconds between checks, or 0 if the file is only reloaded on request
+     */
+    public static int getConfigWatchInterval() {
+        return current.config_watch_interval;
+    }
+
+    /**
+     * Returns the number of threads shared by the subreddit and YouTube watchers
+     * @return the number of watcher threads
+     */
+    public static int getWatcherThreads() {
+        return current.watcher_threads;
+    }
+
+    /**
+     * Returns how much each watcher's delay is varied at random
+     * @return the percentage the delay may vary by either way
+     */
+    public static int getWatcherJitter() {
+        return current.watcher_jitter;
+    }
+
+    /**
+     * Returns how many times its configured interval a quiet or failing watcher may slow down to
+     * @return the multiple of the configured interval
+     */
+    public static int getWatcherMaxBackoff() {
+        return current.watcher_max_backoff;
+    }
+
+    /**
+     * Returns the file the watchers' state is kept in
+     * @return the path of the watcher state file
+     */
+    public static String getWatcherStateFile() {
+        return current.watcher_state_file;
+    }
+
+    /**
+     * Returns the most new items a watcher announces from one feed in one check
+     * @return the most items announced per feed per check
+     */
+    public static int getWatcherCatchupLimit() {
+        return current.watcher_catchup_limit;
     }
 
     /**
@@ -401,6 +785,7 @@ public class Configuration {
     }
 
     public static String getUserAgent() {
+        String user_agent = current.user_agent;
         if(user_agent != null && !user_agent.isEmpty()) {
             return user_agent;
         }
@@ -412,7 +797,8 @@ public class Configuration {
      * @return the log file to output the HTML-formatted log to
      */
     public static String getLogFile() {
-        return log_output;
+        // The logger may be needed to report that the configuration couldn't be loaded
+        return current == null ? null : current.log_output;
     }
 
     /**
@@ -420,7 +806,7 @@ public class Configuration {
      * @return the Steam API key
      */
     public static String getSteamAPIKey() {
-        return steam_api_key;
+        return current.steam_api_key;
     }
 
     /**
@@ -428,7 +814,7 @@ public class Configuration {
      * @return the access token for Twitter
      */
     public static String getTwitterAccessToken() {
-        return twitter_access_token;
+        return current.twitter_access_token;
     }
 
     /**
@@ -436,7 +822,7 @@ public class Configuration {
      * @return the access secret for Twitter
      */
     public static String getTwitterAccessSecret() {
-        return twitter_access_secret;
+        return current.twitter_access_secret;
     }
 
     /**
@@ -444,7 +830,7 @@ public class Configuration {
      * @return the consumer key for Twitter
      */
     public static String getTwitterConsumerKey() {
-        return twitter_consumer_key;
+        return current.twitter_consumer_key;
     }
 
     /**
@@ -452,7 +838,31 @@ public class Configuration {
      * @return the consumer secret for Twitter
      */
     public static String getTwitterConsumerSecret() {
-        return twitter_consumer_secret;
+        return current.twitter_consumer_secret;
+    }
+
+    /**
+     * Returns the shortest time between checks for new Twitter mentions
+     * @return the minutes between checks
+     */
+    public static int getTwitterMentionsInterval() {
+        return current.twitter_mentions_interval;
+    }
+
+    /**
+     * Returns the shortest time between two tweets posted by the bot
+     * @return the seconds between tweets
+     */
+    public static int getTweetInterval() {
+        return current.tweet_interval;
+    }
+
+    /**
+     * Returns the most tweets which may wait to be posted
+     * @return the size of the tweet queue
+     */
+    public static int getTweetQueueSize() {
+        return current.tweet_queue_size;
     }
 
     /**
@@ -460,7 +870,7 @@ public class Configuration {
      * @return true if SSL should be used, false for unsecured connections
      */
     public static boolean isSSL() {
-        return use_ssl;
+        return current.use_ssl;
     }
 
     /**
@@ -468,6 +878,6 @@ public class Configuration {
      * @return true for SSL certificate verification, false to trust all certificates
      */
     public static boolean isSSLVerified() {
-        return ssl_verify;
+        return current.ssl_verify;
     }
 }
@@ -0,0 +1,252 @@
+package us.rddt.IRCBot;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The bot's settings as read from one version of the properties file. A snapshot
+ * never changes once it has been read, so a reload builds a new one and swaps it in
+ * whole, and a thread reading several settings never sees half of an old file and
+ * half of a new one. Comparing two snapshots gives the settings which changed, so
+ * only the parts of the bot using them need to be reconfigured.
+ *
+ * @see us.rddt.IRCBot.Configuration
+ * @author Ryan Morrison
+ */
+public class ConfigurationSnapshot {
+    /*
+     * Class variables.
+     */
+    private final Map<String, String> properties;
+
+    final String nick;
+    final String user;
+    final String server;
+    final int port;
+    final String password;
+    final boolean use_ssl;
+    final boolean ssl_verify;
+    final String[] channels;
+
+    final char command_prefix;
+
+    final String channel_announcement;
+    final String[] channel_participating;
+
+    final Set<String> disabled_functions;
+
+    final String main_channel;
+
+    final String[] watchSubreddits;
+    final String[] watchYouTubers;
+
+    final int votekickDuration;
+    final int votekickPassPercent;
+
+    final String admin_nick;
+    final String admin_hostmask;
+
+    final String database_driver;
+
+    final String mysql_server;
+    final String mysql_user;
+    final String mysql_password;
+    final String mysql_database;
+
+    final String sqlite_database;
+
+    final int database_pool_min;
+    final int database_pool_max;
+    final String database_pool_validation_query;
+    final long database_pool_idle_timeout;
+    final long database_pool_leak_threshold;
+    final long database_pool_abandon_timeout;
+    final long database_pool_wait_timeout;
+
+    final int statistics_tracked_users;
+
+    final int seen_flush_interval;
+    final int seen_flush_size;
+
+    final int url_cache_size;
+    final long url_cache_error_ttl;
+    final Map<String, Long> url_cache_ttl;
+    final int url_title_max_bytes;
+    final int url_max_in_flight;
+
+    final int message_burst;
+    final int message_interval;
+    final int message_queue_size;
+
+    final int http_connect_timeout;
+    final int http_read_timeout;
+    final long http_request_timeout;
+    final int http_max_per_host;
+    final int http_max_redirects;
+    final int http_retries;
+    final int http_retry_delay;
+    final int http_max_body_size;
+
+    final String[] worker_pools;
+    final boolean worker_virtual;
+
+    final int config_watch_interval;
+
+    final int watcher_threads;
+    final int watcher_jitter;
+    final int watcher_max_backoff;
+    final String watcher_state_file;
+    final int watcher_catchup_limit;
+
+    final String log_output;
+
+    final String user_agent;
+
+    final String steam_api_key;
+
+    final String twitter_access_token;
+    final String twitter_access_secret;
+    final String twitter_consumer_key;
+    final String twitter_consumer_secret;
+    final int twitter_mentions_interval;
+    final int tweet_interval;
+    final int tweet_queue_size;
+
+    /**
+     * Class constructor
+     * @param config the contents of the properties file
+     * @throws IllegalArgumentException if a required setting is missing or a number is invalid
+     */
+    public ConfigurationSnapshot(Properties config) {
+        try {
+            Map<String, String> values = new HashMap<String, String>();
+            for(String key : config.stringPropertyNames()) {
+                values.put(key, config.getProperty(key).trim());
+            }
+            properties = Collections.unmodifiableMap(values);
+            nick = config.getProperty("nick");
+            user = config.getProperty("user");
+            server = config.getProperty("server");
+            port = Integer.parseInt(config.getProperty("port"));
+            password = config.getProperty("password");
+            use_ssl = Boolean.parseBoolean(config.getProperty("use_ssl"));
+            ssl_verify = Boolean.parseBoolean(config.getProperty("ssl_verify"));
+            channels = config.getProperty("channels").split(",");
+            command_prefix = config.getProperty("command_prefix").charAt(0);
+            channel_announcement = config.getProperty("channel_announcement");
+            channel_participating = config.getProperty("channel_participating").split(",");
+            Set<String> disabled = new HashSet<String>();
+            for(String function : config.getProperty("disabled_functions").split(",")) {
+                disabled.add(function.trim());
+            }
+            disabled_functions = Collections.unmodifiableSet(disabled);
+            main_channel = config.getProperty("main_channel");
+            watchSubreddits = config.getProperty("watch_subreddits").split(",");
+            watchYouTubers = config.getProperty("watch_youtubers").split(",");
+            votekickDuration = Integer.parseInt(config.getProperty("votekick_duration"));
+            votekickPassPercent = Integer.parseInt(config.getProperty("votekick_pass_percent"));
+            admin_nick = config.getProperty("admin_nick");
+            admin_hostmask = config.getProperty("admin_hostmask");
+            database_driver = config.getProperty("database_driver");
+            boolean mysql = database_driver.equalsIgnoreCase("mysql");
+            mysql_server = mysql ? config.getProperty("mysql_server") : null;
+            mysql_user = mysql ? config.getProperty("mysql_user") : null;
+            mysql_password = mysql ? config.getProperty("mysql_password") : null;
+            mysql_database = mysql ? config.getProperty("mysql_database") : null;
+            sqlite_database = database_driver.equalsIgnoreCase("sqlite") ? config.getProperty("sqlite_database") : null;
+            database_pool_min = Integer.parseInt(config.getProperty("database_pool_min", "1").trim());
+            database_pool_max = Integer.parseInt(config.getProperty("database_pool_max", "8").trim());
+            database_pool_validation_query = config.getProperty("database_pool_validation_query", "SELECT 1").trim();
+            database_pool_idle_timeout = Long.parseLong(config.getProperty("database_pool_idle_timeout", "300").trim()) * 1000;
+            database_pool_leak_threshold = Long.parseLong(config.getProperty("database_pool_leak_threshold", "60").trim()) * 1000;
+            database_pool_abandon_timeout = Long.parseLong(config.getProperty("database_pool_abandon_timeout", "600").trim()) * 1000;
+            database_pool_wait_timeout = Long.parseLong(config.getProperty("database_pool_wait_timeout", "10").trim()) * 1000;
+            statistics_tracked_users = Integer.parseInt(config.getProperty("statistics_tracked_users", "100").trim());
+            seen_flush_interval = Integer.parseInt(config.getProperty("seen_flush_interval", "10").trim());
+            seen_flush_size = Integer.parseInt(config.getProperty("seen_flush_size", "200").trim());
+            url_cache_size = Integer.parseInt(config.getProperty("url_cache_size", "500").trim());
+            url_cache_error_ttl = Long.parseLong(config.getProperty("url_cache_error_ttl", "60").trim()) * 1000;
+            http_connect_timeout = Integer.parseInt(config.getProperty("http_connect_timeout", "5").trim()) * 1000;
+            http_read_timeout = Integer.parseInt(config.getProperty("http_read_timeout", "10").trim()) * 1000;
+            http_request_timeout = Long.parseLong(config.getProperty("http_request_timeout", "30").trim()) * 1000;
+            http_max_per_host = Integer.parseInt(config.getProperty("http_max_per_host", "4").trim());
+            http_max_redirects = Integer.parseInt(config.getProperty("http_max_redirects", "5").trim());
+            http_retries = Integer.parseInt(config.getProperty("http_retries", "2").trim());
+            http_retry_delay = Integer.parseInt(config.getProperty("http_retry_delay", "500").trim());
+            http_max_body_size = Integer.parseInt(config.getProperty("http_max_body_size", "1048576").trim());
+            url_title_max_bytes = Integer.parseInt(config.getProperty("url_title_max_bytes", "65536").trim());
+            url_max_in_flight = Integer.parseInt(config.getProperty("url_max_in_flight", "8").trim());
+            message_burst = Integer.parseInt(config.getProperty("message_burst", "5").trim());
+            message_interval = Integer.parseInt(config.getProperty("message_interval", "1000").trim());
+            message_queue_size = Integer.parseInt(config.getProperty("message_queue_size", "200").trim());
+            Map<String, Long> ttls = new HashMap<String, Long>();
+            for(String entry : config.getProperty("url_cache_ttl", "tweet:86400,reddit:300,imgur:300,youtube:3600,vimeo:3600,url:1800").split(",")) {
+                String[] parts = entry.split(":");
+                if(parts.length == 2) ttls.put(parts[0].trim().toLowerCase(Locale.ENGLISH), Long.parseLong(parts[1].trim()) * 1000);
+            }
+            url_cache_ttl = Collections.unmodifiableMap(ttls);
+            worker_pools = config.getProperty("worker_pools", "").split(",");
+            worker_virtual = config.getProperty("worker_mode", "platform").trim().equalsIgnoreCase("virtual");
+            config_watch_interval = Integer.parseInt(config.getProperty("config_watch_interval", "10").trim());
+            watcher_threads = Integer.parseInt(config.getProperty("watcher_threads", "2").trim());
+            watcher_jitter = Integer.parseInt(config.getProperty("watcher_jitter", "10").trim());
+            watcher_max_backoff = Integer.parseInt(config.getProperty("watcher_max_backoff", "4").trim());
+            watcher_state_file = config.getProperty("watcher_state_file", "watcher.state").trim();
+            watcher_catchup_limit = Integer.parseInt(config.getProperty("watcher_catchup_limit", "5").trim());
+            log_output = config.getProperty("log_output");
+            user_agent = config.getProperty("user_agent");
+            steam_api_key = config.getProperty("steam_api_key");
+            twitter_access_token = config.getProperty("twitter_access_token");
+            twitter_access_secret = config.getProperty("twitter_access_secret");
+            twitter_consumer_key = config.getProperty("twitter_consumer_key");
+            twitter_consumer_secret = config.getProperty("twitter_consumer_secret");
+            twitter_mentions_interval = Integer.parseInt(config.getProperty("twitter_mentions_interval", "5").trim());
+            tweet_interval = Integer.parseInt(config.getProperty("tweet_interval", "2").trim());
+            tweet_queue_size = Integer.parseInt(config.getProperty("tweet_queue_size", "50").trim());
+        } catch (NullPointerException ex) {
+            throw new IllegalArgumentException("A required setting is missing from the properties file", ex);
+        } catch (StringIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("The command prefix cannot be empty", ex);
+        }
+    }
+
+    /**
+     * Returns the names of the settings which differ between two snapshots
+     * @param previous the snapshot to compare against, or null if there isn't one
+     * @return the names of the settings which were added, removed or changed, in alphabetical order
+     */
+    public Set<String> getChangedKeys(ConfigurationSnapshot previous) {
+        Set<String> changed = new TreeSet<String>();
+        if(previous == null) {
+            changed.addAll(properties.keySet());
+            return changed;
+        }
+        for(Map.Entry<String, String> entry : properties.entrySet()) {
+            if(!entry.getValue().equals(previous.properties.get(entry.getKey()))) changed.add(entry.getKey());
+        }
+        for(String key : previous.properties.keySet()) {
+            if(!properties.containsKey(key)) changed.add(key);
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the functions which were enabled in one snapshot and disabled in the other
+     * @param previous the snapshot to compare against
+     * @return the functions which were enabled or disabled
+     */
+    public Set<String> getToggledFunctions(ConfigurationSnapshot previous) {
+        Set<String> toggled = new TreeSet<String>(disabled_functions);
+        toggled.addAll(previous.disabled_functions);
+        Set<String> unchanged = new HashSet<String>(disabled_functions);
+        unchanged.retainAll(previous.disabled_functions);
+        toggled.removeAll(unchanged);
+        return toggled;
+    }
+}
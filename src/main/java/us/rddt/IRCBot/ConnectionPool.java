@@ -0,0 +1,421 @@
+package us.rddt.IRCBot;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * A small JDBC connection pool used by the Database class. Physical connections
+ * are kept open between handler invocations and handed out as proxies whose
+ * close() method returns the connection to the pool. Idle connections above the
+ * configured minimum are evicted, stale connections are validated before reuse,
+ * and connections held for too long are reported along with the stack trace of
+ * the code that borrowed them.
+ *
+ * @see us.rddt.IRCBot.Database
+ * @author Ryan Morrison
+ */
+public class ConnectionPool {
+    /*
+     * Class variables.
+     */
+    private final String url;
+    private final int minSize;
+    private final int maxSize;
+    private final String validationQuery;
+    private final long idleTimeout;
+    private final long leakThreshold;
+    private final long abandonTimeout;
+    private final long waitTimeout;
+
+    private final LinkedList<PooledConnection> idle = new LinkedList<PooledConnection>();
+    private final Set<PooledConnection> borrowed = new HashSet<PooledConnection>();
+    private final ScheduledExecutorService maintenance;
+    private boolean closed = false;
+
+    // Pool metrics
+    private int peakBorrowed;
+    private long created;
+    private long destroyed;
+    private long borrows;
+    private long waits;
+    private long timeouts;
+    private long leaks;
+    private long abandoned;
+    private long totalWaitTime;
+
+    // Connections idle for less than this are assumed valid without running the validation query
+    private static final long VALIDATION_INTERVAL = 30 * 1000;
+
+    /**
+     * Class constructor
+     * @param url the JDBC URL to connect to
+     * @param minSize the number of connections to keep open at all times
+     * @param maxSize the maximum number of connections to open
+     * @param validationQuery the query used to check a connection is still alive
+     * @param idleTimeout the time in milliseconds after which idle connections above the minimum are closed
+     * @param leakThreshold the time in milliseconds after which a borrowed connection is reported as leaked
+     * @param abandonTimeout the time in milliseconds after which a leaked connection is forcibly closed, or 0 to never close it
+     * @param waitTimeout the time in milliseconds to wait for a free connection when the pool is exhausted
+     */
+    public ConnectionPool(String url, int minSize, int maxSize, String validationQuery, long idleTimeout, long leakThreshold, long abandonTimeout, long waitTimeout) {
+        this.url = url;
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(0, Math.min(minSize, this.maxSize));
+        this.validationQuery = validationQuery;
+        this.idleTimeout = idleTimeout;
+        this.leakThreshold = leakThreshold;
+        this.abandonTimeout = abandonTimeout;
+        this.waitTimeout = waitTimeout;
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "IRCBot-dbpool");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        maintenance.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                // An exception escaping a scheduled task cancels every later run, so none may leave it
+                try {
+                    maintain();
+                } catch (Throwable t) {
+                    Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(t));
+                }
+            }
+        }, 30, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool. The connection must be closed to return it to the pool.
+     * @return a pooled connection
+     * @throws SQLException if a connection cannot be opened or none became available in time
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.currentTimeMillis();
+        boolean waited = false;
+        PooledConnection pooled = null;
+        synchronized(this) {
+            while(pooled == null) {
+                if(closed) throw new SQLException("The connection pool has been shut down");
+                if(!idle.isEmpty()) {
+                    // Reuse the most recently returned connection, it is the least likely to have timed out
+                    pooled = idle.removeFirst();
+                } else if(borrowed.size() < maxSize) {
+                    // Reserve the slot while the connection is opened outside of the lock
+                    pooled = new PooledConnection();
+                } else {
+                    long remaining = waitTimeout - (System.currentTimeMillis() - start);
+                    if(remaining <= 0) {
+                        timeouts++;
+                        throw new SQLException("Timed out waiting for a database connection (" + borrowed.size() + " of " + maxSize + " in use)");
+                    }
+                    if(!waited) {
+                        waits++;
+                        waited = true;
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection");
+                    }
+                    continue;
+                }
+                borrowed.add(pooled);
+                // Mark the borrow while still holding the lock so maintain() never sees the previous borrower's time
+                pooled.borrowedAt = System.currentTimeMillis();
+                pooled.borrowStack = new Exception("Connection borrowed by " + Thread.currentThread().getName());
+                pooled.reported = false;
+                peakBorrowed = Math.max(peakBorrowed, borrowed.size());
+                borrows++;
+                if(waited) totalWaitTime += System.currentTimeMillis() - start;
+            }
+        }
+        try {
+            if(pooled.physical == null) {
+                pooled.open();
+            } else if(System.currentTimeMillis() - pooled.lastUsed > VALIDATION_INTERVAL && !pooled.validate()) {
+                pooled.destroy();
+                pooled.open();
+            }
+        } catch (SQLException ex) {
+            synchronized(this) {
+                borrowed.remove(pooled);
+                notifyAll();
+            }
+            throw ex;
+        }
+        return pooled.createHandle();
+    }
+
+    /**
+     * Returns a connection to the pool
+     * @param pooled the connection being returned
+     * @param broken true if the connection should be discarded instead of reused
+     */
+    private void release(PooledConnection pooled, boolean broken) {
+        boolean discard;
+        synchronized(this) {
+            // A connection that was forcibly reclaimed has already been removed
+            if(!borrowed.remove(pooled)) return;
+            discard = broken || closed;
+            if(!discard) {
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.addFirst(pooled);
+            }
+            notifyAll();
+        }
+        if(discard) pooled.destroy();
+    }
+
+    /**
+     * Evicts idle connections, tops the pool up to its minimum size and reports leaked connections
+     */
+    void maintain() {
+        List<PooledConnection> toDestroy = new ArrayList<PooledConnection>();
+        int toCreate;
+        synchronized(this) {
+            if(closed) return;
+            long now = System.currentTimeMillis();
+            // Evict the connections which have been idle the longest first
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while(it.hasNext() && idle.size() + borrowed.size() > minSize) {
+                PooledConnection pooled = it.next();
+                if(now - pooled.lastUsed > idleTimeout) {
+                    it.remove();
+                    toDestroy.add(pooled);
+                }
+            }
+            // Report and optionally reclaim connections which were never returned
+            Iterator<PooledConnection> borrowedIt = borrowed.iterator();
+            while(borrowedIt.hasNext()) {
+                PooledConnection pooled = borrowedIt.next();
+                // Skip connections which are still being opened by the borrowing thread
+                if(pooled.physical == null) continue;
+                long held = now - pooled.borrowedAt;
+                if(leakThreshold > 0 && held > leakThreshold && !pooled.reported) {
+                    pooled.reported = true;
+                    leaks++;
+                    Configuration.getLogger().write(Level.WARNING, "Database connection held for " + (held / 1000) + " seconds, possible leak:\n" + IRCUtils.getStackTraceString(pooled.borrowStack));
+                }
+                if(abandonTimeout > 0 && held > abandonTimeout) {
+                    borrowedIt.remove();
+                    toDestroy.add(pooled);
+                    abandoned++;
+                    Configuration.getLogger().write(Level.WARNING, "Reclaiming database connection abandoned for " + (held / 1000) + " seconds");
+                }
+            }
+            toCreate = minSize - (idle.size() + borrowed.size());
+            if(!toDestroy.isEmpty()) notifyAll();
+        }
+        for(PooledConnection pooled : toDestroy) {
+            pooled.destroy();
+        }
+        for(int i = 0; i < toCreate; i++) {
+            PooledConnection pooled = new PooledConnection();
+            try {
+                pooled.open();
+            } catch (SQLException ex) {
+                Configuration.getLogger().write(Level.WARNING, "Unable to open database connection: " + ex.getMessage());
+                return;
+            }
+            synchronized(this) {
+                if(closed || idle.size() + borrowed.size() >= maxSize) {
+                    toCreate = 0;
+                } else {
+                    pooled.lastUsed = System.currentTimeMillis();
+                    idle.addLast(pooled);
+                    notifyAll();
+                    continue;
+                }
+            }
+            pooled.destroy();
+        }
+    }
+
+    /**
+     * Shuts down the pool. Idle connections are closed immediately, borrowed connections are closed as they are returned.
+     */
+    public void shutdown() {
+        List<PooledConnection> toDestroy;
+        synchronized(this) {
+            closed = true;
+            toDestroy = new ArrayList<PooledConnection>(idle);
+            idle.clear();
+            notifyAll();
+        }
+        maintenance.shutdownNow();
+        for(PooledConnection pooled : toDestroy) {
+            pooled.destroy();
+        }
+    }
+
+    /**
+     * Returns whether the pool was created with the provided settings
+     * @return true if the settings match, false if the pool must be recreated
+     */
+    public boolean isConfiguredAs(String url, int minSize, int maxSize, String validationQuery, long idleTimeout, long leakThreshold, long abandonTimeout, long waitTimeout) {
+        return this.url.equals(url) && this.minSize == Math.max(0, Math.min(minSize, Math.max(1, maxSize))) && this.maxSize == Math.max(1, maxSize)
+                && this.validationQuery.equals(validationQuery) && this.idleTimeout == idleTimeout && this.leakThreshold == leakThreshold
+                && this.abandonTimeout == abandonTimeout && this.waitTimeout == waitTimeout;
+    }
+
+    /**
+     * Returns the number of connections currently borrowed
+     * @return the number of connections currently borrowed
+     */
+    public synchronized int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Returns the number of idle connections
+     * @return the number of idle connections
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns a one-line summary of the pool's utilization
+     * @return a one-line summary of the pool's utilization
+     */
+    public synchronized String toString() {
+        return "database: " + borrowed.size() + "/" + maxSize + " in use (peak " + peakBorrowed + "), " + idle.size() + " idle, "
+                + borrows + " borrowed, " + waits + " waited (avg " + (waits > 0 ? totalWaitTime / waits : 0) + " ms), " + timeouts + " timed out, "
+                + created + " opened, " + destroyed + " closed, " + leaks + " leaked, " + abandoned + " reclaimed";
+    }
+
+    /**
+     * A physical connection managed by the pool
+     */
+    private class PooledConnection {
+        private volatile Connection physical;
+        private long lastUsed;
+        private long borrowedAt;
+        private Exception borrowStack;
+        private boolean reported;
+
+        private void open() throws SQLException {
+            physical = DriverManager.getConnection(url);
+            synchronized(ConnectionPool.this) {
+                created++;
+            }
+        }
+
+        private boolean validate() {
+            Statement statement = null;
+            try {
+                statement = physical.createStatement();
+                statement.execute(validationQuery);
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            } finally {
+                try {
+                    if(statement != null) statement.close();
+                } catch (SQLException ex) {
+                }
+            }
+        }
+
+        private void destroy() {
+            if(physical == null) return;
+            try {
+                physical.close();
+            } catch (SQLException ex) {
+            }
+            physical = null;
+            synchronized(ConnectionPool.this) {
+                destroyed++;
+            }
+        }
+
+        private Connection createHandle() {
+            return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new ConnectionHandle(this));
+        }
+    }
+
+    /**
+     * The connection handed out to callers. Statements created through it are
+     * tracked and closed when the connection is returned to the pool.
+     */
+    private class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final List<Statement> statements = new ArrayList<Statement>();
+        private boolean returned = false;
+
+        private ConnectionHandle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if(name.equals("close")) {
+                returnToPool();
+                return null;
+            } else if(name.equals("isClosed")) {
+                return returned || pooled.physical == null;
+            } else if(name.equals("equals")) {
+                return proxy == args[0];
+            } else if(name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if(name.equals("toString")) {
+                return "Pooled connection to " + url;
+            }
+            // Read the connection once, it is cleared if the connection is reclaimed from another thread
+            Connection physical = pooled.physical;
+            if(returned || physical == null) throw new SQLException("Connection has already been returned to the pool");
+            try {
+                Object result = method.invoke(physical, args);
+                if(result instanceof Statement) statements.add((Statement)result);
+                return result;
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        private synchronized void returnToPool() {
+            if(returned) return;
+            returned = true;
+            Connection physical = pooled.physical;
+            boolean broken = physical == null;
+            for(Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException ex) {
+                    broken = true;
+                }
+            }
+            statements.clear();
+            try {
+                // Don't hand a connection with an open transaction to the next borrower
+                if(!broken && !physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+            } catch (SQLException ex) {
+                broken = true;
+            }
+            release(pooled, broken);
+        }
+    }
+}
@@ -2,7 +2,6 @@ package us.rddt.IRCBot;
 
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -22,6 +21,8 @@ public class Database {
     private ResultSet resultSet = null;
     private Statement statement = null;
 
+    private static ConnectionPool pool = null;
+
     /**
      * Class constructor.
      */
@@ -35,26 +36,93 @@ public class Database {
      * @throws IOException if the properties file cannot be loaded
      */
     public void connect() throws SQLException, ClassNotFoundException, IOException {
+        connection = getPool().getConnection();
+        statement = connection.createStatement();
+    }
+
+    /**
+     * Cleans up any potential connections left behind when the database was accessed
+     * and returns the connection to the pool. Calling this more than once has no effect.
+     * @throws SQLException if a SQL exception occurs
+     */
+    public void disconnect() throws SQLException {
+        try {
+            if(resultSet != null) resultSet.close();
+            if(statement != null) statement.close();
+        } finally {
+            resultSet = null;
+            statement = null;
+            // Closing a pooled connection returns it to the pool
+            if(connection != null) {
+                Connection pooled = connection;
+                connection = null;
+                pooled.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the connection pool, creating it if it does not yet exist
+     * @return the connection pool
+     * @throws SQLException if the database configuration is invalid
+     * @throws ClassNotFoundException if the JDBC driver cannot be loaded
+     */
+    public static synchronized ConnectionPool getPool() throws SQLException, ClassNotFoundException {
+        if(pool == null) configurePool();
+        return pool;
+    }
+
+    /**
+     * Creates the connection pool, or recreates it if its settings have changed since it was created
+     * @throws SQLException if the database configuration is invalid
+     * @throws ClassNotFoundException if the JDBC driver cannot be loaded
+     */
+    public static synchronized void configurePool() throws SQLException, ClassNotFoundException {
+        String url;
         if(Configuration.getDatabaseDriver().equalsIgnoreCase("mysql")) {
             Class.forName("com.mysql.jdbc.Driver");
-            connection = DriverManager.getConnection("jdbc:mysql://" + Configuration.getMySQLServer() + "/" + Configuration.getMySQLDatabase() + "?user=" + Configuration.getMySQLUser() + "&password=" + Configuration.getMySQLPassword());
+            url = "jdbc:mysql://" + Configuration.getMySQLServer() + "/" + Configuration.getMySQLDatabase() + "?user=" + Configuration.getMySQLUser() + "&password=" + Configuration.getMySQLPassword();
         } else if(Configuration.getDatabaseDriver().equalsIgnoreCase("sqlite")) {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection("jdbc:sqlite:" + Configuration.getSQLiteDatabase() + ".db");
+            url = "jdbc:sqlite:" + Configuration.getSQLiteDatabase() + ".db";
         } else {
             throw new SQLException("Invalid SQL configuration in properties file");
         }
-        statement = connection.createStatement();
+        if(pool != null && pool.isConfiguredAs(url, Configuration.getDatabasePoolMin(), Configuration.getDatabasePoolMax(), Configuration.getDatabasePoolValidationQuery(),
+                Configuration.getDatabasePoolIdleTimeout(), Configuration.getDatabasePoolLeakThreshold(), Configuration.getDatabasePoolAbandonTimeout(), Configuration.getDatabasePoolWaitTimeout())) {
+            return;
+        }
+        ConnectionPool existing = pool;
+        pool = new ConnectionPool(url, Configuration.getDatabasePoolMin(), Configuration.getDatabasePoolMax(), Configuration.getDatabasePoolValidationQuery(),
+                Configuration.getDatabasePoolIdleTimeout(), Configuration.getDatabasePoolLeakThreshold(), Configuration.getDatabasePoolAbandonTimeout(), Configuration.getDatabasePoolWaitTimeout());
+        // Connections still borrowed from the old pool are closed when they are returned
+        if(existing != null) existing.shutdown();
     }
 
     /**
-     * Cleans up any potential connections left behind when the database was accessed
+     * Creates the database schema, or upgrades it if it is out of date
      * @throws SQLException if a SQL exception occurs
+     * @throws ClassNotFoundException if the JDBC driver cannot be loaded
+     * @throws IOException if the properties file cannot be loaded
      */
-    public void disconnect() throws SQLException {
-        if(resultSet != null) resultSet.close();
-        if(statement != null) statement.close();
-        if(connection != null) connection.close();
+    public static void migrate() throws SQLException, ClassNotFoundException, IOException {
+        Database database = new Database();
+        try {
+            database.connect();
+            SchemaMigrator.migrate(database.getConnection(), Configuration.getDatabaseDriver().equalsIgnoreCase("sqlite"));
+        } finally {
+            database.disconnect();
+        }
+    }
+
+    /**
+     * Closes every pooled connection
+     */
+    public static synchronized void shutdownPool() {
+        if(pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
     /**
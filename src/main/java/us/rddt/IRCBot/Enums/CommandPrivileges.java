@@ -0,0 +1,7 @@
+package us.rddt.IRCBot.Enums;
+
+public enum CommandPrivileges {
+    ANYONE,
+    OPERATOR,
+    ADMIN
+}
@@ -0,0 +1,7 @@
+package us.rddt.IRCBot.Enums;
+
+public enum MessagePriority {
+    ADMIN,
+    INTERACTIVE,
+    BROADCAST
+}
@@ -0,0 +1,44 @@
+package us.rddt.IRCBot.Enums;
+
+public enum WorkerPools {
+    COMMAND("command", 4, 100),
+    SHOUT("shout", 2, 50),
+    SEEN("seen", 2, 500),
+    URL("url", 4, 50),
+    VOTEKICK("votekick", 8, 20),
+    BACKGROUND("background", 1, 20);
+
+    private final String key;
+    private final int defaultThreads;
+    private final int defaultQueueSize;
+
+    private WorkerPools(String key, int defaultThreads, int defaultQueueSize) {
+        this.key = key;
+        this.defaultThreads = defaultThreads;
+        this.defaultQueueSize = defaultQueueSize;
+    }
+
+    /**
+     * Returns the key used to configure the pool in IRCBot.properties
+     * @return the configuration key of the pool
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the number of worker threads used when the pool is not configured
+     * @return the default number of worker threads
+     */
+    public int getDefaultThreads() {
+        return defaultThreads;
+    }
+
+    /**
+     * Returns the queue capacity used when the pool is not configured
+     * @return the default queue capacity
+     */
+    public int getDefaultQueueSize() {
+        return defaultQueueSize;
+    }
+}
@@ -0,0 +1,408 @@
+package us.rddt.IRCBot.Execution;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.pircbotx.hooks.events.PrivateMessageEvent;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Enums.MessagePriority;
+
+/**
+ * Sends every message the bot writes to IRC, at a rate the server will accept.
+ * Messages are sent by a single thread which takes a token from a token bucket
+ * for each line, so short bursts go out immediately while a sustained flood is
+ * slowed down instead of getting the bot disconnected. Messages are queued in
+ * priority lanes, so administrator and interactive replies overtake watcher
+ * broadcasts, and within a lane each target takes its turn, so one channel's long
+ * output doesn't hold up the others. A broadcast identical to one already waiting
+ * for the same target is dropped.
+ *
+ * @author Ryan Morrison
+ */
+public class MessageScheduler {
+    private static final Object lock = new Object();
+    private static final Lane[] lanes = new Lane[MessagePriority.values().length];
+    private static Thread sender = null;
+    private static int queued = 0;
+    private static boolean sending = false;
+
+    // Token bucket, refilled continuously at one token per message interval
+    private static double tokens = -1;
+    private static long lastRefill = 0;
+
+    // Lines longer than this are split into several lines by the bot
+    private static final int LINE_LENGTH = 400;
+
+    // Where the time comes from and where messages go, replaced by the tests
+    private static Clock clock = new Clock() {
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        public void sleep(long millis) throws InterruptedException {
+            Thread.sleep(millis);
+        }
+    };
+    private static Output output = new Output() {
+        public void send(Message message) {
+            if(message.channel != null) {
+                if(message.notice) message.bot.sendNotice(message.channel, message.text);
+                else message.bot.sendMessage(message.channel, message.text);
+            } else {
+                message.bot.sendMessage(message.user, message.text);
+            }
+        }
+    };
+
+    static {
+        for(MessagePriority priority : MessagePriority.values()) {
+            lanes[priority.ordinal()] = new Lane();
+        }
+    }
+
+    /**
+     * Replies to a channel message, prefixing the reply with the user's nick
+     * @param event the message to reply to
+     * @param message the reply
+     */
+    public static void respond(MessageEvent<PircBotX> event, String message) {
+        enqueue(new Message(event.getBot(), event.getChannel(), null, false, event.getUser().getNick() + ": " + message), MessagePriority.INTERACTIVE);
+    }
+
+    /**
+     * Replies to a private message
+     * @param event the message to reply to
+     * @param message the reply
+     */
+    public static void respond(PrivateMessageEvent<PircBotX> event, String message) {
+        respond(event, message, MessagePriority.INTERACTIVE);
+    }
+
+    /**
+     * Replies to a private message
+     * @param event the message to reply to
+     * @param message the reply
+     * @param priority the lane to send the reply in
+     */
+    public static void respond(PrivateMessageEvent<PircBotX> event, String message, MessagePriority priority) {
+        enqueue(new Message(event.getBot(), null, event.getUser(), false, message), priority);
+    }
+
+    /**
+     * Sends a message to a channel as an interactive reply
+     * @param bot the IRC bot
+     * @param channel the channel to send the message to
+     * @param message the message to send
+     */
+    public static void sendMessage(PircBotX bot, Channel channel, String message) {
+        sendMessage(bot, channel, message, MessagePriority.INTERACTIVE);
+    }
+
+    /**
+     * Sends a message to a channel
+     * @param bot the IRC bot
+     * @param channel the channel to send the message to
+     * @param message the message to send
+     * @param priority the lane to send the message in
+     */
+    public static void sendMessage(PircBotX bot, Channel channel, String message, MessagePriority priority) {
+        enqueue(new Message(bot, channel, null, false, message), priority);
+    }
+
+    /**
+     * Sends a private message to a user
+     * @param bot the IRC bot
+     * @param user the user to send the message to
+     * @param message the message to send
+     * @param priority the lane to send the message in
+     */
+    public static void sendMessage(PircBotX bot, User user, String message, MessagePriority priority) {
+        enqueue(new Message(bot, null, user, false, message), priority);
+    }
+
+    /**
+     * Sends a notice to a channel
+     * @param bot the IRC bot
+     * @param channel the channel to send the notice to
+     * @param message the notice to send
+     * @param priority the lane to send the notice in
+     */
+    public static void sendNotice(PircBotX bot, Channel channel, String message, MessagePriority priority) {
+        enqueue(new Message(bot, channel, null, true, message), priority);
+    }
+
+    /**
+     * Waits for every queued message to be sent, such as before disconnecting
+     * @param timeout the most milliseconds to wait
+     * @return true if every message was sent, false if the timeout passed first
+     */
+    public static boolean flush(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized(lock) {
+            while(queued > 0 || sending) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) return false;
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a summary of each lane's activity
+     * @return a line of statistics for each lane
+     */
+    public static String[] getStatistics() {
+        String[] lines = new String[lanes.length];
+        for(MessagePriority priority : MessagePriority.values()) {
+            Lane lane = lanes[priority.ordinal()];
+            int waiting;
+            synchronized(lock) {
+                waiting = lane.size;
+            }
+            long sent = lane.sent.get();
+            lines[priority.ordinal()] = "messages " + priority.name().toLowerCase(Locale.ENGLISH) + ": " + waiting + " waiting, " + sent + " sent, "
+                    + lane.coalesced.get() + " coalesced, " + lane.dropped.get() + " dropped"
+                    + (sent > 0 ? ", " + (lane.latency.get() / sent) + " ms average wait, " + lane.maximumLatency.get() + " ms longest" : "");
+        }
+        return lines;
+    }
+
+    /**
+     * Discards every waiting message and statistic and stops the sending thread, then sends later messages with the given clock and output
+     * @param clock the clock to take the time from and sleep with
+     * @param output the output to send messages to
+     * @throws InterruptedException if interrupted while waiting for the sending thread to stop
+     */
+    static void reset(Clock clock, Output output) throws InterruptedException {
+        Thread stopped;
+        synchronized(lock) {
+            for(int i = 0; i < lanes.length; i++) {
+                lanes[i] = new Lane();
+            }
+            queued = 0;
+            MessageScheduler.clock = clock;
+            MessageScheduler.output = output;
+            stopped = sender;
+            sender = null;
+        }
+        if(stopped != null) {
+            stopped.interrupt();
+            stopped.join();
+        }
+        // Only the sending thread uses the bucket, so it is refilled once the old one has stopped
+        tokens = -1;
+    }
+
+    /**
+     * Queues a message, starting the sending thread if it isn't running
+     */
+    static void enqueue(Message message, MessagePriority priority) {
+        if(message.text == null) return;
+        Lane lane = lanes[priority.ordinal()];
+        synchronized(lock) {
+            if(lane.size >= Configuration.getMessageQueueSize()) {
+                lane.dropped.incrementAndGet();
+                return;
+            }
+            if(priority == MessagePriority.BROADCAST && !lane.broadcasts.add(message.target + "\n" + message.text)) {
+                lane.coalesced.incrementAndGet();
+                return;
+            }
+            lane.add(message);
+            queued++;
+            if(sender == null) {
+                sender = new Thread(new Sender(), "message-scheduler");
+                sender.setDaemon(true);
+                sender.start();
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Takes the next message from the highest priority lane with messages waiting
+     */
+    private static Message poll() {
+        for(int i = 0; i < lanes.length; i++) {
+            Message message = lanes[i].poll();
+            if(message != null) {
+                if(i == MessagePriority.BROADCAST.ordinal()) lanes[i].broadcasts.remove(message.target + "\n" + message.text);
+                queued--;
+                return message;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits until the bucket holds enough tokens to send a message, then takes them
+     */
+    private static void takeTokens(int count) throws InterruptedException {
+        long interval = Math.max(1, Configuration.getMessageInterval());
+        int burst = Math.max(1, Configuration.getMessageBurst());
+        while(true) {
+            long now = clock.currentTimeMillis();
+            if(tokens < 0) {
+                tokens = burst;
+            } else {
+                tokens = Math.min(burst, tokens + (double)(now - lastRefill) / interval);
+            }
+            lastRefill = now;
+            // A message longer than the burst is sent once the bucket is full
+            double needed = Math.min(count, burst);
+            if(tokens >= needed) {
+                tokens -= needed;
+                return;
+            }
+            clock.sleep((long)Math.ceil((needed - tokens) * interval));
+        }
+    }
+
+    /**
+     * Sends queued messages as fast as the token bucket allows
+     */
+    private static class Sender implements Runnable {
+        public void run() {
+            while(true) {
+                try {
+                    synchronized(lock) {
+                        // A sender replaced by reset() stops instead of taking the new sender's messages
+                        if(sender != Thread.currentThread()) return;
+                        while(queued == 0) lock.wait();
+                    }
+                    // The message is chosen after waiting for tokens, so anything more urgent queued meanwhile goes first
+                    takeTokens(1);
+                    Message message;
+                    synchronized(lock) {
+                        message = poll();
+                        sending = message != null;
+                    }
+                    if(message == null) continue;
+                    int lines = (message.text.length() + LINE_LENGTH - 1) / LINE_LENGTH;
+                    if(lines > 1) takeTokens(lines - 1);
+                    output.send(message);
+                    record(message);
+                } catch (InterruptedException ex) {
+                    return;
+                } catch (Exception ex) {
+                    Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+                } finally {
+                    synchronized(lock) {
+                        sending = false;
+                        lock.notifyAll();
+                    }
+                }
+            }
+        }
+
+        private void record(Message message) {
+            Lane lane = message.lane;
+            long waited = clock.currentTimeMillis() - message.queued;
+            lane.sent.incrementAndGet();
+            lane.latency.addAndGet(waited);
+            long longest;
+            while(waited > (longest = lane.maximumLatency.get()) && !lane.maximumLatency.compareAndSet(longest, waited));
+        }
+    }
+
+    /**
+     * The messages waiting in one priority lane, queued per target and sent round robin
+     */
+    private static class Lane {
+        private final Map<String, LinkedList<Message>> targets = new HashMap<String, LinkedList<Message>>();
+        private final LinkedList<String> rotation = new LinkedList<String>();
+        private final Set<String> broadcasts = new HashSet<String>();
+        private int size = 0;
+
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong latency = new AtomicLong();
+        private final AtomicLong maximumLatency = new AtomicLong();
+
+        private void add(Message message) {
+            message.lane = this;
+            LinkedList<Message> queue = targets.get(message.target);
+            if(queue == null) {
+                queue = new LinkedList<Message>();
+                targets.put(message.target, queue);
+                rotation.addLast(message.target);
+            }
+            queue.addLast(message);
+            size++;
+        }
+
+        private Message poll() {
+            if(rotation.isEmpty()) return null;
+            String target = rotation.removeFirst();
+            LinkedList<Message> queue = targets.get(target);
+            Message message = queue.removeFirst();
+            // Targets with more waiting go to the back of the rotation, empty ones are forgotten
+            if(queue.isEmpty()) targets.remove(target);
+            else rotation.addLast(target);
+            size--;
+            return message;
+        }
+    }
+
+    /**
+     * A message waiting to be sent
+     */
+    static class Message {
+        private final PircBotX bot;
+        private final Channel channel;
+        private final User user;
+        final boolean notice;
+        final String text;
+        final String target;
+        private final long queued = clock.currentTimeMillis();
+        private Lane lane;
+
+        private Message(PircBotX bot, Channel channel, User user, boolean notice, String text) {
+            this(bot, channel, user, (channel != null ? channel.getName() : user.getNick()), notice, text);
+        }
+
+        Message(PircBotX bot, Channel channel, User user, String target, boolean notice, String text) {
+            this.bot = bot;
+            this.channel = channel;
+            this.user = user;
+            this.notice = notice;
+            this.text = text;
+            this.target = target.toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    /**
+     * Tells the time and waits for the token bucket to refill
+     */
+    interface Clock {
+        long currentTimeMillis();
+
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /**
+     * Writes a message to the server
+     */
+    interface Output {
+        void send(Message message);
+    }
+}
@@ -0,0 +1,104 @@
+package us.rddt.IRCBot.Execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Enums.WorkerPools;
+
+/**
+ * Dispatches the bot's handlers to the bounded worker pool belonging to their
+ * feature. Pools are sized from the worker_pools setting in IRCBot.properties
+ * and are recreated on a configuration reload only if their settings changed.
+ *
+ * @author Ryan Morrison
+ */
+public class TaskDispatcher {
+    private static final Map<WorkerPools, WorkerPool> pools = new ConcurrentHashMap<WorkerPools, WorkerPool>();
+
+    /**
+     * Creates the worker pools, or recreates any pools whose settings have changed
+     */
+    public static synchronized void configure() {
+        for(WorkerPools type : WorkerPools.values()) {
+            int threads = type.getDefaultThreads();
+            int queueSize = type.getDefaultQueueSize();
+            boolean callerRuns = false;
+            // Syntax: pool:threads:queue[:policy]
+            for(String spec : Configuration.getWorkerPools()) {
+                String[] configuration = spec.trim().split(":");
+                if(configuration.length < 3 || !configuration[0].equalsIgnoreCase(type.getKey())) continue;
+                try {
+                    threads = Integer.parseInt(configuration[1]);
+                    queueSize = Integer.parseInt(configuration[2]);
+                } catch (NumberFormatException ex) {
+                    Configuration.getLogger().write(Level.WARNING, "Invalid worker pool configuration '" + spec + "', using defaults");
+                    threads = type.getDefaultThreads();
+                    queueSize = type.getDefaultQueueSize();
+                }
+                callerRuns = configuration.length > 3 && configuration[3].equalsIgnoreCase("caller");
+            }
+            WorkerPool existing = pools.get(type);
+            if(existing != null && existing.isConfiguredAs(threads, queueSize, callerRuns, Configuration.isVirtualWorkers())) continue;
+            Configuration.getLogger().write(Level.INFO, "Creating " + type.getKey() + " worker pool (" + threads + " threads, queue of " + queueSize + ")");
+            pools.put(type, new WorkerPool(type.getKey(), threads, queueSize, callerRuns, Configuration.isVirtualWorkers()));
+            // Tasks already queued on the old pool are still allowed to complete
+            if(existing != null) existing.shutdown();
+        }
+    }
+
+    /**
+     * Submits a task to the worker pool of a feature
+     * @param type the pool to run the task on
+     * @param task the task to run
+     * @return true if the task was accepted, false if the pool was full
+     */
+    public static boolean submit(WorkerPools type, Runnable task) {
+        WorkerPool pool = pools.get(type);
+        if(pool == null) {
+            configure();
+            pool = pools.get(type);
+        }
+        return pool.submit(task);
+    }
+
+    /**
+     * Returns the worker pool of a feature
+     * @param type the pool to return
+     * @return the worker pool, or null if the pools have not been configured
+     */
+    public static WorkerPool getPool(WorkerPools type) {
+        return pools.get(type);
+    }
+
+    /**
+     * Returns a summary of the state of each worker pool
+     * @return a list containing one line per worker pool
+     */
+    public static List<String> getStatistics() {
+        List<String> statistics = new ArrayList<String>();
+        for(WorkerPools type : WorkerPools.values()) {
+            WorkerPool pool = pools.get(type);
+            if(pool != null) statistics.add(pool.toString());
+        }
+        return statistics;
+    }
+
+    /**
+     * Shuts down every worker pool, giving queued tasks a short time to complete
+     */
+    public static synchronized void shutdown() {
+        for(WorkerPool pool : pools.values()) {
+            try {
+                pool.shutdown(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
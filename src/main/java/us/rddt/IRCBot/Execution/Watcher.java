@@ -0,0 +1,29 @@
+package us.rddt.IRCBot.Execution;
+
+/**
+ * A feed which is checked periodically for new items, such as a subreddit or a
+ * YouTube user's uploads.
+ *
+ * @see us.rddt.IRCBot.Execution.WatcherScheduler
+ * @author Ryan Morrison
+ */
+public interface Watcher {
+    /**
+     * Returns the name of the feed, as shown in the watcher statistics
+     * @return the name of the feed
+     */
+    public String getName();
+
+    /**
+     * Checks the feed once and announces anything new
+     * @return true if the feed had new items, false if it was quiet
+     * @throws Exception if the feed could not be checked
+     */
+    public boolean poll() throws Exception;
+
+    /**
+     * Returns statistics about the feed's downloads, shown after the scheduler's own statistics
+     * @return the feed's download statistics, or null if there are none
+     */
+    public String getStatistics();
+}
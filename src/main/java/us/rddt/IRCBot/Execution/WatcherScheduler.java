@@ -0,0 +1,183 @@
+package us.rddt.IRCBot.Execution;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import us.rddt.IRCBot.Configuration;
+
+/**
+ * Runs every feed watcher on one small pool of threads, however many feeds are
+ * watched. Each feed is checked at its own interval, which adapts to how busy the
+ * feed is: a check that finds something new halves the interval (down to half the
+ * configured one), a quiet check lengthens it by half and a failed check doubles it
+ * (up to the configured interval times watcher_max_backoff). Every delay is
+ * jittered so feeds added together don't stay in step, and the first check of each
+ * feed is spread randomly across its first interval.
+ *
+ * @author Ryan Morrison
+ */
+public class WatcherScheduler {
+    private static final List<Feed> feeds = new ArrayList<Feed>();
+    private static final Random random = new Random();
+    private static ScheduledThreadPoolExecutor scheduler = null;
+
+    /**
+     * Creates the watcher threads, or resizes them if the thread count has changed
+     */
+    public static synchronized void configure() {
+        int threads = Math.max(1, Configuration.getWatcherThreads());
+        if(scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "IRCBot-watcher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        } else if(scheduler.getCorePoolSize() != threads) {
+            scheduler.setCorePoolSize(threads);
+        }
+    }
+
+    /**
+     * Starts checking a feed
+     * @param group the group the feed belongs to, for cancelling the feeds of one kind together
+     * @param watcher the watcher which checks the feed
+     * @param interval the configured time between checks in milliseconds
+     */
+    public static synchronized void schedule(String group, Watcher watcher, long interval) {
+        if(scheduler == null) configure();
+        Feed feed = new Feed(group, watcher, Math.max(1000, interval));
+        feeds.add(feed);
+        // Spread the first checks across the first interval rather than starting every feed at once
+        feed.reschedule((long)(random.nextDouble() * feed.baseInterval));
+    }
+
+    /**
+     * Stops checking every feed in a group. Checks already running are allowed to finish.
+     * @param group the group of feeds to stop
+     */
+    public static synchronized void cancel(String group) {
+        for(Iterator<Feed> it = feeds.iterator(); it.hasNext();) {
+            Feed feed = it.next();
+            if(!feed.group.equals(group)) continue;
+            feed.cancelled = true;
+            if(feed.future != null) feed.future.cancel(false);
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns a one-line summary of all the watchers
+     * @return a one-line summary of all the watchers
+     */
+    public static synchronized String getStatistics() {
+        long runs = 0, errors = 0, found = 0;
+        for(Feed feed : feeds) {
+            runs += feed.runs;
+            errors += feed.errors;
+            found += feed.found;
+        }
+        return "watchers: " + feeds.size() + " feeds on " + (scheduler == null ? 0 : scheduler.getCorePoolSize()) + " threads, " + runs + " checks, "
+                + found + " with new items, " + errors + " failed";
+    }
+
+    /**
+     * Returns a line describing each feed's interval and recent checks
+     * @return a line for each feed
+     */
+    public static synchronized List<String> getFeedStatistics() {
+        List<String> lines = new ArrayList<String>();
+        long now = System.currentTimeMillis();
+        for(Feed feed : feeds) {
+            StringBuilder line = new StringBuilder(feed.watcher.getName());
+            line.append(": every ").append(feed.interval / 1000).append("s (configured ").append(feed.baseInterval / 1000).append("s)");
+            if(feed.lastRun == 0) {
+                line.append(", not checked yet");
+            } else {
+                line.append(", last checked ").append((now - feed.lastRun) / 1000).append("s ago in ").append(feed.lastDuration).append(" ms");
+            }
+            line.append(", ").append(feed.runs).append(" checks, ").append(feed.found).append(" with new items, ").append(feed.errors).append(" failed");
+            String statistics = feed.watcher.getStatistics();
+            if(statistics != null) line.append(", ").append(statistics);
+            if(feed.lastError != null) line.append(" (last error: ").append(feed.lastError).append(")");
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Returns a delay varied randomly by up to watcher_jitter percent either way
+     */
+    private static long jitter(long delay) {
+        double jitter = Math.max(0, Math.min(100, Configuration.getWatcherJitter())) / 100.0;
+        return Math.round(delay * (1 + (random.nextDouble() * 2 - 1) * jitter));
+    }
+
+    /**
+     * A watched feed and the record of its checks
+     */
+    private static class Feed implements Runnable {
+        private final String group;
+        private final Watcher watcher;
+        private final long baseInterval;
+        private volatile boolean cancelled = false;
+        private ScheduledFuture<?> future;
+
+        // Written by the check in progress, read under the scheduler's lock
+        private volatile long interval;
+        private volatile long lastRun = 0;
+        private volatile long lastDuration = 0;
+        private volatile long runs = 0;
+        private volatile long errors = 0;
+        private volatile long found = 0;
+        private volatile String lastError = null;
+
+        private Feed(String group, Watcher watcher, long baseInterval) {
+            this.group = group;
+            this.watcher = watcher;
+            this.baseInterval = baseInterval;
+            this.interval = baseInterval;
+        }
+
+        public void run() {
+            if(cancelled) return;
+            long started = System.currentTimeMillis();
+            long maximum = baseInterval * Math.max(1, Configuration.getWatcherMaxBackoff());
+            try {
+                if(watcher.poll()) {
+                    found++;
+                    interval = Math.max(baseInterval / 2, interval / 2);
+                } else {
+                    interval = Math.min(maximum, interval + interval / 2);
+                }
+                lastError = null;
+            } catch (Exception ex) {
+                errors++;
+                lastError = ex.toString();
+                interval = Math.min(maximum, interval * 2);
+                Configuration.getLogger().write(Level.WARNING, "Unable to check " + watcher.getName() + ": " + ex.toString());
+            } finally {
+                runs++;
+                lastRun = started;
+                lastDuration = System.currentTimeMillis() - started;
+                synchronized(WatcherScheduler.class) {
+                    if(!cancelled) reschedule(jitter(interval));
+                }
+            }
+        }
+
+        private void reschedule(long delay) {
+            future = scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package us.rddt.IRCBot.Execution;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.IRCUtils;
+
+/**
+ * A bounded pool of worker threads for a single bot feature. Tasks submitted to
+ * a full pool are rejected (or run on the submitting thread, if the pool is
+ * configured to do so) instead of spawning additional threads, which keeps the
+ * bot's thread count flat during netsplits and floods. On virtual threads every
+ * task gets a thread of its own, but no more than the configured number of
+ * threads run at once and the rest wait their turn as if they were queued.
+ *
+ * @author Ryan Morrison
+ */
+public class WorkerPool {
+    /*
+     * Class variables.
+     */
+    private final String name;
+    private final int threads;
+    private final int queueSize;
+    private final boolean callerRuns;
+    private final boolean requestedVirtual;
+    private final boolean virtual;
+
+    private final ExecutorService executor;
+    // Only used for virtual threads, which have no work queue of their own to bound: permits for the tasks running
+    // or waiting to run, and workers for the tasks running
+    private final Semaphore permits;
+    private final Semaphore workers;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Whether the lack of virtual threads has been reported, so it is only logged once rather than for every pool
+    private static final AtomicBoolean fallbackReported = new AtomicBoolean(false);
+
+    /**
+     * Class constructor
+     * @param name the name of the pool, used to name its threads
+     * @param threads the number of worker threads
+     * @param queueSize the number of tasks that may wait for a free worker
+     * @param callerRuns true if rejected tasks should run on the submitting thread, false to discard them
+     * @param useVirtualThreads true to run tasks on virtual threads if the JVM supports them
+     */
+    public WorkerPool(String name, int threads, int queueSize, boolean callerRuns, boolean useVirtualThreads) {
+        this.name = name;
+        this.threads = Math.max(1, threads);
+        this.queueSize = Math.max(1, queueSize);
+        this.callerRuns = callerRuns;
+        this.requestedVirtual = useVirtualThreads;
+
+        ExecutorService virtualExecutor = useVirtualThreads ? createVirtualExecutor(name) : null;
+        if(virtualExecutor != null) {
+            this.virtual = true;
+            this.executor = virtualExecutor;
+            this.permits = new Semaphore(this.threads + this.queueSize);
+            this.workers = new Semaphore(this.threads, true);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(this.queueSize), new NamedThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+            // Idle pools shouldn't hold on to their threads
+            pool.allowCoreThreadTimeOut(true);
+            this.virtual = false;
+            this.executor = pool;
+            this.permits = null;
+            this.workers = null;
+        }
+    }
+
+    /**
+     * Creates an executor which starts a new virtual thread for every task
+     * @param name the name of the pool
+     * @return the executor, or null if the JVM does not support virtual threads
+     */
+    private static ExecutorService createVirtualExecutor(String name) {
+        // Virtual threads only exist on Java 21 and newer, so they have to be looked up reflectively. The methods
+        // are looked up on the public Thread.Builder interface, as the builder's own class is internal to the JDK.
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+            builder = nameMethod.invoke(builder, "IRCBot-" + name + "-", 1L);
+            Method factoryMethod = builderClass.getMethod("factory");
+            ThreadFactory factory = (ThreadFactory)factoryMethod.invoke(builder);
+            return (ExecutorService)java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (Exception ex) {
+            if(fallbackReported.compareAndSet(false, true)) {
+                Configuration.getLogger().write(Level.WARNING, "Virtual threads are not supported by this JVM, using platform threads for the worker pools: " + ex);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Submits a task to the pool
+     * @param task the task to execute
+     * @return true if the task was accepted by the pool, false if it was rejected
+     */
+    public boolean submit(Runnable task) {
+        submitted.incrementAndGet();
+        if(permits != null && !permits.tryAcquire()) {
+            return reject(task);
+        }
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(new TrackedTask(task, permits != null));
+            return true;
+        } catch (RejectedExecutionException ex) {
+            inFlight.decrementAndGet();
+            if(permits != null) permits.release();
+            return reject(task);
+        }
+    }
+
+    /**
+     * Handles a task that could not be accepted by the pool
+     * @param task the rejected task
+     * @return false, as the task was not accepted by the pool
+     */
+    private boolean reject(Runnable task) {
+        long count = rejected.incrementAndGet();
+        // Avoid flooding the log when a pool is saturated for a long period of time
+        if(count == 1 || count % 100 == 0) {
+            Configuration.getLogger().write(Level.WARNING, "The " + name + " worker pool is saturated (" + count + " tasks rejected so far)");
+        }
+        if(callerRuns && !executor.isShutdown()) {
+            inFlight.incrementAndGet();
+            new TrackedTask(task, false).run();
+        }
+        return false;
+    }
+
+    /**
+     * Stops accepting new tasks, allowing queued tasks to finish
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Stops accepting new tasks and waits for queued tasks to finish
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if all tasks finished, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Returns whether the pool was created with the provided settings
+     * @param threads the number of worker threads
+     * @param queueSize the queue capacity
+     * @param callerRuns the rejection policy
+     * @param useVirtualThreads whether virtual threads were requested
+     * @return true if the settings match, false if the pool must be recreated
+     */
+    public boolean isConfiguredAs(int threads, int queueSize, boolean callerRuns, boolean useVirtualThreads) {
+        return this.threads == Math.max(1, threads) && this.queueSize == Math.max(1, queueSize) && this.callerRuns == callerRuns && this.requestedVirtual == useVirtualThreads;
+    }
+
+    /**
+     * Returns the name of the pool
+     * @return the name of the pool
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of tasks currently executing
+     * @return the number of tasks currently executing
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Returns the number of tasks waiting for a free worker
+     * @return the number of tasks waiting for a free worker
+     */
+    public int getQueueDepth() {
+        return Math.max(0, inFlight.get() - active.get());
+    }
+
+    /**
+     * Returns the total number of tasks submitted to the pool
+     * @return the total number of tasks submitted to the pool
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * Returns the total number of tasks that have finished executing
+     * @return the total number of tasks that have finished executing
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * Returns the total number of tasks that threw an exception
+     * @return the total number of tasks that threw an exception
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the total number of tasks rejected because the pool was full
+     * @return the total number of tasks rejected because the pool was full
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns a one-line summary of the pool's state
+     * @return a one-line summary of the pool's state
+     */
+    public String toString() {
+        return name + " (" + threads + (virtual ? " virtual threads" : " threads") + "): " + getActiveCount() + " active, " + getQueueDepth() + "/" + queueSize + " queued, "
+                + getCompletedCount() + " completed, " + getFailedCount() + " failed, " + getRejectedCount() + " rejected";
+    }
+
+    /**
+     * Wraps a task to keep the pool's counters up to date and to log any exception
+     * that would otherwise be silently lost on a worker thread.
+     */
+    private class TrackedTask implements Runnable {
+        private final Runnable task;
+        private final boolean holdsPermit;
+
+        public TrackedTask(Runnable task, boolean holdsPermit) {
+            this.task = task;
+            this.holdsPermit = holdsPermit;
+        }
+
+        public void run() {
+            // A virtual thread waits here while the pool's threads are all busy, the same as a task in the queue
+            if(holdsPermit) workers.acquireUninterruptibly();
+            active.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                failed.incrementAndGet();
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(t));
+            } finally {
+                active.decrementAndGet();
+                inFlight.decrementAndGet();
+                completed.incrementAndGet();
+                if(holdsPermit) {
+                    workers.release();
+                    permits.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Names worker threads after their pool so they can be identified in thread dumps.
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        public NamedThreadFactory(String name) {
+            this.prefix = "IRCBot-" + name + "-";
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -9,6 +9,8 @@ import java.util.StringTokenizer;
 import org.pircbotx.PircBotX;
 import org.pircbotx.hooks.events.MessageEvent;
 
+import us.rddt.IRCBot.Execution.MessageScheduler;
+
 /**
  * A simple calculator implementation using Djikstra's Shunting-Yard algorithm.
  * Expressions are provided in infix notation, which is then converted to
@@ -206,6 +208,6 @@ public class Calculator implements Runnable {
         // Then determine the result
         double result = rpnToDouble(rpn);
         // Return the result to the user
-        event.respond(String.valueOf(result));
+        MessageScheduler.respond(event, String.valueOf(result));
     }
 }
@@ -8,6 +8,7 @@ import org.pircbotx.PircBotX;
 import org.pircbotx.hooks.events.MessageEvent;
 
 import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.IRCUtils;
 import us.rddt.IRCBot.Implementations.UrbanLookup;
 
@@ -66,7 +67,7 @@ public class Define implements Runnable {
         		defNumber = Integer.parseInt(toDefine.substring(toDefine.indexOf("[") + 1, toDefine.indexOf("]"))) - 1;
         	} catch (NumberFormatException ex) {
         		Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-        		event.respond("Error while extracting definition: An invalid definition number value was provided.");
+        		MessageScheduler.respond(event, "Error while extracting definition: An invalid definition number value was provided.");
         		return;
         	}
         	toDefine = toDefine.substring(0, toDefine.indexOf("["));
@@ -80,15 +81,15 @@ public class Define implements Runnable {
             lookupResult = UrbanLookup.getDefinition(formatLookup(toDefine.split(" ")), defNumber);
         } catch (ArrayIndexOutOfBoundsException ex) {
         	Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            event.respond("Error while extracting definition: " + IRCUtils.trimString(toDefine, 50) + " (" + ex.getMessage() + ")");
+            MessageScheduler.respond(event, "Error while extracting definition: " + IRCUtils.trimString(toDefine, 50) + " (" + ex.getMessage() + ")");
             return;
         } catch (IOException ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            event.respond("Error while downloading definition: " + IRCUtils.trimString(toDefine, 50) + " (" + ex.getMessage() + ")");
+            MessageScheduler.respond(event, "Error while downloading definition: " + IRCUtils.trimString(toDefine, 50) + " (" + ex.getMessage() + ")");
             return;
         } catch (JSONException ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            event.respond("Error while parsing definition: " + IRCUtils.trimString(toDefine, 50) + " (" + ex.getMessage() + ")");
+            MessageScheduler.respond(event, "Error while parsing definition: " + IRCUtils.trimString(toDefine, 50) + " (" + ex.getMessage() + ")");
         }
         
         /*
@@ -101,12 +102,12 @@ public class Define implements Runnable {
              * Definitions printed to the channel shouldn't take up more than two messages.
              */
             if(lookupResult.getDefinition().length() + lookupResult.getExample().length() > 940) {
-                event.respond("The definition for '" + lookupResult.getWord() + "' is too long to display in an IRC message. To view the definition online, follow this link: http://www.urbandictionary.com/define.php?term=" + lookupResult.getWord());
+                MessageScheduler.respond(event, "The definition for '" + lookupResult.getWord() + "' is too long to display in an IRC message. To view the definition online, follow this link: http://www.urbandictionary.com/define.php?term=" + lookupResult.getWord());
             } else {
-                event.respond(lookupResult.getWord() + " (#" + lookupResult.getDefNumber() + "): " + lookupResult.getDefinition() + " (Example: " + lookupResult.getExample() + ")");
+                MessageScheduler.respond(event, lookupResult.getWord() + " (#" + lookupResult.getDefNumber() + "): " + lookupResult.getDefinition() + " (Example: " + lookupResult.getExample() + ")");
             }
         } else {
-            event.respond("The definition for '" + toDefine + "' does not exist.");
+            MessageScheduler.respond(event, "The definition for '" + toDefine + "' does not exist.");
         }
     }
 }
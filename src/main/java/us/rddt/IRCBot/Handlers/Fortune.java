@@ -5,6 +5,8 @@ import java.util.Random;
 import org.pircbotx.PircBotX;
 import org.pircbotx.hooks.events.MessageEvent;
 
+import us.rddt.IRCBot.Execution.MessageScheduler;
+
 /**
  * A simple random number generator class used to predict or choose outcomes.
  * 
@@ -61,7 +63,7 @@ public class Fortune implements Runnable {
      */
     public void run() {
         try {
-            event.respond(parseFortune(event.getMessage().substring(8)));
+            MessageScheduler.respond(event, parseFortune(event.getMessage().substring(8)));
         } catch (IndexOutOfBoundsException ex) {
             return;
         }
@@ -12,6 +12,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 
 import us.rddt.IRCBot.Configuration;
 import us.rddt.IRCBot.Database;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.IRCUtils;
 import us.rddt.IRCBot.Enums.GameStatusModes;
 
@@ -48,16 +49,18 @@ public class GameStatus implements Runnable {
     private void addGame(String gameId, String game) throws ClassNotFoundException, SQLException, IOException {
         // Connect to the database
         database = new Database();
-        database.connect();
-        
-        // Prepare and execute the SQL query to insert
-        PreparedStatement statement = database.getConnection().prepareStatement("INSERT INTO GameList(GameID, GameName) VALUES (?, ?)");
-        statement.setString(1, gameId);
-        statement.setString(2, game);
-        statement.executeUpdate();
+        try {
+            database.connect();
         
-        // Disconnect from the database
-        database.disconnect();
+            // Prepare and execute the SQL query to insert
+            PreparedStatement statement = database.getConnection().prepareStatement("INSERT INTO GameList(GameID, GameName) VALUES (?, ?)");
+            statement.setString(1, gameId);
+            statement.setString(2, game);
+            statement.executeUpdate();
+        } finally {
+            // Disconnect from the database
+            database.disconnect();
+        }
         
         // Add the game to the HashMap for easy access
         gamesMap.put(gameId, game);
@@ -73,15 +76,17 @@ public class GameStatus implements Runnable {
     private void deleteGame(String gameId) throws ClassNotFoundException, SQLException, IOException {
         // Connect to the database
         database = new Database();
-        database.connect();
-        
-        // Prepare and execute the SQL query to insert
-        PreparedStatement statement = database.getConnection().prepareStatement("DELETE FROM GameList WHERE GameID = ?");
-        statement.setString(1, gameId);
-        statement.executeUpdate();
+        try {
+            database.connect();
         
-        // Disconnect from the database
-        database.disconnect();
+            // Prepare and execute the SQL query to insert
+            PreparedStatement statement = database.getConnection().prepareStatement("DELETE FROM GameList WHERE GameID = ?");
+            statement.setString(1, gameId);
+            statement.executeUpdate();
+        } finally {
+            // Disconnect from the database
+            database.disconnect();
+        }
         
         // Remove the game from the HashMap
         gamesMap.remove(gameId);
@@ -99,27 +104,29 @@ public class GameStatus implements Runnable {
         
         // Connect to the database
         database = new Database();
-        database.connect();
         // Prepare the StringBuilder to hold the list of nicks playing
         StringBuilder builder = new StringBuilder();
+        try {
+            database.connect();
 
-        // Prepare and execute the SQL query
-        PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameStatus");
-        ResultSet resultSet = statement.executeQuery();
+            // Prepare and execute the SQL query
+            PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameStatus");
+            ResultSet resultSet = statement.executeQuery();
 
-        // If a result was returned, tell the channel what the user is playing
-        // Otherwise, they aren't playing anything
-        String prefix = "";
-        while(resultSet.next()) {
-            builder.append(prefix);
-            prefix = ", ";
-            builder.append(resultSet.getString("Nick") + " playing " + resultSet.getString("Game") + " (" + IRCUtils.toReadableTime(resultSet.getTimestamp("Date"), false, false) + ")");
-            emptyRows = false;
+            // If a result was returned, tell the channel what the user is playing
+            // Otherwise, they aren't playing anything
+            String prefix = "";
+            while(resultSet.next()) {
+                builder.append(prefix);
+                prefix = ", ";
+                builder.append(resultSet.getString("Nick") + " playing " + resultSet.getString("Game") + " (" + IRCUtils.toReadableTime(resultSet.getTimestamp("Date"), false, false) + ")");
+                emptyRows = false;
+            }
+        } finally {
+            // Disconnect from the database
+            database.disconnect();
         }
 
-        // Disconnect from the database
-        database.disconnect();
-
         /*
          * JDBC does not provide a clear method of determining whether a ResultSet actually has any rows.
          * We have to use a boolean to work out whether it actually returned anything.
@@ -127,7 +134,7 @@ public class GameStatus implements Runnable {
         if(emptyRows) builder.append("Nobody is playing any games.");
 
         // Return the result
-        event.getBot().sendMessage(event.getChannel(), builder.toString());
+        MessageScheduler.sendMessage(event.getBot(), event.getChannel(), builder.toString());
     }
 
     /**
@@ -147,30 +154,32 @@ public class GameStatus implements Runnable {
 
             // Connect to the database
             database = new Database();
-            database.connect();
             // Prepare the StringBuilder to hold the list of nicks playing
             StringBuilder builder = new StringBuilder();
+            try {
+                database.connect();
 
-            // Prepare and execute the SQL query
-            PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameStatus WHERE Game = ?");
-            statement.setString(1, game);
-            ResultSet resultSet = statement.executeQuery();
-
-            builder.append("Users playing " + game + ": ");
-
-            // If a result was returned, tell the channel what the user is playing
-            // Otherwise, they aren't playing anything
-            String prefix = "";
-            while(resultSet.next()) {
-                builder.append(prefix);
-                prefix = ", ";
-                builder.append(resultSet.getString("Nick") + " (" + IRCUtils.toReadableTime(resultSet.getTimestamp("Date"), false, false) + ")");
-                emptyRows = false;
+                // Prepare and execute the SQL query
+                PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameStatus WHERE Game = ?");
+                statement.setString(1, game);
+                ResultSet resultSet = statement.executeQuery();
+
+                builder.append("Users playing " + game + ": ");
+
+                // If a result was returned, tell the channel what the user is playing
+                // Otherwise, they aren't playing anything
+                String prefix = "";
+                while(resultSet.next()) {
+                    builder.append(prefix);
+                    prefix = ", ";
+                    builder.append(resultSet.getString("Nick") + " (" + IRCUtils.toReadableTime(resultSet.getTimestamp("Date"), false, false) + ")");
+                    emptyRows = false;
+                }
+            } finally {
+                // Disconnect from the database
+                database.disconnect();
             }
 
-            // Disconnect from the database
-            database.disconnect();
-
             /*
              * JDBC does not provide a clear method of determining whether a ResultSet actually has any rows.
              * We have to use a boolean to work out whether it actually returned anything.
@@ -178,7 +187,7 @@ public class GameStatus implements Runnable {
             if(emptyRows) builder.append("nobody");
 
             // Return the result
-            event.getBot().sendMessage(event.getChannel(), builder.toString());
+            MessageScheduler.sendMessage(event.getBot(), event.getChannel(), builder.toString());
         } else {
             // The game's full title isn't in the HashMap
             throw new IllegalArgumentException("Game does not exist");
@@ -195,23 +204,25 @@ public class GameStatus implements Runnable {
     private void getUserStatus(String nick) throws ClassNotFoundException, SQLException, IOException {
         // Connect to the database
         database = new Database();
-        database.connect();
+        try {
+            database.connect();
 
-        // Prepare and execute the SQL query
-        PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameStatus WHERE Nick = ?");
-        statement.setString(1, nick);
-        ResultSet resultSet = statement.executeQuery();
+            // Prepare and execute the SQL query
+            PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameStatus WHERE Nick = ?");
+            statement.setString(1, nick);
+            ResultSet resultSet = statement.executeQuery();
 
-        // If a result was returned, tell the channel what the user is playing
-        // Otherwise, they aren't playing anything
-        if(resultSet.next()) {
-            event.getBot().sendMessage(event.getChannel(), nick + " is playing " + resultSet.getString("Game") + " (" + IRCUtils.toReadableTime(resultSet.getTimestamp("Date"), false, false) + ")");
-        } else {
-            event.getBot().sendMessage(event.getChannel(), nick + " is not playing anything!");
+            // If a result was returned, tell the channel what the user is playing
+            // Otherwise, they aren't playing anything
+            if(resultSet.next()) {
+                MessageScheduler.sendMessage(event.getBot(), event.getChannel(), nick + " is playing " + resultSet.getString("Game") + " (" + IRCUtils.toReadableTime(resultSet.getTimestamp("Date"), false, false) + ")");
+            } else {
+                MessageScheduler.sendMessage(event.getBot(), event.getChannel(), nick + " is not playing anything!");
+            }
+        } finally {
+            // Disconnect from the database
+            database.disconnect();
         }
-
-        // Disconnect from the database
-        database.disconnect();
     }
 
     /**
@@ -223,19 +234,21 @@ public class GameStatus implements Runnable {
     private void loadGameTitles() throws ClassNotFoundException, SQLException, IOException {
         // Connect to the database
         database = new Database();
-        database.connect();
+        try {
+            database.connect();
 
-        // Prepare and execute the SQL query
-        PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameList");
-        ResultSet resultSet = statement.executeQuery();
+            // Prepare and execute the SQL query
+            PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameList");
+            ResultSet resultSet = statement.executeQuery();
         
-        // Load all the games from the database into the HashMap
-        while(resultSet.next()) {
-            gamesMap.put(resultSet.getString("GameID"), resultSet.getString("GameName"));
+            // Load all the games from the database into the HashMap
+            while(resultSet.next()) {
+                gamesMap.put(resultSet.getString("GameID"), resultSet.getString("GameName"));
+            }
+        } finally {
+            // Disconnect from the database
+            database.disconnect();
         }
-        
-        // Disconnect from the database
-        database.disconnect();
     }
 
     /**
@@ -248,15 +261,17 @@ public class GameStatus implements Runnable {
     private void resetUserStatus(String nick) throws ClassNotFoundException, SQLException, IOException {
         // Connect to the database
         database = new Database();
-        database.connect();
-
-        // Prepare and execute the query to delete any entry
-        PreparedStatement statement = database.getConnection().prepareStatement("DELETE FROM GameStatus WHERE Nick = ?");
-        statement.setString(1, nick);
-        statement.executeUpdate();
+        try {
+            database.connect();
 
-        // Disconnect from the database
-        database.disconnect();
+            // Prepare and execute the query to delete any entry
+            PreparedStatement statement = database.getConnection().prepareStatement("DELETE FROM GameStatus WHERE Nick = ?");
+            statement.setString(1, nick);
+            statement.executeUpdate();
+        } finally {
+            // Disconnect from the database
+            database.disconnect();
+        }
     }
 
     /**
@@ -278,34 +293,36 @@ public class GameStatus implements Runnable {
             game = gamesMap.get(game);
 
             // Connect to the database
-            database.connect();
-            // Prepare the query to check if an entry already exists and execute it
-            PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameStatus WHERE Nick = ?");
-            statement.setString(1, nick);
-            ResultSet resultSet = statement.executeQuery();
-            // If there is already a game, update it instead of creating a brand new entry
-            if(resultSet.next()) {
-                // Close the previous statement if it isn't closed already
-                if(!statement.isClosed()) statement.close();
-                // Prepare and execute the SQL query to update
-                statement = database.getConnection().prepareStatement("UPDATE GameStatus SET Game = ?, Date = ? WHERE Nick = ?");
-                statement.setString(1, game);
-                statement.setTimestamp(2, new java.sql.Timestamp(System.currentTimeMillis()));
-                statement.setString(3, nick);
-                statement.executeUpdate();
-            } else {
-                // Close the previous statement if it isn't closed already
-                if(!statement.isClosed()) statement.close();
-                // Prepare and execute the SQL query to insert
-                statement = database.getConnection().prepareStatement("INSERT INTO GameStatus(Nick, Date, Game) VALUES (?, ?, ?)");
+            try {
+                database.connect();
+                // Prepare the query to check if an entry already exists and execute it
+                PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM GameStatus WHERE Nick = ?");
                 statement.setString(1, nick);
-                statement.setTimestamp(2, new java.sql.Timestamp(System.currentTimeMillis()));
-                statement.setString(3, game);
-                statement.executeUpdate();
+                ResultSet resultSet = statement.executeQuery();
+                // If there is already a game, update it instead of creating a brand new entry
+                if(resultSet.next()) {
+                    // Close the previous statement if it isn't closed already
+                    if(!statement.isClosed()) statement.close();
+                    // Prepare and execute the SQL query to update
+                    statement = database.getConnection().prepareStatement("UPDATE GameStatus SET Game = ?, Date = ? WHERE Nick = ?");
+                    statement.setString(1, game);
+                    statement.setTimestamp(2, new java.sql.Timestamp(System.currentTimeMillis()));
+                    statement.setString(3, nick);
+                    statement.executeUpdate();
+                } else {
+                    // Close the previous statement if it isn't closed already
+                    if(!statement.isClosed()) statement.close();
+                    // Prepare and execute the SQL query to insert
+                    statement = database.getConnection().prepareStatement("INSERT INTO GameStatus(Nick, Date, Game) VALUES (?, ?, ?)");
+                    statement.setString(1, nick);
+                    statement.setTimestamp(2, new java.sql.Timestamp(System.currentTimeMillis()));
+                    statement.setString(3, game);
+                    statement.executeUpdate();
+                }
+            } finally {
+                // Disconnect from the database
+                database.disconnect();
             }
-
-            // Disconnect from the database
-            database.disconnect();
         } else {
             // The game's full title isn't in the HashMap
             throw new IllegalArgumentException("Game does not exist");
@@ -334,15 +351,15 @@ public class GameStatus implements Runnable {
                 // Ensure the user has provided enough parameters for the command
                 if(parameters.length > 2) {
                     setUserStatus(event.getUser().getNick(), parameters[2]);
-                    event.respond("Done!");
+                    MessageScheduler.respond(event, "Done!");
                 }
                 else {
-                    event.respond("You must provide a game to play!");
+                    MessageScheduler.respond(event, "You must provide a game to play!");
                 }
             } else if(mode == GameStatusModes.RESET) {
                 // Reset the user's status
                 resetUserStatus(event.getUser().getNick());
-                event.respond("Done!");
+                MessageScheduler.respond(event, "Done!");
             } else if(mode == GameStatusModes.ALL) {
                 // Return all statuses
                 getAllStatus();
@@ -353,7 +370,7 @@ public class GameStatus implements Runnable {
                 if(parameters.length > 2) {
                     getUserStatus(parameters[2]);
                 } else {
-                    event.respond("You must provide a user to retrieve status for!");
+                    MessageScheduler.respond(event, "You must provide a user to retrieve status for!");
                 }
             } else if(mode == GameStatusModes.GAME) {
                 // Split the command into parameters
@@ -362,7 +379,7 @@ public class GameStatus implements Runnable {
                 if(parameters.length > 2) {
                     getGameStatus(parameters[2]);
                 } else {
-                    event.respond("You must provide a game to retrieve status for!");
+                    MessageScheduler.respond(event, "You must provide a game to retrieve status for!");
                 }
             } else if(mode == GameStatusModes.ADD) {
                 // Split the command into parameters
@@ -378,12 +395,12 @@ public class GameStatus implements Runnable {
                         }
                         // Add the game
                         addGame(parameters[2], gameName.toString().trim());
-                        event.respond("Done!");
+                        MessageScheduler.respond(event, "Done!");
                     } else {
-                        event.respond("Game \"" + parameters[2] + "\" already exists!");
+                        MessageScheduler.respond(event, "Game \"" + parameters[2] + "\" already exists!");
                     }
                 } else {
-                    event.respond("You must provide a shorthand identifier and the full game name to add!");
+                    MessageScheduler.respond(event, "You must provide a shorthand identifier and the full game name to add!");
                 }
             } else if(mode == GameStatusModes.DELETE) {
                 // Split the command into parameters
@@ -391,14 +408,14 @@ public class GameStatus implements Runnable {
                 // Ensure the user has provided enough parameters for the command
                 if(parameters.length > 2) {
                     deleteGame(parameters[2]);
-                    event.respond("Done!");
+                    MessageScheduler.respond(event, "Done!");
                 } else {
-                    event.respond("You must provide a game to delete!");
+                    MessageScheduler.respond(event, "You must provide a game to delete!");
                 }
             }
         } catch (Exception ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            event.respond("Unable to get status - " + ex.getMessage());
+            MessageScheduler.respond(event, "Unable to get status - " + ex.getMessage());
         }
     }
 }
@@ -4,6 +4,7 @@ import org.pircbotx.PircBotX;
 import org.pircbotx.hooks.events.PrivateMessageEvent;
 
 import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 
 public class Help implements Runnable {
     /*
@@ -25,80 +26,80 @@ public class Help implements Runnable {
      */
     private void printCommandHelp(String command) {
         if(command.equalsIgnoreCase("calc")) {
-            event.respond("calc - A basic calculator. Returns the result of a provided expression.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "calc [expression]");
+            MessageScheduler.respond(event, "calc - A basic calculator. Returns the result of a provided expression.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "calc [expression]");
         }
         else if(command.equalsIgnoreCase("convert")) {
-            event.respond("convert - performs conversion functions using the Google Calculator API.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "convert [value to convert] [original type] to [type to convert]");
+            MessageScheduler.respond(event, "convert - performs conversion functions using the Google Calculator API.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "convert [value to convert] [original type] to [type to convert]");
         }
         else if(command.equalsIgnoreCase("decide")) {
-            event.respond("decide - randomly selects a decision based on user input.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "decide [first choice] or [second choice]");
-            event.respond(" -- or -- ");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "decide [choice] (returns a yes/no answer)");
-            event.respond("Note: you may provide as many arguments as you like separated by 'or' to select from those choices.");
+            MessageScheduler.respond(event, "decide - randomly selects a decision based on user input.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "decide [first choice] or [second choice]");
+            MessageScheduler.respond(event, " -- or -- ");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "decide [choice] (returns a yes/no answer)");
+            MessageScheduler.respond(event, "Note: you may provide as many arguments as you like separated by 'or' to select from those choices.");
         }
         else if(command.equalsIgnoreCase("g")) {
-            event.respond("g - performs a Google search using the provided query string.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "g [query]");
+            MessageScheduler.respond(event, "g - performs a Google search using the provided query string.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "g [query]");
         }
         else if(command.equalsIgnoreCase("seen")) {
-            event.respond("seen - returns the last time a user was seen in a channel.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "seen [nickname]");
+            MessageScheduler.respond(event, "seen - returns the last time a user was seen in a channel.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "seen [nickname]");
         }
         else if(command.equalsIgnoreCase("status")) {
-            event.respond("status - updates or displays the currently played game of a user.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "status [argument]");
-            event.respond("  where argument is one of the following:");
-            event.respond("    set [game] (sets your current status to a provided game)");
-            event.respond("    reset (resets your current status to not playing)");
-            event.respond("    user [user] (gets the status of a given nickname)");
-            event.respond("    game [game] (gets the users currently playing a provided game)");
-            event.respond("    all (gets all users playing any game)");
+            MessageScheduler.respond(event, "status - updates or displays the currently played game of a user.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "status [argument]");
+            MessageScheduler.respond(event, "  where argument is one of the following:");
+            MessageScheduler.respond(event, "    set [game] (sets your current status to a provided game)");
+            MessageScheduler.respond(event, "    reset (resets your current status to not playing)");
+            MessageScheduler.respond(event, "    user [user] (gets the status of a given nickname)");
+            MessageScheduler.respond(event, "    game [game] (gets the users currently playing a provided game)");
+            MessageScheduler.respond(event, "    all (gets all users playing any game)");
         }
         else if(command.equalsIgnoreCase("steam")) {
-            event.respond("steam - gets the status of a Steam user.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "steam [numerical ID or community ID]");
+            MessageScheduler.respond(event, "steam - gets the status of a Steam user.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "steam [numerical ID or community ID]");
         }
         else if(command.equalsIgnoreCase("ud")) {
-            event.respond("ud - searches Urban Dictionary for a given query string.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "ud [query]");
+            MessageScheduler.respond(event, "ud - searches Urban Dictionary for a given query string.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "ud [query]");
         }
         else if(command.equalsIgnoreCase("who")) {
-            event.respond("who - shout management.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "who [argument]");
-            event.respond("  where argument is one of the following:");
-            event.respond("    [shout] (returns the user who shouted the provided quote)");
-            event.respond("    last (returns the last quote and who shouted it)");
-            event.respond("    list (returns statistics about all quotes in the database)");
-            event.respond("    user (returns statistics about a user's quotes in the database)");
-            event.respond("    top10 (returns the top 10 most active shouters in a channel)");
-            event.respond("    delete [--purge] [quote] (channel operators only - deletes a provided quote from the database. This command will permanently purge a quote if the --purge argument is provided.)");
-            event.respond("    undelete [quote] (channel operators only - undeletes a provided quote from the database.)");
+            MessageScheduler.respond(event, "who - shout management.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "who [argument]");
+            MessageScheduler.respond(event, "  where argument is one of the following:");
+            MessageScheduler.respond(event, "    [shout] (returns the user who shouted the provided quote)");
+            MessageScheduler.respond(event, "    last (returns the last quote and who shouted it)");
+            MessageScheduler.respond(event, "    list (returns statistics about all quotes in the database)");
+            MessageScheduler.respond(event, "    user (returns statistics about a user's quotes in the database)");
+            MessageScheduler.respond(event, "    top10 (returns the top 10 most active shouters in a channel)");
+            MessageScheduler.respond(event, "    delete [--purge] [quote] (channel operators only - deletes a provided quote from the database. This command will permanently purge a quote if the --purge argument is provided.)");
+            MessageScheduler.respond(event, "    undelete [quote] (channel operators only - undeletes a provided quote from the database.)");
         }
         else if(command.equalsIgnoreCase("votekick")) {
-            event.respond("votekick - Channel votekicking.");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "votekick [nickname]");
-            event.respond("If a votekick has not been started, this command will start a votekick against the user. Otherwise, this command will add a vote to an already started votekick.");
-            event.respond("If a votekick receives the number of votes equal or greater to " + Configuration.getVotekickPassPercent() + "% of the number of users in a channel within " + Configuration.getVotekickDuration() + " seconds, the user will be kicked from the channel.");
-            event.respond("If a votekick reaches a duration of " + Configuration.getVotekickDuration() + " seconds, the votekick will expire and end.");
+            MessageScheduler.respond(event, "votekick - Channel votekicking.");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "votekick [nickname]");
+            MessageScheduler.respond(event, "If a votekick has not been started, this command will start a votekick against the user. Otherwise, this command will add a vote to an already started votekick.");
+            MessageScheduler.respond(event, "If a votekick receives the number of votes equal or greater to " + Configuration.getVotekickPassPercent() + "% of the number of users in a channel within " + Configuration.getVotekickDuration() + " seconds, the user will be kicked from the channel.");
+            MessageScheduler.respond(event, "If a votekick reaches a duration of " + Configuration.getVotekickDuration() + " seconds, the votekick will expire and end.");
         }
         else if(command.equalsIgnoreCase("appendtopic")) {
-            event.respond("appendtopic - appends a string to the end of a channel's current topic. (Channel operators only)");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "appendtopic [string]");
+            MessageScheduler.respond(event, "appendtopic - appends a string to the end of a channel's current topic. (Channel operators only)");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "appendtopic [string]");
         }
         else if(command.equalsIgnoreCase("disablestatistics")) {
-            event.respond("disablestatistics - disables statistics on a channel. (Channel operators only)");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "disablestatistics");
+            MessageScheduler.respond(event, "disablestatistics - disables statistics on a channel. (Channel operators only)");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "disablestatistics");
         }
         else if(command.equalsIgnoreCase("enablestatistics")) {
-            event.respond("enablestatistics - enables statistics on a channel. (Channel operators only)");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "enablestatistics");
+            MessageScheduler.respond(event, "enablestatistics - enables statistics on a channel. (Channel operators only)");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "enablestatistics");
         }
         else if(command.equalsIgnoreCase("removetopic")) {
-            event.respond("removetopic - searches for and removes a string from a channel's current topic. (Channel operators only)");
-            event.respond("Usage: " + Configuration.getCommandPrefix() + "removetopic [string]");
+            MessageScheduler.respond(event, "removetopic - searches for and removes a string from a channel's current topic. (Channel operators only)");
+            MessageScheduler.respond(event, "Usage: " + Configuration.getCommandPrefix() + "removetopic [string]");
         }
     }
     
@@ -106,12 +107,12 @@ public class Help implements Runnable {
      * Prints the main help text including a list of commands.
      */
     private void printMainHelp() {
-        event.respond("Hi, I'm " + event.getBot().getNick() + "! I'm here to provide conveniences to IRC channels.");
-        event.respond("For help with a specific command, message me with 'help [command]'.");
-        event.respond(" -- List of Commands --");
-        event.respond("calc, convert, decide, g, seen, status, steam, ud, who, votekick");
-        event.respond(" -- List of Operator Commands --");
-        event.respond("appendtopic, disablestatistics, enablestatistics, removetopic");
+        MessageScheduler.respond(event, "Hi, I'm " + event.getBot().getNick() + "! I'm here to provide conveniences to IRC channels.");
+        MessageScheduler.respond(event, "For help with a specific command, message me with 'help [command]'.");
+        MessageScheduler.respond(event, " -- List of Commands --");
+        MessageScheduler.respond(event, "calc, convert, decide, g, seen, status, steam, ud, who, votekick");
+        MessageScheduler.respond(event, " -- List of Operator Commands --");
+        MessageScheduler.respond(event, "appendtopic, disablestatistics, enablestatistics, removetopic");
     }
     
     /**
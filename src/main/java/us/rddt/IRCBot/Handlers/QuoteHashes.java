@@ -0,0 +1,193 @@
+package us.rddt.IRCBot.Handlers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import org.pircbotx.Colors;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Database;
+import us.rddt.IRCBot.IRCUtils;
+
+/**
+ * Keeps a 64-bit hash of every stored quote in memory, per channel, so checking
+ * whether a shout is already known doesn't need a database query. The hashes are
+ * also stored in the QuoteHash column, which is indexed so the check can fall
+ * back to the database before the hashes have been loaded.
+ *
+ * @author Ryan Morrison
+ */
+public class QuoteHashes {
+    private static final ConcurrentHashMap<String, LongSet> channels = new ConcurrentHashMap<String, LongSet>();
+    private static volatile boolean loaded = false;
+
+    // Rows from before the QuoteHash column existed are updated in batches of this size
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Normalizes a quote the same way it is stored in the database
+     * @param quote the quote to normalize
+     * @return the normalized quote
+     */
+    public static String normalize(String quote) {
+        return Colors.removeFormattingAndColors(quote).trim();
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of a quote. Quotes are compared case insensitively, as MySQL does.
+     * @param quote the quote to hash
+     * @return the hash of the quote
+     */
+    public static long hash(String quote) {
+        String normalized = normalize(quote).toUpperCase(Locale.ENGLISH);
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < normalized.length(); i++) {
+            hash ^= normalized.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Loads the hashes of every stored quote, filling in the QuoteHash column of older rows
+     */
+    public static void load() {
+        Database database = new Database();
+        long start = System.currentTimeMillis();
+        int rows = 0;
+        int backfilled = 0;
+        try {
+            database.connect();
+            Connection connection = database.getConnection();
+            PreparedStatement update = connection.prepareStatement("UPDATE Quotes SET QuoteHash = ? WHERE ID = ?");
+            PreparedStatement statement = connection.prepareStatement("SELECT ID, Channel, Quote, QuoteHash FROM Quotes");
+            statement.setFetchSize(1000);
+            ResultSet resultSet = statement.executeQuery();
+            while(resultSet.next()) {
+                long hash = resultSet.getLong("QuoteHash");
+                if(resultSet.wasNull()) {
+                    hash = hash(resultSet.getString("Quote"));
+                    update.setLong(1, hash);
+                    update.setInt(2, resultSet.getInt("ID"));
+                    update.addBatch();
+                    if(++backfilled % BATCH_SIZE == 0) update.executeBatch();
+                }
+                add(resultSet.getString("Channel"), hash);
+                rows++;
+            }
+            if(backfilled % BATCH_SIZE != 0) update.executeBatch();
+            loaded = true;
+            Configuration.getLogger().write(Level.INFO, "Loaded " + rows + " quote hashes (" + backfilled + " calculated) in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception ex) {
+            Configuration.getLogger().write(Level.WARNING, "Unable to load quote hashes, duplicate shouts will be checked against the database: " + IRCUtils.getStackTraceString(ex));
+        } finally {
+            try {
+                database.disconnect();
+            } catch (Exception ex) {
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the hashes have been loaded
+     * @return true if contains() can be trusted, false if the database must be checked instead
+     */
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns whether a quote with the provided hash is stored for a channel
+     * @param channel the channel of the quote
+     * @param hash the hash of the quote
+     * @return true if the quote is stored, false if it is not
+     */
+    public static boolean contains(String channel, long hash) {
+        LongSet hashes = channels.get(channel);
+        return hashes != null && hashes.contains(hash);
+    }
+
+    /**
+     * Records that a quote has been stored for a channel
+     * @param channel the channel of the quote
+     * @param hash the hash of the quote
+     */
+    public static void add(String channel, long hash) {
+        LongSet hashes = channels.get(channel);
+        if(hashes == null) {
+            LongSet created = new LongSet();
+            hashes = channels.putIfAbsent(channel, created);
+            if(hashes == null) hashes = created;
+        }
+        hashes.add(hash);
+    }
+
+    /**
+     * Records that a quote has been purged from a channel
+     * @param channel the channel of the quote
+     * @param hash the hash of the quote
+     */
+    public static void remove(String channel, long hash) {
+        LongSet hashes = channels.get(channel);
+        if(hashes != null) hashes.remove(hash);
+    }
+
+    /**
+     * A set of longs using open addressing with linear probing, which avoids boxing every hash.
+     */
+    private static class LongSet {
+        // 0 marks an empty slot, so a hash of 0 is stored as 1 instead
+        private long[] table = new long[256];
+        private int size = 0;
+
+        private synchronized boolean contains(long value) {
+            value = value == 0 ? 1 : value;
+            return table[slot(table, value)] == value;
+        }
+
+        private synchronized void add(long value) {
+            value = value == 0 ? 1 : value;
+            int slot = slot(table, value);
+            if(table[slot] == value) return;
+            table[slot] = value;
+            if(++size > table.length * 3 / 4) {
+                long[] old = table;
+                table = new long[old.length * 2];
+                for(long existing : old) {
+                    if(existing != 0) table[slot(table, existing)] = existing;
+                }
+            }
+        }
+
+        private synchronized void remove(long value) {
+            value = value == 0 ? 1 : value;
+            int mask = table.length - 1;
+            int slot = slot(table, value);
+            if(table[slot] != value) return;
+            table[slot] = 0;
+            size--;
+            // Shift back any entries that probed past the removed slot so they can still be found
+            int next = (slot + 1) & mask;
+            while(table[next] != 0) {
+                long moved = table[next];
+                table[next] = 0;
+                table[slot(table, moved)] = moved;
+                next = (next + 1) & mask;
+            }
+        }
+
+        private static int slot(long[] table, long value) {
+            int mask = table.length - 1;
+            int slot = (int)((value ^ (value >>> 32)) * 0x9E3779B9) & mask;
+            while(table[slot] != 0 && table[slot] != value) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
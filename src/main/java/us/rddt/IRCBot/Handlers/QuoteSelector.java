@@ -0,0 +1,135 @@
+package us.rddt.IRCBot.Handlers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Selects random quotes without sorting the whole channel's quotes in the
+ * database. The ids of each channel's live quotes are loaded into memory the
+ * first time the channel needs a random quote, and are kept up to date as quotes
+ * are added, deleted, undeleted and purged, so a random shout costs a single
+ * primary key lookup.
+ *
+ * @author Ryan Morrison
+ */
+class QuoteSelector {
+    private static final ConcurrentHashMap<String, QuoteIds> channels = new ConcurrentHashMap<String, QuoteIds>();
+    private static final Random random = new Random();
+
+    // Ids removed from the database behind our back are dropped and another one is tried
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Returns a random live quote from a channel
+     * @param connection the connection to the database
+     * @param channel the channel to select a quote from
+     * @return the result set positioned on the selected quote, or null if the channel has no quotes
+     * @throws SQLException if the SQL query does not execute correctly
+     */
+    public static ResultSet selectRandom(Connection connection, String channel) throws SQLException {
+        QuoteIds ids = getIds(connection, channel);
+        for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int id = ids.pick();
+            if(id < 0) return null;
+            PreparedStatement statement = connection.prepareStatement("SELECT * FROM Quotes WHERE ID = ? AND Deleted = '0'");
+            statement.setInt(1, id);
+            ResultSet resultSet = statement.executeQuery();
+            if(resultSet.next()) return resultSet;
+            ids.remove(id);
+        }
+        return null;
+    }
+
+    /**
+     * Records that a quote has been added or undeleted
+     * @param channel the channel of the quote
+     * @param id the id of the quote
+     */
+    public static void add(String channel, int id) {
+        QuoteIds ids = channels.get(channel);
+        // Channels which haven't been loaded yet will pick the quote up when they are
+        if(ids != null) ids.add(id);
+    }
+
+    /**
+     * Records that a quote has been deleted or purged
+     * @param channel the channel of the quote
+     * @param id the id of the quote
+     */
+    public static void remove(String channel, int id) {
+        QuoteIds ids = channels.get(channel);
+        if(ids != null) ids.remove(id);
+    }
+
+    /**
+     * Returns the ids of a channel's live quotes, loading them from the database if required
+     */
+    private static QuoteIds getIds(Connection connection, String channel) throws SQLException {
+        QuoteIds ids = channels.get(channel);
+        if(ids == null) {
+            QuoteIds created = new QuoteIds();
+            ids = channels.putIfAbsent(channel, created);
+            if(ids == null) ids = created;
+        }
+        ids.load(connection, channel);
+        return ids;
+    }
+
+    /**
+     * The ids of a channel's live quotes. Ids are kept in a dense array so one can be
+     * picked at random in constant time, with a map from id to array position so they
+     * can be removed in constant time by swapping in the last id.
+     */
+    private static class QuoteIds {
+        private int[] ids = new int[64];
+        private int size = 0;
+        private final Map<Integer, Integer> positions = new HashMap<Integer, Integer>();
+        private boolean loaded = false;
+
+        private synchronized void load(Connection connection, String channel) throws SQLException {
+            if(loaded) return;
+            PreparedStatement statement = connection.prepareStatement("SELECT ID FROM Quotes WHERE Channel = ? AND Deleted = '0'");
+            statement.setString(1, channel);
+            ResultSet resultSet = statement.executeQuery();
+            while(resultSet.next()) {
+                add(resultSet.getInt(1));
+            }
+            resultSet.close();
+            statement.close();
+            loaded = true;
+        }
+
+        private synchronized int pick() {
+            if(size == 0) return -1;
+            return ids[random.nextInt(size)];
+        }
+
+        private synchronized void add(int id) {
+            if(positions.containsKey(id)) return;
+            if(size == ids.length) {
+                int[] grown = new int[ids.length * 2];
+                System.arraycopy(ids, 0, grown, 0, size);
+                ids = grown;
+            }
+            ids[size] = id;
+            positions.put(id, size);
+            size++;
+        }
+
+        private synchronized void remove(int id) {
+            Integer position = positions.remove(id);
+            if(position == null) return;
+            size--;
+            if(position != size) {
+                ids[position] = ids[size];
+                positions.put(ids[position], position);
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import org.pircbotx.PircBotX;
 import org.pircbotx.hooks.events.MessageEvent;
 
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.Implementations.GoogleResult;
 import us.rddt.IRCBot.Implementations.GoogleSearch;
 
@@ -49,6 +50,6 @@ public class Search implements Runnable {
             resultText.append(gr.getTitle() + ": " + gr.getUrl() + " | ");
         }
         resultText.append("+" + result.get(0) + " more results");
-        event.respond(resultText.toString());
+        MessageScheduler.respond(event, resultText.toString());
     }
 }
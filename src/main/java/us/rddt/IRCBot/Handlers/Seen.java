@@ -2,6 +2,7 @@ package us.rddt.IRCBot.Handlers;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.logging.Level;
 
 import org.pircbotx.Channel;
@@ -13,6 +14,7 @@ import org.pircbotx.hooks.events.QuitEvent;
 
 import us.rddt.IRCBot.Configuration;
 import us.rddt.IRCBot.Database;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.IRCUtils;
 
 /**
@@ -113,22 +115,38 @@ public class Seen implements Runnable {
         }
         // The user is performing the command on themselves?
         if(seenUser.equals(event.getUser().getNick())) {
-            event.respond("What are you doing?");
+            MessageScheduler.respond(event, "What are you doing?");
             return;
             // The user is performing the command on the bot?
         } else if (seenUser.equals(event.getBot().getNick())) {
-            event.respond("I don't think that command means what you think it means.");
+            MessageScheduler.respond(event, "I don't think that command means what you think it means.");
             return;
             // Make sure the user isn't in the channel, if they are then just return that they are
         } else if (event.getBot().getUsers(event.getChannel()).contains(event.getBot().getUser(seenUser))) {
-            event.respond(seenUser + " is currently in the channel.");
+            MessageScheduler.respond(event, seenUser + " is currently in the channel.");
             return;
             // Make sure we don't have a blank request
         } else if(seenUser.equals("")) {
-            event.respond("I can't see when a user was last here if you don't give me one!");
+            MessageScheduler.respond(event, "I can't see when a user was last here if you don't give me one!");
             return;
             // If all else fails, we have a valid request
         } else {
+            // Answer from memory once the seen records have been loaded
+            if(SeenIndex.isLoaded()) {
+                long date = SeenIndex.lookup(seenUser, event.getChannel().getName());
+                if(date >= 0) {
+                    MessageScheduler.respond(event, seenUser + " was last seen about " + IRCUtils.toReadableTime(new java.sql.Timestamp(date), false, true) + " ago.");
+                } else {
+                    MessageScheduler.respond(event, "I haven't seen " + seenUser + ".");
+                }
+                return;
+            }
+            // Updates which have not been written to the database yet are the most recent
+            Long pendingDate = SeenBuffer.getPending(seenUser, event.getChannel().getName());
+            if(pendingDate != null) {
+                MessageScheduler.respond(event, seenUser + " was last seen about " + IRCUtils.toReadableTime(new java.sql.Timestamp(pendingDate), false, true) + " ago.");
+                return;
+            }
             // Create a new instance of the database
             database = new Database();
             try {
@@ -141,57 +159,37 @@ public class Seen implements Runnable {
                 ResultSet resultSet = statement.executeQuery();
                 // Respond appropriately should our user exist/not exist in the database
                 if(resultSet.next()) {
-                    event.respond(seenUser + " was last seen about " + IRCUtils.toReadableTime(resultSet.getTimestamp("Date"), false, true) + " ago.");
+                    MessageScheduler.respond(event, seenUser + " was last seen about " + IRCUtils.toReadableTime(resultSet.getTimestamp("Date"), false, true) + " ago.");
                 } else {
-                    event.respond("I haven't seen " + seenUser + ".");
+                    MessageScheduler.respond(event, "I haven't seen " + seenUser + ".");
                 }
-                // Disconnect from the database
-                database.disconnect();
             } catch (Exception ex) {
                 Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            } finally {
+                disconnect();
             }
         }
     }
 
     /**
-     * Updates the database upon user leaving a channel or disconnecting from the network
+     * Records the time a user left a channel or disconnected from the network. The update
+     * is added to the in-memory index and written to the database in a batch by SeenBuffer.
      * @param userToUpdate the user that left/disconnected
      * @param channelToUpdate the channel we saw the user disconnect in
      */
     private void updateSeen(String userToUpdate, String channelToUpdate) {
-        // Create a new instance of the database
-        database = new Database();
+        long now = System.currentTimeMillis();
+        SeenIndex.update(userToUpdate, channelToUpdate, now);
+        SeenBuffer.record(userToUpdate, channelToUpdate, now);
+    }
+
+    /**
+     * Returns the database connection to the pool
+     */
+    private void disconnect() {
         try {
-            // Connect to the database and execute our select query to see whether to insert or update
-            database.connect();
-            PreparedStatement statement = database.getPreparedStatement();
-            statement = database.getConnection().prepareStatement("SELECT Date FROM Seen WHERE Nick = ? AND Channel = ?");
-            statement.setString(1, userToUpdate);
-            statement.setString(2, channelToUpdate);
-            ResultSet resultSet = statement.executeQuery();
-            // If a record exists, then run another query to update the date appropriately
-            if(resultSet.next()) {
-                // Close the previous statement if it isn't closed already
-                if(!statement.isClosed()) statement.close();
-                statement = database.getConnection().prepareStatement("UPDATE Seen SET Date = ? WHERE Nick = ? AND Channel = ?");
-                statement.setTimestamp(1, new java.sql.Timestamp(System.currentTimeMillis()));
-                statement.setString(2, userToUpdate);
-                statement.setString(3, channelToUpdate);
-                statement.executeUpdate();
-            }
-            // Otherwise, create a new record in the database for the user
-            else {
-                // Close the previous statement if it isn't closed already
-                if(!statement.isClosed()) statement.close();
-                statement = database.getConnection().prepareStatement("INSERT INTO Seen(Nick, Date, Channel) VALUES (?, ?, ?)");
-                statement.setString(1, userToUpdate);
-                statement.setTimestamp(2, new java.sql.Timestamp(System.currentTimeMillis()));
-                statement.setString(3, channelToUpdate);
-                statement.executeUpdate();
-            }
-            // Disconnect from the database
             database.disconnect();
-        } catch (Exception ex) {
+        } catch (SQLException ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
         }
     }
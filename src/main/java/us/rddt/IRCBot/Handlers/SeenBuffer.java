@@ -0,0 +1,189 @@
+package us.rddt.IRCBot.Handlers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Database;
+import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Enums.WorkerPools;
+import us.rddt.IRCBot.Execution.TaskDispatcher;
+
+/**
+ * Buffers seen updates in memory and writes them to the database in batches.
+ * Repeated updates for the same nick and channel are coalesced, so a netsplit
+ * results in a handful of batched upserts rather than a query per user and
+ * channel. Pending updates are consulted by !seen so results stay correct
+ * before they have been written.
+ *
+ * @author Ryan Morrison
+ */
+public class SeenBuffer {
+    private static final ConcurrentMap<SeenKey, Long> pending = new ConcurrentHashMap<SeenKey, Long>();
+    private static final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private static final Object flushLock = new Object();
+    private static ScheduledExecutorService scheduler;
+
+    // Upper bound on the number of rows sent in a single batch
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Records that a user was last seen in a channel
+     * @param nick the nick of the user
+     * @param channel the channel the user was seen in
+     * @param date the time the user was seen, in milliseconds since the epoch
+     */
+    public static void record(String nick, String channel, long date) {
+        pending.put(new SeenKey(nick, channel), date);
+        // Flush early if a netsplit has filled the buffer
+        if(pending.size() >= Configuration.getSeenFlushSize() && flushQueued.compareAndSet(false, true)) {
+            boolean accepted = TaskDispatcher.submit(WorkerPools.SEEN, new Runnable() {
+                public void run() {
+                    flushQueued.set(false);
+                    flush();
+                }
+            });
+            if(!accepted) flushQueued.set(false);
+        }
+    }
+
+    /**
+     * Returns the time a user was last seen in a channel if it has not been written to the database yet
+     * @param nick the nick of the user
+     * @param channel the channel to look up
+     * @return the time the user was last seen in milliseconds since the epoch, or null if nothing is pending
+     */
+    public static Long getPending(String nick, String channel) {
+        return pending.get(new SeenKey(nick, channel));
+    }
+
+    /**
+     * Returns the number of updates waiting to be written
+     * @return the number of updates waiting to be written
+     */
+    public static int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes all pending updates to the database. Updates which fail to be written
+     * are kept and retried on the next flush.
+     */
+    public static void flush() {
+        synchronized(flushLock) {
+            if(pending.isEmpty()) return;
+            List<Map.Entry<SeenKey, Long>> entries = new ArrayList<Map.Entry<SeenKey, Long>>();
+            for(Map.Entry<SeenKey, Long> entry : pending.entrySet()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<SeenKey, Long>(entry.getKey(), entry.getValue()));
+            }
+            Database database = new Database();
+            try {
+                database.connect();
+                Connection connection = database.getConnection();
+                PreparedStatement statement;
+                if(Configuration.getDatabaseDriver().equalsIgnoreCase("sqlite")) {
+                    statement = connection.prepareStatement("INSERT OR REPLACE INTO Seen(Nick, Date, Channel) VALUES (?, ?, ?)");
+                } else {
+                    statement = connection.prepareStatement("INSERT INTO Seen(Nick, Date, Channel) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE Date = VALUES(Date)");
+                }
+                connection.setAutoCommit(false);
+                for(int i = 0; i < entries.size(); i++) {
+                    Map.Entry<SeenKey, Long> entry = entries.get(i);
+                    statement.setString(1, entry.getKey().nick);
+                    statement.setTimestamp(2, new Timestamp(entry.getValue()));
+                    statement.setString(3, entry.getKey().channel);
+                    statement.addBatch();
+                    if((i + 1) % BATCH_SIZE == 0 || i == entries.size() - 1) statement.executeBatch();
+                }
+                connection.commit();
+                connection.setAutoCommit(true);
+                // Only drop the updates we wrote, newer ones recorded during the flush are kept
+                for(Map.Entry<SeenKey, Long> entry : entries) {
+                    pending.remove(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception ex) {
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            } finally {
+                try {
+                    database.disconnect();
+                } catch (Exception ex) {
+                    Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules pending updates to be written periodically
+     */
+    public static synchronized void schedule() {
+        if(scheduler != null) scheduler.shutdown();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "IRCBot-seen-flush");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        int interval = Configuration.getSeenFlushInterval();
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                flush();
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic flush and writes any remaining updates
+     */
+    public static synchronized void shutdown() {
+        if(scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+        flush();
+    }
+
+    /**
+     * The nick and channel a seen update applies to. Nicks and channels are compared
+     * ignoring case, the same way SeenIndex interns them, while the case they were
+     * first recorded with is kept for writing to the database.
+     */
+    private static class SeenKey {
+        private final String nick;
+        private final String channel;
+        private final String lowerNick;
+        private final String lowerChannel;
+
+        private SeenKey(String nick, String channel) {
+            this.nick = nick;
+            this.channel = channel;
+            this.lowerNick = nick.toLowerCase(Locale.ENGLISH);
+            this.lowerChannel = channel.toLowerCase(Locale.ENGLISH);
+        }
+
+        public boolean equals(Object obj) {
+            if(!(obj instanceof SeenKey)) return false;
+            SeenKey other = (SeenKey)obj;
+            return lowerNick.equals(other.lowerNick) && lowerChannel.equals(other.lowerChannel);
+        }
+
+        public int hashCode() {
+            return 31 * lowerNick.hashCode() + lowerChannel.hashCode();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package us.rddt.IRCBot.Handlers;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Database;
+import us.rddt.IRCBot.IRCUtils;
+
+/**
+ * Keeps the time every user was last seen in every channel in memory so !seen
+ * can be answered without querying the database. Nicks and channels are interned
+ * to integer ids and the timestamps are stored in a primitive open-addressing
+ * table keyed by the pair of ids. The index is loaded from the Seen table at
+ * startup; new updates are persisted by SeenBuffer.
+ *
+ * @author Ryan Morrison
+ */
+public class SeenIndex {
+    private static final ConcurrentHashMap<String, Integer> nickIds = new ConcurrentHashMap<String, Integer>();
+    private static final ConcurrentHashMap<String, Integer> channelIds = new ConcurrentHashMap<String, Integer>();
+    private static final AtomicInteger nextNickId = new AtomicInteger(1);
+    private static final AtomicInteger nextChannelId = new AtomicInteger(1);
+
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // A key of 0 marks an empty slot, ids start at 1 so no real key is ever 0
+    private static long[] keys = new long[1024];
+    private static long[] values = new long[1024];
+    private static int size = 0;
+
+    private static volatile boolean loaded = false;
+
+    /**
+     * Loads the index from the database. Updates recorded while loading are kept if they are newer.
+     */
+    public static void load() {
+        Database database = new Database();
+        long start = System.currentTimeMillis();
+        int rows = 0;
+        try {
+            database.connect();
+            PreparedStatement statement = database.getConnection().prepareStatement("SELECT Nick, Channel, Date FROM Seen");
+            statement.setFetchSize(1000);
+            ResultSet resultSet = statement.executeQuery();
+            while(resultSet.next()) {
+                Timestamp date = resultSet.getTimestamp("Date");
+                if(date == null) continue;
+                update(resultSet.getString("Nick"), resultSet.getString("Channel"), date.getTime());
+                rows++;
+            }
+            loaded = true;
+            Configuration.getLogger().write(Level.INFO, "Loaded " + rows + " seen records in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception ex) {
+            Configuration.getLogger().write(Level.WARNING, "Unable to load seen records, !seen will query the database: " + IRCUtils.getStackTraceString(ex));
+        } finally {
+            try {
+                database.disconnect();
+            } catch (Exception ex) {
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the index has been loaded from the database
+     * @return true if lookups can be answered from memory alone
+     */
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Records the time a user was last seen in a channel. Older times than the one already recorded are ignored.
+     * @param nick the nick of the user
+     * @param channel the channel the user was seen in
+     * @param date the time the user was seen, in milliseconds since the epoch
+     */
+    public static void update(String nick, String channel, long date) {
+        long key = toKey(intern(nickIds, nextNickId, nick), intern(channelIds, nextChannelId, channel));
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(keys, key);
+            if(keys[slot] == 0) {
+                keys[slot] = key;
+                values[slot] = date;
+                if(++size > keys.length * 3 / 4) resize();
+            } else if(values[slot] < date) {
+                values[slot] = date;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the time a user was last seen in a channel
+     * @param nick the nick of the user
+     * @param channel the channel to look up
+     * @return the time the user was last seen in milliseconds since the epoch, or -1 if the user has not been seen
+     */
+    public static long lookup(String nick, String channel) {
+        Integer nickId = nickIds.get(nick.toLowerCase(Locale.ENGLISH));
+        Integer channelId = channelIds.get(channel.toLowerCase(Locale.ENGLISH));
+        if(nickId == null || channelId == null) return -1;
+        long key = toKey(nickId, channelId);
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(keys, key);
+            return keys[slot] == 0 ? -1 : values[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of nick and channel pairs in the index
+     * @return the number of entries in the index
+     */
+    public static int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the id of a nick or channel, assigning a new one if it has not been seen before
+     */
+    private static int intern(ConcurrentHashMap<String, Integer> ids, AtomicInteger next, String name) {
+        // Nicks and channels are case insensitive on IRC
+        String key = name.toLowerCase(Locale.ENGLISH);
+        Integer id = ids.get(key);
+        if(id == null) {
+            Integer created = next.getAndIncrement();
+            id = ids.putIfAbsent(key, created);
+            if(id == null) id = created;
+        }
+        return id;
+    }
+
+    private static long toKey(int nickId, int channelId) {
+        return ((long)channelId << 32) | (nickId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the slot holding a key, or the empty slot it would be inserted into
+     */
+    private static int findSlot(long[] table, long key) {
+        int mask = table.length - 1;
+        int slot = (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while(table[slot] != 0 && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity of the table. Must be called with the write lock held.
+     */
+    private static void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] == 0) continue;
+            int slot = findSlot(keys, oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
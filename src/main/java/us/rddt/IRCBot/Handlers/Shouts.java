@@ -3,6 +3,7 @@ package us.rddt.IRCBot.Handlers;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -15,14 +16,12 @@ import org.pircbotx.Colors;
 import org.pircbotx.PircBotX;
 import org.pircbotx.hooks.events.MessageEvent;
 
-import twitter4j.Twitter;
-import twitter4j.TwitterException;
-import twitter4j.TwitterFactory;
-import twitter4j.auth.AccessToken;
 import us.rddt.IRCBot.Configuration;
 import us.rddt.IRCBot.Database;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.IRCUtils;
 import us.rddt.IRCBot.Statistics.Statistics;
+import us.rddt.IRCBot.Streaming.TweetPublisher;
 
 /**
  * Shouts is an interesting way to discourage all caps spam in an IRC channel, or
@@ -118,12 +117,18 @@ public class Shouts implements Runnable {
      */
     private void addNewQuote() throws SQLException {
         // Build and run our update against the database
-        PreparedStatement statement = database.getConnection().prepareStatement("INSERT INTO Quotes(Nick, Date, Channel, Quote, Deleted) VALUES (?, ?, ?, ?, 0)");
+        long hash = QuoteHashes.hash(event.getMessage());
+        PreparedStatement statement = database.getConnection().prepareStatement("INSERT INTO Quotes(Nick, Date, Channel, Quote, Deleted, QuoteHash) VALUES (?, ?, ?, ?, 0, ?)", Statement.RETURN_GENERATED_KEYS);
         statement.setString(1, event.getUser().getNick());
         statement.setTimestamp(2, new java.sql.Timestamp(System.currentTimeMillis()));
         statement.setString(3, event.getChannel().getName());
-        statement.setString(4, Colors.removeFormattingAndColors(event.getMessage()).trim());
+        statement.setString(4, QuoteHashes.normalize(event.getMessage()));
+        statement.setLong(5, hash);
         statement.executeUpdate();
+        QuoteHashes.add(event.getChannel().getName(), hash);
+        // Make the new quote available for random selection
+        ResultSet keys = statement.getGeneratedKeys();
+        if(keys.next()) QuoteSelector.add(event.getChannel().getName(), keys.getInt(1));
     }
     
     /**
@@ -132,10 +137,33 @@ public class Shouts implements Runnable {
      * @throws SQLException if the SQL query does not execute correctly
      */
     private int deleteQuote(String quote) throws SQLException {
+        List<Integer> ids = findQuoteIds(quote);
         PreparedStatement statement = database.getConnection().prepareStatement("UPDATE Quotes SET Deleted = '1' WHERE Quote = ? AND Channel = ? AND Deleted = '0'");
         statement.setString(1, Colors.removeFormattingAndColors(quote));
         statement.setString(2, event.getChannel().getName());
-        return statement.executeUpdate();
+        int updated = statement.executeUpdate();
+        for(int id : ids) {
+            QuoteSelector.remove(event.getChannel().getName(), id);
+        }
+        return updated;
+    }
+
+    /**
+     * Returns the ids of every quote in the channel matching the provided text
+     * @param quote the quote text to look up
+     * @return the ids of the matching quotes
+     * @throws SQLException if the SQL query does not execute correctly
+     */
+    private List<Integer> findQuoteIds(String quote) throws SQLException {
+        List<Integer> ids = new ArrayList<Integer>();
+        PreparedStatement statement = database.getConnection().prepareStatement("SELECT ID FROM Quotes WHERE Quote = ? AND Channel = ?");
+        statement.setString(1, Colors.removeFormattingAndColors(quote));
+        statement.setString(2, event.getChannel().getName());
+        ResultSet resultSet = statement.executeQuery();
+        while(resultSet.next()) {
+            ids.add(resultSet.getInt(1));
+        }
+        return ids;
     }
 
     /**
@@ -144,10 +172,14 @@ public class Shouts implements Runnable {
      * @throws SQLException if the SQL query does not execute correctly
      */
     private boolean doesQuoteExist() throws SQLException {
+        long hash = QuoteHashes.hash(event.getMessage());
+        // Once the hashes are loaded only genuinely new quotes need to touch the database
+        if(QuoteHashes.isLoaded()) return QuoteHashes.contains(event.getChannel().getName(), hash);
         // Again, prepared statements to sanitize input
-        PreparedStatement statement = database.getConnection().prepareStatement("SELECT * FROM Quotes WHERE Quote = ? AND Channel = ?");
-        statement.setString(1, Colors.removeFormattingAndColors(event.getMessage()));
-        statement.setString(2, event.getChannel().getName());
+        PreparedStatement statement = database.getConnection().prepareStatement("SELECT ID FROM Quotes WHERE Channel = ? AND QuoteHash = ? AND Quote = ?");
+        statement.setString(1, event.getChannel().getName());
+        statement.setLong(2, hash);
+        statement.setString(3, QuoteHashes.normalize(event.getMessage()));
         ResultSet resultSet = statement.executeQuery();
         if(resultSet.next()) {
             return true;
@@ -252,17 +284,15 @@ public class Shouts implements Runnable {
     private String getRandomQuote() throws SQLException {
         // We use prepared statements to sanitize input from the user
         // Specifying the channel allows different channels to have their own list of quotes available
-        PreparedStatement statement= database.getConnection().prepareStatement("SELECT * FROM Quotes WHERE Channel = ? AND Deleted = '0' ORDER BY RAND() LIMIT 1");
-        statement.setString(1, event.getChannel().getName());
-        // Execute our query against the database
-        ResultSet resultSet = statement.executeQuery();
-        if(resultSet.next()) {
+        // Quote ids are cached per channel, so only the selected quote is read from the database
+        ResultSet resultSet = QuoteSelector.selectRandom(database.getConnection(), event.getChannel().getName());
+        if(resultSet != null) {
             Shout shout = new Shout(resultSet.getString("Quote"), resultSet.getString("Nick"), IRCUtils.toReadableTime((Date)resultSet.getTimestamp("Date"), false, true));
             // Save the last quote to prevent an extra DB hit on !who last
             shoutMap.put(event.getChannel().getName(), shout);
-            // Tweet the quote if enabled
-            if(!Configuration.getDisabledFunctions().contains("tweetshouts")) {
-                new Thread(new TweetShout(shout)).start();
+            // Tweet the quote if enabled and it fits in a tweet
+            if(!Configuration.isFunctionDisabled("tweetshouts") && (shout.getSubmitter().length() + shout.getQuote().length() + 2) <= 140) {
+                TweetPublisher.publish(shout.getQuote());
             }
             // Return the random quote
             return shout.getQuote();
@@ -343,10 +373,16 @@ public class Shouts implements Runnable {
      * @throws SQLException if the SQL query does not execute correctly
      */
     private int permanentlyDeleteQuote(String quote) throws SQLException {
+        List<Integer> ids = findQuoteIds(quote);
         PreparedStatement statement = database.getConnection().prepareStatement("DELETE FROM Quotes WHERE Quote = ? AND Channel = ?");
         statement.setString(1, Colors.removeFormattingAndColors(quote));
         statement.setString(2, event.getChannel().getName());
-        return statement.executeUpdate();
+        int updated = statement.executeUpdate();
+        for(int id : ids) {
+            QuoteSelector.remove(event.getChannel().getName(), id);
+        }
+        if(updated > 0) QuoteHashes.remove(event.getChannel().getName(), QuoteHashes.hash(quote));
+        return updated;
     }
     
     /**
@@ -355,10 +391,15 @@ public class Shouts implements Runnable {
      * @throws SQLException if the SQL query does not execute correctly
      */
     private int undeleteQuote(String quote) throws SQLException {
+        List<Integer> ids = findQuoteIds(quote);
         PreparedStatement statement = database.getConnection().prepareStatement("UPDATE Quotes SET Deleted = '0' WHERE Quote = ? AND Channel = ?");
         statement.setString(1, Colors.removeFormattingAndColors(quote));
         statement.setString(2, event.getChannel().getName());
-        return statement.executeUpdate();
+        int updated = statement.executeUpdate();
+        for(int id : ids) {
+            QuoteSelector.add(event.getChannel().getName(), id);
+        }
+        return updated;
     }
 
     /**
@@ -376,7 +417,7 @@ public class Shouts implements Runnable {
                 // Get a random quote from the database (if possible). Send it to the channel.
                 // If the quote does not exist in the database, add it!
                 if((randomQuote = getRandomQuote()) != null) {
-                    event.getBot().sendMessage(event.getChannel(), (Colors.removeFormattingAndColors(randomQuote)));
+                    MessageScheduler.sendMessage(event.getBot(), event.getChannel(), (Colors.removeFormattingAndColors(randomQuote)));
                     // Update statistics
                     Statistics.getChannelStatistics(event.getChannel()).addShout(event.getUser().getNick());
                 }
@@ -385,17 +426,17 @@ public class Shouts implements Runnable {
                 // We're dealing with a !who list command - respond to the user with the information about the quote.
                 String whoCommand = event.getMessage().substring(5).replaceAll("^\\s+", "").replaceAll("\\s+$", "");
                 if(isValidQuoteNumber(whoCommand)) {
-                    event.respond(getQuoteLine(quoteNumber));
+                    MessageScheduler.respond(event, getQuoteLine(quoteNumber));
                     return;
                 }
                 try {
-                    event.respond(getQuoteInfo(whoCommand));
+                    MessageScheduler.respond(event, getQuoteInfo(whoCommand));
                 } catch (IndexOutOfBoundsException ex) {
                     return;
                 }
             } else if(eventType.equals(ShoutEvents.LIST_COMMAND)) {
                 // We're dealing with a !who list command - respond to the user with the quote database's statistics
-                event.respond(getQuoteStats());
+                MessageScheduler.respond(event, getQuoteStats());
             } else if(eventType.equals(ShoutEvents.LIST_USER_COMMAND)) {
                 // We're dealing with a !who user command - respond to the user with the user(s) statistics
                 StringBuilder builder = new StringBuilder();
@@ -416,78 +457,47 @@ public class Shouts implements Runnable {
                 }
                 builder.append(".");
                 // Return the user-friendly string to the user
-                event.respond(builder.toString());
+                MessageScheduler.respond(event, builder.toString());
             } else if(eventType.equals(ShoutEvents.LAST_COMMAND)) {
                 // We're dealing with a !who last command - respond to the user with the last shout
-                event.respond(getLastShout());
+                MessageScheduler.respond(event, getLastShout());
             } else if(eventType.equals(ShoutEvents.TOP10_COMMAND)) {
                 // We're dealing with a !who top10 command - respond to the user with the top 10 users
-                event.respond(getTop10Shouters());
+                MessageScheduler.respond(event, getTop10Shouters());
             } else if(eventType.equals(ShoutEvents.DELETE_COMMAND)) {
                 // We're dealing with a !who delete command - delete the provided quote from the database
                 // Operator status has already been confirmed at this point
                 if(deleteQuote(event.getMessage().split(Configuration.getCommandPrefix() + "who delete ")[1].trim()) > 0) {
-                    event.respond("Quote has been removed from the database.");
+                    MessageScheduler.respond(event, "Quote has been removed from the database.");
                 } else {
-                    event.respond("Could not delete quote - quote not found.");
+                    MessageScheduler.respond(event, "Could not delete quote - quote not found.");
                 }
             } else if(eventType.equals(ShoutEvents.UNDELETE_COMMAND)) {
                 // We're dealing with a !who undelete command - delete the provided quote from the database
                 // Operator status has already been confirmed at this point
                 if(undeleteQuote(event.getMessage().split(Configuration.getCommandPrefix() + "who undelete ")[1].trim()) > 0) {
-                    event.respond("Quote has been added back into the database.");
+                    MessageScheduler.respond(event, "Quote has been added back into the database.");
                 } else {
-                    event.respond("Could not undelete quote - quote not found.");
+                    MessageScheduler.respond(event, "Could not undelete quote - quote not found.");
                 }    
             } else if(eventType.equals(ShoutEvents.PURGE_COMMAND)) {
                 // We're dealing with a !who delete --purge command - purge the provided quote from the database
                 // Operator status has already been confirmed at this point
                 if(permanentlyDeleteQuote(event.getMessage().split(Configuration.getCommandPrefix() + "who delete --purge ")[1].trim()) > 0) {
-                    event.respond("Quote has been purged from the database.");
+                    MessageScheduler.respond(event, "Quote has been purged from the database.");
                 } else {
-                    event.respond("Could not purge quote - quote not found.");
+                    MessageScheduler.respond(event, "Could not purge quote - quote not found.");
                 }
             }
-            // Disconnect from the database
-            database.disconnect();
         } catch (Exception ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            return;
-        }
-    }
-}
-
-/**
- * Class to execute in a separate thread to update Twitter with shouts.
- * @author Ryan Morrison
- */
-class TweetShout implements Runnable {
-    private Shout toTweet;
-    
-    /**
-     * Class constructor.
-     * @param toTweet the shout object to tweet
-     */
-    public TweetShout(Shout toTweet) {
-        this.toTweet = toTweet;
-    }
-    
-    /**
-     * Method that executes upon thread start
-     * (non-Javadoc)
-     * @see java.lang.Runnable#run()
-     */
-    public void run() {
-        if((toTweet.getSubmitter().length() + toTweet.getQuote().length() + 2) <= 140) {
+        } finally {
+            // Return the connection to the pool, even if we responded early
             try {
-                Twitter twitter = new TwitterFactory().getInstance();  
-                twitter.setOAuthConsumer(Configuration.getTwitterConsumerKey(), Configuration.getTwitterConsumerSecret());
-                twitter.setOAuthAccessToken(new AccessToken(Configuration.getTwitterAccessToken(), Configuration.getTwitterAccessSecret()));
-                
-                twitter.updateStatus(toTweet.getQuote());
-            } catch (TwitterException te) {
-                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(te));
+                if(database != null) database.disconnect();
+            } catch (SQLException ex) {
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
             }
         }
-    } 
+    }
 }
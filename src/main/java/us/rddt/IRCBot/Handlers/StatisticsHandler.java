@@ -4,6 +4,7 @@ import org.pircbotx.PircBotX;
 import org.pircbotx.hooks.events.MessageEvent;
 
 import us.rddt.IRCBot.Enums.StatisticsModes;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.Statistics.Statistics;
 
 /**
@@ -29,9 +30,9 @@ public class StatisticsHandler implements Runnable {
      */
     private void addDisabledChannel() {
         if(Statistics.addDisabledChannel(event.getChannel())) {
-            event.respond(event.getChannel().getName() + " will not appear in statistics.");
+            MessageScheduler.respond(event, event.getChannel().getName() + " will not appear in statistics.");
         } else {
-            event.respond(event.getChannel().getName() + " has already been disabled!");
+            MessageScheduler.respond(event, event.getChannel().getName() + " has already been disabled!");
         }
     }
     
@@ -40,9 +41,9 @@ public class StatisticsHandler implements Runnable {
      */
     private void removeDisabledChannel() {
         if(Statistics.removeDisabledChannel(event.getChannel())) {
-            event.respond(event.getChannel().getName() + " will now appear in statistics.");
+            MessageScheduler.respond(event, event.getChannel().getName() + " will now appear in statistics.");
         } else {
-            event.respond(event.getChannel().getName() + " has not been disabled!");
+            MessageScheduler.respond(event, event.getChannel().getName() + " has not been disabled!");
         }
     }
     
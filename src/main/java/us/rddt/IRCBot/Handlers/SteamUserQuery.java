@@ -9,6 +9,7 @@ import org.pircbotx.PircBotX;
 import org.pircbotx.hooks.events.MessageEvent;
 
 import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.IRCUtils;
 import us.rddt.IRCBot.Implementations.SteamUser;
 
@@ -75,25 +76,25 @@ public class SteamUserQuery implements Runnable {
                 } else {
                     queriedUser = new SteamUser(givenId, true);
                 }
-                event.respond(buildUserQueryString(queriedUser));
+                MessageScheduler.respond(event, buildUserQueryString(queriedUser));
             } catch (IOException ex) {
                 if(ex.getMessage().equals("Server returned response code: 401")) {
-                    event.respond("Steam Web API key is invalid. Please add a valid Steam Web API key and reload configuration.");
+                    MessageScheduler.respond(event, "Steam Web API key is invalid. Please add a valid Steam Web API key and reload configuration.");
                     Configuration.getLogger().write(Level.WARNING, "Steam Web API key invalid");
                 }
             } catch(JSONException ex) {
                 if(ex.getMessage().equals("JSONArray[0] not found.")) {
-                    event.respond("Could not retrieve Steam user details - user does not exist.");
+                    MessageScheduler.respond(event, "Could not retrieve Steam user details - user does not exist.");
                 } else {
                     Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
                 }
             } catch(NullPointerException ex) {
-                event.respond("Could not convert Community Name to 64-bit Steam ID. (User may not exist)");
+                MessageScheduler.respond(event, "Could not convert Community Name to 64-bit Steam ID. (User may not exist)");
             } catch (Exception ex) {
                 Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
             }
         } else {
-            event.respond("Steam Web API key has not been configured. Please add a valid Steam Web API key and reload configuration.");
+            MessageScheduler.respond(event, "Steam Web API key has not been configured. Please add a valid Steam Web API key and reload configuration.");
             Configuration.getLogger().write(Level.WARNING, "Steam Web API key not configured");
         }
     }
@@ -5,6 +5,7 @@ import org.pircbotx.PircBotX;
 import org.pircbotx.User;
 import org.pircbotx.hooks.events.MessageEvent;
 
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.UserUtils;
 import us.rddt.IRCBot.Enums.UserModes;
 
@@ -126,7 +127,7 @@ public class UserMode implements Runnable {
                     event.getBot().ban(event.getChannel(), event.getBot().getUser(kickUser).getHostmask());
                 }
             } else {
-                event.respond("Why are you trying to kick me? What did I do wrong? :'(");
+                MessageScheduler.respond(event, "Why are you trying to kick me? What did I do wrong? :'(");
             }
         }
     }
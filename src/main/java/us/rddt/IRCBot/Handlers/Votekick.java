@@ -11,6 +11,7 @@ import org.pircbotx.hooks.events.MessageEvent;
 import org.pircbotx.hooks.events.PartEvent;
 
 import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.IRCUtils;
 import us.rddt.IRCBot.Enums.VotekickModes;
 import us.rddt.IRCBot.Implementations.VotekickObject;
@@ -126,7 +127,7 @@ public class Votekick implements Runnable {
         synchronized(currVotekicks) {
             currVotekicks.put(channel, new VotekickObject(votekickUser, startingUser, numVotesRequired));
         }
-        event.getBot().sendMessage(channel, startingUser.getNick() + " has voted to kick " + getVotekickObject().getUser().getNick() + "! (" + getVotekickObject().getNumVotes() + "/" + getVotekickObject().getNumVotesRequired() + " needed, " + Configuration.getVotekickDuration() + " seconds remaining)");
+        MessageScheduler.sendMessage(event.getBot(), channel, startingUser.getNick() + " has voted to kick " + getVotekickObject().getUser().getNick() + "! (" + getVotekickObject().getNumVotes() + "/" + getVotekickObject().getNumVotesRequired() + " needed, " + Configuration.getVotekickDuration() + " seconds remaining)");
         /*
          * Start sleeping the thread. When the vote is halfway complete, if it hasn't passed yet, announce the amount
          * of time remaining and how many votes are still needed.
@@ -137,7 +138,7 @@ public class Votekick implements Runnable {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
         }
         if(isVoteInProgress(channel)) {
-            event.getBot().sendMessage(channel, "There are " + (int)(Configuration.getVotekickDuration() / 2) + " seconds remaining in the vote to kick " + getVotekickObject().getUser().getNick() + ". (" + getVotekickObject().getNumVotes() + " votes, " + getVotekickObject().getNumVotesRequired() + " needed)");
+            MessageScheduler.sendMessage(event.getBot(), channel, "There are " + (int)(Configuration.getVotekickDuration() / 2) + " seconds remaining in the vote to kick " + getVotekickObject().getUser().getNick() + ". (" + getVotekickObject().getNumVotes() + " votes, " + getVotekickObject().getNumVotesRequired() + " needed)");
         }
         /*
          * Sleep again. When the vote time has passed, if the vote is still in progress, then end the vote
@@ -149,7 +150,7 @@ public class Votekick implements Runnable {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
         }
         if(isVoteInProgress(channel)) {
-            event.getBot().sendMessage(channel, "The vote to kick " + getVotekickObject().getUser().getNick() + " has failed! (" + getVotekickObject().getNumVotes() + " votes, " + getVotekickObject().getNumVotesRequired() + " needed)");
+            MessageScheduler.sendMessage(event.getBot(), channel, "The vote to kick " + getVotekickObject().getUser().getNick() + " has failed! (" + getVotekickObject().getNumVotes() + " votes, " + getVotekickObject().getNumVotesRequired() + " needed)");
             finishVote(event.getChannel());
         }
     }
@@ -167,27 +168,27 @@ public class Votekick implements Runnable {
             if(parameters.length > 1) {
                 // Make sure the user isn't trying to apply it to themselves or the bot
                 if(parameters[1].equals(event.getUser().getNick())) {
-                    event.respond("You cannot participate in a votekick against yourself!");
+                    MessageScheduler.respond(event, "You cannot participate in a votekick against yourself!");
                 } else if(parameters[1].equals(event.getBot().getNick())) {
-                    event.respond("You cannot votekick the bot!");
+                    MessageScheduler.respond(event, "You cannot votekick the bot!");
                 } else {
                     // If there is already a vote in progress
                     if(isVoteInProgress(event.getChannel())) {
                         // Make sure the user hasn't already voted
                         if(getVotekickObject().getVotedUsers().contains(event.getUser().getHostmask())) {
-                            event.respond("You have already voted - you cannot vote again!");
+                            MessageScheduler.respond(event, "You have already voted - you cannot vote again!");
                         } else {
                             // Make sure the user is voting against the votekicked user, otherwise tell them to wait until the vote is over
                             if(parameters[1].equals(getVotekickObject().getUser().getNick())) {
                                 addVote(event.getUser());
-                                event.getBot().sendMessage(event.getChannel(), event.getUser().getNick() + " has voted to kick " + getVotekickObject().getUser().getNick() + "! (" + getVotekickObject().getNumVotes() + "/" + getVotekickObject().getNumVotesRequired() + " needed)");
+                                MessageScheduler.sendMessage(event.getBot(), event.getChannel(), event.getUser().getNick() + " has voted to kick " + getVotekickObject().getUser().getNick() + "! (" + getVotekickObject().getNumVotes() + "/" + getVotekickObject().getNumVotesRequired() + " needed)");
                                 // If there are enough votes for the votekick to pass, kick the user and reset the votekick
                                 if(getVotekickObject().hasNeededVotes()) {
-                                    event.getBot().sendMessage(event.getChannel(), "The votekick against " + getVotekickObject().getUser().getNick() + " has succeeded!");
+                                    MessageScheduler.sendMessage(event.getBot(), event.getChannel(), "The votekick against " + getVotekickObject().getUser().getNick() + " has succeeded!");
                                     kickUser(event.getChannel(), getVotekickObject().getUser());
                                 }
                             } else {
-                                event.respond("You cannot start another votekick when one is currently in progress!");
+                                MessageScheduler.respond(event, "You cannot start another votekick when one is currently in progress!");
                             }
                         }
                     } else {
@@ -195,7 +196,7 @@ public class Votekick implements Runnable {
                         if(event.getBot().getUsers(event.getChannel()).contains(event.getBot().getUser(parameters[1]))) {
                             startNewVotekick(event.getChannel(), event.getUser(), event.getBot().getUser(parameters[1]));
                         } else {
-                            event.respond("You cannot start a vote against a user that is not in the channel!");
+                            MessageScheduler.respond(event, "You cannot start a vote against a user that is not in the channel!");
                         }
                     }
                 }
@@ -205,7 +206,7 @@ public class Votekick implements Runnable {
             if(isVoteInProgress(pEvent.getChannel())) {
                 // If the user leaving is the user being votekicked, end the vote against them
                 if(pEvent.getUser() == getVotekickObject().getUser()) {
-                    pEvent.getBot().sendMessage(pEvent.getChannel(), "The votekick against " + pEvent.getUser().getNick() + " has ended - they have left the channel!");
+                    MessageScheduler.sendMessage(pEvent.getBot(), pEvent.getChannel(), "The votekick against " + pEvent.getUser().getNick() + " has ended - they have left the channel!");
                     finishVote(pEvent.getChannel());
                 }
             }
@@ -214,7 +215,7 @@ public class Votekick implements Runnable {
             if(isVoteInProgress(kEvent.getChannel())) {
                 // If the user leaving is the user being votekicked, end the vote against them
                 if(kEvent.getRecipient() == getVotekickObject().getUser()) {
-                    kEvent.getBot().sendMessage(kEvent.getChannel(), "The votekick against " + kEvent.getRecipient().getNick() + " has ended - they have been kicked from the channel!");
+                    MessageScheduler.sendMessage(kEvent.getBot(), kEvent.getChannel(), "The votekick against " + kEvent.getRecipient().getNick() + " has ended - they have been kicked from the channel!");
                     finishVote(kEvent.getChannel());
                 }
             }
@@ -7,6 +7,13 @@ import org.pircbotx.UtilSSLSocketFactory;
 import org.pircbotx.exception.NickAlreadyInUseException;
 import org.pircbotx.hooks.ListenerAdapter;
 
+import us.rddt.IRCBot.Enums.WorkerPools;
+import us.rddt.IRCBot.Execution.TaskDispatcher;
+import us.rddt.IRCBot.Handlers.QuoteHashes;
+import us.rddt.IRCBot.Handlers.SeenBuffer;
+import us.rddt.IRCBot.Handlers.SeenIndex;
+import us.rddt.IRCBot.Implementations.URLPipeline;
+import us.rddt.IRCBot.Network.HttpClient;
 import us.rddt.IRCBot.Statistics.StatisticsUpdater;
 import us.rddt.IRCBot.Streaming.TwitterMentions;
 
@@ -34,6 +41,28 @@ public class IRCBot extends ListenerAdapter<PircBotX> {
             System.exit(-1);
         }
         Configuration.getLogger().write(Level.INFO, "Initializing bot (IRCBot version " + Configuration.getApplicationVersion() + ")");
+        // Create the worker pools used to run the bot's handlers
+        TaskDispatcher.configure();
+        // Apply the HTTP timeouts and connection limits before any requests are made
+        HttpClient.configure();
+        URLPipeline.configure();
+        // Create or upgrade the database schema before anything uses it
+        try {
+            Database.migrate();
+        } catch(Exception ex) {
+            // Quotes, seen records and game statuses all depend on the current schema, so don't start without it
+            Configuration.getLogger().write(Level.SEVERE, "Unable to migrate the database schema: " + IRCUtils.getStackTraceString(ex));
+            System.exit(-1);
+        }
+        // Start writing buffered seen updates to the database
+        SeenBuffer.schedule();
+        // Load the seen records and quote hashes into memory so lookups don't have to query the database
+        TaskDispatcher.submit(WorkerPools.BACKGROUND, new Runnable() {
+            public void run() {
+                SeenIndex.load();
+                QuoteHashes.load();
+            }
+        });
         
         // Create a new instance of the IRC bot
         bot = new PircBotX();
@@ -45,22 +74,27 @@ public class IRCBot extends ListenerAdapter<PircBotX> {
         bot.setLogin(Configuration.getUser());
         // Automatically split messages longer than IRC's size limit
         bot.setAutoSplitMessage(true);
+        // Outgoing messages are already paced by the message scheduler
+        bot.setMessageDelay(0);
         // Connect to the IRC server
         connect(bot, args);
         // Create the scheduler
         Configuration.startScheduler(bot);
         // Create the scheduler for statistics updating
-        if(!Configuration.getDisabledFunctions().contains("tweetstatistics")) {
+        if(!Configuration.isFunctionDisabled("tweetstatistics")) {
             StatisticsUpdater.schedule();
         }
         // Create the scheduler for tweet mention streaming
-        if(!Configuration.getDisabledFunctions().contains("tweetmentions")) {
+        if(!Configuration.isFunctionDisabled("tweetmentions")) {
             TwitterMentions.listenForTweets(bot);
         }
         // Add a shutdown handler to attempt to properly disconnect from the server upon shutdown
         Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
             public void run() {
                 if(bot.isConnected()) bot.quitServer("Received SIGINT from command line");
+                TaskDispatcher.shutdown();
+                SeenBuffer.shutdown();
+                Database.shutdownPool();
             }
         }));
     }
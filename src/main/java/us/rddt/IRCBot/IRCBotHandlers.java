@@ -2,14 +2,13 @@ package us.rddt.IRCBot;
 
 import java.net.URL;
 import java.util.Arrays;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.pircbotx.Channel;
-import org.pircbotx.Colors;
 import org.pircbotx.PircBotX;
-import org.pircbotx.User;
 import org.pircbotx.hooks.ListenerAdapter;
 import org.pircbotx.hooks.events.InviteEvent;
 import org.pircbotx.hooks.events.JoinEvent;
@@ -19,11 +18,19 @@ import org.pircbotx.hooks.events.PartEvent;
 import org.pircbotx.hooks.events.PrivateMessageEvent;
 import org.pircbotx.hooks.events.QuitEvent;
 
+import us.rddt.IRCBot.Commands.Command;
+import us.rddt.IRCBot.Commands.CommandRegistry;
+import us.rddt.IRCBot.Enums.CommandPrivileges;
 import us.rddt.IRCBot.Enums.GameStatusModes;
+import us.rddt.IRCBot.Enums.MessagePriority;
 import us.rddt.IRCBot.Enums.StatisticsModes;
 import us.rddt.IRCBot.Enums.TopicUpdates;
 import us.rddt.IRCBot.Enums.UserModes;
 import us.rddt.IRCBot.Enums.VotekickModes;
+import us.rddt.IRCBot.Enums.WorkerPools;
+import us.rddt.IRCBot.Execution.MessageScheduler;
+import us.rddt.IRCBot.Execution.TaskDispatcher;
+import us.rddt.IRCBot.Execution.WatcherScheduler;
 import us.rddt.IRCBot.Handlers.Calculator;
 import us.rddt.IRCBot.Handlers.Convert;
 import us.rddt.IRCBot.Handlers.Define;
@@ -32,6 +39,8 @@ import us.rddt.IRCBot.Handlers.GameStatus;
 import us.rddt.IRCBot.Handlers.Help;
 import us.rddt.IRCBot.Handlers.Search;
 import us.rddt.IRCBot.Handlers.Seen;
+import us.rddt.IRCBot.Handlers.SeenBuffer;
+import us.rddt.IRCBot.Handlers.SeenIndex;
 import us.rddt.IRCBot.Handlers.Shouts;
 import us.rddt.IRCBot.Handlers.StatisticsHandler;
 import us.rddt.IRCBot.Handlers.SteamUserQuery;
@@ -39,288 +48,301 @@ import us.rddt.IRCBot.Handlers.Topic;
 import us.rddt.IRCBot.Handlers.UserMode;
 import us.rddt.IRCBot.Handlers.Votekick;
 import us.rddt.IRCBot.Implementations.DatabaseCleaner;
-import us.rddt.IRCBot.Implementations.URLGrabber;
+import us.rddt.IRCBot.Implementations.HtmlTitleScanner;
+import us.rddt.IRCBot.Implementations.URLCache;
+import us.rddt.IRCBot.Implementations.URLPipeline;
+import us.rddt.IRCBot.Implementations.WatcherState;
+import us.rddt.IRCBot.Network.HttpClient;
 import us.rddt.IRCBot.Statistics.Statistics;
 import us.rddt.IRCBot.Statistics.StatisticsTask;
+import us.rddt.IRCBot.Streaming.TweetPublisher;
+import us.rddt.IRCBot.Streaming.TwitterMentions;
 
 /**
  * Handles events as they are registered by the bot. Each command's action is
- * spawned in a new thread to prevent the bot from locking up on commands which
- * could potentially take some time to complete - for example, actions that rely
- * on outside services such as retrieving the title of a webpage. Threading these
- * actions also allows the bot to handle simultaneous commands, however the bot is
- * generally rate limited by the ircd to prevent flooding.
+ * submitted to a bounded worker pool to prevent the bot from locking up on commands
+ * which could potentially take some time to complete - for example, actions that rely
+ * on outside services such as retrieving the title of a webpage. The pools also allow
+ * the bot to handle simultaneous commands without spawning an unbounded number of
+ * threads, however the bot is generally rate limited by the ircd to prevent flooding.
  * 
  * @author Ryan Morrison
  */
 public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
+    /*
+     * Commands recognized by the bot, keyed by the text following the command prefix.
+     */
+    private static final CommandRegistry commands = createCommandRegistry();
+    private static final Pattern URL_PATTERN = Pattern.compile("\\bhttps?://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]");
+
     /**
-     * Checks incoming messages from users for potential bot commands
-     * @param event the MessageEvent to parse
-     * @return true if a command was parsed, false if no command was recognized
+     * Registers every command the bot responds to
+     * @return the populated command registry
      */
-    private boolean checkForCommands(MessageEvent<PircBotX> event) {
+    private static CommandRegistry createCommandRegistry() {
+        CommandRegistry registry = new CommandRegistry();
         /*
-         * Trim any leading or trailing whitespace.
+         * Shout management
          */
-        String message = event.getMessage().trim();
+        registry.register(new Command("who last", true, CommandPrivileges.ANYONE, "shout", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Shouts(event, Shouts.ShoutEvents.LAST_COMMAND);
+            }
+        });
+        registry.register(new Command("who list", true, CommandPrivileges.ANYONE, "shout", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Shouts(event, Shouts.ShoutEvents.LIST_COMMAND);
+            }
+        });
+        registry.register(new Command("who user", false, CommandPrivileges.ANYONE, "shout", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Shouts(event, Shouts.ShoutEvents.LIST_USER_COMMAND);
+            }
+        });
+        registry.register(new Command("who top10", true, CommandPrivileges.ANYONE, "shout", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Shouts(event, Shouts.ShoutEvents.TOP10_COMMAND);
+            }
+        });
+        registry.register(new Command("who delete --purge ", false, CommandPrivileges.OPERATOR, "shout", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Shouts(event, Shouts.ShoutEvents.PURGE_COMMAND);
+            }
+        });
+        registry.register(new Command("who delete ", false, CommandPrivileges.OPERATOR, "shout", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Shouts(event, Shouts.ShoutEvents.DELETE_COMMAND);
+            }
+        });
+        registry.register(new Command("who undelete ", false, CommandPrivileges.OPERATOR, "shout", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Shouts(event, Shouts.ShoutEvents.UNDELETE_COMMAND);
+            }
+        });
+        registry.register(new Command("who ", false, CommandPrivileges.ANYONE, "shout", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Shouts(event, Shouts.ShoutEvents.LOOKUP_COMMAND);
+            }
+        });
         /*
-         * Most commands below spawn threads to prevent blocking.
+         * General commands
          */
-        if(message.charAt(0) == Configuration.getCommandPrefix()) {
-            if(message.substring(1).equals("who last")) {
-                if(!Configuration.getDisabledFunctions().contains("shout")) {
-                    new Thread(new Shouts(event, Shouts.ShoutEvents.LAST_COMMAND)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).equals("who list")) {
-                if(!Configuration.getDisabledFunctions().contains("shout")) {
-                    new Thread(new Shouts(event, Shouts.ShoutEvents.LIST_COMMAND)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("who user")) {
-                if(!Configuration.getDisabledFunctions().contains("shout")) {
-                    new Thread(new Shouts(event, Shouts.ShoutEvents.LIST_USER_COMMAND)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).equals("who top10")) {
-                if(!Configuration.getDisabledFunctions().contains("shout")) {
-                    new Thread(new Shouts(event, Shouts.ShoutEvents.TOP10_COMMAND)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("who delete --purge ")) {
-                if(!Configuration.getDisabledFunctions().contains("shout")) {
-                    if(isUserOperator(event.getUser(), event.getChannel())) {
-                        new Thread(new Shouts(event, Shouts.ShoutEvents.PURGE_COMMAND)).start();
-                    }
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("who delete ")) {
-                if(!Configuration.getDisabledFunctions().contains("shout")) {
-                    if(isUserOperator(event.getUser(), event.getChannel())) {
-                        new Thread(new Shouts(event, Shouts.ShoutEvents.DELETE_COMMAND)).start();
-                    }
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("who undelete ")) {
-                if(!Configuration.getDisabledFunctions().contains("shout")) {
-                    if(isUserOperator(event.getUser(), event.getChannel())) {
-                        new Thread(new Shouts(event, Shouts.ShoutEvents.UNDELETE_COMMAND)).start();
-                    }
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("who ")) {
-                if(!Configuration.getDisabledFunctions().contains("shout")) {
-                    new Thread(new Shouts(event, Shouts.ShoutEvents.LOOKUP_COMMAND)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("calc ")) {
-                if(!Configuration.getDisabledFunctions().contains("calc")) {
-                    new Thread(new Calculator(event)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("convert ")) {
-                if(!Configuration.getDisabledFunctions().contains("convert")) {
-                    new Thread(new Convert(event)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("decide ")) {
-                if(!Configuration.getDisabledFunctions().contains("fortune")) {
-                    new Thread(new Fortune(event)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("seen ")) {
-                if(!Configuration.getDisabledFunctions().contains("seen")) {
-                    new Thread(new Seen(event)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("ud ")) {
-                if(!Configuration.getDisabledFunctions().contains("urbandictionary")) {
-                    new Thread(new Define(event)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("g ")) {
-                if(!Configuration.getDisabledFunctions().contains("google")) {
-                    new Thread(new Search(event)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("steam ")) {
-                if(!Configuration.getDisabledFunctions().contains("steamquery")) {
-                    new Thread(new SteamUserQuery(event)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).equals("statistics")) {
-                if(isUserAdmin(event.getUser())) {
-                    new Thread(new StatisticsTask(true)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).equals("disablestatistics")) {
-                if(isUserOperator(event.getUser(), event.getChannel())) {
-                    new Thread(new StatisticsHandler(event, StatisticsModes.ADD)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).equals("enablestatistics")) {
-                if(isUserOperator(event.getUser(), event.getChannel())) {
-                    new Thread(new StatisticsHandler(event, StatisticsModes.REMOVE)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("status set ")) {
-                if(!Configuration.getDisabledFunctions().contains("gamestatus")) {
-                    new Thread(new GameStatus(event, GameStatusModes.SET)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).equals("status reset")) {
-                if(!Configuration.getDisabledFunctions().contains("gamestatus")) {
-                    new Thread(new GameStatus(event, GameStatusModes.RESET)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).equals("status all")) {
-                if(!Configuration.getDisabledFunctions().contains("gamestatus")) {
-                    new Thread(new GameStatus(event, GameStatusModes.ALL)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("status user ")) {
-                if(!Configuration.getDisabledFunctions().contains("gamestatus")) {
-                    new Thread(new GameStatus(event, GameStatusModes.USER)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("status game ")) {
-                if(!Configuration.getDisabledFunctions().contains("gamestatus")) {
-                    new Thread(new GameStatus(event, GameStatusModes.GAME)).start();
-                    return true;
-                }
-            }
-            if(message.substring(1).startsWith("status add ")) {
-                if(!Configuration.getDisabledFunctions().contains("gamestatus")) {
-                    new Thread(new GameStatus(event, GameStatusModes.ADD)).start();
-                    return true;
-                }
+        registry.register(new Command("calc ", false, CommandPrivileges.ANYONE, "calc", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Calculator(event);
+            }
+        });
+        registry.register(new Command("convert ", false, CommandPrivileges.ANYONE, "convert", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Convert(event);
+            }
+        });
+        registry.register(new Command("decide ", false, CommandPrivileges.ANYONE, "fortune", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Fortune(event);
+            }
+        });
+        registry.register(new Command("seen ", false, CommandPrivileges.ANYONE, "seen", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Seen(event);
+            }
+        });
+        registry.register(new Command("ud ", false, CommandPrivileges.ANYONE, "urbandictionary", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Define(event);
+            }
+        });
+        registry.register(new Command("g ", false, CommandPrivileges.ANYONE, "google", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Search(event);
+            }
+        });
+        registry.register(new Command("steam ", false, CommandPrivileges.ANYONE, "steamquery", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new SteamUserQuery(event);
+            }
+        });
+        registry.register(new Command("votekick ", false, CommandPrivileges.ANYONE, "votekick", WorkerPools.VOTEKICK) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Votekick(event, VotekickModes.UPDATE_VOTEKICK);
+            }
+        });
+        /*
+         * Statistics
+         */
+        registry.register(new Command("statistics", true, CommandPrivileges.ADMIN, null, WorkerPools.BACKGROUND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new StatisticsTask(true);
             }
-            if(message.substring(1).startsWith("status delete ")) {
-                if(!Configuration.getDisabledFunctions().contains("gamestatus") && isUserAdmin(event.getUser())) {
-                    new Thread(new GameStatus(event, GameStatusModes.DELETE)).start();
-                    return true;
-                }
+        });
+        registry.register(new Command("disablestatistics", true, CommandPrivileges.OPERATOR, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new StatisticsHandler(event, StatisticsModes.ADD);
             }
-            if(message.substring(1).startsWith("votekick ")) {
-                if(!Configuration.getDisabledFunctions().contains("votekick")) {
-                    new Thread(new Votekick(event, VotekickModes.UPDATE_VOTEKICK)).start();
-                }
+        });
+        registry.register(new Command("enablestatistics", true, CommandPrivileges.OPERATOR, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new StatisticsHandler(event, StatisticsModes.REMOVE);
             }
-            if(message.substring(1).startsWith("appendtopic ")) {
-                if(isUserOperator(event.getUser(), event.getChannel())) {
-                    new Thread(new Topic(event, TopicUpdates.ADD_TO_TOPIC)).start();
-                    return true;
-                }
+        });
+        /*
+         * Game statuses
+         */
+        registry.register(new Command("status set ", false, CommandPrivileges.ANYONE, "gamestatus", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new GameStatus(event, GameStatusModes.SET);
+            }
+        });
+        registry.register(new Command("status reset", true, CommandPrivileges.ANYONE, "gamestatus", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new GameStatus(event, GameStatusModes.RESET);
+            }
+        });
+        registry.register(new Command("status all", true, CommandPrivileges.ANYONE, "gamestatus", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new GameStatus(event, GameStatusModes.ALL);
+            }
+        });
+        registry.register(new Command("status user ", false, CommandPrivileges.ANYONE, "gamestatus", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new GameStatus(event, GameStatusModes.USER);
+            }
+        });
+        registry.register(new Command("status game ", false, CommandPrivileges.ANYONE, "gamestatus", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new GameStatus(event, GameStatusModes.GAME);
+            }
+        });
+        registry.register(new Command("status add ", false, CommandPrivileges.ANYONE, "gamestatus", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new GameStatus(event, GameStatusModes.ADD);
+            }
+        });
+        registry.register(new Command("status delete ", false, CommandPrivileges.ADMIN, "gamestatus", WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new GameStatus(event, GameStatusModes.DELETE);
+            }
+        });
+        /*
+         * Channel management
+         */
+        registry.register(new Command("appendtopic ", false, CommandPrivileges.OPERATOR, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Topic(event, TopicUpdates.ADD_TO_TOPIC);
             }
-            if(message.substring(1).startsWith("removetopic ")) {
-                if(isUserOperator(event.getUser(), event.getChannel())) {
-                    new Thread(new Topic(event, TopicUpdates.REMOVE_FROM_TOPIC)).start();
-                    return true;
-                }
+        });
+        registry.register(new Command("removetopic ", false, CommandPrivileges.OPERATOR, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new Topic(event, TopicUpdates.REMOVE_FROM_TOPIC);
             }
-            if(message.substring(1).equals("leave")) {
-                if(isUserOperator(event.getUser(), event.getChannel())) {
-                    event.getBot().partChannel(event.getChannel());
-                    return true;
-                }
+        });
+        registry.register(new Command("leave", true, CommandPrivileges.OPERATOR, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return null;
             }
 
-            /*
-             * User mode change events
-             */
-            if(message.substring(1).startsWith("kick ") || message.substring(1).startsWith("k ")) {
-                new Thread(new UserMode(event, UserModes.KICK)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("kickban ") || message.substring(1).startsWith("kb ")) {
-                new Thread(new UserMode(event, UserModes.BAN)).start();
-                return true;
+            public void execute(MessageEvent<PircBotX> event) {
+                event.getBot().partChannel(event.getChannel());
             }
-            if(message.substring(1).startsWith("owner ")) {
-                new Thread(new UserMode(event, UserModes.OWNER)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("deowner ")) {
-                new Thread(new UserMode(event, UserModes.DEOWNER)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("protect ")) {
-                new Thread(new UserMode(event, UserModes.SUPEROP)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("deprotect ")) {
-                new Thread(new UserMode(event, UserModes.DESUPEROP)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("op ")) {
-                new Thread(new UserMode(event, UserModes.OP)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("deop ")) {
-                new Thread(new UserMode(event, UserModes.DEOP)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("halfop ")) {
-                new Thread(new UserMode(event, UserModes.HALFOP)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("dehalfop ")) {
-                new Thread(new UserMode(event, UserModes.DEHALFOP)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("voice ")) {
-                new Thread(new UserMode(event, UserModes.VOICE)).start();
-                return true;
-            }
-            if(message.substring(1).startsWith("devoice ")) {
-                new Thread(new UserMode(event, UserModes.DEVOICE)).start();
-                return true;
-            }
-        }
-        return false;
+        });
+        /*
+         * User mode change events
+         */
+        registry.register(new Command("kick ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.KICK);
+            }
+        });
+        registry.register(new Command("k ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.KICK);
+            }
+        });
+        registry.register(new Command("kickban ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.BAN);
+            }
+        });
+        registry.register(new Command("kb ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.BAN);
+            }
+        });
+        registry.register(new Command("owner ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.OWNER);
+            }
+        });
+        registry.register(new Command("deowner ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.DEOWNER);
+            }
+        });
+        registry.register(new Command("protect ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.SUPEROP);
+            }
+        });
+        registry.register(new Command("deprotect ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.DESUPEROP);
+            }
+        });
+        registry.register(new Command("op ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.OP);
+            }
+        });
+        registry.register(new Command("deop ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.DEOP);
+            }
+        });
+        registry.register(new Command("halfop ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.HALFOP);
+            }
+        });
+        registry.register(new Command("dehalfop ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.DEHALFOP);
+            }
+        });
+        registry.register(new Command("voice ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.VOICE);
+            }
+        });
+        registry.register(new Command("devoice ", false, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND) {
+            public Runnable createTask(MessageEvent<PircBotX> event) {
+                return new UserMode(event, UserModes.DEVOICE);
+            }
+        });
+        return registry;
     }
 
     /**
-     * Checks to see if a string is uppercase
-     * @param s the string to check
-     * @return true if the string is uppercase, false if it is not
+     * Checks incoming messages from users for potential bot commands
+     * @param event the MessageEvent to parse
+     * @return true if a command was recognized, whether or not the user was allowed to run it, false if no command was recognized
      */
-    private boolean isUpperCase(String s) {
-        // Boolean value to ensure that an all numeric string does not trigger the shouting functions
-        boolean includesLetter = false;
-        // Loop through each character in the string individually
-        for(int i = 0; i < s.length(); i++) {
-            // If there's at least one letter then the string could qualify as being a 'shout'
-            if(Character.isLetter(s.charAt(i))) includesLetter = true;
-            // Any lower case letters immediately disqualifies the string, return immediately instead of continuing the loop
-            if(Character.isLowerCase(s.charAt(i))) return false;
-        }
-        // If there's at least one letter in the string return true, otherwise disqualify it
-        if(includesLetter) return true;
-        else return false;
+    private boolean checkForCommands(MessageEvent<PircBotX> event) {
+        String message = event.getMessage();
+        // Only a message starting with the prefix is a command, " !seen" is not
+        if(message.length() == 0 || message.charAt(0) != Configuration.getCommandPrefix()) return false;
+        /*
+         * Trim any trailing whitespace.
+         */
+        message = message.trim();
+        /*
+         * Commands are dispatched to worker pools to prevent blocking.
+         */
+        Command command = commands.lookup(message, 1);
+        if(command == null || Configuration.isFunctionDisabled(command.getFeature())) return false;
+        // A denied command is still a command, so it isn't looked up as a URL or counted in the statistics
+        if(!command.isPermitted(event.getUser(), event.getChannel())) return true;
+        command.execute(event);
+        return true;
     }
 
     /**
@@ -342,7 +364,7 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
      */
     public void onJoin(JoinEvent<PircBotX> event) {
         if(!Configuration.getChannelAnnouncement().equals("") && Arrays.asList(Configuration.getChannelsParticipating()).contains(event.getChannel().getName())) {
-            event.getBot().sendMessage(event.getUser(), "ANNOUNCEMENT: " + Configuration.getChannelAnnouncement());
+            MessageScheduler.sendMessage(event.getBot(), event.getUser(), "ANNOUNCEMENT: " + Configuration.getChannelAnnouncement(), MessagePriority.INTERACTIVE);
         }
     }
 
@@ -356,11 +378,11 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
         // Nobody should be able to kick the bot from the channel, so rejoin immediately if we are kicked
         event.getBot().joinChannel(event.getChannel().getName());
         
-        if(!Configuration.getDisabledFunctions().contains("seen")) {
-            new Thread(new Seen(event)).start();
+        if(!Configuration.isFunctionDisabled("seen")) {
+            TaskDispatcher.submit(WorkerPools.SEEN, new Seen(event));
         }
-        if(!Configuration.getDisabledFunctions().contains("votekick")) {
-            new Thread(new Votekick(event, VotekickModes.USER_KICKED)).start();
+        if(!Configuration.isFunctionDisabled("votekick")) {
+            TaskDispatcher.submit(WorkerPools.VOTEKICK, new Votekick(event, VotekickModes.USER_KICKED));
         }
     }
 
@@ -372,24 +394,24 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
      * @throws Exception
      */
     public void onMessage(MessageEvent<PircBotX> event) throws Exception {
-    	// Strip control codes to prevent erroneous shout triggering
-    	String strippedMessage = Colors.removeFormattingAndColors(event.getMessage());
-        // If the message is in upper case and not from ourselves, spawn a new thread to handle the shout
-        if(isUpperCase(strippedMessage) && strippedMessage.replaceAll("^\\s+", "").replaceAll("\\s+$", "").length() > 5 && event.getUser() != event.getBot().getUserBot()) {
-            new Thread(new Shouts(event, Shouts.ShoutEvents.RANDOM_SHOUT)).start();
+        // Classify the message in a single pass, ignoring control codes to prevent erroneous shout triggering
+        MessageClassifier message = MessageClassifier.classify(event.getMessage(), Configuration.getCommandPrefix());
+        // If the message is in upper case and not from ourselves, hand it to the shout workers
+        if(message.isShout() && event.getUser() != event.getBot().getUserBot()) {
+            TaskDispatcher.submit(WorkerPools.SHOUT, new Shouts(event, Shouts.ShoutEvents.RANDOM_SHOUT));
             return;
         }
-        if(event.getMessage().charAt(0) == '!' || event.getMessage().charAt(0) == '.') {
+        if(message.isCommand()) {
             if(checkForCommands(event)) return;
         }
-        if(!Configuration.getDisabledFunctions().contains("url")) {
-            // Use a regex pattern to match URLs out of user messages
+        if(message.hasUrl() && !Configuration.isFunctionDisabled("url")) {
+            // Match URLs starting from the first one found by the classifier
             int urlCount = 0;
-            Pattern urlPattern = Pattern.compile("\\bhttps?://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]");
-            Matcher urlMatcher = urlPattern.matcher(event.getMessage());
+            Matcher urlMatcher = URL_PATTERN.matcher(event.getMessage());
+            urlMatcher.region(message.getUrlStart(), event.getMessage().length());
             while(urlMatcher.find()) {
                 if(++urlCount > 2) break;
-                new Thread(new URLGrabber(event, new URL(urlMatcher.group()))).start();
+                URLPipeline.submit(event, new URL(urlMatcher.group()));
                 // Update statistics
                 Statistics.getChannelStatistics(event.getChannel()).addUrl(event.getUser().getNick());
             }
@@ -406,11 +428,11 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
      * @param event the PartEvent to parse
      */
     public void onPart(PartEvent<PircBotX> event) {
-        if(!Configuration.getDisabledFunctions().contains("seen")) {
-            new Thread(new Seen(event)).start();
+        if(!Configuration.isFunctionDisabled("seen")) {
+            TaskDispatcher.submit(WorkerPools.SEEN, new Seen(event));
         }
-        if(!Configuration.getDisabledFunctions().contains("votekick")) {
-            new Thread(new Votekick(event, VotekickModes.USER_LEFT)).start();
+        if(!Configuration.isFunctionDisabled("votekick")) {
+            TaskDispatcher.submit(WorkerPools.VOTEKICK, new Votekick(event, VotekickModes.USER_LEFT));
         }
     }
 
@@ -427,9 +449,9 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
         String message = event.getMessage().trim();
         
         if(message.startsWith("help")) {
-            new Thread(new Help(event)).start();
+            TaskDispatcher.submit(WorkerPools.COMMAND, new Help(event));
         }
-        else if(isUserAdmin(event.getUser())) {
+        else if(UserUtils.isBotAdmin(event.getUser())) {
             if(message.startsWith("announce ")) {
                 sendAnnouncement(event.getBot(), false, message);
                 return;
@@ -439,8 +461,37 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
                 return;
             }
             if(message.equals("cleanup")) {
-                new Thread(new DatabaseCleaner()).start();
-                event.respond("Performing database cleanup now!");
+                TaskDispatcher.submit(WorkerPools.BACKGROUND, new DatabaseCleaner());
+                MessageScheduler.respond(event, "Performing database cleanup now!", MessagePriority.ADMIN);
+                return;
+            }
+            if(message.equals("pools")) {
+                for(String line : TaskDispatcher.getStatistics()) {
+                    MessageScheduler.respond(event, line, MessagePriority.ADMIN);
+                }
+                try {
+                    MessageScheduler.respond(event, Database.getPool().toString(), MessagePriority.ADMIN);
+                } catch (Exception ex) {
+                    MessageScheduler.respond(event, "database: " + ex.getMessage(), MessagePriority.ADMIN);
+                }
+                MessageScheduler.respond(event, "seen: " + SeenIndex.size() + " records in memory" + (SeenIndex.isLoaded() ? "" : " (loading)") + ", " + SeenBuffer.getPendingCount() + " updates waiting to be written", MessagePriority.ADMIN);
+                MessageScheduler.respond(event, HttpClient.getStatistics(), MessagePriority.ADMIN);
+                MessageScheduler.respond(event, URLPipeline.getStatistics(), MessagePriority.ADMIN);
+                MessageScheduler.respond(event, URLCache.getStatistics(), MessagePriority.ADMIN);
+                MessageScheduler.respond(event, HtmlTitleScanner.getStatistics(), MessagePriority.ADMIN);
+                for(String line : MessageScheduler.getStatistics()) {
+                    MessageScheduler.respond(event, line, MessagePriority.ADMIN);
+                }
+                MessageScheduler.respond(event, WatcherScheduler.getStatistics(), MessagePriority.ADMIN);
+                MessageScheduler.respond(event, WatcherState.getStatistics(), MessagePriority.ADMIN);
+                MessageScheduler.respond(event, TwitterMentions.getStatistics(), MessagePriority.ADMIN);
+                MessageScheduler.respond(event, TweetPublisher.getStatistics(), MessagePriority.ADMIN);
+                return;
+            }
+            if(message.equals("watchers")) {
+                for(String line : WatcherScheduler.getFeedStatistics()) {
+                    MessageScheduler.respond(event, line, MessagePriority.ADMIN);
+                }
                 return;
             }
             if(message.equals("disconnect")) {
@@ -452,19 +503,20 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
                 Configuration.getLogger().write(Level.INFO, "Reloading configuration due to administrator request...");
                 sendGlobalMessage(event.getBot(), "Reloading configuration...");
                 try {
-                    Configuration.loadConfiguration();
-                    Configuration.startScheduler(event.getBot());
+                    Set<String> changed = Configuration.reloadConfiguration(event.getBot());
+                    Configuration.getLogger().write(Level.INFO, "Reload complete");
+                    sendGlobalMessage(event.getBot(), "Successfully reloaded configuration (" + changed.size() + " settings changed).");
                 } catch (Exception ex) {
                     Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
                     sendGlobalMessage(event.getBot(), "Failed to reload configuration: " + ex.getMessage());
                 }
-                Configuration.getLogger().write(Level.INFO, "Reload complete");
-                sendGlobalMessage(event.getBot(), "Successfully reloaded configuration.");
                 return;
             }
             if(message.equals("restart")) {
                 Configuration.getLogger().write(Level.INFO, "Restarting due to administrator request...");
                 sendGlobalMessage(event.getBot(), "Restarting due to administrator request...");
+                // Give the message a chance to be sent before the connection is closed
+                MessageScheduler.flush(5000);
                 try {
                     IRCUtils.restartApplication(event.getBot().getChannels());
                 } catch (Exception ex) {
@@ -473,7 +525,7 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
             }
         } else {
             // There's no reason for anyone to privately message the bot - remind them that they are messaging a bot!
-            event.respond("Hi! I am IRCBot version " + Configuration.getApplicationVersion() + ". If you don't know already, I'm just a bot and can't respond to your questions/comments. :( You might want to talk to my administrator, " + Configuration.getAdminNick() + " instead!");
+            MessageScheduler.respond(event, "Hi! I am IRCBot version " + Configuration.getApplicationVersion() + ". If you don't know already, I'm just a bot and can't respond to your questions/comments. :( You might want to talk to my administrator, " + Configuration.getAdminNick() + " instead!");
         }
     }
 
@@ -484,32 +536,11 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
      * @param event the QuitEvent to parse
      */
     public void onQuit(QuitEvent<PircBotX> event) {
-        if(!Configuration.getDisabledFunctions().contains("seen")) {
-            new Thread(new Seen(event)).start();
+        if(!Configuration.isFunctionDisabled("seen")) {
+            TaskDispatcher.submit(WorkerPools.SEEN, new Seen(event));
         }
     }
 
-    /**
-     * Checks to see if a user is a bot administrator
-     * @param user the user to check
-     * @return true if the user is a bot administrator, false if they are not
-     */
-    private boolean isUserAdmin(User user) {
-        if(user.getNick().equals(Configuration.getAdminNick()) && user.getHostmask().equals(Configuration.getAdminHostmask())) return true;
-        else return false;
-    }
-
-    /**
-     * Checks to see if a user is a channel operator or higher
-     * @param user the user to check
-     * @param channel the channel to check against
-     * @return true if the user is a channel operator or higher, false if they are not
-     */
-    private boolean isUserOperator(User user, Channel channel) {
-        if(channel.isOp(user) || channel.isSuperOp(user) || channel.isOwner(user)) return true;
-        else return false;
-    }
-
     /**
      * Sends a message to each channel the bot is currently in
      * @param bot the IRC bot
@@ -517,7 +548,7 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
      */
     private void sendGlobalMessage(PircBotX bot, String message) {
         for(Channel c : bot.getChannels()) {
-            bot.sendMessage(c, message);
+            MessageScheduler.sendMessage(bot, c, message, MessagePriority.ADMIN);
         }
     }
 
@@ -535,8 +566,8 @@ public class IRCBotHandlers extends ListenerAdapter<PircBotX> {
             for(int i = 2; i < splitLine.length; i++) {
                 builtString.append(splitLine[i] + " ");
             }
-            if(isNotice) bot.sendNotice(channelToSend, builtString.toString());
-            else bot.sendMessage(channelToSend, builtString.toString());
+            if(isNotice) MessageScheduler.sendNotice(bot, channelToSend, builtString.toString(), MessagePriority.ADMIN);
+            else MessageScheduler.sendMessage(bot, channelToSend, builtString.toString(), MessagePriority.ADMIN);
         }
     }
 }
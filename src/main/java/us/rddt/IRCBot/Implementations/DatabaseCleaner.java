@@ -1,11 +1,17 @@
 package us.rddt.IRCBot.Implementations;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 
 import us.rddt.IRCBot.Configuration;
 import us.rddt.IRCBot.Database;
 import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Handlers.QuoteHashes;
 
 /**
  * Cleans the database, removing old and unnecessary entries after a specified period of time.
@@ -14,7 +20,7 @@ import us.rddt.IRCBot.IRCUtils;
 public class DatabaseCleaner implements Runnable {
     public void run() {
         // Variables
-        Database database;
+        Database database = null;
         PreparedStatement statement;
         int status;
         
@@ -26,22 +32,74 @@ public class DatabaseCleaner implements Runnable {
             database.connect();
 
             // Clean out deleted quotes older than one week
-            statement = database.getConnection().prepareStatement("DELETE FROM Quotes WHERE Deleted = '1' AND Date < DATE_SUB(NOW(), INTERVAL 7 DAY)");
-            status = statement.executeUpdate();
+            status = purgeDeletedQuotes(database.getConnection());
             Configuration.getLogger().write(Level.INFO, "Cleaned up " + status + " deleted quotes from the database.");
 
-            statement.close();
-
             // Clean out game statuses older than 12 hours
             statement = database.getConnection().prepareStatement("DELETE FROM GameStatus WHERE Date < DATE_SUB(NOW(), INTERVAL 12 HOUR)");
             status = statement.executeUpdate();
             Configuration.getLogger().write(Level.INFO, "Cleaned up " + status + " stale game statuses from the database.");
 
-            database.disconnect();
-            
             Configuration.getLogger().write(Level.INFO, "Database cleanup complete.");
         } catch (Exception ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+        } finally {
+            // Return the connection to the pool, even if a cleanup query failed
+            try {
+                if(database != null) database.disconnect();
+            } catch (SQLException ex) {
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            }
+        }
+    }
+
+    /**
+     * Deletes quotes which were marked as deleted more than a week ago, and forgets
+     * their hashes so the same quote can be shouted in again
+     * @param connection the connection to the database
+     * @return the number of quotes deleted
+     * @throws SQLException if the SQL query does not execute correctly
+     */
+    private int purgeDeletedQuotes(Connection connection) throws SQLException {
+        // Find the quotes first, so exactly the rows whose hashes are forgotten are the ones deleted
+        List<Integer> ids = new ArrayList<Integer>();
+        List<String> channels = new ArrayList<String>();
+        List<Long> hashes = new ArrayList<Long>();
+        PreparedStatement statement = connection.prepareStatement("SELECT ID, Channel, QuoteHash FROM Quotes WHERE Deleted = '1' AND Date < DATE_SUB(NOW(), INTERVAL 7 DAY)");
+        ResultSet resultSet = statement.executeQuery();
+        while(resultSet.next()) {
+            ids.add(resultSet.getInt("ID"));
+            long hash = resultSet.getLong("QuoteHash");
+            if(!resultSet.wasNull()) {
+                channels.add(resultSet.getString("Channel"));
+                hashes.add(hash);
+            }
+        }
+        statement.close();
+        if(ids.isEmpty()) return 0;
+
+        statement = connection.prepareStatement("DELETE FROM Quotes WHERE ID = ?");
+        for(int id : ids) {
+            statement.setInt(1, id);
+            statement.addBatch();
+        }
+        int deleted = 0;
+        for(int count : statement.executeBatch()) {
+            if(count > 0) deleted += count;
+        }
+        statement.close();
+
+        // Another copy of the quote, deleted or not, may still be stored in the channel
+        statement = connection.prepareStatement("SELECT ID FROM Quotes WHERE Channel = ? AND QuoteHash = ?");
+        statement.setMaxRows(1);
+        for(int i = 0; i < hashes.size(); i++) {
+            statement.setString(1, channels.get(i));
+            statement.setLong(2, hashes.get(i));
+            resultSet = statement.executeQuery();
+            if(!resultSet.next()) QuoteHashes.remove(channels.get(i), hashes.get(i));
+            resultSet.close();
         }
+        statement.close();
+        return deleted;
     }
 }
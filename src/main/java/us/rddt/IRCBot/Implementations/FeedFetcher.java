@@ -0,0 +1,102 @@
+package us.rddt.IRCBot.Implementations;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import us.rddt.IRCBot.Network.HttpClient;
+import us.rddt.IRCBot.Network.HttpResponse;
+
+/**
+ * Downloads a watched feed with conditional requests. The ETag and Last-Modified
+ * headers of the last response are remembered in WatcherState and sent back with
+ * the next request, so a feed which hasn't changed returns 304 Not Modified with
+ * no body, and the watcher can stop before parsing anything. The fetcher also
+ * keeps the feed's download statistics for the watcher statistics.
+ *
+ * @see us.rddt.IRCBot.Implementations.WatcherState
+ * @author Ryan Morrison
+ */
+public class FeedFetcher {
+    /*
+     * Class variables.
+     */
+    private final String feed;
+
+    private volatile long requests = 0;
+    private volatile long notModified = 0;
+    private volatile long bytes = 0;
+    private volatile long parsed = 0;
+    private volatile long parseTime = 0;
+
+    /**
+     * Class constructor
+     * @param feed the feed's key, such as the URL it is downloaded from
+     */
+    public FeedFetcher(String feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Requests the feed, unless it hasn't changed since the last response
+     * @param url the URL of the feed
+     * @return the response, which must be closed once it has been read, or null if the feed hasn't changed
+     * @throws IOException if the request fails or the server returns an error
+     */
+    public HttpResponse fetch(URL url) throws IOException {
+        return fetch(url, true);
+    }
+
+    /**
+     * Requests the feed
+     * @param url the URL of the feed
+     * @param conditional false to download the feed even if it hasn't changed, e.g. when the watcher has no state yet
+     * @return the response, which must be closed once it has been read, or null if the feed hasn't changed
+     * @throws IOException if the request fails or the server returns an error
+     */
+    public HttpResponse fetch(URL url, boolean conditional) throws IOException {
+        Map<String, String> headers = new HashMap<String, String>();
+        WatcherState.Validators validators = conditional ? WatcherState.getValidators(feed) : null;
+        if(validators != null) {
+            if(validators.getETag() != null) headers.put("If-None-Match", validators.getETag());
+            if(validators.getLastModified() != null) headers.put("If-Modified-Since", validators.getLastModified());
+        }
+        HttpResponse response = HttpClient.get(url, headers, true);
+        requests++;
+        if(response.getStatusCode() == 304) {
+            response.close();
+            notModified++;
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Records a response which has been read and acted upon, remembering its validators for the next request.
+     * The validators are only remembered once the response has been handled, so a failed check downloads the feed again.
+     * @param response the response which was read
+     * @param elapsed the milliseconds spent reading and parsing the response
+     * @param handled false if items in the response are still waiting to be announced, so the feed must be downloaded again
+     */
+    public void completed(HttpResponse response, long elapsed, boolean handled) {
+        bytes += response.getBytesReceived();
+        parsed++;
+        parseTime += elapsed;
+        WatcherState.Validators validators = handled ? new WatcherState.Validators(response.getHeader("ETag"), response.getHeader("Last-Modified"))
+                : new WatcherState.Validators(null, null);
+        WatcherState.Validators previous = WatcherState.getValidators(feed);
+        // Stale validators are cleared when the server stops sending them or the feed must be downloaded again
+        if(!validators.isEmpty() || (previous != null && !previous.isEmpty())) WatcherState.putValidators(feed, validators);
+    }
+
+    /**
+     * Returns a summary of the feed's downloads
+     * @return a summary of the feed's downloads
+     */
+    public String getStatistics() {
+        long requests = this.requests, notModified = this.notModified, parsed = this.parsed;
+        return (requests > 0 ? (notModified * 100 / requests) : 0) + "% not modified, " + (bytes / 1024) + " KB downloaded"
+                + (parsed > 0 ? ", " + (parseTime / parsed) + " ms average parse" : "");
+    }
+}
@@ -1,9 +1,6 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,8 +9,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import us.rddt.IRCBot.Configuration;
-import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Network.HttpClient;
 
 /**
  * Performs a Google search with a provided query string. The results are returned
@@ -35,8 +31,6 @@ public class GoogleSearch {
         /*
          * Variables.
          */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
         URL searchUrl = new URL("http://ajax.googleapis.com/ajax/services/search/web?v=1.0&q=" + query.replace(" ", "%20"));
         
         String resultCount = null;
@@ -45,28 +39,14 @@ public class GoogleSearch {
         List<Object> toReturn = new ArrayList<Object>();
 
         /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
+         * Downloads the data from the provided URL.
          */
-        HttpURLConnection conn = (HttpURLConnection)searchUrl.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
-        }
-
-        /*
-         * Disconnect from the server.
-         */
-        conn.disconnect();
+        String jsonToParse = HttpClient.getString(searchUrl);
         
         /*
          * Parses the array and prepares the ArrayLists to be returned
          */
-        JSONObject object = new JSONObject(jsonToParse.toString());
+        JSONObject object = new JSONObject(jsonToParse);
         JSONArray parsedArray = object.getJSONObject("responseData").getJSONArray("results");
         for(int i = 0; i < parsedArray.length(); i++) {
             results.add(new GoogleResult(parsedArray.getJSONObject(i).getString("url"), parsedArray.getJSONObject(i).getString("titleNoFormatting")));
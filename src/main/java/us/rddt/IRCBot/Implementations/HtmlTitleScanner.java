@@ -0,0 +1,212 @@
+package us.rddt.IRCBot.Implementations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the title of an HTML page as it is downloaded. The page is scanned a
+ * byte at a time and reading stops as soon as the title has ended, or once the
+ * head of the page is over without one, so only as much of a page as is needed
+ * is ever downloaded. Tags are matched case insensitively and may have attributes,
+ * comments, scripts and styles are skipped, and a character set declared by a
+ * meta tag is used if the server didn't send one.
+ *
+ * @author Ryan Morrison
+ */
+public class HtmlTitleScanner {
+    // Regex pattern to match the character set from a meta tag, either <meta charset=...> or <meta http-equiv=... content="...; charset=...">
+    private static final Pattern META_CHARSET = Pattern.compile("charset\\s*=\\s*[\"']?([-_a-zA-Z0-9:.]+)", Pattern.CASE_INSENSITIVE);
+
+    // Tags longer than this can't be a meta or title tag worth reading, the rest is ignored
+    private static final int MAXIMUM_TAG_LENGTH = 1024;
+
+    private static final AtomicLong pages = new AtomicLong();
+    private static final AtomicLong bytes = new AtomicLong();
+    private static final AtomicLong untitled = new AtomicLong();
+
+    // Scanner states
+    private static final int TEXT = 0;
+    private static final int TAG = 1;
+    private static final int COMMENT = 2;
+    private static final int RAW_TEXT = 3;
+
+    private final Charset headerCharset;
+    private final int maximumBytes;
+    private Charset metaCharset;
+    private int bytesRead = 0;
+
+    /**
+     * Class constructor
+     * @param headerCharset the character set from the Content-Type header, or null if none was sent
+     * @param maximumBytes the most bytes of the page to read while looking for the title
+     */
+    public HtmlTitleScanner(Charset headerCharset, int maximumBytes) {
+        this.headerCharset = headerCharset;
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Reads a page until its title has been found
+     * @param in the stream to read the page from
+     * @return the text of the title without any processing, or null if the page has no title within the maximum size
+     * @throws IOException if the page cannot be read
+     */
+    public String scan(InputStream in) throws IOException {
+        String title = null;
+        try {
+            title = find(in);
+            return title;
+        } finally {
+            pages.incrementAndGet();
+            bytes.addAndGet(bytesRead);
+            if(title == null) untitled.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the page which were read
+     * @return the number of bytes read
+     */
+    public int getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the character set the title was decoded with
+     * @return the character set of the page
+     */
+    public Charset getCharset() {
+        if(headerCharset != null) return headerCharset;
+        if(metaCharset != null) return metaCharset;
+        return Charset.forName("UTF-8");
+    }
+
+    /**
+     * Returns a one-line summary of the pages scanned so far
+     * @return a one-line summary of the pages scanned so far
+     */
+    public static String getStatistics() {
+        long scanned = pages.get();
+        return "titles: " + scanned + " pages scanned, " + bytes.get() + " bytes read"
+                + (scanned > 0 ? " (" + (bytes.get() / scanned) + " per page)" : "") + ", " + untitled.get() + " without a title";
+    }
+
+    private String find(InputStream in) throws IOException {
+        byte[] buffer = new byte[2048];
+        StringBuilder tag = new StringBuilder();
+        ByteArrayOutputStream title = null;
+        // The lower case closing tag which ends the current comment, script, style or title
+        String end = null;
+        int matched = 0;
+        char quote = 0;
+        int state = TEXT;
+
+        int n;
+        while(bytesRead < maximumBytes && (n = in.read(buffer, 0, Math.min(buffer.length, maximumBytes - bytesRead))) != -1) {
+            for(int i = 0; i < n; i++) {
+                // Markup is always ASCII in the character sets a page's head can be written in
+                char c = (char)(buffer[i] & 0xff);
+                switch(state) {
+                case TEXT:
+                    if(c == '<') {
+                        tag.setLength(0);
+                        quote = 0;
+                        state = TAG;
+                    }
+                    break;
+                case TAG:
+                    if(quote != 0) {
+                        if(c == quote) quote = 0;
+                    } else if(c == '"' || c == '\'') {
+                        quote = c;
+                    } else if(c == '>') {
+                        String name = getTagName(tag);
+                        state = TEXT;
+                        if(name.equals("title")) {
+                            title = new ByteArrayOutputStream();
+                            end = "</title";
+                            state = RAW_TEXT;
+                        } else if(name.equals("script") || name.equals("style")) {
+                            end = "</" + name;
+                            state = RAW_TEXT;
+                        } else if(name.equals("meta")) {
+                            readMetaCharset(tag);
+                        } else if(name.equals("body") || name.equals("/head")) {
+                            // The title belongs in the head, so there's no point reading any further
+                            bytesRead += i + 1;
+                            return null;
+                        }
+                        break;
+                    }
+                    if(tag.length() < MAXIMUM_TAG_LENGTH) tag.append(c);
+                    // Comments may contain anything, including what looks like tags
+                    if(tag.length() == 3 && tag.toString().equals("!--")) {
+                        end = "-->";
+                        matched = 0;
+                        state = COMMENT;
+                    }
+                    break;
+                case COMMENT:
+                case RAW_TEXT:
+                    if(title != null) title.write(buffer[i]);
+                    char lower = Character.toLowerCase(c);
+                    if(lower == end.charAt(matched)) {
+                        matched++;
+                    } else if(end.charAt(0) != '-' || lower != '-' || matched != 2) {
+                        // A dash following "--" still leaves "--" matched, which is only possible for comments
+                        matched = lower == end.charAt(0) ? 1 : 0;
+                    }
+                    if(matched == end.length()) {
+                        matched = 0;
+                        if(title != null) {
+                            bytesRead += i + 1;
+                            byte[] raw = title.toByteArray();
+                            return new String(raw, 0, raw.length - end.length(), getCharset());
+                        }
+                        // Skip the rest of the closing tag
+                        tag.setLength(0);
+                        tag.append(end.substring(1));
+                        state = state == COMMENT ? TEXT : TAG;
+                    }
+                    break;
+                }
+            }
+            bytesRead += n;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the lower case name of a tag, including the slash of a closing tag
+     */
+    private static String getTagName(StringBuilder tag) {
+        int i = 0;
+        while(i < tag.length() && (Character.isLetterOrDigit(tag.charAt(i)) || (i == 0 && tag.charAt(i) == '/'))) {
+            i++;
+        }
+        return tag.substring(0, i).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Records the character set declared by a meta tag, if it is one the JVM supports
+     */
+    private void readMetaCharset(StringBuilder tag) {
+        if(metaCharset != null) return;
+        Matcher matcher = META_CHARSET.matcher(tag);
+        if(matcher.find()) {
+            try {
+                // A page can't actually be UTF-16 if this tag was readable as ASCII
+                String name = matcher.group(1);
+                metaCharset = name.toUpperCase(Locale.ENGLISH).startsWith("UTF-16") ? Charset.forName("UTF-8") : Charset.forName(name);
+            } catch (Exception ex) {
+                // Unsupported character sets are ignored
+            }
+        }
+    }
+}
@@ -1,20 +1,18 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.logging.Level;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import us.rddt.IRCBot.Configuration;
 import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Enums.JsonToken;
+import us.rddt.IRCBot.Network.HttpClient;
+import us.rddt.IRCBot.Network.HttpResponse;
+import us.rddt.IRCBot.Network.JsonReader;
 
 /**
  * Using the reddit API, this class can return information about a provided reddit
@@ -91,116 +89,132 @@ public class RedditLink {
     /**
      * Gets the content of a provided Reddit URL
      * @param link the URL to fetch the JSON data from
-     * @throws IOException if the download fails
-     * @throws JSONException if the JSON cannot be parsed
+     * @param isContext true if the URL links to a comment, whose submitter should also be read
+     * @throws IOException if the download fails or the JSON cannot be parsed
      */
-    public static RedditLink getLink(URL link, boolean isContext) throws IOException, JSONException {
-        /*
-         * Variables.
-         */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
-
-        /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
-         */
-        HttpURLConnection conn = (HttpURLConnection)link.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
+    public static RedditLink getLink(URL link, boolean isContext) throws IOException {
+        HttpResponse response = HttpClient.get(link);
+        try {
+            /*
+             * The response is an array of two listings, the submission followed by its comments.
+             */
+            JsonReader reader = new JsonReader(response.getReader());
+            reader.beginArray();
+            List<RedditLink> submission = readListing(reader, 1);
+            if(submission.isEmpty()) throw new IOException("The submission listing is empty");
+            RedditLink redditLink = submission.get(0);
+            // If a URL contains a context parameter, also parse out the username of the comment's submitter
+            if(isContext) {
+                List<RedditLink> context = readListing(reader, 1);
+                if(context.isEmpty()) throw new IOException("The comment listing is empty");
+                redditLink.context_username = context.get(0).author;
+            }
+            return redditLink;
+        } finally {
+            response.close();
         }
+    }
 
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
+    /**
+     * Reads the submissions from a reddit listing, in the order reddit lists them.
+     * Only the fields a RedditLink holds are read, everything else in the listing is skipped.
+     * @param reader the reader, positioned at the start of the listing
+     * @param limit the most submissions to read, the rest of the listing is skipped
+     * @return the submissions in the listing
+     * @throws IOException if the listing cannot be read
+     */
+    public static List<RedditLink> readListing(JsonReader reader, int limit) throws IOException {
+        List<RedditLink> links = new ArrayList<RedditLink>();
+        reader.beginObject();
+        while(reader.hasNext()) {
+            if(!reader.nextName().equals("data") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while(reader.hasNext()) {
+                if(!reader.nextName().equals("children") || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while(reader.hasNext()) {
+                    if(links.size() < limit) readChild(reader, links);
+                    else reader.skipValue();
+                }
+                reader.endArray();
+            }
+            reader.endObject();
         }
+        reader.endObject();
+        return links;
+    }
 
-        /*
-         * Disconnect from the server.
-         */
-        conn.disconnect();
-
-        /*
-         * Parse the JSON data.
-         */
-        JSONArray parsedArray = new JSONArray(jsonToParse.toString());
-        JSONObject redditLink = parsedArray.getJSONObject(0).getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data");
-        // If a URL contains a context parameter, also parse out the username of the comment's submitter
-        if(isContext) {
-        	JSONObject redditContext = parsedArray.getJSONObject(1).getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data");
-        	return new RedditLink(redditLink.getString("id"),
-                    IRCUtils.escapeHTMLEntities(redditLink.getString("title")),
-                    redditLink.getString("author"),
-                    redditLink.getString("subreddit"),
-                    redditLink.getLong("created_utc"),
-                    redditLink.getInt("score"),
-                    redditLink.getBoolean("over_18"),
-                    redditLink.getString("title").toUpperCase().contains("NSFL"),
-                    redditContext.getString("author"));
-        } else {
-        	return new RedditLink(redditLink.getString("id"),
-        			IRCUtils.escapeHTMLEntities(redditLink.getString("title")),
-        			redditLink.getString("author"),
-        			redditLink.getString("subreddit"),
-        			redditLink.getLong("created_utc"),
-        			redditLink.getInt("score"),
-        			redditLink.getBoolean("over_18"),
-        			redditLink.getString("title").toUpperCase().contains("NSFL"));
+    /**
+     * Reads one child of a listing, adding it to the list of links
+     */
+    private static void readChild(JsonReader reader, List<RedditLink> links) throws IOException {
+        reader.beginObject();
+        while(reader.hasNext()) {
+            if(!reader.nextName().equals("data") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            RedditLink link = new RedditLink();
+            reader.beginObject();
+            while(reader.hasNext()) {
+                String name = reader.nextName();
+                if(reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                } else if(name.equals("id")) {
+                    link.id = reader.nextString();
+                } else if(name.equals("title")) {
+                    link.title = reader.nextString();
+                } else if(name.equals("author")) {
+                    link.author = reader.nextString();
+                } else if(name.equals("subreddit")) {
+                    link.subreddit = reader.nextString();
+                } else if(name.equals("created_utc")) {
+                    link.created_utc = reader.nextLong();
+                } else if(name.equals("score")) {
+                    link.score = reader.nextInt();
+                } else if(name.equals("over_18")) {
+                    link.over_18 = reader.nextBoolean();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            // Comments have no title
+            if(link.title != null) {
+                link.is_nsfl = link.title.toUpperCase().contains("NSFL");
+                link.title = IRCUtils.escapeHTMLEntities(link.title);
+            }
+            links.add(link);
         }
+        reader.endObject();
     }
 
     /**
      * Checks imgur links against the Reddit API
      * @param link the URL to fetch the JSON data from
      * @return the best possible submission to use
-     * @throws IOException if the download fails
-     * @throws JSONException if the JSON cannot be parsed
+     * @throws IOException if the download fails or the JSON cannot be parsed
      */
-    public RedditLink checkImgurLink(URL link) throws IOException, JSONException {
-        /*
-         * Variables.
-         */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
-
-        ArrayList<RedditLink> submissions = new ArrayList<RedditLink>();
-
+    public RedditLink checkImgurLink(URL link) throws IOException {
         /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
-         */
-        HttpURLConnection conn = (HttpURLConnection)link.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() != 200) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
-        }
-
-        /*
-         * Disconnect from the server.
-         */
-        conn.disconnect();
-
-        /*
-         * Parse each submission into an ArrayList of RedditLink classes.
+         * Parse each submission into a list of RedditLink classes.
          * Return the best possible submission.
          * If there are no submissions at all, return null instead.
          */
-        JSONObject parsedArray = new JSONObject(jsonToParse.toString());
-        if(parsedArray.getJSONObject("data").getJSONArray("children").length() > 0) {
-            for(int i = 0; i < parsedArray.getJSONObject("data").getJSONArray("children").length(); i++) {
-                submissions.add(new RedditLink(parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(i).getJSONObject("data").getString("id"),
-                        IRCUtils.escapeHTMLEntities(parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(i).getJSONObject("data").getString("title")),
-                        parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(i).getJSONObject("data").getString("author"),
-                        parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(i).getJSONObject("data").getString("subreddit"),
-                        parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(i).getJSONObject("data").getLong("created_utc"),
-                        parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(i).getJSONObject("data").getInt("score"),
-                        parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(i).getJSONObject("data").getBoolean("over_18"),
-                        parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(i).getJSONObject("data").getString("title").toUpperCase().contains("NSFL")));
-            }
+        List<RedditLink> submissions;
+        HttpResponse response = HttpClient.get(link);
+        try {
+            submissions = readListing(new JsonReader(response.getReader()), Integer.MAX_VALUE);
+        } finally {
+            response.close();
+        }
+        if(submissions.size() > 0) {
             return weighSubmissions(submissions);
         } else {
             return null;
@@ -209,10 +223,10 @@ public class RedditLink {
 
     /**
      * Weighs Reddit submissions to determine the most appropriate submission to use
-     * @param submissions the submissions (stored in an ArrayList) to weigh
+     * @param submissions the submissions to weigh
      * @return the best submission
      */
-    private RedditLink weighSubmissions(ArrayList<RedditLink> submissions) {
+    private RedditLink weighSubmissions(List<RedditLink> submissions) {
         /*
          * Variables
          */
@@ -1,17 +1,13 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.text.NumberFormat;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import us.rddt.IRCBot.Configuration;
-import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Network.HttpClient;
 
 /**
  * Using the reddit API, this class can return information about a provided reddit
@@ -54,34 +50,14 @@ public class RedditSubreddit {
      
      public static RedditSubreddit getSubreddit(URL link) throws IOException, JSONException {
          /*
-          * Variables
+          * Downloads the data from the provided URL.
           */
-         StringBuilder jsonToParse = new StringBuilder();
-         String buffer;
-
-         /*
-          * Opens a connection to the provided URL, and downloads the data into a temporary variable.
-          */
-         HttpURLConnection conn = (HttpURLConnection)link.openConnection();
-         conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-         if(conn.getResponseCode() >= 400) {
-             throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-         }
-
-         BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-         while((buffer = buf.readLine()) != null) {
-             jsonToParse.append(buffer);
-         }
-
-         /*
-          * Disconnect from the server.
-          */
-         conn.disconnect();
+         String jsonToParse = HttpClient.getString(link);
 
          /*
           * Parse the JSON data.
           */
-         JSONObject redditSubreddit = new JSONObject(jsonToParse.toString()).getJSONObject("data");
+         JSONObject redditSubreddit = new JSONObject(jsonToParse).getJSONObject("data");
          return new RedditSubreddit(redditSubreddit.getString("display_name"),
                  redditSubreddit.getString("title"),
                  redditSubreddit.getLong("subscribers"),
@@ -1,9 +1,6 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -11,8 +8,7 @@ import java.util.Date;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import us.rddt.IRCBot.Configuration;
-import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Network.HttpClient;
 
 /**
  * Using the reddit API, this class can return information about a provided reddit
@@ -63,34 +59,14 @@ public class RedditUser {
      */
     public static RedditUser getUser(URL link) throws IOException, JSONException {
         /*
-         * Variables
+         * Downloads the data from the provided URL.
          */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
-
-        /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
-         */
-        HttpURLConnection conn = (HttpURLConnection)link.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
-        }
-
-        /*
-         * Disconnect from the server.
-         */
-        conn.disconnect();
+        String jsonToParse = HttpClient.getString(link);
 
         /*
          * Parse the JSON data.
          */
-        JSONObject redditUser = new JSONObject(jsonToParse.toString()).getJSONObject("data");
+        JSONObject redditUser = new JSONObject(jsonToParse).getJSONObject("data");
         return new RedditUser(redditUser.getString("name"),
                 redditUser.getInt("link_karma"),
                 redditUser.getInt("comment_karma"),
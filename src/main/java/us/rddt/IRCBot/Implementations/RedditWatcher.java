@@ -1,122 +1,172 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.pircbotx.Channel;
 import org.pircbotx.Colors;
 import org.pircbotx.PircBotX;
 
 import us.rddt.IRCBot.Configuration;
-import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Enums.MessagePriority;
+import us.rddt.IRCBot.Execution.MessageScheduler;
+import us.rddt.IRCBot.Execution.Watcher;
+import us.rddt.IRCBot.Network.HttpResponse;
+import us.rddt.IRCBot.Network.JsonReader;
 
 /**
- * Using the reddit API, this class is capable of "watching" a subreddit and
- * returning information such as post title, the user who submitted it and its
- * current score for new submissions to the subreddit.
+ * Using the reddit API, this class is capable of "watching" a group of subreddits
+ * and returning information such as post title, the user who submitted it and its
+ * current score for new submissions to the subreddits. The subreddits are fetched
+ * together as one multireddit listing, and every submission newer than the last
+ * one announced from each subreddit is announced, oldest first.
  * 
  * @author Ryan Morrison
  */
-public class RedditWatcher implements Runnable {
+public class RedditWatcher implements Watcher {
     /*
      * Class variables
      */
-    private static volatile Map<String,String> currentLinks = Collections.synchronizedMap(new HashMap<String,String>());
     private PircBotX bot;
-    private String subreddit;
+    private List<String> subreddits;
+    private FeedFetcher fetcher;
+
+    // The most submissions reddit returns in one listing
+    private static final int LISTING_LIMIT = 100;
 
     /**
-     * Method that executes upon thread start
+     * Checks the subreddits for new submissions
      * (non-Javadoc)
-     * @see java.lang.Runnable#run()
+     * @see us.rddt.IRCBot.Execution.Watcher#poll()
      */
-    public void run() {
-        try {
-            update(subreddit);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+    public boolean poll() throws Exception {
+        return update();
+    }
+
+    /**
+     * Returns the name of the multireddit being watched
+     * (non-Javadoc)
+     * @see us.rddt.IRCBot.Execution.Watcher#getName()
+     */
+    public String getName() {
+        return "r/" + getMultireddit();
+    }
+
+    /**
+     * Returns the multireddit's download statistics
+     * (non-Javadoc)
+     * @see us.rddt.IRCBot.Execution.Watcher#getStatistics()
+     */
+    public String getStatistics() {
+        return fetcher.getStatistics();
     }
 
     /**
      * Class constructor
      * @param bot the IRC bot to use
-     * @param subreddit the subreddit to monitor
+     * @param subreddits the subreddits to monitor
      */
-    public RedditWatcher(PircBotX bot, String subreddit) {
+    public RedditWatcher(PircBotX bot, List<String> subreddits) {
         this.bot = bot;
-        this.subreddit = subreddit;
+        this.subreddits = new ArrayList<String>(subreddits);
+        this.fetcher = new FeedFetcher("reddit:" + getMultireddit().toLowerCase(Locale.ENGLISH));
     }
 
     /**
-     * Checks to see and updates accordingly if there is a new submission in a subreddit
-     * @param subreddit the subreddit to monitor
+     * Checks to see and updates accordingly if there are new submissions in the subreddits
+     * @return true if there were new submissions, false otherwise
      * @throws MalformedURLException if the subreddit URL cannot be formed
-     * @throws IOException if the download fails
-     * @throws JSONExceptions if the JSON cannot be parsed
+     * @throws IOException if the download fails or the JSON cannot be parsed
      */
-    private void update(String subreddit) throws MalformedURLException, IOException, JSONException {
+    private boolean update() throws MalformedURLException, IOException {
         /*
          * Variables.
          */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
-        URL link = new URL("http://www.reddit.com/r/" + subreddit + "/new/.json?sort=new");
+        URL link = new URL("http://www.reddit.com/r/" + getMultireddit() + "/new/.json?sort=new&limit=" + LISTING_LIMIT);
 
         /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
+         * Downloads the listing from the provided URL, reading only the fields we announce.
+         * If the listing hasn't changed since the last check there's nothing new to announce.
          */
-        HttpURLConnection conn = (HttpURLConnection)link.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
+        HttpResponse response = fetcher.fetch(link);
+        if(response == null) return false;
+        List<RedditLink> submissions;
+        long started = System.currentTimeMillis();
+        try {
+            submissions = RedditLink.readListing(new JsonReader(response.getReader()), LISTING_LIMIT);
+        } finally {
+            response.close();
         }
-
+        long elapsed = System.currentTimeMillis() - started;
         /*
-         * Disconnect from the server.
+         * Group the submissions by subreddit, newest first as reddit lists them.
          */
-        conn.disconnect();
+        Map<String, List<RedditLink>> listings = new HashMap<String, List<RedditLink>>();
+        for(RedditLink newLink : submissions) {
+            String key = newLink.getSubreddit().toLowerCase(Locale.ENGLISH);
+            List<RedditLink> listing = listings.get(key);
+            if(listing == null) {
+                listing = new ArrayList<RedditLink>();
+                listings.put(key, listing);
+            }
+            listing.add(newLink);
+        }
         /*
-         * Parse the first submission from the subreddit's new queue.
-         * If there is no saved submission, save it but don't display it as that's our benchmark for determining
-         * if a submission is truly new.
-         * If there are no submissions at all, simply return.
+         * Announce every submission newer than each subreddit's mark, oldest first.
+         * After downtime a subreddit may have many, so only watcher_catchup_limit are announced per check
+         * and the rest are left for the next checks.
+         * If a subreddit has no mark yet, its newest submission becomes the mark without being announced,
+         * as that's our benchmark for determining if a submission is truly new.
          */
-        JSONObject parsedArray = new JSONObject(jsonToParse.toString());
-        if(parsedArray.getJSONObject("data").getJSONArray("children").length() > 0) {
-            RedditLink newLink = new RedditLink(parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data").getString("id"),
-                    IRCUtils.escapeHTMLEntities(parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data").getString("title")),
-                    parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data").getString("author"),
-                    parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data").getString("subreddit"),
-                    parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data").getLong("created_utc"),
-                    parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data").getInt("score"),
-                    parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data").getBoolean("over_18"),
-                    parsedArray.getJSONObject("data").getJSONArray("children").getJSONObject(0).getJSONObject("data").getString("author").toUpperCase().contains("NSFL"));
-            if(currentLinks.get(newLink.getSubreddit()) == null) {
-                currentLinks.put(newLink.getSubreddit(), newLink.getId());
+        boolean found = false;
+        boolean backlog = false;
+        int limit = Math.max(1, Configuration.getWatcherCatchupLimit());
+        for(String subreddit : subreddits) {
+            List<RedditLink> listing = listings.get(subreddit.toLowerCase(Locale.ENGLISH));
+            if(listing == null) continue;
+            String feed = "reddit:" + subreddit.toLowerCase(Locale.ENGLISH);
+            WatcherState.Mark mark = WatcherState.get(feed);
+            if(mark == null) {
+                RedditLink newest = listing.get(0);
+                WatcherState.put(feed, new WatcherState.Mark(newest.getCreatedUTC(), Collections.singleton(newest.getId())));
+                continue;
             }
-            else if(!currentLinks.get(newLink.getSubreddit()).equals(newLink.getId())) {
-                currentLinks.put(newLink.getSubreddit(), newLink.getId());
+            WatcherState.Mark advanced = mark;
+            int announced = 0;
+            for(int i = listing.size() - 1; i >= 0; i--) {
+                RedditLink newLink = listing.get(i);
+                if(!mark.isNewer(newLink.getCreatedUTC(), newLink.getId())) continue;
+                if(announced++ == limit) {
+                    backlog = true;
+                    break;
+                }
                 updateChannels(newLink);
+                advanced = advanced.advance(newLink.getCreatedUTC(), newLink.getId());
+                found = true;
             }
-            return;
-        } else {
-            return;
+            WatcherState.put(feed, advanced);
+        }
+        fetcher.completed(response, elapsed, !backlog);
+        return found;
+    }
+
+    /**
+     * Returns the subreddits joined into the path of a multireddit
+     */
+    private String getMultireddit() {
+        StringBuilder builder = new StringBuilder();
+        for(String subreddit : subreddits) {
+            if(builder.length() > 0) builder.append('+');
+            builder.append(subreddit);
         }
+        return builder.toString();
     }
 
     /**
@@ -126,9 +176,9 @@ public class RedditWatcher implements Runnable {
     private void updateChannels(RedditLink redditLink) {
         for(Channel c : bot.getChannels()) {
             if(redditLink.isOver18()) {
-                bot.sendMessage(c, "[r/" + redditLink.getSubreddit() + "] " + redditLink.getTitle() + " (submitted by " + redditLink.getAuthor() + " about " +  redditLink.getCreatedReadableUTC() + " ago, " + redditLink.getScore() + " points: http://redd.it/" + redditLink.getId() + ") " + Colors.BOLD + Colors.RED + "[NSFW]");
+                MessageScheduler.sendMessage(bot, c, "[r/" + redditLink.getSubreddit() + "] " + redditLink.getTitle() + " (submitted by " + redditLink.getAuthor() + " about " +  redditLink.getCreatedReadableUTC() + " ago, " + redditLink.getScore() + " points: http://redd.it/" + redditLink.getId() + ") " + Colors.BOLD + Colors.RED + "[NSFW]", MessagePriority.BROADCAST);
             } else {
-                bot.sendMessage(c, "[r/" + redditLink.getSubreddit() + "] " + redditLink.getTitle() + " (submitted by " + redditLink.getAuthor() + " about " +  redditLink.getCreatedReadableUTC() + " ago, " + redditLink.getScore() + " points: http://redd.it/" + redditLink.getId() + ")");
+                MessageScheduler.sendMessage(bot, c, "[r/" + redditLink.getSubreddit() + "] " + redditLink.getTitle() + " (submitted by " + redditLink.getAuthor() + " about " +  redditLink.getCreatedReadableUTC() + " ago, " + redditLink.getScore() + " points: http://redd.it/" + redditLink.getId() + ")", MessagePriority.BROADCAST);
             }
         }
     }
@@ -1,11 +1,9 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.text.ParseException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,7 +18,8 @@ import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
 import us.rddt.IRCBot.Configuration;
-import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Network.HttpClient;
+import us.rddt.IRCBot.Network.HttpResponse;
 
 /**
  * Queries and returns data about a given Steam user from the Steam Web API
@@ -95,34 +94,14 @@ public class SteamUser {
      */
     private void getUser(long steamId) throws IOException, JSONException {
         /*
-         * Variables
+         * Downloads the data from the provided URL.
          */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
-
-        /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
-         */
-        HttpURLConnection conn = (HttpURLConnection)new URL("http://api.steampowered.com/ISteamUser/GetPlayerSummaries/v0002/?key=" + Configuration.getSteamAPIKey() + "&steamids=" + steamId).openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
-        }
-
-        /*
-         * Disconnect from the server.
-         */
-        conn.disconnect();
+        String jsonToParse = HttpClient.getString(new URL("http://api.steampowered.com/ISteamUser/GetPlayerSummaries/v0002/?key=" + Configuration.getSteamAPIKey() + "&steamids=" + steamId));
 
         /*
          * Parse the JSON data.
          */
-        JSONObject parsedObject = new JSONObject(jsonToParse.toString()).getJSONObject("response").getJSONArray("players").getJSONObject(0);
+        JSONObject parsedObject = new JSONObject(jsonToParse).getJSONObject("response").getJSONArray("players").getJSONObject(0);
         // Public Data
         this.setSteamId(parsedObject.getLong("steamid"));
         this.setPersonaName(parsedObject.getString("personaname"));
@@ -166,21 +145,20 @@ public class SteamUser {
             return idCache.get(communityName);
         } else {
             /*
-             * Opens a connection to the API
+             * Opens a connection to the API, without following redirects
              */
-            HttpURLConnection.setFollowRedirects(false);
-            HttpURLConnection conn = (HttpURLConnection) (new URL("http://steamcommunity.com/id/" + communityName + "?xml=1")).openConnection();
-
-            conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-            if(conn.getResponseCode() >= 400) {
-                throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-            }
+            HttpResponse response = HttpClient.get(new URL("http://steamcommunity.com/id/" + communityName + "?xml=1"), Collections.<String, String>emptyMap(), false);
 
             /*
              * Parses and returns the user's 64-bit Steam ID
              */
-            DocumentBuilder parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            Element profile = parser.parse(conn.getInputStream()).getDocumentElement();
+            Element profile;
+            try {
+                DocumentBuilder parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+                profile = parser.parse(response.getInputStream()).getDocumentElement();
+            } finally {
+                response.close();
+            }
             
             long steamID64 = Long.parseLong(profile.getElementsByTagName("steamID64").item(0).getTextContent());
 
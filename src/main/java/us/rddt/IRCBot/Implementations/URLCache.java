@@ -0,0 +1,218 @@
+package us.rddt.IRCBot.Implementations;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import us.rddt.IRCBot.Configuration;
+
+/**
+ * Caches the summaries URLGrabber produces for URLs, so a link pasted in several
+ * channels or reposted shortly afterwards doesn't need to be fetched again. The
+ * cache holds a bounded number of summaries, evicting the least recently used,
+ * and each summary expires after a time depending on the site it came from.
+ * Failed lookups are cached for a shorter time, and concurrent lookups of the
+ * same URL wait for a single fetch instead of each fetching it themselves.
+ *
+ * @author Ryan Morrison
+ */
+public class URLCache {
+    private static final LinkedHashMap<String, Summary> cache = new LinkedHashMap<String, Summary>(64, 0.75f, true);
+    private static final ConcurrentHashMap<String, FutureTask<Summary>> inFlight = new ConcurrentHashMap<String, FutureTask<Summary>>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong negativeHits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong coalesced = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Returns the summary of a URL, fetching it with the provided loader if it is not cached
+     * @param url the URL to summarize
+     * @param loader fetches the summary if it is not cached
+     * @return the summary of the URL
+     * @throws Exception if the loader fails
+     */
+    public static Summary get(URL url, Callable<Summary> loader) throws Exception {
+        String key = canonicalize(url);
+        Summary summary = getCached(key);
+        if(summary != null) {
+            if(summary.isError()) negativeHits.incrementAndGet();
+            else hits.incrementAndGet();
+            return summary;
+        }
+        // Only the first lookup of a URL fetches it, any others wait for its result
+        FutureTask<Summary> task = new FutureTask<Summary>(loader);
+        FutureTask<Summary> existing = inFlight.putIfAbsent(key, task);
+        if(existing != null) {
+            coalesced.incrementAndGet();
+            task = existing;
+        } else {
+            misses.incrementAndGet();
+            try {
+                task.run();
+                summary = await(task);
+                if(summary != null) put(key, summary);
+            } finally {
+                inFlight.remove(key, task);
+            }
+            return summary;
+        }
+        return await(task);
+    }
+
+    /**
+     * Returns the result of a fetch, rethrowing the exception the loader failed with rather than its wrapper
+     */
+    private static Summary await(FutureTask<Summary> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException ex) {
+            if(ex.getCause() instanceof Exception) throw (Exception)ex.getCause();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the summary of a URL if it is cached, without fetching it
+     * @param url the URL to summarize
+     * @return the cached summary, or null if the URL is not cached
+     */
+    public static Summary peek(URL url) {
+        Summary summary = getCached(canonicalize(url));
+        if(summary != null) {
+            if(summary.isError()) negativeHits.incrementAndGet();
+            else hits.incrementAndGet();
+        }
+        return summary;
+    }
+
+    /**
+     * Removes every summary from the cache
+     */
+    public static void clear() {
+        synchronized(cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the cache's state
+     * @return a one-line summary of the cache's state
+     */
+    public static String getStatistics() {
+        int size;
+        synchronized(cache) {
+            size = cache.size();
+        }
+        long lookups = hits.get() + negativeHits.get() + misses.get() + coalesced.get();
+        return "url cache: " + size + "/" + Configuration.getURLCacheSize() + " entries, " + hits.get() + " hits, " + negativeHits.get() + " error hits, "
+                + misses.get() + " misses, " + coalesced.get() + " coalesced, " + evictions.get() + " evicted"
+                + (lookups > 0 ? " (" + ((hits.get() + negativeHits.get() + coalesced.get()) * 100 / lookups) + "% served without fetching)" : "");
+    }
+
+    /**
+     * Returns a cached summary if it has not expired
+     */
+    private static Summary getCached(String key) {
+        synchronized(cache) {
+            Summary summary = cache.get(key);
+            if(summary == null) return null;
+            if(summary.expires < System.currentTimeMillis()) {
+                cache.remove(key);
+                return null;
+            }
+            return summary;
+        }
+    }
+
+    /**
+     * Caches a summary, evicting the least recently used summaries if the cache is full
+     */
+    private static void put(String key, Summary summary) {
+        long ttl = summary.isError() ? Configuration.getURLCacheErrorTTL() : Configuration.getURLCacheTTL(summary.getSite());
+        if(ttl <= 0) return;
+        summary.expires = System.currentTimeMillis() + ttl;
+        synchronized(cache) {
+            cache.put(key, summary);
+            Iterator<Map.Entry<String, Summary>> it = cache.entrySet().iterator();
+            while(cache.size() > Configuration.getURLCacheSize() && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the canonical form of a URL, so trivially different links to the same page share an entry
+     * @param url the URL to canonicalize
+     * @return the canonical form of the URL
+     */
+    public static String canonicalize(URL url) {
+        StringBuilder builder = new StringBuilder();
+        String protocol = url.getProtocol().toLowerCase(Locale.ENGLISH);
+        builder.append(protocol).append("://").append(url.getHost().toLowerCase(Locale.ENGLISH));
+        // Leave out ports which are the default for the protocol
+        if(url.getPort() != -1 && url.getPort() != url.getDefaultPort()) builder.append(':').append(url.getPort());
+        builder.append(url.getPath().length() == 0 ? "/" : url.getPath());
+        if(url.getQuery() != null) builder.append('?').append(url.getQuery());
+        // The fragment is never sent to the server, so it can't change the summary, except for hashbang links
+        // such as twitter.com/#!/user/status/N where the page the resolvers look up is named in the fragment
+        if(url.getRef() != null && url.getRef().startsWith("!")) builder.append('#').append(url.getRef());
+        return builder.toString();
+    }
+
+    /**
+     * The summary of a URL shown in the channel
+     */
+    public static class Summary {
+        private final String site;
+        private final String text;
+        private final boolean error;
+        private volatile long expires;
+
+        /**
+         * Class constructor
+         * @param site the name of the site the summary came from, e.g. Reddit
+         * @param text the text of the summary, or null if nothing should be shown
+         * @param error true if the summary describes a failed lookup
+         */
+        public Summary(String site, String text, boolean error) {
+            this.site = site;
+            this.text = text;
+            this.error = error;
+        }
+
+        /**
+         * Returns the name of the site the summary came from
+         * @return the name of the site
+         */
+        public String getSite() {
+            return site;
+        }
+
+        /**
+         * Returns the text of the summary
+         * @return the text of the summary, or null if nothing should be shown
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Returns whether the summary describes a failed lookup
+         * @return true if the lookup failed
+         */
+        public boolean isError() {
+            return error;
+        }
+    }
+}
@@ -1,14 +1,11 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -27,8 +24,14 @@ import twitter4j.Status;
 import twitter4j.Twitter;
 import twitter4j.TwitterException;
 import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.IRCUtils;
 import us.rddt.IRCBot.Enums.RedditTypes;
+import us.rddt.IRCBot.Network.HttpClient;
+import us.rddt.IRCBot.Network.HttpResponse;
+import us.rddt.IRCBot.Network.HttpStatusException;
+import us.rddt.IRCBot.Resolvers.SiteResolver;
+import us.rddt.IRCBot.Resolvers.SiteResolverRegistry;
 
 /**
  * Detects and returns information for URLs the bot sees in a channel. For normal
@@ -49,20 +52,67 @@ public class URLGrabber implements Runnable {
     private MessageEvent<PircBotX> event = null;
     private URL url = null;
 
-    // Regex pattern to match imgur links
-    private static final Pattern IMGUR_LINK = Pattern.compile("http:\\/\\/(www.)?(i.)?imgur\\.com\\/.+");
-    // Regex pattern to match Reddit links
-    private static final Pattern REDDIT_LINK = Pattern.compile("https?:\\/\\/(www.)?reddit\\.com\\/r\\/.+\\/comments\\/.+\\/.+(\\/)?");
-    // Regex pattern to match Reddit subreddits
-    private static final Pattern REDDIT_SUBREDDIT = Pattern.compile("https?:\\/\\/(www.)?reddit\\.com\\/r\\/.+\\/?");
-    // Regex pattern to match Reddit users
-    private static final Pattern REDDIT_USER = Pattern.compile("https?:\\/\\/(www.)?reddit\\.com\\/user\\/.+");
-    // Regex pattern to match Twitter tweets
-    private static final Pattern TWITTER_TWEET = Pattern.compile("https?:\\/\\/(www\\.)?twitter\\.com\\/(?:#!\\/)?(\\w+)\\/status(es)?\\/(\\d+)");
-    // Regex pattern to match YouTube videos
-    private static final Pattern YOUTUBE_VIDEO = Pattern.compile("https?:\\/\\/(www.)?youtube\\.com\\/watch\\?v=.+");
-    // Regex pattern to match Vimeo videos
-    private static final Pattern VIMEO_VIDEO = Pattern.compile("http:\\/\\/(www.)?vimeo\\.com\\/[0-9]+");
+    // Resolvers for the sites the bot summarizes, looked up by the host of the URL
+    private static final SiteResolverRegistry resolvers = createResolverRegistry();
+
+    /**
+     * Registers the resolver for each site the bot summarizes
+     * @return the populated resolver registry
+     */
+    private static SiteResolverRegistry createResolverRegistry() {
+        SiteResolverRegistry registry = new SiteResolverRegistry();
+        /*
+         * Twitter
+         */
+        registry.register(new SiteResolver(Pattern.compile("/(?:#!/)?(\\w+)/status(es)?/(\\d+)"), "twitter.com") {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return returnTweet(Long.parseLong(matcher.group(3)));
+            }
+        });
+        /*
+         * Reddit, with links to submissions matched before subreddits
+         */
+        registry.register(new SiteResolver(Pattern.compile("/r/.+/comments/.+/.+"), "reddit.com") {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return returnReddit(url, RedditTypes.URL);
+            }
+        });
+        registry.register(new SiteResolver(Pattern.compile("/r/.+"), "reddit.com") {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return returnReddit(url, RedditTypes.SUBREDDIT);
+            }
+        });
+        registry.register(new SiteResolver(Pattern.compile("/user/.+"), "reddit.com") {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return returnReddit(url, RedditTypes.USER);
+            }
+        });
+        /*
+         * imgur, falling back to the page title if the image hasn't been posted to Reddit
+         */
+        registry.register(new SiteResolver(Pattern.compile("/.+"), "imgur.com") {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return checkImgurReddit(url);
+            }
+        });
+        /*
+         * YouTube
+         */
+        registry.register(new SiteResolver(Pattern.compile("/watch\\?v=.+"), "youtube.com") {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return returnYouTubeVideo(url);
+            }
+        });
+        /*
+         * Vimeo
+         */
+        registry.register(new SiteResolver(Pattern.compile("/[0-9]+"), "vimeo.com") {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return returnVimeoVideo(url);
+            }
+        });
+        return registry;
+    }
 
     /**
      * Content-Type class definition
@@ -182,9 +232,9 @@ public class URLGrabber implements Runnable {
     /**
      * Determines if an imgur link has been posted to Reddit and return post details if it has
      * @param imgurURL the imgur URL to check against Reddit
-     * @return true if the image appears on Reddit, false if it does not
+     * @return the summary of the Reddit post, or null if the image does not appear on Reddit
      */
-    private boolean checkImgurReddit(URL imgurURL) {
+    private static URLCache.Summary checkImgurReddit(URL imgurURL) {
         // Variables
         URL appendURL = null;
 
@@ -194,24 +244,23 @@ public class URLGrabber implements Runnable {
             RedditLink link = new RedditLink();
             RedditLink bestSubmission = link.checkImgurLink(appendURL);
             if(bestSubmission != null) {
-                String formattedString = "[imgur by '" + event.getUser().getNick() + "'] As spotted on Reddit: " + Colors.BOLD + bestSubmission.getTitle() + Colors.NORMAL + " (submitted by " + bestSubmission.getAuthor() + " to /r/" + bestSubmission.getSubreddit() + " about " + bestSubmission.getCreatedReadableUTC() + " ago, " + bestSubmission.getScore() + " points: http://redd.it/" + bestSubmission.getId() + ")";
+                String formattedString = "As spotted on Reddit: " + Colors.BOLD + bestSubmission.getTitle() + Colors.NORMAL + " (submitted by " + bestSubmission.getAuthor() + " to /r/" + bestSubmission.getSubreddit() + " about " + bestSubmission.getCreatedReadableUTC() + " ago, " + bestSubmission.getScore() + " points: http://redd.it/" + bestSubmission.getId() + ")";
                 if(bestSubmission.isOver18()) {
                     formattedString += (" " + Colors.BOLD + Colors.RED + "[NSFW]");
                 }
                 if(bestSubmission.isNSFL()) {
                     formattedString += (" " + Colors.BOLD + Colors.RED + "[NSFL]");
                 }
-                event.getBot().sendMessage(event.getChannel(), formattedString);
-                return true;
+                return new URLCache.Summary("imgur", formattedString, false);
             } else {
-                return false;
+                return null;
             }
         } catch (MalformedURLException ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
         } catch (Exception ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
         }
-        return false;
+        return null;
     }
 
     /**
@@ -219,12 +268,13 @@ public class URLGrabber implements Runnable {
      * @param site the website where the lookup failed
      * @param message the error message
      * @param trim whether or not the error message should be trimmed
+     * @return the summary describing the error
      */
-    private String formatError(String site, String message, boolean trim) {
+    private static URLCache.Summary formatError(String site, String message, boolean trim) {
     	if(trim) {
-    		return "[" + site + " by '" + event.getUser().getNick() + "'] An error occurred while retrieving this URL. (" + IRCUtils.trimString(message, 50) + ")";
+    		return new URLCache.Summary(site, "An error occurred while retrieving this URL. (" + IRCUtils.trimString(message, 50) + ")", true);
     	} else {
-    		return "[" + site + " by '" + event.getUser().getNick() + "'] An error occurred while retrieving this URL. (" + message + ")";
+    		return new URLCache.Summary(site, "An error occurred while retrieving this URL. (" + message + ")", true);
     	}
     }
 
@@ -234,19 +284,24 @@ public class URLGrabber implements Runnable {
      * @return the page title
      * @throws Exception if an error occurs downloading the page
      */
-    private String getPageTitle(URL url) throws Exception {
-        // Connect to the server
-        HttpURLConnection conn = (HttpURLConnection)url.openConnection();
-        // Set a proper user agent, some sites return HTTP 409 without it
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        // Follow 301 redirects
-        if(conn.getResponseCode() == 301) {
-            return getPageTitle(new URL(conn.getHeaderField("Location")));
-        }
-        // Return an error if the response code is over 400
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
+    private static String getPageTitle(URL url) throws Exception {
+        // Connect to the server, following any redirects
+        HttpResponse response = HttpClient.get(url);
+        try {
+            return getPageTitle(response);
+        } finally {
+            response.close();
         }
+    }
+
+    /**
+     * Gets the page title from a response
+     * @param response the response containing the page to extract the title from
+     * @return the page title
+     * @throws Exception if an error occurs downloading the page
+     */
+    private static String getPageTitle(HttpResponse response) throws Exception {
+        HttpURLConnection conn = response.getConnection();
         // No need to check validity of the URL - it's already been proven valid at this point
         // Get the Content-Type property from the HTTP headers so we can parse accordingly
         ContentType contentType = getContentTypeHeader(conn);
@@ -255,7 +310,7 @@ public class URLGrabber implements Runnable {
         StringBuilder builder = new StringBuilder();
         
         // Check whether the connection is IPv6 or IPv4
-        String ip = InetAddress.getByName(url.getHost()).getHostAddress();
+        String ip = InetAddress.getByName(response.getURL().getHost()).getHostAddress();
         if(ip.contains(":") && !ip.contains(".")) {
             builder.append(Colors.BOLD + Colors.GREEN + "[IPv6]" + Colors.NORMAL + " ");
         }
@@ -269,41 +324,18 @@ public class URLGrabber implements Runnable {
         	return builder.append("The server did not provide correct HTTP headers. Unable to determine Content-Type property.").toString();
         }
         // If the document isn't HTML, return the Content-Type and Content-Length instead
-        if(!contentType.contentType.equals("text/html")) {
+        if(!contentType.contentType.equals("text/html") && !contentType.contentType.equals("application/xhtml+xml")) {
             return builder.append("Type: " + contentType.contentType + ", size: " + humanReadableByteCount(getContentLengthHeader(conn), true)).toString();
         }
         else {
-            // Get the character set or use the default accordingly
-            Charset charset = getCharset(contentType);
-            if(charset == null) charset = Charset.defaultCharset();
-            // Create and prepare our streams for reading from the web server
-            InputStream in = conn.getInputStream();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset));
-            // More variables
-            int n = 0, totalRead = 0;
-            char[] buf = new char[1024];
-            StringBuilder content = new StringBuilder();
-
-            // Read the page from the web server into the buffer up to 8192 bytes and create a string from it
-            // The first 8192 bytes should be enough to fetch the title, while saving us time and bandwidth
-            while(totalRead < 8192 && (n = reader.read(buf, 0, buf.length)) != -1) {
-                content.append(buf, 0, n);
-                totalRead += n;
-            }
-            // Close the BufferedReader
-            reader.close();
-            // Disconnect from the web server
-            conn.disconnect();
-
-            // Regex giving you trouble? Well, it's only 8192 bytes, so let's just do a straight-up string search
-            int titleIndex = content.indexOf("<title>");
-            int titleEndIndex = content.indexOf("</title>");
-            if (titleIndex == -1 || titleEndIndex == -1 || titleIndex >= content.length() || titleEndIndex >= content.length())
-            {
-                return "Title not found or not within first 8192 bytes of page, aborting.";
+            // Read only as much of the page as is needed to find the title
+            HtmlTitleScanner scanner = new HtmlTitleScanner(getCharset(contentType), Configuration.getURLTitleMaxBytes());
+            String title = scanner.scan(response.getInputStream());
+            if(title == null) {
+                return "Title not found or not within first " + Configuration.getURLTitleMaxBytes() + " bytes of page, aborting.";
             }
             // Abbreviate with ellipsis if titles are greater than 180 characters to avoid abuse/spam
-            return builder.append(Colors.BOLD + StringUtils.abbreviate(IRCUtils.escapeHTMLEntities(content.substring(titleIndex + 7, titleEndIndex).replaceAll("[\\s\\<>]+", " ").trim()), 180)).toString();
+            return builder.append(Colors.BOLD + StringUtils.abbreviate(IRCUtils.escapeHTMLEntities(title.replaceAll("[\\s\\<>]+", " ").trim()), 180)).toString();
         }
     }
 
@@ -311,8 +343,9 @@ public class URLGrabber implements Runnable {
      * Prints the title of a Reddit submissions or information about a user depending on the URL provided
      * @param redditURL the reddit URL to extract the data from
      * @param type the type of reddit link to parse
+     * @return the summary of the Reddit link
      */
-    private void returnReddit(URL redditURL, RedditTypes type) {
+    private static URLCache.Summary returnReddit(URL redditURL, RedditTypes type) {
         // Variables
         URL appendURL = null;
 
@@ -321,12 +354,11 @@ public class URLGrabber implements Runnable {
             if(type == RedditTypes.USER) {
                 appendURL = new URL(redditURL.toString() + "/about.json");
                 RedditUser user = RedditUser.getUser(appendURL);
-                String formattedString = "[Reddit by '" + event.getUser().getNick() + "'] " + Colors.BOLD + user.getName() + Colors.NORMAL + ": " + user.getLinkKarma() + " link karma, " + user.getCommentKarma() + " comment karma, user since " + user.getReadableCreated();
+                String formattedString = Colors.BOLD + user.getName() + Colors.NORMAL + ": " + user.getLinkKarma() + " link karma, " + user.getCommentKarma() + " comment karma, user since " + user.getReadableCreated();
                 if(user.isGold()) {
                     formattedString += " [reddit gold]";
                 }
-                event.getBot().sendMessage(event.getChannel(), formattedString);
-                return;
+                return new URLCache.Summary("Reddit", formattedString, false);
             } else if(type == RedditTypes.URL) {
             	RedditLink link;
             	// If a ? appears in a reddit URL, the URL must contain a context parameter
@@ -343,7 +375,7 @@ public class URLGrabber implements Runnable {
             		link = RedditLink.getLink(appendURL, true);
             	}
             	// Build the string to print to the channel, adding in comment details if necessary
-                String formattedString = "[Reddit by '" + event.getUser().getNick() + "'] ";
+                String formattedString = "";
                 if(contextIndex != -1) formattedString += link.getContextUsername() + " comments on ";
                 formattedString += Colors.BOLD + link.getTitle() + Colors.NORMAL + " (submitted by " + link.getAuthor() + " to /r/" + link.getSubreddit() + " about " +  link.getCreatedReadableUTC() + " ago, " + link.getScore() + " points)";
                 if(link.isOver18()) {
@@ -352,146 +384,147 @@ public class URLGrabber implements Runnable {
                 if(link.isNSFL()) {
                     formattedString += (" " + Colors.BOLD + Colors.RED + "[NSFL]");
                 }
-                event.getBot().sendMessage(event.getChannel(), formattedString);
-                return;
+                return new URLCache.Summary("Reddit", formattedString, false);
             } else if(type == RedditTypes.SUBREDDIT) {
                 appendURL = new URL(redditURL.toString() + "/about.json");
                 RedditSubreddit subreddit = RedditSubreddit.getSubreddit(appendURL);
-                String formattedString = "[Reddit by '" + event.getUser().getNick() + "'] " + Colors.BOLD + "/r/" +  subreddit.getDisplayName() + Colors.NORMAL + " : " + subreddit.getPublicDescription() + " (" + subreddit.getFormattedSubscribers() + " subscribers)";
+                String formattedString = Colors.BOLD + "/r/" +  subreddit.getDisplayName() + Colors.NORMAL + " : " + subreddit.getPublicDescription() + " (" + subreddit.getFormattedSubscribers() + " subscribers)";
                 if(subreddit.isOver18()) {
                     formattedString += (" " + Colors.BOLD + Colors.RED + "[NSFW]");
                 }
-                event.getBot().sendMessage(event.getChannel(), formattedString);
-                return;
+                return new URLCache.Summary("Reddit", formattedString, false);
             }
         } catch (MalformedURLException ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            return;
         } catch (Exception ex) {
-            event.getBot().sendMessage(event.getChannel(), formatError("Reddit", ex.getMessage(), true));
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            return;
+            return formatError("Reddit", ex.getMessage(), true);
         }
+        return new URLCache.Summary("Reddit", null, true);
     }
 
     /**
      * Prints the content of a provided tweet to a specified channel
      * @param tweetID the ID value of the tweet to print
+     * @return the summary of the tweet
      */
-    private void returnTweet(long tweetID) {
+    private static URLCache.Summary returnTweet(long tweetID) {
         try {
             // Get the Tweet and send it back to the channel
             Twitter twitter = Configuration.getTwitterInstance();
             Status status = twitter.showStatus(tweetID);
-            event.getBot().sendMessage(event.getChannel(), "[Tweet by '" + event.getUser().getNick() + "'] " + Colors.BOLD + "@" + status.getUser().getScreenName() + Colors.NORMAL + ": " + status.getText());
+            return new URLCache.Summary("Tweet", Colors.BOLD + "@" + status.getUser().getScreenName() + Colors.NORMAL + ": " + status.getText(), false);
         } catch (TwitterException te) {
-            event.getBot().sendMessage(event.getChannel(), formatError("Twitter", te.getMessage(), true));
-            Configuration.getLogger().write(Level.WARNING, te.getStackTrace().toString());
+            Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(te));
+            return formatError("Twitter", te.getMessage(), true);
         }
     }
 
     /**
      * Prints the title and duration of a YouTube video to a specified channel
      * @param youtubeURL the URL to process
+     * @return the summary of the video
      */
-    private void returnYouTubeVideo(URL youtubeURL) {
+    private static URLCache.Summary returnYouTubeVideo(URL youtubeURL) {
         URL appendURL = null;
 
         // Construct the URL to read the JSON data from
         try {
-            appendURL = new URL("http://gdata.youtube.com/feeds/api/videos?q=" + url.toString().split("=")[1] + "&v=2&alt=jsonc");
+            appendURL = new URL("http://gdata.youtube.com/feeds/api/videos?q=" + youtubeURL.toString().split("=")[1] + "&v=2&alt=jsonc");
             YouTubeVideo link = YouTubeVideo.getLink(appendURL);
-            event.getBot().sendMessage(event.getChannel(), "[YouTube by '" + event.getUser().getNick() + "'] " + Colors.BOLD + link.getTitle() + Colors.NORMAL + " (uploaded by " + link.getUploader() + ", " + link.getReadableDuration() + ")");
-            return;
+            return new URLCache.Summary("YouTube", Colors.BOLD + link.getTitle() + Colors.NORMAL + " (uploaded by " + link.getUploader() + ", " + link.getReadableDuration() + ")", false);
         } catch (MalformedURLException ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            return;
+            return new URLCache.Summary("YouTube", null, true);
         } catch (Exception ex) {
-            event.getBot().sendMessage(event.getChannel(), formatError("YouTube", ex.getMessage(), true));
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            return;
+            return formatError("YouTube", ex.getMessage(), true);
         }
     }
     
     /**
      * Prints the title and duration of a Vimeo video to a specified channel
      * @param vimeoURL the URL to process
+     * @return the summary of the video
      */
-    private void returnVimeoVideo(URL vimeoURL) {
+    private static URLCache.Summary returnVimeoVideo(URL vimeoURL) {
         URL appendURL = null;
 
         // Construct the URL to read the JSON data from
         try {
-            appendURL = new URL("http://vimeo.com/api/v2/video/" + url.toString().substring(url.toString().lastIndexOf("/") + 1) + ".json");
+            appendURL = new URL("http://vimeo.com/api/v2/video/" + vimeoURL.toString().substring(vimeoURL.toString().lastIndexOf("/") + 1) + ".json");
             VimeoLink link = VimeoLink.getLink(appendURL);
-            event.getBot().sendMessage(event.getChannel(), "[Vimeo by '" + event.getUser().getNick() + "'] " + Colors.BOLD + link.getTitle() + Colors.NORMAL + " (uploaded by " + link.getUploader() + ", " + link.getReadableDuration() + ")");
-            return;
+            return new URLCache.Summary("Vimeo", Colors.BOLD + link.getTitle() + Colors.NORMAL + " (uploaded by " + link.getUploader() + ", " + link.getReadableDuration() + ")", false);
         } catch (MalformedURLException ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            return;
-        } catch (IOException ex) {
-            if(ex.getMessage().equals("Server returned response code: 404")) {
-                event.getBot().sendMessage(event.getChannel(), formatError("Vimeo", "Vimeo video ID invalid or video is private.", false));
+        } catch (HttpStatusException ex) {
+            if(ex.getStatusCode() == 404) {
+                return formatError("Vimeo", "Vimeo video ID invalid or video is private.", false);
             }
         } catch (Exception ex) {
-            event.getBot().sendMessage(event.getChannel(), formatError("Vimeo", ex.getMessage(), true));
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            return;
+            return formatError("Vimeo", ex.getMessage(), true);
         }
+        return new URLCache.Summary("Vimeo", null, true);
     }
     
     /**
-     * Method that executes upon thread start
-     * (non-Javadoc)
-     * @see java.lang.Runnable#run()
+     * Summarizes the URL using the handler for the site it links to
+     * @return the summary of the URL
      */
-    public void run() {
-        // Run the URL through each regex pattern and parse accordingly
-        Matcher urlMatcher = TWITTER_TWEET.matcher(url.toString());
-        if(urlMatcher.find()) {
-            returnTweet(Long.parseLong(url.toString().substring(url.toString().lastIndexOf("/")).replaceAll("/", "")));
-            return;
-        }
-        urlMatcher = REDDIT_LINK.matcher(url.toString());
-        if(urlMatcher.find()) {
-            try {
-                returnReddit(new URL(urlMatcher.group()), RedditTypes.URL);
-            } catch (MalformedURLException ex) {
-                return;
-            }
-            return;
-        }
-        urlMatcher = REDDIT_SUBREDDIT.matcher(url.toString());
-        if(urlMatcher.find()) {
-            returnReddit(url, RedditTypes.SUBREDDIT);
-            return;
-        }
-        urlMatcher = REDDIT_USER.matcher(url.toString());
-        if(urlMatcher.find()) {
-            returnReddit(url, RedditTypes.USER);
-            return;
-        }
-        urlMatcher = IMGUR_LINK.matcher(url.toString());
-        if(urlMatcher.find()) {
-            if(checkImgurReddit(url)) return;
-        }
-        urlMatcher = YOUTUBE_VIDEO.matcher(url.toString());
-        if(urlMatcher.find()) {
-            returnYouTubeVideo(url);
-            return;
-        }
-        urlMatcher = VIMEO_VIDEO.matcher(url.toString());
-        if(urlMatcher.find()) {
-            returnVimeoVideo(url);
-            return;
+    private URLCache.Summary summarize() {
+        // Only the resolvers registered for the URL's host are tried
+        URLCache.Summary summary = resolvers.resolve(url);
+        if(summary != null) return summary;
+        // If no resolver handled the URL, then get the page title/length
+        try {
+            return new URLCache.Summary("URL", getPageTitle(url), false);
+        } catch (Exception ex) {
+            Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            return formatError("URL", ex.getMessage(), false);
         }
-        // If none of the regex patterns matched, then get the page title/length
+    }
+
+    /**
+     * Looks up the URL and returns the line to send to the channel
+     * @return the line to send, or null if nothing should be sent
+     */
+    public String lookup() {
+        URLCache.Summary summary;
         try {
-            event.getBot().sendMessage(event.getChannel(), ("[URL by '" + event.getUser().getNick() + "'] " + getPageTitle(url)));
+            // Links which were recently looked up are answered from the cache
+            summary = URLCache.get(url, new Callable<URLCache.Summary>() {
+                public URLCache.Summary call() {
+                    return summarize();
+                }
+            });
         } catch (Exception ex) {
             Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-            event.getBot().sendMessage(event.getChannel(), formatError("URL", ex.getMessage(), false));
-            return;
+            return null;
+        }
+        return format(summary, event.getUser().getNick());
+    }
+
+    /**
+     * Formats the line sent to a channel for a URL summary
+     * @param summary the summary of the URL
+     * @param nick the nick of the user who posted the URL
+     * @return the line to send, or null if nothing should be sent
+     */
+    public static String format(URLCache.Summary summary, String nick) {
+        if(summary == null || summary.getText() == null) return null;
+        return "[" + summary.getSite() + " by '" + nick + "'] " + summary.getText();
+    }
+
+    /**
+     * Method that executes upon thread start
+     * (non-Javadoc)
+     * @see java.lang.Runnable#run()
+     */
+    public void run() {
+        String line = lookup();
+        if(line != null) {
+            MessageScheduler.sendMessage(event.getBot(), event.getChannel(), line);
         }
     }
 
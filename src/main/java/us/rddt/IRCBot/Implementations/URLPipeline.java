@@ -0,0 +1,234 @@
+package us.rddt.IRCBot.Implementations;
+
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+import org.pircbotx.hooks.events.MessageEvent;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Execution.MessageScheduler;
+import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Enums.WorkerPools;
+import us.rddt.IRCBot.Execution.TaskDispatcher;
+
+/**
+ * Looks up the URLs posted to channels in stages. Links which are already cached
+ * are answered straight away on the IRC thread, the rest are looked up on the URL
+ * worker pool, subject to a limit on the number of lookups in progress across all
+ * channels. Each channel's results are sent in the order their links were posted,
+ * so a slow page never answers after a later link. A lookup which hasn't finished
+ * by its deadline is skipped, so it doesn't hold up the links posted after it.
+ *
+ * @author Ryan Morrison
+ */
+public class URLPipeline {
+    private static final ConcurrentHashMap<String, ChannelQueue> channels = new ConcurrentHashMap<String, ChannelQueue>();
+    private static volatile Semaphore inFlight = null;
+    private static volatile int inFlightLimit = 0;
+    private static ScheduledThreadPoolExecutor timer = null;
+
+    // Extra time allowed beyond the request timeouts, for waiting for a worker and formatting the result
+    private static final long ORDERING_GRACE = 5000;
+
+    private static final AtomicLong submitted = new AtomicLong();
+    private static final AtomicLong cached = new AtomicLong();
+    private static final AtomicLong rejected = new AtomicLong();
+    private static final AtomicLong held = new AtomicLong();
+    private static final AtomicLong abandoned = new AtomicLong();
+    private static final AtomicLong lookups = new AtomicLong();
+    private static final AtomicLong lookupTime = new AtomicLong();
+
+    /**
+     * Applies the in-flight limit from the configuration
+     */
+    public static synchronized void configure() {
+        if(inFlight == null || inFlightLimit != Configuration.getURLMaxInFlight()) {
+            // Lookups in progress release their permits to the semaphore they acquired them from
+            inFlightLimit = Configuration.getURLMaxInFlight();
+            inFlight = new Semaphore(Math.max(1, inFlightLimit));
+        }
+    }
+
+    /**
+     * Looks up a URL posted to a channel and sends its summary once every link posted before it has been answered
+     * @param event the message containing the URL
+     * @param url the URL to look up
+     */
+    public static void submit(MessageEvent<PircBotX> event, URL url) {
+        if(inFlight == null) configure();
+        submitted.incrementAndGet();
+        final ChannelQueue queue = getQueue(event.getChannel());
+        final long deadline = System.currentTimeMillis() + getOrderingTimeout();
+        final long ticket = queue.reserve(event.getBot(), event.getChannel(), deadline);
+
+        // Stage 1: links in the cache don't need a worker
+        URLCache.Summary summary = URLCache.peek(url);
+        if(summary != null) {
+            cached.incrementAndGet();
+            queue.complete(ticket, URLGrabber.format(summary, event.getUser().getNick()));
+            return;
+        }
+
+        // Stage 2: look the link up on the URL pool if there's room
+        final Semaphore permits = inFlight;
+        if(!permits.tryAcquire()) {
+            rejected.incrementAndGet();
+            queue.complete(ticket, null);
+            return;
+        }
+        final URLGrabber grabber = new URLGrabber(event, url);
+        final long started = System.currentTimeMillis();
+        boolean accepted = TaskDispatcher.submit(WorkerPools.URL, new Runnable() {
+            public void run() {
+                String line = null;
+                try {
+                    // A link which waited for a worker until its deadline has already been skipped
+                    if(System.currentTimeMillis() < deadline) line = grabber.lookup();
+                } catch (Exception ex) {
+                    Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+                } finally {
+                    permits.release();
+                    lookups.incrementAndGet();
+                    lookupTime.addAndGet(System.currentTimeMillis() - started);
+                    // Stage 3: send the result once it's this link's turn
+                    queue.complete(ticket, line);
+                }
+            }
+        });
+        if(!accepted) {
+            permits.release();
+            rejected.incrementAndGet();
+            queue.complete(ticket, null);
+            return;
+        }
+        // Send the links held up behind this one at its deadline, even if nothing else completes in the channel by then
+        getTimer().schedule(new Runnable() {
+            public void run() {
+                queue.flush();
+            }
+        }, deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a one-line summary of the pipeline's state
+     * @return a one-line summary of the pipeline's state
+     */
+    public static String getStatistics() {
+        Semaphore permits = inFlight;
+        int active = permits == null ? 0 : Math.max(0, inFlightLimit - permits.availablePermits());
+        long count = lookups.get();
+        return "url pipeline: " + active + "/" + inFlightLimit + " in flight, " + submitted.get() + " submitted, " + cached.get() + " answered from cache, "
+                + rejected.get() + " rejected, " + held.get() + " held back for ordering, " + abandoned.get() + " abandoned"
+                + (count > 0 ? ", " + (lookupTime.get() / count) + " ms average lookup" : "");
+    }
+
+    private static ChannelQueue getQueue(Channel channel) {
+        String key = channel.getName().toLowerCase(Locale.ENGLISH);
+        ChannelQueue queue = channels.get(key);
+        if(queue == null) {
+            ChannelQueue created = new ChannelQueue();
+            queue = channels.putIfAbsent(key, created);
+            if(queue == null) queue = created;
+        }
+        return queue;
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getTimer() {
+        if(timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "IRCBot-url-order");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return timer;
+    }
+
+    /**
+     * Returns how long a lookup may hold up the links posted after it before they are sent without it
+     */
+    private static long getOrderingTimeout() {
+        // HttpClient ends every request by http_request_timeout, retries included, and a lookup makes at most two
+        // requests in a row (e.g. a Steam profile's ID, then its summary). A result arriving after this is dropped.
+        return Configuration.getHttpRequestTimeout() * 2 + ORDERING_GRACE;
+    }
+
+    /**
+     * The links posted to a channel which haven't been answered yet, in the order they were posted
+     */
+    static class ChannelQueue {
+        private final TreeMap<Long, Pending> pending = new TreeMap<Long, Pending>();
+        private long nextTicket = 0;
+
+        synchronized long reserve(PircBotX bot, Channel channel, long deadline) {
+            long ticket = nextTicket++;
+            pending.put(ticket, new Pending(bot, channel, deadline));
+            return ticket;
+        }
+
+        /**
+         * Records the result of a lookup and sends every result which is now at the front of the queue
+         */
+        synchronized void complete(long ticket, String line) {
+            Pending entry = pending.get(ticket);
+            // The lookup took so long it was already skipped
+            if(entry == null) return;
+            entry.done = true;
+            entry.line = line;
+            if(pending.firstKey() != ticket) held.incrementAndGet();
+            flush();
+        }
+
+        /**
+         * Sends every result at the front of the queue, skipping lookups which are past their deadline.
+         * Queueing while holding the lock keeps concurrent completions from interleaving their lines.
+         */
+        synchronized void flush() {
+            long now = System.currentTimeMillis();
+            while(!pending.isEmpty()) {
+                Map.Entry<Long, Pending> head = pending.firstEntry();
+                Pending first = head.getValue();
+                if(!first.done) {
+                    if(now < first.deadline) break;
+                    abandoned.incrementAndGet();
+                }
+                pending.remove(head.getKey());
+                if(first.line != null) send(first.bot, first.channel, first.line);
+            }
+        }
+
+        /**
+         * Sends a result to its channel, replaced by the tests
+         */
+        void send(PircBotX bot, Channel channel, String line) {
+            MessageScheduler.sendMessage(bot, channel, line);
+        }
+    }
+
+    private static class Pending {
+        private final PircBotX bot;
+        private final Channel channel;
+        private final long deadline;
+        private boolean done = false;
+        private String line = null;
+
+        private Pending(PircBotX bot, Channel channel, long deadline) {
+            this.bot = bot;
+            this.channel = channel;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -1,17 +1,13 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import us.rddt.IRCBot.Configuration;
-import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Network.HttpClient;
 
 /**
  * Queries the Urban Dictionary for a definition for a provided string. The results
@@ -61,8 +57,6 @@ public class UrbanLookup {
      */
     public static UrbanLookup getDefinition(String toDefine, int defNumber) throws IOException, JSONException {
         URL lookupURL = null;
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
         
         try {
             lookupURL = new URL("http://www.urbandictionary.com/iphone/search/define?term=" + toDefine);
@@ -71,25 +65,11 @@ public class UrbanLookup {
         }
         
         /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
+         * Downloads the data from the provided URL.
          */
-        HttpURLConnection conn = (HttpURLConnection)lookupURL.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
-        }
-
-        /*
-         * Disconnect from the server.
-         */
-        conn.disconnect();
+        String jsonToParse = HttpClient.getString(lookupURL);
         
-        JSONObject lookupResult = new JSONObject(jsonToParse.toString());
+        JSONObject lookupResult = new JSONObject(jsonToParse);
         if(!lookupResult.getString("result_type").equals("exact")) {
             return new UrbanLookup(false, null, null, null, defNumber);
         } else {
@@ -1,17 +1,14 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URL;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import us.rddt.IRCBot.Configuration;
 import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Network.HttpClient;
 
 /**
  * A simple class to define a data type for a Vimeo video.
@@ -53,34 +50,14 @@ public class VimeoLink {
      */
     public static VimeoLink getLink(URL link) throws IOException, JSONException {
         /*
-         * Variables
+         * Downloads the data from the provided URL.
          */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
-
-        /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
-         */
-        HttpURLConnection conn = (HttpURLConnection)link.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
-        }
-
-        /*
-         * Disconnect from the server.
-         */
-        conn.disconnect();
+        String jsonToParse = HttpClient.getString(link);
 
         /*
          * Parse the JSON data.
          */
-        JSONObject vimeoLink = new JSONArray(jsonToParse.toString()).getJSONObject(0);
+        JSONObject vimeoLink = new JSONArray(jsonToParse).getJSONObject(0);
         return new VimeoLink(IRCUtils.escapeHTMLEntities(vimeoLink.getString("title")), vimeoLink.getString("user_name"), vimeoLink.getLong("duration"));
     }
 
@@ -0,0 +1,399 @@
+package us.rddt.IRCBot.Implementations;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.IRCUtils;
+
+/**
+ * Remembers the newest item announced from each watched feed, so a watcher can
+ * announce everything newer on its next check and nothing is announced twice or
+ * missed, even after a restart. The validators of each feed's last response are
+ * kept alongside, so a feed which hasn't changed since can be checked with a
+ * conditional request.
+ *
+ * The state is kept in memory and every change is appended as one line to the
+ * watcher state file, which is replayed when the state is first needed. The file
+ * is rewritten with only the latest record of each feed when it is loaded and
+ * whenever it has grown to several times that size, so it stays a few kilobytes
+ * and loads in milliseconds. A record is only applied once its whole line has
+ * been written, so one cut short by a crash is dropped rather than misread.
+ *
+ * @author Ryan Morrison
+ */
+public class WatcherState {
+    private static final Map<String, Mark> marks = new HashMap<String, Mark>();
+    private static final Map<String, Validators> validators = new HashMap<String, Validators>();
+    private static boolean loaded = false;
+    private static File file = null;
+    private static Writer log = null;
+    private static int records = 0;
+
+    // The file is compacted once it holds this many records per feed, and at least COMPACT_MINIMUM records
+    private static final int COMPACT_RATIO = 4;
+    private static final int COMPACT_MINIMUM = 256;
+
+    /**
+     * Returns the high-water mark of a feed
+     * @param feed the feed's key
+     * @return the feed's mark, or null if nothing has been seen from the feed yet
+     */
+    public static synchronized Mark get(String feed) {
+        if(!loaded) load();
+        return marks.get(feed);
+    }
+
+    /**
+     * Records a new high-water mark for a feed
+     * @param feed the feed's key
+     * @param mark the feed's new mark
+     */
+    public static synchronized void put(String feed, Mark mark) {
+        if(!loaded) load();
+        if(mark.equals(marks.get(feed))) return;
+        marks.put(feed, mark);
+        append(formatMark(feed, mark));
+    }
+
+    /**
+     * Returns the validators of the last response received from a feed
+     * @param feed the feed's key
+     * @return the feed's validators, or null if none have been received
+     */
+    public static synchronized Validators getValidators(String feed) {
+        if(!loaded) load();
+        return validators.get(feed);
+    }
+
+    /**
+     * Records the validators of the last response received from a feed
+     * @param feed the feed's key
+     * @param latest the validators of the response
+     */
+    public static synchronized void putValidators(String feed, Validators latest) {
+        if(!loaded) load();
+        if(latest.equals(validators.get(feed))) return;
+        validators.put(feed, latest);
+        append(formatValidators(feed, latest));
+    }
+
+    /**
+     * Returns a one-line summary of the watcher state
+     * @return a one-line summary of the watcher state
+     */
+    public static synchronized String getStatistics() {
+        return "watcher state: " + marks.size() + " marks, " + validators.size() + " validators"
+                + (loaded ? ", " + records + " records in " + file.getPath() : " (not loaded)");
+    }
+
+    /**
+     * Appends a record to the state file, compacting the file if it has grown too large
+     */
+    private static void append(String record) {
+        // The state is still kept in memory, it's only lost if the bot restarts before the file can be written
+        if(log == null) return;
+        try {
+            log.write(record);
+            log.write('\n');
+            log.flush();
+            records++;
+        } catch (IOException ex) {
+            Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            // A partly written record is skipped when the file is read, but start over with a clean file anyway
+            records = Integer.MAX_VALUE;
+        }
+        if(records >= Math.max(COMPACT_MINIMUM, (marks.size() + validators.size()) * COMPACT_RATIO)) compact();
+    }
+
+    /**
+     * Reads the configured state file
+     */
+    private static void load() {
+        load(new File(Configuration.getWatcherStateFile()));
+    }
+
+    /**
+     * Replaces the state in memory with the state read from a file, which later changes are appended to.
+     * A file which doesn't exist yet is created, with every feed starting without a mark.
+     * @param stateFile the file to read
+     */
+    static synchronized void load(File stateFile) {
+        if(log != null) {
+            try {
+                log.close();
+            } catch (IOException ex) {
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            }
+            log = null;
+        }
+        file = stateFile;
+        loaded = false;
+        records = 0;
+        marks.clear();
+        validators.clear();
+        try {
+            if(file.exists()) {
+                Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+                try {
+                    StringBuilder line = new StringBuilder();
+                    int c;
+                    while((c = reader.read()) != -1) {
+                        if(c != '\n') {
+                            line.append((char)c);
+                            continue;
+                        }
+                        if(!replay(line.toString())) Configuration.getLogger().write(Level.WARNING, "Skipping malformed watcher state record: " + line);
+                        line.setLength(0);
+                    }
+                    // Every record ends with a newline, so anything after the last one was cut short while being written
+                    if(line.length() > 0) Configuration.getLogger().write(Level.WARNING, "Skipping incomplete watcher state record: " + line);
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (IOException ex) {
+            // Try again on the next check, until then feeds start without a mark
+            Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            marks.clear();
+            validators.clear();
+            return;
+        }
+        loaded = true;
+        // Rewriting the file on load also drops any record left half written by a crash
+        compact();
+    }
+
+    /**
+     * Rewrites the state file with only the latest record of each feed
+     */
+    private static void compact() {
+        File temporary = new File(file.getPath() + ".tmp");
+        try {
+            if(log != null) {
+                log.close();
+                log = null;
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temporary), "UTF-8"));
+            try {
+                for(Map.Entry<String, Mark> entry : marks.entrySet()) {
+                    writer.write(formatMark(entry.getKey(), entry.getValue()));
+                    writer.write('\n');
+                }
+                for(Map.Entry<String, Validators> entry : validators.entrySet()) {
+                    writer.write(formatValidators(entry.getKey(), entry.getValue()));
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+            // renameTo won't replace an existing file on every platform
+            if(!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))) {
+                throw new IOException("Unable to replace " + file.getPath());
+            }
+            records = marks.size() + validators.size();
+            log = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+        } catch (IOException ex) {
+            Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+        }
+    }
+
+    /*
+     * Records are tab separated: "M", the feed, the time and the comma separated item IDs of a mark,
+     * or "V", the feed, the ETag and the Last-Modified header of validators, left empty when missing.
+     */
+    private static String formatMark(String feed, Mark mark) {
+        return "M\t" + escape(feed) + "\t" + mark.getTime() + "\t" + escape(mark.getItemString());
+    }
+
+    private static String formatValidators(String feed, Validators latest) {
+        return "V\t" + escape(feed) + "\t" + escape(latest.getETag()) + "\t" + escape(latest.getLastModified());
+    }
+
+    /**
+     * Applies one record from the state file
+     * @return false if the record is malformed
+     */
+    private static boolean replay(String line) {
+        String[] fields = line.split("\t", -1);
+        if(fields.length != 4) return false;
+        try {
+            if(fields[0].equals("M")) {
+                marks.put(unescape(fields[1]), Mark.parse(Long.parseLong(fields[2]), unescape(fields[3])));
+                return true;
+            } else if(fields[0].equals("V")) {
+                String etag = unescape(fields[2]);
+                String lastModified = unescape(fields[3]);
+                validators.put(unescape(fields[1]), new Validators(etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified));
+                return true;
+            }
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+        return false;
+    }
+
+    private static String escape(String value) {
+        if(value == null) return "";
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if(value.indexOf('\\') == -1) return value;
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+                if(c == 't') c = '\t';
+                else if(c == 'n') c = '\n';
+                else if(c == 'r') c = '\r';
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The time of the newest item announced from a feed, and the IDs of the items
+     * from that same time, since several items can share a timestamp.
+     */
+    public static class Mark {
+        private final long time;
+        private final Set<String> items;
+
+        /**
+         * Class constructor
+         * @param time the time of the newest item
+         * @param items the IDs of the items with that time
+         */
+        public Mark(long time, Set<String> items) {
+            this.time = time;
+            this.items = Collections.unmodifiableSet(new HashSet<String>(items));
+        }
+
+        private static Mark parse(long time, String items) {
+            Set<String> ids = new HashSet<String>();
+            for(String id : items.split(",")) {
+                if(!id.isEmpty()) ids.add(id);
+            }
+            return new Mark(time, ids);
+        }
+
+        /**
+         * Returns if an item is newer than the mark
+         * @param time the time of the item
+         * @param id the ID of the item
+         * @return true if the item has not been announced yet
+         */
+        public boolean isNewer(long time, String id) {
+            return time > this.time || (time == this.time && !items.contains(id));
+        }
+
+        /**
+         * Returns the mark moved forward to include an item
+         * @param time the time of the item
+         * @param id the ID of the item
+         * @return the new mark
+         */
+        public Mark advance(long time, String id) {
+            if(time < this.time) return this;
+            Set<String> ids = time == this.time ? new HashSet<String>(items) : new HashSet<String>();
+            ids.add(id);
+            return new Mark(time, ids);
+        }
+
+        /**
+         * Returns the time of the newest item
+         * @return the time of the newest item
+         */
+        public long getTime() {
+            return time;
+        }
+
+        private String getItemString() {
+            StringBuilder builder = new StringBuilder();
+            for(String id : items) {
+                if(builder.length() > 0) builder.append(',');
+                builder.append(id);
+            }
+            return builder.toString();
+        }
+
+        public boolean equals(Object other) {
+            if(!(other instanceof Mark)) return false;
+            return time == ((Mark)other).time && items.equals(((Mark)other).items);
+        }
+
+        public int hashCode() {
+            return (int)(time ^ (time >>> 32)) * 31 + items.hashCode();
+        }
+    }
+
+    /**
+     * The ETag and Last-Modified headers of a feed's last response, either of which may be missing
+     */
+    public static class Validators {
+        private final String etag;
+        private final String lastModified;
+
+        /**
+         * Class constructor
+         * @param etag the response's ETag header, or null if it had none
+         * @param lastModified the response's Last-Modified header, or null if it had none
+         */
+        public Validators(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Returns the ETag header
+         * @return the ETag header, or null if the response had none
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * Returns the Last-Modified header
+         * @return the Last-Modified header, or null if the response had none
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Returns if there are no validators to send
+         * @return true if the response had neither header
+         */
+        public boolean isEmpty() {
+            return etag == null && lastModified == null;
+        }
+
+        public boolean equals(Object other) {
+            if(!(other instanceof Validators)) return false;
+            Validators validators = (Validators)other;
+            return (etag == null ? validators.etag == null : etag.equals(validators.etag))
+                    && (lastModified == null ? validators.lastModified == null : lastModified.equals(validators.lastModified));
+        }
+
+        public int hashCode() {
+            return (etag == null ? 0 : etag.hashCode()) * 31 + (lastModified == null ? 0 : lastModified.hashCode());
+        }
+    }
+}
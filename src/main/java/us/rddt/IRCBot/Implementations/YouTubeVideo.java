@@ -1,17 +1,14 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.NoSuchElementException;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import us.rddt.IRCBot.Configuration;
 import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Network.HttpClient;
 
 /**
  * A simple class to define a data type for a YouTube video.
@@ -69,34 +66,14 @@ public class YouTubeVideo {
      */
     public static YouTubeVideo getLink(URL link) throws IOException, JSONException {
         /*
-         * Variables
+         * Downloads the data from the provided URL.
          */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
-
-        /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
-         */
-        HttpURLConnection conn = (HttpURLConnection)link.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
-        }
-
-        /*
-         * Disconnect from the server.
-         */
-        conn.disconnect();
+        String jsonToParse = HttpClient.getString(link);
 
         /*
          * Parse the JSON data.
          */
-        JSONObject parsedArray = new JSONObject(jsonToParse.toString());
+        JSONObject parsedArray = new JSONObject(jsonToParse);
         if(parsedArray.getJSONObject("data").getInt("totalItems") > 0) {
             JSONObject youtubeLink = parsedArray.getJSONObject("data").getJSONArray("items").getJSONObject(0);
             return new YouTubeVideo(IRCUtils.escapeHTMLEntities(youtubeLink.getString("title")), youtubeLink.getString("uploader"), youtubeLink.getLong("duration"));
@@ -1,14 +1,16 @@
 package us.rddt.IRCBot.Implementations;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URL;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.pircbotx.Channel;
@@ -16,7 +18,10 @@ import org.pircbotx.Colors;
 import org.pircbotx.PircBotX;
 
 import us.rddt.IRCBot.Configuration;
-import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Enums.MessagePriority;
+import us.rddt.IRCBot.Execution.MessageScheduler;
+import us.rddt.IRCBot.Execution.Watcher;
+import us.rddt.IRCBot.Network.HttpResponse;
 
 /**
  * Monitors a configured set of YouTube channels for newly uploaded videos.
@@ -24,13 +29,12 @@ import us.rddt.IRCBot.IRCUtils;
  * 
  * @author Ryan Morrison
  */
-public class YouTubeWatcher implements Runnable {
-    // Map of YouTube users and their latest known IDs
-    private static volatile Map<String,String> youtubeMap = Collections.synchronizedMap(new HashMap<String,String>());
-    
+public class YouTubeWatcher implements Watcher {
     // Variables
     private PircBotX bot;
     private String user;
+    private String feed;
+    private FeedFetcher fetcher;
     
     /**
      * Class constructor
@@ -40,56 +44,84 @@ public class YouTubeWatcher implements Runnable {
     public YouTubeWatcher(PircBotX bot, String user) {
         this.bot = bot;
         this.user = user;
+        this.feed = "youtube:" + user.toLowerCase(Locale.ENGLISH);
+        this.fetcher = new FeedFetcher(feed);
     }
     
     /**
-     * Checks a YouTube user for a newly uploaded video. If a new video exists,
-     * it is broadcasted to the configured main channel.
+     * Checks a YouTube user for newly uploaded videos. Every video uploaded since
+     * the last one announced is broadcasted to the configured main channel, oldest
+     * first and at most watcher_catchup_limit per check.
      * @param user the YouTube user to query
+     * @return true if there were new uploads, false otherwise
      * @throws IOException if the download fails
      * @throws JSONException if the JSON cannot be parsed
      */
-    private void checkForUpload(String user) throws IOException, JSONException {
+    private boolean checkForUpload(String user) throws IOException, JSONException {
         /*
          * Variables.
          */
-        StringBuilder jsonToParse = new StringBuilder();
-        String buffer;
         URL apiUrl = new URL("https://gdata.youtube.com/feeds/api/users/" + user + "/uploads?alt=json");
 
         /*
-         * Opens a connection to the provided URL, and downloads the data into a temporary variable.
-         */
-        HttpURLConnection conn = (HttpURLConnection)apiUrl.openConnection();
-        conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
-        if(conn.getResponseCode() >= 400) {
-            throw new IOException(IRCUtils.getHttpStatusErrorString(conn.getResponseCode()) + " (" + conn.getResponseCode() + ")");
-        }
-
-        BufferedReader buf = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-        while((buffer = buf.readLine()) != null) {
-            jsonToParse.append(buffer);
-        }
-
-        /*
-         * Disconnect from the server.
+         * Downloads the data from the provided URL, unless it hasn't changed since the last check.
          */
-        conn.disconnect();
+        WatcherState.Mark mark = WatcherState.get(feed);
+        // Without a mark there's nothing to compare against, so the feed is always downloaded
+        HttpResponse response = fetcher.fetch(apiUrl, mark != null);
+        if(response == null) return false;
+        long started = System.currentTimeMillis();
+        String jsonToParse = response.getBody();
         
         /*
-         * Get the latest upload by the user.
+         * Get the user's uploads, newest first.
          */
-        JSONObject latestUpload = new JSONObject(jsonToParse.toString()).getJSONObject("feed").getJSONArray("entry").getJSONObject(0);
+        JSONArray uploads = new JSONObject(jsonToParse).getJSONObject("feed").getJSONArray("entry");
+        long elapsed = System.currentTimeMillis() - started;
         
         /*
-         * Check to see if the ID is different from the one we stored.
-         * If it is, the video is considered new and should be broadcasted.
+         * If there's no mark yet, the latest upload becomes the mark without being announced.
+         * Otherwise every upload newer than the mark is considered new and should be broadcasted.
          */
-        if(!youtubeMap.containsKey(user)) {
-            youtubeMap.put(user, latestUpload.getJSONObject("id").getString("$t"));
-        } else if(!youtubeMap.get(user).equals(latestUpload.getJSONObject("id").getString("$t"))) {
-            youtubeMap.put(user, latestUpload.getJSONObject("id").getString("$t"));
-            updateChannel(new YouTubeVideo(latestUpload.getJSONObject("title").getString("$t"), latestUpload.getJSONArray("author").getJSONObject(0).getJSONObject("name").getString("$t"), latestUpload.getJSONObject("media$group").getJSONObject("yt$duration").getLong("seconds"), latestUpload.getJSONObject("id").getString("$t").split("http://gdata.youtube.com/feeds/api/videos/")[1]));
+        if(mark == null) {
+            JSONObject latestUpload = uploads.getJSONObject(0);
+            WatcherState.put(feed, new WatcherState.Mark(getPublished(latestUpload), Collections.singleton(latestUpload.getJSONObject("id").getString("$t"))));
+            fetcher.completed(response, elapsed, true);
+            return false;
+        }
+        List<JSONObject> newUploads = new ArrayList<JSONObject>();
+        for(int i = 0; i < uploads.length(); i++) {
+            JSONObject upload = uploads.getJSONObject(i);
+            if(mark.isNewer(getPublished(upload), upload.getJSONObject("id").getString("$t"))) newUploads.add(upload);
+        }
+        int limit = Math.max(1, Configuration.getWatcherCatchupLimit());
+        WatcherState.Mark advanced = mark;
+        for(int i = newUploads.size() - 1; i >= 0 && newUploads.size() - i <= limit; i--) {
+            JSONObject upload = newUploads.get(i);
+            String id = upload.getJSONObject("id").getString("$t");
+            updateChannel(new YouTubeVideo(upload.getJSONObject("title").getString("$t"), upload.getJSONArray("author").getJSONObject(0).getJSONObject("name").getString("$t"), upload.getJSONObject("media$group").getJSONObject("yt$duration").getLong("seconds"), id.split("http://gdata.youtube.com/feeds/api/videos/")[1]));
+            advanced = advanced.advance(getPublished(upload), id);
+        }
+        WatcherState.put(feed, advanced);
+        fetcher.completed(response, elapsed, newUploads.size() <= limit);
+        return !newUploads.isEmpty();
+    }
+
+    /**
+     * Returns when a video was uploaded
+     * @param upload the video's entry in the uploads feed
+     * @return the time the video was published in seconds since the epoch
+     * @throws IOException if the time cannot be parsed
+     * @throws JSONException if the entry has no publish time
+     */
+    private static long getPublished(JSONObject upload) throws IOException, JSONException {
+        String published = upload.getJSONObject("published").getString("$t");
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ENGLISH);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return format.parse(published).getTime() / 1000;
+        } catch (ParseException ex) {
+            throw new IOException("Invalid publish time " + published);
         }
     }
     
@@ -102,20 +134,34 @@ public class YouTubeWatcher implements Runnable {
         Channel channelToBroadcast = bot.getChannel(Configuration.getMainChannel());
         // Don't bother trying to send the message if we're not joined to the main channel.
         if(bot.getChannels().contains(channelToBroadcast)) {
-            bot.sendMessage(channelToBroadcast, "[YouTube Upload] " + Colors.BOLD + video.getTitle() + Colors.NORMAL + " (uploaded by " + video.getUploader() + ", " + video.getReadableDuration() + ") (http://youtu.be/" + video.getUrl() + ")");
+            MessageScheduler.sendMessage(bot, channelToBroadcast, "[YouTube Upload] " + Colors.BOLD + video.getTitle() + Colors.NORMAL + " (uploaded by " + video.getUploader() + ", " + video.getReadableDuration() + ") (http://youtu.be/" + video.getUrl() + ")", MessagePriority.BROADCAST);
         }
     }
     
     /**
-     * Method that executes upon thread start
+     * Checks the user for a new upload
      * (non-Javadoc)
-     * @see java.lang.Runnable#run()
+     * @see us.rddt.IRCBot.Execution.Watcher#poll()
      */
-    public void run() {
-        try {
-            checkForUpload(user);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+    public boolean poll() throws Exception {
+        return checkForUpload(user);
+    }
+
+    /**
+     * Returns the name of the YouTube user being watched
+     * (non-Javadoc)
+     * @see us.rddt.IRCBot.Execution.Watcher#getName()
+     */
+    public String getName() {
+        return "youtube/" + user;
+    }
+
+    /**
+     * Returns the user's download statistics
+     * (non-Javadoc)
+     * @see us.rddt.IRCBot.Execution.Watcher#getStatistics()
+     */
+    public String getStatistics() {
+        return fetcher.getStatistics();
     }
 }
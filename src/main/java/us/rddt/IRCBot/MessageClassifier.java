@@ -0,0 +1,146 @@
+package us.rddt.IRCBot;
+
+/**
+ * Classifies a channel message in a single pass over its characters, without
+ * allocating any strings. Formatting and color codes are skipped as they are
+ * read, so a shout is detected on the text users actually see, and the position
+ * of the first URL is found in the same scan. A message is a command only if its
+ * very first character is the command prefix, before any whitespace or
+ * formatting. This replaces running several regular expressions over every line.
+ *
+ * @author Ryan Morrison
+ */
+public class MessageClassifier {
+    // IRC formatting control codes
+    private static final char BOLD = '\u0002';
+    private static final char COLOR = '\u0003';
+    private static final char NORMAL = '\u000f';
+    private static final char REVERSE = '\u0016';
+    private static final char UNDERLINE = '\u001f';
+    private static final char ITALIC = '\u001d';
+
+    // Shouts must be longer than this once surrounding whitespace is removed
+    private static final int MINIMUM_SHOUT_LENGTH = 5;
+
+    private final boolean shout;
+    private final boolean command;
+    private final int urlStart;
+
+    private MessageClassifier(boolean shout, boolean command, int urlStart) {
+        this.shout = shout;
+        this.command = command;
+        this.urlStart = urlStart;
+    }
+
+    /**
+     * Classifies a message
+     * @param message the message to classify
+     * @param commandPrefix the character commands start with
+     * @return the classification of the message
+     */
+    public static MessageClassifier classify(String message, char commandPrefix) {
+        boolean hasLetter = false;
+        boolean hasLowerCase = false;
+        // Position of the first and last non-whitespace characters, ignoring formatting
+        int visible = 0;
+        int first = -1;
+        int last = -1;
+        int urlStart = -1;
+
+        int length = message.length();
+        for(int i = 0; i < length; i++) {
+            char c = message.charAt(i);
+            if(c == BOLD || c == NORMAL || c == REVERSE || c == UNDERLINE || c == ITALIC) {
+                continue;
+            }
+            if(c == COLOR) {
+                // Skip the optional foreground and background colors, e.g. 4,12
+                int foreground = skipDigits(message, i + 1);
+                if(foreground > i && foreground + 2 < length && message.charAt(foreground + 1) == ',' && Character.isDigit(message.charAt(foreground + 2))) {
+                    foreground = skipDigits(message, foreground + 2);
+                }
+                i = foreground;
+                continue;
+            }
+            if(!isWhitespace(c)) {
+                if(first < 0) first = visible;
+                last = visible;
+            }
+            if(Character.isLetter(c)) {
+                hasLetter = true;
+                if(Character.isLowerCase(c)) hasLowerCase = true;
+            }
+            if(urlStart < 0 && c == 'h' && (i == 0 || !isWordCharacter(message.charAt(i - 1))) && isUrlScheme(message, i)) {
+                urlStart = i;
+            }
+            visible++;
+        }
+
+        boolean shout = hasLetter && !hasLowerCase && first >= 0 && last - first + 1 > MINIMUM_SHOUT_LENGTH;
+        return new MessageClassifier(shout, length > 0 && message.charAt(0) == commandPrefix, urlStart);
+    }
+
+    /**
+     * Returns whether the message is written entirely in upper case and is long enough to be a shout
+     * @return true if the message is a shout
+     */
+    public boolean isShout() {
+        return shout;
+    }
+
+    /**
+     * Returns whether the message's first character is the command prefix
+     * @return true if the message may be a command
+     */
+    public boolean isCommand() {
+        return command;
+    }
+
+    /**
+     * Returns whether the message contains a URL
+     * @return true if the message contains a URL
+     */
+    public boolean hasUrl() {
+        return urlStart >= 0;
+    }
+
+    /**
+     * Returns the position of the first URL in the message
+     * @return the index the first URL starts at, or -1 if the message has no URL
+     */
+    public int getUrlStart() {
+        return urlStart;
+    }
+
+    /**
+     * Returns the index of the last of up to two digits following a position
+     */
+    private static int skipDigits(String message, int start) {
+        int end = start - 1;
+        while(end + 1 < message.length() && end + 1 < start + 2 && Character.isDigit(message.charAt(end + 1))) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Returns whether an http:// or https:// scheme starts at a position
+     */
+    private static boolean isUrlScheme(String message, int start) {
+        return message.regionMatches(false, start, "http://", 0, 7) || message.regionMatches(false, start, "https://", 0, 8);
+    }
+
+    /**
+     * Matches the characters treated as whitespace by \s in regular expressions
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Matches the characters treated as word characters by \b in regular expressions
+     */
+    private static boolean isWordCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
@@ -0,0 +1,281 @@
+package us.rddt.IRCBot.Network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.IRCUtils;
+
+/**
+ * Performs every HTTP request the bot makes. Requests are subject to the connect
+ * and read timeouts from IRCBot.properties, are limited to a number of concurrent
+ * requests per host, ask for gzip compression and follow redirects themselves,
+ * including from http to https. Requests which time out or receive a temporary
+ * error are retried with an exponential backoff. The whole request, including
+ * waiting for the host, retries, redirects and reading the body, must finish
+ * within the request timeout. Responses must be closed once
+ * read, which returns the connection to the JVM's keep-alive cache so the next
+ * request to the same host can reuse it.
+ *
+ * @author Ryan Morrison
+ */
+public class HttpClient {
+    private static final ConcurrentHashMap<String, Semaphore> hosts = new ConcurrentHashMap<String, Semaphore>();
+    private static volatile int hostLimit = 0;
+    private static final Random random = new Random();
+
+    private static final AtomicLong requests = new AtomicLong();
+    private static final AtomicLong retries = new AtomicLong();
+    private static final AtomicLong redirects = new AtomicLong();
+    private static final AtomicLong failures = new AtomicLong();
+    private static final AtomicLong hostWaits = new AtomicLong();
+
+    // The longest a Retry-After header is honoured for, so a remote site can't stall a handler
+    private static final long MAXIMUM_RETRY_DELAY = 10000;
+
+    /**
+     * Applies the HTTP settings, must be called before the first request is made
+     */
+    public static synchronized void configure() {
+        // The keep-alive cache is sized once, when the first connection is made
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(Configuration.getHttpMaxPerHost()));
+        if(hostLimit != Configuration.getHttpMaxPerHost()) {
+            // Requests in progress release their permits to the semaphore they acquired them from
+            hosts.clear();
+            hostLimit = Configuration.getHttpMaxPerHost();
+        }
+    }
+
+    /**
+     * Requests a URL, following any redirects
+     * @param url the URL to request
+     * @return the response, which must be closed once it has been read
+     * @throws IOException if the request fails or the server returns an error
+     */
+    public static HttpResponse get(URL url) throws IOException {
+        return get(url, Collections.<String, String>emptyMap(), true);
+    }
+
+    /**
+     * Requests a URL and returns the body of the response
+     * @param url the URL to request
+     * @return the body of the response
+     * @throws IOException if the request fails or the server returns an error
+     */
+    public static String getString(URL url) throws IOException {
+        return get(url).getBody();
+    }
+
+    /**
+     * Requests a URL
+     * @param url the URL to request
+     * @param headers additional request headers
+     * @param followRedirects true to follow redirects, false to return them as the response
+     * @return the response, which must be closed once it has been read
+     * @throws IOException if the request fails or the server returns an error
+     */
+    public static HttpResponse get(URL url, Map<String, String> headers, boolean followRedirects) throws IOException {
+        requests.incrementAndGet();
+        long deadline = System.currentTimeMillis() + Configuration.getHttpRequestTimeout();
+        int redirectCount = 0;
+        while(true) {
+            HttpResponse response = execute(url, headers, deadline);
+            int status = response.getStatusCode();
+            if(followRedirects && isRedirect(status) && response.getHeader("Location") != null) {
+                response.close();
+                if(++redirectCount > Configuration.getHttpMaxRedirects()) {
+                    failures.incrementAndGet();
+                    throw new IOException("Too many redirects");
+                }
+                redirects.incrementAndGet();
+                // Relative locations are resolved against the URL which redirected
+                url = new URL(url, response.getHeader("Location"));
+                if(!url.getProtocol().equals("http") && !url.getProtocol().equals("https")) {
+                    failures.incrementAndGet();
+                    throw new IOException("Redirected to unsupported protocol " + url.getProtocol());
+                }
+                continue;
+            }
+            if(status >= 400) {
+                response.close();
+                failures.incrementAndGet();
+                throw new HttpStatusException(status, IRCUtils.getHttpStatusErrorString(status) + " (" + status + ")");
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the client's activity
+     * @return a one-line summary of the client's activity
+     */
+    public static String getStatistics() {
+        return "http: " + requests.get() + " requests, " + retries.get() + " retries, " + redirects.get() + " redirects, "
+                + failures.get() + " failed, " + hostWaits.get() + " waited for a host slot (" + hostLimit + " per host)";
+    }
+
+    /**
+     * Sends a single request, retrying on timeouts and temporary server errors while there is time left before the deadline
+     */
+    private static HttpResponse execute(URL url, Map<String, String> headers, long deadline) throws IOException {
+        int attempt = 0;
+        while(true) {
+            Semaphore permits = acquire(url.getHost(), deadline);
+            HttpURLConnection conn = null;
+            long delay;
+            try {
+                conn = (HttpURLConnection)url.openConnection();
+                // Neither timeout may outlast the request's deadline
+                conn.setConnectTimeout(getTimeout(Configuration.getHttpConnectTimeout(), deadline));
+                conn.setReadTimeout(getTimeout(Configuration.getHttpReadTimeout(), deadline));
+                conn.setInstanceFollowRedirects(false);
+                conn.setRequestProperty("User-Agent", Configuration.getUserAgent());
+                conn.setRequestProperty("Accept-Encoding", "gzip");
+                for(Map.Entry<String, String> header : headers.entrySet()) {
+                    conn.setRequestProperty(header.getKey(), header.getValue());
+                }
+                int status = conn.getResponseCode();
+                delay = -1;
+                if(isRetryable(status)) {
+                    delay = parseRetryAfter(conn.getHeaderField("Retry-After"));
+                    if(delay < 0) delay = backoff(attempt);
+                }
+                if(delay < 0 || !canRetry(attempt, delay, deadline)) {
+                    // The response now owns the permit and releases it when closed
+                    HttpResponse response = new HttpResponse(url, conn, status, permits, deadline);
+                    permits = null;
+                    return response;
+                }
+                discard(conn);
+            } catch (IOException ex) {
+                if(conn != null) conn.disconnect();
+                delay = backoff(attempt);
+                if(!isRetryable(ex) || !canRetry(attempt, delay, deadline)) {
+                    failures.incrementAndGet();
+                    throw ex;
+                }
+            } finally {
+                if(permits != null) permits.release();
+            }
+            retries.incrementAndGet();
+            sleep(delay);
+            attempt++;
+        }
+    }
+
+    /**
+     * Returns whether another attempt is allowed and could still start before the deadline
+     */
+    private static boolean canRetry(int attempt, long delay, long deadline) {
+        return attempt < Configuration.getHttpRetries() && System.currentTimeMillis() + delay < deadline;
+    }
+
+    /**
+     * Returns a connect or read timeout shortened to the time left before the deadline
+     */
+    private static int getTimeout(int timeout, long deadline) throws IOException {
+        long remaining = deadline - System.currentTimeMillis();
+        if(remaining <= 0) {
+            throw new SocketTimeoutException("The request took longer than " + (Configuration.getHttpRequestTimeout() / 1000) + " seconds");
+        }
+        // A timeout of 0 means no timeout at all, so the configured value is only kept if it is set
+        return timeout > 0 ? (int)Math.min(timeout, remaining) : (int)Math.min(Integer.MAX_VALUE, remaining);
+    }
+
+    /**
+     * Waits for one of the host's request slots, for no longer than the time left before the deadline
+     */
+    private static Semaphore acquire(String host, long deadline) throws IOException {
+        String key = host.toLowerCase(Locale.ENGLISH);
+        Semaphore permits = hosts.get(key);
+        if(permits == null) {
+            Semaphore created = new Semaphore(Math.max(1, hostLimit), true);
+            permits = hosts.putIfAbsent(key, created);
+            if(permits == null) permits = created;
+        }
+        if(permits.tryAcquire()) return permits;
+        hostWaits.incrementAndGet();
+        try {
+            // Waiting past the deadline would only pile up more handlers behind a slow host
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining > 0 && permits.tryAcquire(remaining, TimeUnit.MILLISECONDS)) return permits;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        failures.incrementAndGet();
+        throw new SocketTimeoutException("Too many requests in progress to " + host);
+    }
+
+    /**
+     * Reads and closes whatever body a response has, so the connection can be kept alive
+     */
+    private static void discard(HttpURLConnection conn) {
+        try {
+            InputStream in = conn.getResponseCode() >= 400 ? conn.getErrorStream() : conn.getInputStream();
+            if(in == null) return;
+            byte[] buffer = new byte[1024];
+            while(in.read(buffer) != -1);
+            in.close();
+        } catch (IOException ex) {
+            conn.disconnect();
+        }
+    }
+
+    private static boolean isRedirect(int status) {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    private static boolean isRetryable(IOException ex) {
+        // Unknown hosts and refused connections won't fix themselves in a few hundred milliseconds
+        return ex instanceof SocketTimeoutException || (ex instanceof SocketException && !(ex instanceof ConnectException));
+    }
+
+    /**
+     * Returns the delay before a retry, doubling each attempt with up to 50% added jitter
+     */
+    private static long backoff(int attempt) {
+        long delay = Math.min(MAXIMUM_RETRY_DELAY, (long)Configuration.getHttpRetryDelay() << attempt);
+        synchronized(random) {
+            return delay + (long)(random.nextDouble() * delay / 2);
+        }
+    }
+
+    /**
+     * Parses a Retry-After header given in seconds
+     */
+    private static long parseRetryAfter(String value) {
+        if(value == null) return -1;
+        try {
+            return Math.min(MAXIMUM_RETRY_DELAY, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to retry");
+        }
+    }
+}
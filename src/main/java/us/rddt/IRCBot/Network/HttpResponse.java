@@ -0,0 +1,245 @@
+package us.rddt.IRCBot.Network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+import us.rddt.IRCBot.Configuration;
+
+/**
+ * A response returned by HttpClient. The response holds one of its host's request
+ * slots until it is closed, which getBody() does automatically. However the body
+ * is read, it is subject to the maximum response size and the deadline of the
+ * request, which started when HttpClient was first asked for it, so a server
+ * trickling its response can't hold a handler thread and its host's slot.
+ *
+ * @author Ryan Morrison
+ */
+public class HttpResponse {
+    private final URL url;
+    private final HttpURLConnection conn;
+    private final int statusCode;
+    private final long deadline;
+    private Semaphore permits;
+    private InputStream stream;
+    private volatile long received = 0;
+
+    /**
+     * Class constructor
+     * @param url the URL which was requested
+     * @param conn the connection the response was received on
+     * @param statusCode the status code of the response
+     * @param permits the host's request slots, one of which is released when the response is closed
+     * @param deadline the time by which the whole request, including its body, must have been received
+     */
+    HttpResponse(URL url, HttpURLConnection conn, int statusCode, Semaphore permits, long deadline) {
+        this.url = url;
+        this.conn = conn;
+        this.statusCode = statusCode;
+        this.permits = permits;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the URL the response was received from, after any redirects
+     * @return the URL of the response
+     */
+    public URL getURL() {
+        return url;
+    }
+
+    /**
+     * Returns the status code of the response
+     * @return the HTTP status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the value of a response header
+     * @param name the name of the header
+     * @return the value of the header, or null if it was not sent
+     */
+    public String getHeader(String name) {
+        return conn.getHeaderField(name);
+    }
+
+    /**
+     * Returns the underlying connection, e.g. to inspect the TLS session of an HTTPS response
+     * @return the connection the response was received on
+     */
+    public HttpURLConnection getConnection() {
+        return conn;
+    }
+
+    /**
+     * Returns the body of the response as a stream, decompressing it if necessary.
+     * Reads fail once the body grows past http_max_body_size or the request's deadline has passed.
+     * @return the body of the response
+     * @throws IOException if the body cannot be read
+     */
+    public synchronized InputStream getInputStream() throws IOException {
+        if(stream == null) {
+            InputStream in = statusCode >= 400 ? conn.getErrorStream() : conn.getInputStream();
+            if(in == null) throw new IOException("The response has no body");
+            in = new CountingInputStream(in);
+            if("gzip".equalsIgnoreCase(conn.getContentEncoding())) in = new GZIPInputStream(in);
+            stream = new LimitedInputStream(in);
+        }
+        return stream;
+    }
+
+    /**
+     * Reads the whole body of the response as text and closes the response
+     * @return the body of the response
+     * @throws IOException if the body cannot be read, is too large or takes too long to arrive
+     */
+    public String getBody() throws IOException {
+        try {
+            InputStream in = getInputStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while((n = in.read(buffer)) != -1) {
+                body.write(buffer, 0, n);
+            }
+            return body.toString(getCharset().name());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Returns the body of the response as text to be read as it arrives. The response must still be closed.
+     * @return a reader for the body of the response
+     * @throws IOException if the body cannot be read
+     */
+    public Reader getReader() throws IOException {
+        return new InputStreamReader(getInputStream(), getCharset());
+    }
+
+    /**
+     * Returns the number of bytes of the body received so far, before any decompression
+     * @return the number of bytes received
+     */
+    public long getBytesReceived() {
+        return received;
+    }
+
+    /**
+     * Returns the character set declared in the Content-Type header
+     * @return the character set of the response, or UTF-8 if none was declared
+     */
+    public Charset getCharset() {
+        String contentType = conn.getContentType();
+        if(contentType != null) {
+            for(String parameter : contentType.split(";")) {
+                parameter = parameter.trim();
+                if(parameter.toLowerCase(Locale.ENGLISH).startsWith("charset=")) {
+                    try {
+                        return Charset.forName(parameter.substring(8).replace("\"", "").trim());
+                    } catch (Exception ex) {
+                        break;
+                    }
+                }
+            }
+        }
+        return Charset.forName("UTF-8");
+    }
+
+    /**
+     * Enforces the maximum response size and the request's deadline while a body is read
+     */
+    private class LimitedInputStream extends FilterInputStream {
+        private long count = 0;
+
+        private LimitedInputStream(InputStream in) {
+            super(in);
+        }
+
+        public int read() throws IOException {
+            checkDeadline();
+            int b = super.read();
+            if(b != -1) check(1);
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkDeadline();
+            int n = super.read(b, off, len);
+            if(n > 0) check(n);
+            return n;
+        }
+
+        private void check(int n) throws IOException {
+            count += n;
+            if(count > Configuration.getHttpMaxBodySize()) {
+                throw new IOException("The response is larger than " + Configuration.getHttpMaxBodySize() + " bytes");
+            }
+            checkDeadline();
+        }
+
+        /**
+         * The read timeout only applies to each read, so a server trickling data is cut off here.
+         * A single read can still block for up to the read timeout, which was shortened to the deadline when the request was sent.
+         */
+        private void checkDeadline() throws IOException {
+            if(System.currentTimeMillis() > deadline) {
+                throw new SocketTimeoutException("The response took too long to arrive");
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes received on the connection
+     */
+    private class CountingInputStream extends FilterInputStream {
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        public int read() throws IOException {
+            int b = super.read();
+            if(b != -1) received++;
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if(n > 0) received += n;
+            return n;
+        }
+    }
+
+    /**
+     * Closes the response, allowing its connection to be reused and releasing its host's request slot
+     */
+    public synchronized void close() {
+        try {
+            if(stream != null) {
+                stream.close();
+            } else {
+                InputStream in = statusCode >= 400 ? conn.getErrorStream() : conn.getInputStream();
+                if(in != null) in.close();
+            }
+        } catch (IOException ex) {
+            conn.disconnect();
+        } finally {
+            if(permits != null) {
+                permits.release();
+                permits = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package us.rddt.IRCBot.Network;
+
+import java.io.IOException;
+
+/**
+ * Thrown by HttpClient when a server responds with an error status code
+ *
+ * @author Ryan Morrison
+ */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    /**
+     * Class constructor
+     * @param statusCode the status code the server responded with
+     * @param message the description of the error
+     */
+    public HttpStatusException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Returns the status code the server responded with
+     * @return the HTTP status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
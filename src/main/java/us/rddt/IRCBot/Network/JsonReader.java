@@ -0,0 +1,408 @@
+package us.rddt.IRCBot.Network;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import us.rddt.IRCBot.Enums.JsonToken;
+
+/**
+ * Reads a JSON document one token at a time as it arrives, rather than parsing the
+ * whole document into objects first. The caller walks the document, reading the
+ * values it wants and skipping the rest, so a large response can be reduced to the
+ * handful of fields the bot uses without building a tree of everything else.
+ *
+ * @author Ryan Morrison
+ */
+public class JsonReader {
+    /*
+     * Class variables.
+     */
+    private final Reader in;
+    private final char[] buffer = new char[4096];
+    private int position = 0;
+    private int limit = 0;
+
+    // What the reader is inside of, one entry for each open object or array
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+    private int[] stack = new int[32];
+    private int depth = 1;
+
+    // The next token, once it has been peeked
+    private JsonToken peeked = null;
+
+    /**
+     * Class constructor
+     * @param in the document to read
+     */
+    public JsonReader(Reader in) {
+        this.in = in;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Consumes the start of an object
+     * @throws IOException if the next token is not the start of an object
+     */
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object
+     * @throws IOException if the next token is not the end of an object
+     */
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        depth--;
+    }
+
+    /**
+     * Consumes the start of an array
+     * @throws IOException if the next token is not the start of an array
+     */
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array
+     * @throws IOException if the next token is not the end of an array
+     */
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        depth--;
+    }
+
+    /**
+     * Returns if the current object or array has another element
+     * @return true if there is another element, false if the object or array ends next
+     * @throws IOException if the document cannot be read
+     */
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    /**
+     * Returns the type of the next token without consuming it
+     * @return the type of the next token
+     * @throws IOException if the document cannot be read
+     */
+    public JsonToken peek() throws IOException {
+        if(peeked != null) return peeked;
+        int scope = stack[depth - 1];
+        if(scope == EMPTY_ARRAY) {
+            stack[depth - 1] = NONEMPTY_ARRAY;
+            int c = nextNonWhitespace();
+            if(c == ']') return peeked = JsonToken.END_ARRAY;
+            if(c != -1) position--;
+        } else if(scope == NONEMPTY_ARRAY) {
+            int c = nextNonWhitespace();
+            if(c == ']') return peeked = JsonToken.END_ARRAY;
+            if(c != ',') throw syntaxError("Expected ',' or ']'");
+        } else if(scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+            stack[depth - 1] = DANGLING_NAME;
+            int c = nextNonWhitespace();
+            if(c == '}') return peeked = JsonToken.END_OBJECT;
+            if(scope == NONEMPTY_OBJECT) {
+                if(c != ',') throw syntaxError("Expected ',' or '}'");
+                c = nextNonWhitespace();
+            }
+            if(c != '"') throw syntaxError("Expected a name");
+            return peeked = JsonToken.NAME;
+        } else if(scope == DANGLING_NAME) {
+            stack[depth - 1] = NONEMPTY_OBJECT;
+            if(nextNonWhitespace() != ':') throw syntaxError("Expected ':'");
+        } else if(scope == EMPTY_DOCUMENT) {
+            stack[depth - 1] = NONEMPTY_DOCUMENT;
+        } else if(scope == NONEMPTY_DOCUMENT) {
+            if(nextNonWhitespace() != -1) throw syntaxError("Expected the end of the document");
+            return peeked = JsonToken.END_DOCUMENT;
+        }
+        int c = nextNonWhitespace();
+        switch(c) {
+        case '{':
+            return peeked = JsonToken.BEGIN_OBJECT;
+        case '[':
+            return peeked = JsonToken.BEGIN_ARRAY;
+        case '}':
+        case ']':
+            throw syntaxError("Unexpected end of an object or array");
+        case '"':
+            return peeked = JsonToken.STRING;
+        case 't':
+        case 'f':
+            position--;
+            return peeked = JsonToken.BOOLEAN;
+        case 'n':
+            position--;
+            return peeked = JsonToken.NULL;
+        case -1:
+            throw syntaxError("Unexpected end of the document");
+        default:
+            if(c == '-' || (c >= '0' && c <= '9')) {
+                position--;
+                return peeked = JsonToken.NUMBER;
+            }
+            throw syntaxError("Unexpected character '" + (char)c + "'");
+        }
+    }
+
+    /**
+     * Consumes the name of the next property in an object
+     * @return the name of the property
+     * @throws IOException if the next token is not a name
+     */
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        return readString(true);
+    }
+
+    /**
+     * Consumes a string, number or boolean and returns it as a string
+     * @return the value, or null if the value is null
+     * @throws IOException if the next token is not a value
+     */
+    public String nextString() throws IOException {
+        JsonToken token = peek();
+        if(token == JsonToken.STRING) {
+            peeked = null;
+            return readString(true);
+        } else if(token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+            peeked = null;
+            return readLiteral();
+        } else if(token == JsonToken.NULL) {
+            peeked = null;
+            readLiteral();
+            return null;
+        }
+        throw syntaxError("Expected a string but was " + token);
+    }
+
+    /**
+     * Consumes a number, dropping any fraction
+     * @return the value of the number
+     * @throws IOException if the next token is not a number
+     */
+    public long nextLong() throws IOException {
+        JsonToken token = peek();
+        String value;
+        if(token == JsonToken.NUMBER) {
+            peeked = null;
+            value = readLiteral();
+        } else if(token == JsonToken.STRING) {
+            peeked = null;
+            value = readString(true);
+        } else {
+            throw syntaxError("Expected a number but was " + token);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            // Reddit writes timestamps as floating point numbers, such as 1357000000.0
+            try {
+                return (long)Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw syntaxError("Expected a number but was \"" + value + "\"");
+            }
+        }
+    }
+
+    /**
+     * Consumes a number, dropping any fraction
+     * @return the value of the number
+     * @throws IOException if the next token is not a number
+     */
+    public int nextInt() throws IOException {
+        return (int)nextLong();
+    }
+
+    /**
+     * Consumes a boolean
+     * @return the value of the boolean
+     * @throws IOException if the next token is not a boolean
+     */
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        String value = readLiteral();
+        if(value.equals("true")) return true;
+        if(value.equals("false")) return false;
+        throw syntaxError("Expected a boolean but was \"" + value + "\"");
+    }
+
+    /**
+     * Consumes the next value, including everything inside it if it is an object or array
+     * @throws IOException if the document cannot be read
+     */
+    public void skipValue() throws IOException {
+        int count = 0;
+        do {
+            JsonToken token = peek();
+            peeked = null;
+            switch(token) {
+            case BEGIN_OBJECT:
+                push(EMPTY_OBJECT);
+                count++;
+                break;
+            case BEGIN_ARRAY:
+                push(EMPTY_ARRAY);
+                count++;
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                depth--;
+                count--;
+                break;
+            case NAME:
+            case STRING:
+                readString(false);
+                break;
+            case NUMBER:
+            case BOOLEAN:
+            case NULL:
+                readLiteral();
+                break;
+            case END_DOCUMENT:
+                throw syntaxError("Unexpected end of the document");
+            }
+        } while(count > 0);
+    }
+
+    /**
+     * Closes the document being read
+     * @throws IOException if the document cannot be closed
+     */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Consumes the next token, which must be of the given type
+     */
+    private void expect(JsonToken expected) throws IOException {
+        JsonToken token = peek();
+        if(token != expected) throw syntaxError("Expected " + expected + " but was " + token);
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if(depth == stack.length) {
+            int[] grown = new int[depth * 2];
+            System.arraycopy(stack, 0, grown, 0, depth);
+            stack = grown;
+        }
+        stack[depth++] = scope;
+    }
+
+    /**
+     * Reads the rest of a string whose opening quote has been consumed
+     * @param keep false to skip the string without building it
+     */
+    private String readString(boolean keep) throws IOException {
+        StringBuilder builder = keep ? new StringBuilder() : null;
+        while(true) {
+            int start = position;
+            while(position < limit) {
+                char c = buffer[position++];
+                if(c == '"') {
+                    if(keep) builder.append(buffer, start, position - start - 1);
+                    return keep ? builder.toString() : null;
+                } else if(c == '\\') {
+                    if(keep) builder.append(buffer, start, position - start - 1);
+                    char escaped = readEscape();
+                    if(keep) builder.append(escaped);
+                    start = position;
+                }
+            }
+            if(keep) builder.append(buffer, start, position - start);
+            if(!fill()) throw syntaxError("Unterminated string");
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch(c) {
+        case 'u':
+            int value = 0;
+            for(int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if(digit == -1) throw syntaxError("Invalid unicode escape");
+                value = (value << 4) | digit;
+            }
+            return (char)value;
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case '"':
+        case '\\':
+        case '/':
+            return (char)c;
+        default:
+            throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    /**
+     * Reads an unquoted number, boolean or null
+     */
+    private String readLiteral() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        while(true) {
+            int c = read();
+            if(c == -1) break;
+            if(c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                position--;
+                break;
+            }
+            builder.append((char)c);
+        }
+        if(builder.length() == 0) throw syntaxError("Expected a value");
+        return builder.toString();
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while(true) {
+            int c = read();
+            if(c != ' ' && c != '\t' && c != '\r' && c != '\n') return c;
+        }
+    }
+
+    private int read() throws IOException {
+        if(position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    /**
+     * Refills the buffer, keeping the last character so it can always be pushed back
+     */
+    private boolean fill() throws IOException {
+        if(limit > 0) {
+            buffer[0] = buffer[limit - 1];
+            position = 1;
+            limit = 1;
+        }
+        int n = in.read(buffer, limit, buffer.length - limit);
+        if(n <= 0) return false;
+        limit += n;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
@@ -0,0 +1,60 @@
+package us.rddt.IRCBot.Resolvers;
+
+import java.net.URL;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import us.rddt.IRCBot.Implementations.URLCache;
+
+/**
+ * Summarizes the links to a website. Each resolver registers the hosts it handles
+ * and a pattern matched against the rest of the URL, so only the resolvers for a
+ * link's host are ever tried.
+ *
+ * @see us.rddt.IRCBot.Resolvers.SiteResolverRegistry
+ * @author Ryan Morrison
+ */
+public abstract class SiteResolver {
+    /*
+     * Class variables.
+     */
+    private final String[] hosts;
+    private final Pattern path;
+
+    /**
+     * Class constructor
+     * @param path the pattern the path, query and fragment of the URL must start with
+     * @param hosts the hosts the resolver handles, which also matches their subdomains
+     */
+    public SiteResolver(Pattern path, String... hosts) {
+        this.path = path;
+        this.hosts = hosts;
+    }
+
+    /**
+     * Summarizes a link
+     * @param url the URL to summarize
+     * @param matcher the path pattern matched against the URL, for extracting IDs from the link
+     * @return the summary of the link, or null to let the resolvers registered after this one try it
+     */
+    public abstract URLCache.Summary resolve(URL url, Matcher matcher);
+
+    /**
+     * Matches the path pattern against a URL
+     * @param url the URL to match
+     * @return the matcher if the URL matches, or null if it does not
+     */
+    public Matcher match(URL url) {
+        String file = url.getRef() == null ? url.getFile() : url.getFile() + "#" + url.getRef();
+        Matcher matcher = path.matcher(file);
+        return matcher.lookingAt() ? matcher : null;
+    }
+
+    /**
+     * Returns the hosts the resolver handles
+     * @return the hosts the resolver handles
+     */
+    public String[] getHosts() {
+        return hosts;
+    }
+}
@@ -0,0 +1,66 @@
+package us.rddt.IRCBot.Resolvers;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+import us.rddt.IRCBot.Implementations.URLCache;
+
+/**
+ * Maps hosts to the resolvers which summarize their links. Resolving a URL looks
+ * up its host, then each parent domain in turn (so i.imgur.com finds the resolvers
+ * for imgur.com), which costs a few hash lookups however many sites are registered.
+ * Resolvers sharing a host are tried in the order they were registered.
+ *
+ * @author Ryan Morrison
+ */
+public class SiteResolverRegistry {
+    private final Map<String, List<SiteResolver>> hosts = new HashMap<String, List<SiteResolver>>();
+
+    /**
+     * Registers a resolver for each of its hosts
+     * @param resolver the resolver to register
+     */
+    public synchronized void register(SiteResolver resolver) {
+        for(String host : resolver.getHosts()) {
+            String key = host.toLowerCase(Locale.ENGLISH);
+            List<SiteResolver> resolvers = hosts.get(key);
+            if(resolvers == null) {
+                resolvers = new ArrayList<SiteResolver>(2);
+                hosts.put(key, resolvers);
+            }
+            resolvers.add(resolver);
+        }
+    }
+
+    /**
+     * Summarizes a URL using the resolvers registered for its host
+     * @param url the URL to summarize
+     * @return the summary of the URL, or null if no resolver handles it
+     */
+    public URLCache.Summary resolve(URL url) {
+        String host = url.getHost().toLowerCase(Locale.ENGLISH);
+        while(true) {
+            List<SiteResolver> resolvers;
+            synchronized(this) {
+                resolvers = hosts.get(host);
+            }
+            if(resolvers != null) {
+                for(SiteResolver resolver : resolvers) {
+                    Matcher matcher = resolver.match(url);
+                    if(matcher == null) continue;
+                    URLCache.Summary summary = resolver.resolve(url, matcher);
+                    if(summary != null) return summary;
+                }
+            }
+            // Try the parent domain, stopping before the top level domain
+            int dot = host.indexOf('.');
+            if(dot < 0 || host.indexOf('.', dot + 1) < 0) return null;
+            host = host.substring(dot + 1);
+        }
+    }
+}
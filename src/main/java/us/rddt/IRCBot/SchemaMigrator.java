@@ -0,0 +1,192 @@
+package us.rddt.IRCBot;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates and upgrades the database schema. Each migration is applied once, in
+ * order, and the current schema version is recorded in the SchemaVersion table,
+ * so existing databases are brought up to date without losing any data. New
+ * migrations must only ever be appended to the list below. MySQL commits each
+ * DDL statement as it runs, so a migration which fails partway through is left
+ * partly applied without its version being recorded. Indexes and columns which
+ * already exist are skipped, so the migration can finish on the next start once
+ * the cause of the failure has been fixed.
+ *
+ * @see us.rddt.IRCBot.Database
+ * @author Ryan Morrison
+ */
+public class SchemaMigrator {
+    private static final List<Migration> migrations = new ArrayList<Migration>();
+
+    // Statements which are skipped if the index or column they add already exists
+    private static final Pattern CREATE_INDEX = Pattern.compile("CREATE (?:UNIQUE )?INDEX (\\w+) ON (\\w+)");
+    private static final Pattern ADD_COLUMN = Pattern.compile("ALTER TABLE (\\w+) ADD COLUMN (\\w+)");
+
+    static {
+        migrations.add(new Migration(1, "create tables",
+                new String[] {
+                    "CREATE TABLE IF NOT EXISTS Quotes (ID INT PRIMARY KEY AUTO_INCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL, Quote VARCHAR(255) NOT NULL, Deleted BOOLEAN NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS Seen (ID INT PRIMARY KEY AUTO_INCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS GameStatus (ID INT PRIMARY KEY AUTO_INCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Game VARCHAR(255) NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS GameList (ID INT PRIMARY KEY AUTO_INCREMENT, GameID VARCHAR(10) NOT NULL, GameName VARCHAR(255) NOT NULL)"
+                },
+                new String[] {
+                    "CREATE TABLE IF NOT EXISTS Quotes (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL, Quote VARCHAR(255) NOT NULL, Deleted BOOLEAN NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS Seen (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS GameStatus (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Game VARCHAR(255) NOT NULL)",
+                    "CREATE TABLE IF NOT EXISTS GameList (ID INTEGER PRIMARY KEY AUTOINCREMENT, GameID VARCHAR(10) NOT NULL, GameName VARCHAR(255) NOT NULL)"
+                }));
+        // Older versions inserted a new Seen row per update, keep only the most recent one before adding the unique key.
+        // Nicks and channels are compared ignoring case, as SeenIndex and SeenBuffer do. MySQL's default collation
+        // already does, SQLite's columns can't be changed in place so the table is rebuilt with case-insensitive columns.
+        migrations.add(new Migration(2, "unique seen records",
+                new String[] {
+                    "DELETE s1 FROM Seen s1 JOIN Seen s2 ON s1.Nick = s2.Nick AND s1.Channel = s2.Channel AND (s1.Date < s2.Date OR (s1.Date = s2.Date AND s1.ID < s2.ID))",
+                    "CREATE UNIQUE INDEX SeenNickChannel ON Seen (Nick(191), Channel)"
+                },
+                new String[] {
+                    "CREATE TABLE SeenNoCase (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL COLLATE NOCASE, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL COLLATE NOCASE)",
+                    "INSERT INTO SeenNoCase (ID, Nick, Date, Channel) SELECT ID, Nick, Date, Channel FROM Seen WHERE NOT EXISTS (SELECT 1 FROM Seen s2 WHERE s2.Nick = Seen.Nick COLLATE NOCASE AND s2.Channel = Seen.Channel COLLATE NOCASE AND (s2.Date > Seen.Date OR (s2.Date = Seen.Date AND s2.ID > Seen.ID)))",
+                    "DROP TABLE Seen",
+                    "ALTER TABLE SeenNoCase RENAME TO Seen",
+                    "CREATE UNIQUE INDEX SeenNickChannel ON Seen (Nick, Channel)"
+                }));
+        migrations.add(new Migration(3, "quote indexes",
+                new String[] {
+                    "CREATE INDEX QuotesChannelQuote ON Quotes (Channel, Quote(191))",
+                    "CREATE INDEX QuotesChannelDeletedNick ON Quotes (Channel, Deleted, Nick(191))",
+                    "CREATE INDEX QuotesDeletedDate ON Quotes (Deleted, Date)"
+                },
+                new String[] {
+                    "CREATE INDEX QuotesChannelQuote ON Quotes (Channel, Quote)",
+                    "CREATE INDEX QuotesChannelDeletedNick ON Quotes (Channel, Deleted, Nick)",
+                    "CREATE INDEX QuotesDeletedDate ON Quotes (Deleted, Date)"
+                }));
+        migrations.add(new Migration(4, "game status indexes",
+                new String[] {
+                    "CREATE INDEX GameStatusNick ON GameStatus (Nick(191))",
+                    "CREATE INDEX GameStatusGame ON GameStatus (Game(191))",
+                    "CREATE INDEX GameStatusDate ON GameStatus (Date)",
+                    "CREATE INDEX GameListGameID ON GameList (GameID)"
+                },
+                new String[] {
+                    "CREATE INDEX GameStatusNick ON GameStatus (Nick)",
+                    "CREATE INDEX GameStatusGame ON GameStatus (Game)",
+                    "CREATE INDEX GameStatusDate ON GameStatus (Date)",
+                    "CREATE INDEX GameListGameID ON GameList (GameID)"
+                }));
+        // Quote hashes are filled in for existing quotes by QuoteHashes when they are first loaded
+        migrations.add(new Migration(5, "quote hashes",
+                new String[] {
+                    "ALTER TABLE Quotes ADD COLUMN QuoteHash BIGINT NULL",
+                    "CREATE INDEX QuotesChannelHash ON Quotes (Channel, QuoteHash)"
+                },
+                new String[] {
+                    "ALTER TABLE Quotes ADD COLUMN QuoteHash BIGINT NULL",
+                    "CREATE INDEX QuotesChannelHash ON Quotes (Channel, QuoteHash)"
+                }));
+    }
+
+    /**
+     * Applies every migration newer than the database's current schema version
+     * @param connection the connection to the database
+     * @param sqlite true if the database is SQLite, false if it is MySQL
+     * @throws SQLException if a migration fails
+     */
+    public static void migrate(Connection connection, boolean sqlite) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS SchemaVersion (Version INT NOT NULL)");
+            int version = 0;
+            ResultSet resultSet = statement.executeQuery("SELECT MAX(Version) FROM SchemaVersion");
+            if(resultSet.next()) version = resultSet.getInt(1);
+            resultSet.close();
+
+            for(Migration migration : migrations) {
+                if(migration.version <= version) continue;
+                Configuration.getLogger().write(Level.INFO, "Migrating database schema to version " + migration.version + " (" + migration.description + ")");
+                // MySQL commits DDL implicitly, so the transaction only protects SQLite and data changes
+                connection.setAutoCommit(false);
+                try {
+                    for(String sql : sqlite ? migration.sqlite : migration.mysql) {
+                        if(isApplied(connection, sql)) continue;
+                        statement.executeUpdate(sql);
+                    }
+                    statement.executeUpdate("INSERT INTO SchemaVersion(Version) VALUES (" + migration.version + ")");
+                    connection.commit();
+                } catch (SQLException ex) {
+                    connection.rollback();
+                    throw ex;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                version = migration.version;
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Returns if a statement adds an index or column which already exists, e.g. from a migration which failed partway through
+     */
+    private static boolean isApplied(Connection connection, String sql) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        Matcher matcher = CREATE_INDEX.matcher(sql);
+        if(matcher.lookingAt()) {
+            ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, matcher.group(2), false, false);
+            try {
+                while(indexes.next()) {
+                    if(matcher.group(1).equalsIgnoreCase(indexes.getString("INDEX_NAME"))) return true;
+                }
+            } finally {
+                indexes.close();
+            }
+            return false;
+        }
+        matcher = ADD_COLUMN.matcher(sql);
+        if(matcher.lookingAt()) {
+            ResultSet columns = metaData.getColumns(connection.getCatalog(), null, matcher.group(1), matcher.group(2));
+            try {
+                return columns.next();
+            } finally {
+                columns.close();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the schema version the latest migration upgrades to
+     * @return the latest schema version
+     */
+    public static int getLatestVersion() {
+        return migrations.get(migrations.size() - 1).version;
+    }
+
+    /**
+     * A single schema change, written for each supported database
+     */
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final String[] mysql;
+        private final String[] sqlite;
+
+        private Migration(int version, String description, String[] mysql, String[] sqlite) {
+            this.version = version;
+            this.description = description;
+            this.mysql = mysql;
+            this.sqlite = sqlite;
+        }
+    }
+}
@@ -1,23 +1,29 @@
 package us.rddt.IRCBot.Statistics;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import us.rddt.IRCBot.Configuration;
 
 /**
  * Manages a variety of statistics for a given channel. These statistics can
  * be used to return information to any channel, or to be displayed via external
- * sources (e.g. webpages, Twitter).
+ * sources (e.g. webpages, Twitter). Statistics are updated concurrently by the
+ * handler threads, so every counter is atomic and no updates are lost. The most
+ * active users are tracked with a bounded space-saving sketch per metric, so
+ * memory stays flat however many distinct nicks speak in the channel.
  * 
  * @author Ryan Morrison
  */
 public class ChannelStatistics {
-    private int totalLines;
-    private int totalShouts;
-    private int totalUrls;
+    private final AtomicLong totalLines = new AtomicLong();
+    private final AtomicLong totalShouts = new AtomicLong();
+    private final AtomicLong totalUrls = new AtomicLong();
     
-    private Map<String, Integer> linesMap = new HashMap<String, Integer>();
-    private Map<String, Integer> shoutsMap = new HashMap<String, Integer>();
-    private Map<String, Integer> urlsMap = new HashMap<String, Integer>();
+    private final SpaceSaving topLines = new SpaceSaving(Configuration.getStatisticsTrackedUsers());
+    private final SpaceSaving topShouts = new SpaceSaving(Configuration.getStatisticsTrackedUsers());
+    private final SpaceSaving topUrls = new SpaceSaving(Configuration.getStatisticsTrackedUsers());
     
     /**
      * Class constructor
@@ -30,15 +36,7 @@ public class ChannelStatistics {
      * @return the user with the most lines spoken in the channel
      */
     public Map.Entry<String, Integer> getMostLines() {
-        Map.Entry<String, Integer> maximum = null;
-        
-        for(Map.Entry<String, Integer> entry : linesMap.entrySet()) {
-            if(maximum == null || entry.getValue() > maximum.getValue()) {
-                maximum = entry;
-            }
-        }
-        
-        return maximum;
+        return topLines.getMaximum();
     }
     
     /**
@@ -46,15 +44,7 @@ public class ChannelStatistics {
      * @return the user with the most shouts in the channel
      */
     public Map.Entry<String, Integer> getMostShouts() {
-        Map.Entry<String, Integer> maximum = null;
-        
-        for(Map.Entry<String, Integer> entry : shoutsMap.entrySet()) {
-            if(maximum == null || entry.getValue() > maximum.getValue()) {
-                maximum = entry;
-            }
-        }
-        
-        return maximum;
+        return topShouts.getMaximum();
     }
     
     /**
@@ -62,15 +52,7 @@ public class ChannelStatistics {
      * @return the user with the most URLs in the channel
      */
     public Map.Entry<String, Integer> getMostUrls() {
-        Map.Entry<String, Integer> maximum = null;
-        
-        for(Map.Entry<String, Integer> entry : urlsMap.entrySet()) {
-            if(maximum == null || entry.getValue() > maximum.getValue()) {
-                maximum = entry;
-            }
-        }
-        
-        return maximum;
+        return topUrls.getMaximum();
     }
     
     /**
@@ -78,7 +60,7 @@ public class ChannelStatistics {
      * @return the total number of lines spoken in the channel
      */
     public int getTotalLines() {
-        return totalLines;
+        return (int)totalLines.get();
     }
     
     /**
@@ -86,7 +68,7 @@ public class ChannelStatistics {
      * @return the total number of shouts in the channel
      */
     public int getTotalShouts() {
-        return totalShouts;
+        return (int)totalShouts.get();
     }
     
     /**
@@ -94,7 +76,7 @@ public class ChannelStatistics {
      * @return the total number of URLs in the channel
      */
     public int getTotalUrls() {
-        return totalUrls;
+        return (int)totalUrls.get();
     }
     
     /**
@@ -102,12 +84,8 @@ public class ChannelStatistics {
      * @param username the user who spoke in the channel
      */
     public void addLine(String username) {
-        if(linesMap.containsKey(username)) {
-            linesMap.put(username, (int)linesMap.get(username) + 1);
-        } else {
-            linesMap.put(username, 1);
-        }
-        totalLines++;
+        topLines.offer(username);
+        totalLines.incrementAndGet();
     }
     
     /**
@@ -115,12 +93,8 @@ public class ChannelStatistics {
      * @param username the user who shouted in the channel
      */
     public void addShout(String username) {
-        if(shoutsMap.containsKey(username)) {
-            shoutsMap.put(username, (int)shoutsMap.get(username) + 1);
-        } else {
-            shoutsMap.put(username, 1);
-        }
-        totalShouts++;
+        topShouts.offer(username);
+        totalShouts.incrementAndGet();
     }
     
     /**
@@ -128,11 +102,34 @@ public class ChannelStatistics {
      * @param username the user who entered a URL in the channel
      */
     public void addUrl(String username) {
-        if(urlsMap.containsKey(username)) {
-            urlsMap.put(username, (int)urlsMap.get(username) + 1);
-        } else {
-            urlsMap.put(username, 1);
-        }
-        totalUrls++;
+        topUrls.offer(username);
+        totalUrls.incrementAndGet();
+    }
+    
+    /**
+     * Returns the users with the most lines spoken in the channel.
+     * @param limit the maximum number of users to return
+     * @return the users with the most lines spoken, most active first
+     */
+    public List<Map.Entry<String, Integer>> getTopLines(int limit) {
+        return topLines.getTop(limit);
+    }
+    
+    /**
+     * Returns the users with the most shouts in the channel.
+     * @param limit the maximum number of users to return
+     * @return the users with the most shouts, most active first
+     */
+    public List<Map.Entry<String, Integer>> getTopShouts(int limit) {
+        return topShouts.getTop(limit);
+    }
+    
+    /**
+     * Returns the users with the most URLs in the channel.
+     * @param limit the maximum number of users to return
+     * @return the users with the most URLs, most active first
+     */
+    public List<Map.Entry<String, Integer>> getTopUrls(int limit) {
+        return topUrls.getTop(limit);
     }
 }
@@ -0,0 +1,140 @@
+package us.rddt.IRCBot.Statistics;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the most frequent items in a stream using the space-saving algorithm.
+ * At most a fixed number of items are counted; when a new item arrives and every
+ * counter is in use, the least frequent item is replaced and the new item inherits
+ * its count. Any item occurring more often than 1/capacity of the stream is
+ * guaranteed to be tracked, and a count is never overestimated by more than the
+ * count it inherited, while memory stays constant however many distinct items
+ * are seen.
+ *
+ * @author Ryan Morrison
+ */
+public class SpaceSaving {
+    private final Counter[] heap;
+    private final Map<String, Counter> counters;
+    private int size = 0;
+
+    /**
+     * Class constructor
+     * @param capacity the maximum number of items to track
+     */
+    public SpaceSaving(int capacity) {
+        heap = new Counter[Math.max(1, capacity)];
+        counters = new HashMap<String, Counter>(heap.length * 2);
+    }
+
+    /**
+     * Counts an occurrence of an item
+     * @param item the item which occurred
+     */
+    public synchronized void offer(String item) {
+        Counter counter = counters.get(item);
+        if(counter != null) {
+            counter.count++;
+            siftDown(counter.position);
+        } else if(size < heap.length) {
+            counter = new Counter(item, 1, 0);
+            counter.position = size;
+            heap[size++] = counter;
+            counters.put(item, counter);
+            siftUp(counter.position);
+        } else {
+            // Replace the least frequent item, which is always at the root of the heap
+            counter = heap[0];
+            counters.remove(counter.item);
+            counter.item = item;
+            counter.error = counter.count;
+            counter.count++;
+            counters.put(item, counter);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Returns the most frequent items, most frequent first
+     * @param limit the maximum number of items to return
+     * @return the most frequent items and their estimated counts
+     */
+    public List<Map.Entry<String, Integer>> getTop(int limit) {
+        Counter[] snapshot;
+        synchronized(this) {
+            snapshot = new Counter[size];
+            for(int i = 0; i < size; i++) {
+                snapshot[i] = new Counter(heap[i].item, heap[i].count, heap[i].error);
+            }
+        }
+        Arrays.sort(snapshot, new Comparator<Counter>() {
+            public int compare(Counter a, Counter b) {
+                return a.count < b.count ? 1 : (a.count > b.count ? -1 : 0);
+            }
+        });
+        List<Map.Entry<String, Integer>> top = new ArrayList<Map.Entry<String, Integer>>();
+        for(int i = 0; i < snapshot.length && i < limit; i++) {
+            top.add(new AbstractMap.SimpleImmutableEntry<String, Integer>(snapshot[i].item, (int)snapshot[i].count));
+        }
+        return top;
+    }
+
+    /**
+     * Returns the most frequent item
+     * @return the most frequent item and its estimated count, or null if nothing has been counted
+     */
+    public Map.Entry<String, Integer> getMaximum() {
+        List<Map.Entry<String, Integer>> top = getTop(1);
+        return top.isEmpty() ? null : top.get(0);
+    }
+
+    private void siftUp(int position) {
+        Counter counter = heap[position];
+        while(position > 0) {
+            int parent = (position - 1) / 2;
+            if(heap[parent].count <= counter.count) break;
+            heap[position] = heap[parent];
+            heap[position].position = position;
+            position = parent;
+        }
+        heap[position] = counter;
+        counter.position = position;
+    }
+
+    private void siftDown(int position) {
+        Counter counter = heap[position];
+        while(true) {
+            int child = position * 2 + 1;
+            if(child >= size) break;
+            if(child + 1 < size && heap[child + 1].count < heap[child].count) child++;
+            if(counter.count <= heap[child].count) break;
+            heap[position] = heap[child];
+            heap[position].position = position;
+            position = child;
+        }
+        heap[position] = counter;
+        counter.position = position;
+    }
+
+    /**
+     * The estimated count of a tracked item. The true count lies between count - error and count.
+     */
+    private static class Counter {
+        private String item;
+        private long count;
+        private long error;
+        private int position;
+
+        private Counter(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -1,10 +1,9 @@
 package us.rddt.IRCBot.Statistics;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.pircbotx.Channel;
 
@@ -14,8 +13,8 @@ import org.pircbotx.Channel;
  * @author Ryan Morrison
  */
 public class Statistics {
-    private static volatile Map<Channel, ChannelStatistics> statisticsMap = Collections.synchronizedMap(new HashMap<Channel, ChannelStatistics>());
-    private static volatile List<Channel> disabledChannels = Collections.synchronizedList(new ArrayList<Channel>());
+    private static volatile ConcurrentHashMap<Channel, ChannelStatistics> statisticsMap = new ConcurrentHashMap<Channel, ChannelStatistics>();
+    private static final Set<Channel> disabledChannels = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
     
     /**
      * Adds a channel to not appear in statistics.
@@ -23,12 +22,7 @@ public class Statistics {
      * @return true if the channel was added, false if it already exists in the list
      */
     public static boolean addDisabledChannel(Channel channel) {
-        if(!disabledChannels.contains(channel)) {
-            disabledChannels.add(channel);
-            return true;
-        } else {
-            return false;
-        }
+        return disabledChannels.add(channel);
     }
     
     /**
@@ -41,10 +35,13 @@ public class Statistics {
     }
     
     /**
-     * Creates a new HashMap to clear the current statistics
+     * Replaces the current statistics with an empty map
+     * @return the statistics collected before they were cleared
      */
-    public static void clearStatistics() {
-        statisticsMap = Collections.synchronizedMap(new HashMap<Channel, ChannelStatistics>());
+    public static Map<Channel, ChannelStatistics> clearStatistics() {
+        Map<Channel, ChannelStatistics> previous = statisticsMap;
+        statisticsMap = new ConcurrentHashMap<Channel, ChannelStatistics>();
+        return previous;
     }
     
     /**
@@ -61,11 +58,15 @@ public class Statistics {
      * @return the statistics of the provided channel
      */
     public static ChannelStatistics getChannelStatistics(Channel channel) {
-        if(!statisticsMap.containsKey(channel)) {
-            statisticsMap.put(channel, new ChannelStatistics());
+        ConcurrentHashMap<Channel, ChannelStatistics> map = statisticsMap;
+        ChannelStatistics statistics = map.get(channel);
+        if(statistics == null) {
+            ChannelStatistics created = new ChannelStatistics();
+            statistics = map.putIfAbsent(channel, created);
+            if(statistics == null) statistics = created;
         }
         
-        return statisticsMap.get(channel);
+        return statistics;
     }
     
     /**
@@ -74,11 +75,6 @@ public class Statistics {
      * @return true if the channel was removed, false if it did not exist
      */
     public static boolean removeDisabledChannel(Channel channel) {
-        if(disabledChannels.contains(channel)) {
-            disabledChannels.remove(channel);
-            return true;
-        } else {
-            return false;
-        }
+        return disabledChannels.remove(channel);
     }
 }
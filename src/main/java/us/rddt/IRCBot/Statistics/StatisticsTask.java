@@ -1,18 +1,14 @@
 package us.rddt.IRCBot.Statistics;
 
 import java.text.DecimalFormat;
+import java.util.List;
+import java.util.Map;
 import java.util.TimerTask;
 import java.util.Map.Entry;
-import java.util.logging.Level;
 
 import org.pircbotx.Channel;
 
-import twitter4j.Twitter;
-import twitter4j.TwitterException;
-import twitter4j.TwitterFactory;
-import twitter4j.auth.AccessToken;
-import us.rddt.IRCBot.Configuration;
-import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Streaming.TweetPublisher;
 
 /**
  * Task that is executed automatically to update statistics.
@@ -22,6 +18,8 @@ public class StatisticsTask extends TimerTask {
     // Boolean value which is used to determine if the task is being run automatically
     // or is being executed from a manually given command.
     private boolean isManuallyExecuted = false;
+    // The number of users listed in the most chatty ranking
+    private static final int TOP_USERS = 5;
 
     /**
      * Class constructor.
@@ -43,60 +41,59 @@ public class StatisticsTask extends TimerTask {
      * @see java.lang.Runnable#run()
      */
     public void run() {
-        Twitter twitter = new TwitterFactory().getInstance();  
-        twitter.setOAuthConsumer(Configuration.getTwitterConsumerKey(), Configuration.getTwitterConsumerSecret());
-        twitter.setOAuthAccessToken(new AccessToken(Configuration.getTwitterAccessToken(), Configuration.getTwitterAccessSecret()));
+        // Swap in empty statistics before tweeting so no lines spoken in the meantime are lost
+        Map<Channel, ChannelStatistics> statistics = isManuallyExecuted ? Statistics.getAllStatistics() : Statistics.clearStatistics();
 
-        try {
-            for(Entry<Channel, ChannelStatistics> cs : Statistics.getAllStatistics().entrySet()) {
-                // Ensure the channel is allowed to be shown
-                if(!Statistics.checkDisabledChannel(cs.getKey())) {
-                    // Place the entries into their own variables
-                    // This avoids needlessly recalculating the top values for each
-                    Entry<String, Integer> mostLines = cs.getValue().getMostLines();
-                    Entry<String, Integer> mostShouts = cs.getValue().getMostShouts();
-                    Entry<String, Integer> mostURLs = cs.getValue().getMostUrls();
-                    
-                    // Rounding float values for display
-                    DecimalFormat df = new DecimalFormat("00.#");
-                    
-                    // Post the update to Twitter!
-                    // Sleep for 2 seconds after each tweet to avoid flooding Twitter and breaking API access limits.
-                    twitter.updateStatus("Today in " + cs.getKey().getName() + ": " + cs.getValue().getTotalLines() + " total lines spoken, " + cs.getValue().getTotalShouts() + " total shouts and " + cs.getValue().getTotalUrls() + " total linked URLs.");
-                    Thread.sleep(2000);
+        for(Entry<Channel, ChannelStatistics> cs : statistics.entrySet()) {
+            // Ensure the channel is allowed to be shown
+            if(!Statistics.checkDisabledChannel(cs.getKey())) {
+                // Place the entries into their own variables
+                // This avoids needlessly recalculating the top values for each
+                Entry<String, Integer> mostLines = cs.getValue().getMostLines();
+                Entry<String, Integer> mostShouts = cs.getValue().getMostShouts();
+                Entry<String, Integer> mostURLs = cs.getValue().getMostUrls();
+                
+                // Rounding float values for display
+                DecimalFormat df = new DecimalFormat("00.#");
+                
+                // Post the update to Twitter!
+                // The publisher spaces the tweets out to avoid flooding Twitter and breaking API access limits.
+                TweetPublisher.publish("Today in " + cs.getKey().getName() + ": " + cs.getValue().getTotalLines() + " total lines spoken, " + cs.getValue().getTotalShouts() + " total shouts and " + cs.getValue().getTotalUrls() + " total linked URLs.");
 
-                    /*
-                     * Some of these values can be null if nobody spoke, shout or entered a URL into the channel.
-                     * We use a StringBuilder to build the string to send to Twitter, ensuring we don't
-                     * add any values which would be null.
-                     */
-                    StringBuilder tweetBuilder = new StringBuilder();
-                    if(mostLines != null) {
-                        tweetBuilder.append(mostLines.getKey() + " was most chatty in " + cs.getKey().getName() + ", speaking " + mostLines.getValue() + " times (" + df.format((mostLines.getValue() * 100.0) / cs.getValue().getTotalLines()) + "% of total). ");
-                    }
-                    if(mostShouts != null) {
-                        tweetBuilder.append(mostShouts.getKey() + " ANGRILY shouted " + mostShouts.getValue() + " times. ");
-                    }
+                /*
+                 * Some of these values can be null if nobody spoke, shout or entered a URL into the channel.
+                 * We use a StringBuilder to build the string to send to Twitter, ensuring we don't
+                 * add any values which would be null.
+                 */
+                StringBuilder tweetBuilder = new StringBuilder();
+                if(mostLines != null) {
+                    tweetBuilder.append(mostLines.getKey() + " was most chatty in " + cs.getKey().getName() + ", speaking " + mostLines.getValue() + " times (" + df.format((mostLines.getValue() * 100.0) / cs.getValue().getTotalLines()) + "% of total). ");
+                }
+                if(mostShouts != null) {
+                    tweetBuilder.append(mostShouts.getKey() + " ANGRILY shouted " + mostShouts.getValue() + " times. ");
+                }
 
-                    twitter.updateStatus(tweetBuilder.toString());
-                    Thread.sleep(2000);
-                    
-                    // Most URLs has to go in its own tweet, since it causes the string to exceed Twitter's 140 character limit.
-                    
-                    if(mostURLs != null) {
-                        twitter.updateStatus(mostURLs.getKey() + " went link crazy, pasting " + mostURLs.getValue() + " links into the channel. ");
-                        Thread.sleep(2000);
+                if(tweetBuilder.length() > 0) {
+                    TweetPublisher.publish(tweetBuilder.toString());
+                }
+                
+                // Most URLs has to go in its own tweet, since it causes the string to exceed Twitter's 140 character limit.
+                
+                if(mostURLs != null) {
+                    TweetPublisher.publish(mostURLs.getKey() + " went link crazy, pasting " + mostURLs.getValue() + " links into the channel. ");
+                }
+
+                // List the runners up when more than one person was chatting
+                List<Entry<String, Integer>> topLines = cs.getValue().getTopLines(TOP_USERS);
+                if(topLines.size() > 1) {
+                    StringBuilder topBuilder = new StringBuilder("Most chatty in " + cs.getKey().getName() + ": ");
+                    for(int i = 0; i < topLines.size(); i++) {
+                        if(i > 0) topBuilder.append(", ");
+                        topBuilder.append((i + 1) + ". " + topLines.get(i).getKey() + " (" + topLines.get(i).getValue() + ")");
                     }
+                    TweetPublisher.publish(topBuilder.toString());
                 }
             }
-        } catch (TwitterException te) {
-            Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(te));
-        } catch (InterruptedException ex) {
-            Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
-        }
-
-        if(!isManuallyExecuted) {
-            Statistics.clearStatistics();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,178 @@
+package us.rddt.IRCBot.Streaming;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.logging.Level;
+
+import twitter4j.TwitterException;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.IRCUtils;
+
+/**
+ * Posts every status update the bot makes to Twitter. Updates are queued and
+ * posted one at a time by a single thread using the shared Twitter client, at
+ * most one every tweet_interval seconds so a burst of statistics or shouts
+ * doesn't break the API access limits. An update which fails because Twitter is
+ * unreachable, overloaded or rate limiting the bot is retried with a growing
+ * delay, and an update identical to one waiting or recently posted is dropped,
+ * since Twitter would reject it anyway.
+ *
+ * @author Ryan Morrison
+ */
+public class TweetPublisher {
+    private static final LinkedList<String> queue = new LinkedList<String>();
+    private static final Set<String> queued = new HashSet<String>();
+    private static final LinkedHashSet<String> recent = new LinkedHashSet<String>();
+    private static Thread publisher = null;
+
+    // Statistics
+    private static long published = 0;
+    private static long retried = 0;
+    private static long duplicates = 0;
+    private static long dropped = 0;
+    private static long failed = 0;
+
+    // How many recently posted updates are remembered to drop duplicates
+    private static final int RECENT_SIZE = 100;
+
+    // The most attempts made to post an update before giving up on it
+    private static final int MAXIMUM_ATTEMPTS = 4;
+
+    // Twitter's error code for a status identical to one already posted
+    private static final int DUPLICATE_STATUS = 187;
+
+    /**
+     * Queues a status update to be posted
+     * @param status the text of the update
+     * @return true if the update was queued, false if it is a duplicate or the queue is full
+     */
+    public static boolean publish(String status) {
+        synchronized(queue) {
+            if(queued.contains(status) || recent.contains(status)) {
+                duplicates++;
+                return false;
+            }
+            if(queue.size() >= Configuration.getTweetQueueSize()) {
+                dropped++;
+                return false;
+            }
+            queue.addLast(status);
+            queued.add(status);
+            if(publisher == null) {
+                publisher = new Thread(new Publisher(), "IRCBot-tweets");
+                publisher.setDaemon(true);
+                publisher.start();
+            }
+            queue.notifyAll();
+            return true;
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the publisher's activity
+     * @return a one-line summary of the publisher's activity
+     */
+    public static String getStatistics() {
+        synchronized(queue) {
+            return "tweets: " + queue.size() + " waiting, " + published + " posted, " + retried + " retries, "
+                    + duplicates + " duplicates, " + dropped + " dropped, " + failed + " failed";
+        }
+    }
+
+    /**
+     * Returns if a failed update is worth trying again
+     */
+    private static boolean isTransient(TwitterException te) {
+        return te.isCausedByNetworkIssue() || te.exceededRateLimitation() || te.getStatusCode() >= 500;
+    }
+
+    /**
+     * Returns the delay before retrying an update, honouring the rate limit if it was exceeded
+     */
+    private static long getRetryDelay(TwitterException te, int attempt) {
+        long delay = Math.max(1000, Configuration.getTweetInterval() * 1000L) << attempt;
+        if(te.exceededRateLimitation()) {
+            if(te.getRetryAfter() > 0) delay = Math.max(delay, te.getRetryAfter() * 1000L);
+            else if(te.getRateLimitStatus() != null) delay = Math.max(delay, te.getRateLimitStatus().getSecondsUntilReset() * 1000L);
+        }
+        return delay;
+    }
+
+    /**
+     * Posts queued updates, waiting tweet_interval seconds between them
+     */
+    private static class Publisher implements Runnable {
+        public void run() {
+            while(true) {
+                try {
+                    String status;
+                    synchronized(queue) {
+                        while(queue.isEmpty()) queue.wait();
+                        status = queue.getFirst();
+                    }
+                    post(status);
+                    synchronized(queue) {
+                        queue.removeFirst();
+                        queued.remove(status);
+                    }
+                    Thread.sleep(Math.max(0, Configuration.getTweetInterval() * 1000L));
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Posts an update, retrying it on transient errors
+         */
+        private void post(String status) throws InterruptedException {
+            for(int attempt = 0; ; attempt++) {
+                try {
+                    Configuration.getTwitterInstance().updateStatus(status);
+                    synchronized(queue) {
+                        published++;
+                        remember(status);
+                    }
+                    return;
+                } catch (TwitterException te) {
+                    if(te.getErrorCode() == DUPLICATE_STATUS) {
+                        synchronized(queue) {
+                            duplicates++;
+                            remember(status);
+                        }
+                        return;
+                    }
+                    if(!isTransient(te) || attempt + 1 >= MAXIMUM_ATTEMPTS) {
+                        synchronized(queue) {
+                            failed++;
+                        }
+                        Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(te));
+                        return;
+                    }
+                    synchronized(queue) {
+                        retried++;
+                    }
+                    Thread.sleep(getRetryDelay(te, attempt));
+                } catch (RuntimeException ex) {
+                    synchronized(queue) {
+                        failed++;
+                    }
+                    Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Remembers a posted update, forgetting the oldest once RECENT_SIZE are remembered
+         */
+        private void remember(String status) {
+            recent.remove(status);
+            recent.add(status);
+            if(recent.size() > RECENT_SIZE) recent.remove(recent.iterator().next());
+        }
+    }
+}
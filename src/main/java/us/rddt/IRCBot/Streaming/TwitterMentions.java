@@ -1,9 +1,12 @@
 package us.rddt.IRCBot.Streaming;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
@@ -11,113 +14,206 @@ import org.pircbotx.Channel;
 import org.pircbotx.Colors;
 import org.pircbotx.PircBotX;
 
+import twitter4j.Paging;
+import twitter4j.RateLimitStatus;
+import twitter4j.ResponseList;
 import twitter4j.Status;
 import twitter4j.Twitter;
 import twitter4j.TwitterException;
-import twitter4j.User;
 
 import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Enums.MessagePriority;
+import us.rddt.IRCBot.Execution.MessageScheduler;
 import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Implementations.WatcherState;
 
 /**
- * Class to handle scheduling to poll Twitter for mentions
+ * Class to handle scheduling to poll Twitter for mentions. Each check makes a
+ * single API call for the mentions newer than the newest one already seen, whose
+ * ID is kept in WatcherState so nothing is repeated or missed across restarts.
+ * Checks are spaced out so the remaining API calls last until the rate limit
+ * window resets, and new mentions are announced together in as few lines as
+ * possible.
  * @author Ryan Morrison
  */
 public class TwitterMentions {
-    // Static variable to hold the last mention
-    private static Status lastMention = null;
-    
+    // The most mentions Twitter returns in one call
+    private static final int PAGE_SIZE = 200;
+
+    // The longest a line of batched mentions is allowed to grow before another line is started
+    private static final int LINE_LENGTH = 400;
+
+    // The key the newest mention is kept under in WatcherState
+    private static final String FEED = "twitter:mentions";
+
+    private static ScheduledThreadPoolExecutor scheduler = null;
+
+    // Statistics, written by the check in progress
+    private static volatile long checks = 0;
+    private static volatile long mentions = 0;
+    private static volatile long errors = 0;
+    private static volatile int remaining = -1;
+    private static volatile int limit = -1;
+    private static volatile long nextCheck = 0;
+
     /**
-     * Begins the scheduler to poll Twitter once every 5 minutes for new mentions
+     * Begins polling Twitter for new mentions
      * @param bot the bot object to send tweets to
      */
-    public static void listenForTweets(PircBotX bot) {
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-        scheduler.scheduleWithFixedDelay(new TwitterListener(bot), 0, 5, TimeUnit.MINUTES);
+    public static synchronized void listenForTweets(PircBotX bot) {
+        if(scheduler != null) return;
+        scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "IRCBot-twitter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        schedule(new TwitterListener(bot), 0);
     }
-    
+
     /**
-     * Returns the last mention.
-     * @return the last mention
+     * Returns a one-line summary of the mention checks
+     * @return a one-line summary of the mention checks
      */
-    protected static Status getLastMention() {
-        return lastMention;
+    public static String getStatistics() {
+        long next = nextCheck - System.currentTimeMillis();
+        return "twitter mentions: " + checks + " checks, " + mentions + " mentions, " + errors + " failed"
+                + (remaining >= 0 ? ", " + remaining + " of " + limit + " calls left" : "")
+                + (scheduler != null ? ", next check in " + Math.max(0, next / 1000) + "s" : " (not running)");
     }
-    
+
     /**
-     * Sets the last mention.
-     * @param lastMention the last mention to set
+     * Schedules the next check
      */
-    protected static void setLastMention(Status lastMention) {
-        TwitterMentions.lastMention = lastMention;
+    private static synchronized void schedule(TwitterListener listener, long delay) {
+        nextCheck = System.currentTimeMillis() + delay;
+        scheduler.schedule(listener, delay, TimeUnit.MILLISECONDS);
     }
-}
 
-/**
- * Polls Twitter for new mentions towards the bot. If a new mention has been
- * received, then print it to all channels the bot is in.
- * @author Ryan Morrison
- */
-class TwitterListener implements Runnable {
-    // Variables
-    private PircBotX bot;
-    
     /**
-     * Class constructor.
-     * @param bot the bot object to send tweets to
+     * Returns the configured time between checks in milliseconds
      */
-    public TwitterListener(PircBotX bot) {
-        this.bot = bot;
+    private static long getInterval() {
+        return Math.max(1, Configuration.getTwitterMentionsInterval()) * 60000L;
     }
-    
+
     /**
-     * Method that executes upon thread start
-     * (non-Javadoc)
-     * @see java.lang.Runnable#run()
+     * Returns the time until the next check, spreading the remaining API calls over the rest of the rate limit window
      */
-    public void run() {
-        Twitter twitter = Configuration.getTwitterInstance();
-        
-        try {
-            // Ensure that at least one mention is available
-            if(twitter.getMentionsTimeline().size() > 0) {
-                // If there are no last mentions, then the bot has just been started, so save it
-                if(TwitterMentions.getLastMention() == null) {
-                    TwitterMentions.setLastMention(twitter.getMentionsTimeline().get(0));
-                    return;
-                }
-                // Otherwise, if the last mention equals the most recent mention, then there is nothing
-                // new to report, so just return.
-                else if(TwitterMentions.getLastMention().equals(twitter.getMentionsTimeline().get(0))) {
-                    return;
+    private static long getDelay(RateLimitStatus status) {
+        long interval = getInterval();
+        if(status == null) return interval;
+        remaining = status.getRemaining();
+        limit = status.getLimit();
+        long reset = Math.max(0, status.getSecondsUntilReset()) * 1000L + 1000;
+        if(status.getRemaining() <= 0) return Math.max(interval, reset);
+        return Math.max(interval, reset / status.getRemaining());
+    }
+
+    /**
+     * Polls Twitter for new mentions towards the bot. If new mentions have been
+     * received, then print them to the main channel.
+     * @author Ryan Morrison
+     */
+    private static class TwitterListener implements Runnable {
+        // Variables
+        private PircBotX bot;
+        private int failures = 0;
+
+        /**
+         * Class constructor.
+         * @param bot the bot object to send tweets to
+         */
+        private TwitterListener(PircBotX bot) {
+            this.bot = bot;
+        }
+
+        /**
+         * Method that executes upon thread start
+         * (non-Javadoc)
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+            long delay = getInterval();
+            try {
+                delay = check();
+                failures = 0;
+            } catch (TwitterException te) {
+                errors++;
+                failures++;
+                if(te.exceededRateLimitation()) {
+                    // Wait for the window to reset rather than spending more calls
+                    delay = te.getRetryAfter() > 0 ? Math.max(getInterval(), te.getRetryAfter() * 1000L) : getDelay(te.getRateLimitStatus());
+                } else {
+                    // Back off while Twitter is unreachable, up to four times the usual interval
+                    delay = getInterval() << Math.min(2, failures - 1);
                 }
-                // Otherwise, there are new mentions
-                else {
-                    // Hold a list of users who have already tweeted at the bot this session
-                    List<User> alreadyTweeted = new ArrayList<User>();
-                    // We want to print out every new mention
-                    for(Status s : twitter.getMentionsTimeline()) {
-                        // If the current mention equals our last known mention, then we've displayed
-                        // everything new so just return.
-                        if(s.equals(TwitterMentions.getLastMention())) break;
-                        
-                        // To prevent abuse and flooding, we only allow one tweet to be broadcast
-                        // per update check. If the user has already tweeted, skip to the next tweet.
-                        if(alreadyTweeted.contains(s.getUser())) continue;
-                        
-                        // Ensure that we are part of the channel to broadcast to
-                        Channel channelToBroadcast = bot.getChannel(Configuration.getMainChannel());
-                        if(bot.getChannels().contains(channelToBroadcast)) {
-                            bot.sendMessage(channelToBroadcast, "[Twitter Mention] " + Colors.BOLD + "@" + s.getUser().getScreenName() + Colors.NORMAL + ": " + s.getText());
-                            alreadyTweeted.add(s.getUser());
-                        }
-                    }
-                    // Save the new most recent mention as the last one
-                    TwitterMentions.setLastMention(twitter.getMentionsTimeline().get(0));
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(te));
+            } catch (Exception ex) {
+                errors++;
+                Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(ex));
+            } finally {
+                checks++;
+                schedule(this, delay);
+            }
+        }
+
+        /**
+         * Fetches and announces the mentions since the last check
+         * @return the time until the next check
+         */
+        private long check() throws TwitterException {
+            Twitter twitter = Configuration.getTwitterInstance();
+            WatcherState.Mark mark = WatcherState.get(FEED);
+            // Tweet IDs increase over time, so the newest mention's ID serves as the time of its mark
+            ResponseList<Status> timeline;
+            if(mark == null) {
+                // If there are no last mentions, then the bot has just been set up, so only save the newest one
+                timeline = twitter.getMentionsTimeline(new Paging(1, 1));
+            } else {
+                timeline = twitter.getMentionsTimeline(new Paging(1, PAGE_SIZE, mark.getTime()));
+            }
+            long delay = getDelay(timeline.getRateLimitStatus());
+            if(timeline.isEmpty()) return delay;
+            long newest = 0;
+            for(Status s : timeline) {
+                newest = Math.max(newest, s.getId());
+            }
+            if(mark != null) announce(timeline, mark.getTime());
+            WatcherState.put(FEED, new WatcherState.Mark(newest, Collections.singleton(String.valueOf(newest))));
+            return delay;
+        }
+
+        /**
+         * Announces new mentions to the main channel, oldest first and batched into as few lines as possible
+         */
+        private void announce(List<Status> timeline, long sinceId) {
+            // To prevent abuse and flooding, we only allow one tweet per user to be broadcast per update check
+            Set<Long> alreadyTweeted = new HashSet<Long>();
+            List<String> lines = new ArrayList<String>();
+            StringBuilder line = null;
+            int count = 0;
+            for(int i = timeline.size() - 1; i >= 0; i--) {
+                Status s = timeline.get(i);
+                if(s.getId() <= sinceId || !alreadyTweeted.add(s.getUser().getId())) continue;
+                String mention = Colors.BOLD + "@" + s.getUser().getScreenName() + Colors.NORMAL + ": " + s.getText().replaceAll("\\s+", " ");
+                if(line != null && line.length() + mention.length() + 3 > LINE_LENGTH) {
+                    lines.add(line.toString());
+                    line = null;
                 }
+                if(line == null) line = new StringBuilder(mention);
+                else line.append(" | ").append(mention);
+                count++;
+            }
+            if(line != null) lines.add(line.toString());
+            mentions += count;
+            // Ensure that we are part of the channel to broadcast to
+            Channel channelToBroadcast = bot.getChannel(Configuration.getMainChannel());
+            if(!bot.getChannels().contains(channelToBroadcast)) return;
+            for(String text : lines) {
+                MessageScheduler.sendMessage(bot, channelToBroadcast, (count > 1 ? "[Twitter Mentions] " : "[Twitter Mention] ") + text, MessagePriority.BROADCAST);
             }
-        } catch (TwitterException te) {
-            Configuration.getLogger().write(Level.WARNING, IRCUtils.getStackTraceString(te));
         }
     }
 }
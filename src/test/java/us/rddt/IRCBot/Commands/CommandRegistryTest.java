@@ -0,0 +1,103 @@
+package us.rddt.IRCBot.Commands;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pircbotx.PircBotX;
+import org.pircbotx.hooks.events.MessageEvent;
+
+import us.rddt.IRCBot.Enums.CommandPrivileges;
+import us.rddt.IRCBot.Enums.WorkerPools;
+
+/**
+ * Tests the command trie's matching rules.
+ *
+ * @author Ryan Morrison
+ */
+public class CommandRegistryTest {
+    private CommandRegistry registry;
+    private Command who;
+    private Command whoDelete;
+    private Command whoDeletePurge;
+    private Command seen;
+    private Command statistics;
+    private Command statisticsExact;
+
+    @Before
+    public void registerCommands() {
+        registry = new CommandRegistry();
+        who = register("who ", false);
+        whoDelete = register("who delete ", false);
+        whoDeletePurge = register("who delete --purge ", false);
+        seen = register("seen ", false);
+        statistics = register("statistics", false);
+        statisticsExact = register("statistics", true);
+    }
+
+    @Test
+    public void matchesPrefixCommands() {
+        assertSame(seen, registry.lookup("!seen somebody", 1));
+        assertSame(who, registry.lookup("!who somebody", 1));
+    }
+
+    @Test
+    public void longestPrefixWins() {
+        assertSame(whoDelete, registry.lookup("!who delete A QUOTE", 1));
+        assertSame(whoDeletePurge, registry.lookup("!who delete --purge A QUOTE", 1));
+        // A message which leaves a longer verb part way through falls back to the last verb it passed
+        assertSame(whoDelete, registry.lookup("!who delete --pur", 1));
+    }
+
+    @Test
+    public void exactCommandTakesPrecedenceWhenTheMessageEnds() {
+        assertSame(statisticsExact, registry.lookup("!statistics", 1));
+        assertSame(statistics, registry.lookup("!statistics now", 1));
+    }
+
+    @Test
+    public void exactCommandsDoNotMatchLongerMessages() {
+        CommandRegistry exactOnly = new CommandRegistry();
+        Command help = new TestCommand("help", true);
+        exactOnly.register(help);
+        assertSame(help, exactOnly.lookup("!help", 1));
+        assertNull(exactOnly.lookup("!helpme", 1));
+        assertNull(exactOnly.lookup("!hel", 1));
+    }
+
+    @Test
+    public void unknownMessagesDoNotMatch() {
+        assertNull(registry.lookup("!unknown", 1));
+        assertNull(registry.lookup("!", 1));
+        // The verb's trailing space is part of it
+        assertNull(registry.lookup("!seen", 1));
+        assertNull(registry.lookup("!Seen somebody", 1));
+    }
+
+    @Test
+    public void lookupStartsAtTheOffset() {
+        assertSame(seen, registry.lookup("..seen somebody", 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateVerbsAreRejected() {
+        register("seen ", false);
+    }
+
+    private Command register(String verb, boolean exact) {
+        Command command = new TestCommand(verb, exact);
+        registry.register(command);
+        return command;
+    }
+
+    private static class TestCommand extends Command {
+        private TestCommand(String verb, boolean exact) {
+            super(verb, exact, CommandPrivileges.ANYONE, null, WorkerPools.COMMAND);
+        }
+
+        public Runnable createTask(MessageEvent<PircBotX> event) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package us.rddt.IRCBot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests borrowing and returning connections to a SQLite database, including
+ * cleaning up after callers which leave statements or transactions open and
+ * reclaiming connections which are never returned.
+ *
+ * @author Ryan Morrison
+ */
+public class ConnectionPoolTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String url;
+    private ConnectionPool pool;
+
+    @BeforeClass
+    public static void loadConfiguration() throws Exception {
+        // Leaked and reclaimed connections are logged
+        Configuration.loadConfiguration();
+        Class.forName("org.sqlite.JDBC");
+    }
+
+    @Before
+    public void createDatabase() throws IOException, SQLException {
+        // Every connection to an in-memory database gets a database of its own, so use a file they can share
+        url = "jdbc:sqlite:" + new File(folder.getRoot(), "pool.db").getPath();
+        pool = create(0, 0);
+        Connection connection = pool.getConnection();
+        execute(connection, "CREATE TABLE Quotes (ID INTEGER PRIMARY KEY AUTOINCREMENT, Quote VARCHAR(255) NOT NULL)");
+        connection.close();
+    }
+
+    @After
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void reusesReturnedConnections() throws SQLException {
+        Connection first = pool.getConnection();
+        assertEquals(1, pool.getBorrowedCount());
+        assertEquals(0, pool.getIdleCount());
+        first.close();
+        assertEquals(0, pool.getBorrowedCount());
+        assertEquals(1, pool.getIdleCount());
+        // Closing twice returns the connection once
+        first.close();
+        assertEquals(1, pool.getIdleCount());
+
+        Connection second = pool.getConnection();
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(pool.toString().contains(" 1 opened"));
+        second.close();
+    }
+
+    @Test
+    public void returnedHandlesCannotBeUsed() throws SQLException {
+        Connection connection = pool.getConnection();
+        assertFalse(connection.isClosed());
+        connection.close();
+        assertTrue(connection.isClosed());
+        try {
+            connection.createStatement();
+            fail("Used a connection after returning it");
+        } catch (SQLException ex) {
+        }
+        // The next borrower gets the same physical connection through a handle of its own
+        Connection next = pool.getConnection();
+        assertFalse(next.isClosed());
+        execute(next, "INSERT INTO Quotes (Quote) VALUES ('hello')");
+        next.close();
+    }
+
+    @Test
+    public void waitsForAConnectionToBeReturned() throws Exception {
+        final Connection held = pool.getConnection();
+        Connection other = pool.getConnection();
+        Thread returner = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                    held.close();
+                } catch (Exception ex) {
+                }
+            }
+        });
+        returner.start();
+        Connection connection = pool.getConnection();
+        returner.join();
+        assertTrue(pool.toString().contains(" 1 waited"));
+        connection.close();
+        other.close();
+    }
+
+    @Test
+    public void timesOutWhenExhausted() throws SQLException {
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        long started = System.currentTimeMillis();
+        try {
+            pool.getConnection();
+            fail("Borrowed more connections than the pool allows");
+        } catch (SQLException ex) {
+            assertTrue(ex.getMessage().contains("2 of 2 in use"));
+        }
+        assertTrue(System.currentTimeMillis() - started >= 250);
+        assertTrue(pool.toString().contains(" 1 timed out"));
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void closesStatementsWhenReturned() throws SQLException {
+        Connection connection = pool.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM Quotes");
+        PreparedStatement prepared = connection.prepareStatement("INSERT INTO Quotes (Quote) VALUES (?)");
+        connection.close();
+        assertTrue(statement.isClosed());
+        assertTrue(resultSet.isClosed());
+        assertTrue(prepared.isClosed());
+    }
+
+    @Test
+    public void rollsBackOpenTransactions() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.setAutoCommit(false);
+        execute(connection, "INSERT INTO Quotes (Quote) VALUES ('never committed')");
+        connection.close();
+
+        connection = pool.getConnection();
+        assertTrue(pool.toString().contains(" 1 opened"));
+        assertTrue(connection.getAutoCommit());
+        assertEquals(0, count(connection));
+        connection.close();
+
+        // Committed work is kept
+        connection = pool.getConnection();
+        connection.setAutoCommit(false);
+        execute(connection, "INSERT INTO Quotes (Quote) VALUES ('committed')");
+        connection.commit();
+        connection.close();
+        connection = pool.getConnection();
+        assertEquals(1, count(connection));
+        connection.close();
+    }
+
+    @Test
+    public void reportsLeakedConnections() throws Exception {
+        pool.shutdown();
+        pool = create(1, 0);
+        Connection connection = pool.getConnection();
+        Thread.sleep(10);
+        pool.maintain();
+        pool.maintain();
+        // Leaks are reported once, and the connection still belongs to its borrower
+        assertTrue(pool.toString().contains(" 1 leaked, 0 reclaimed"));
+        assertEquals(1, pool.getBorrowedCount());
+        assertEquals(0, count(connection));
+        connection.close();
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void reclaimsAbandonedConnections() throws Exception {
+        pool.shutdown();
+        pool = create(1, 1);
+        Connection connection = pool.getConnection();
+        Thread.sleep(10);
+        pool.maintain();
+        assertTrue(pool.toString().contains(" 1 leaked, 1 reclaimed"));
+        assertEquals(0, pool.getBorrowedCount());
+        assertTrue(connection.isClosed());
+        try {
+            connection.createStatement();
+            fail("Used a reclaimed connection");
+        } catch (SQLException ex) {
+        }
+        // Returning it later doesn't put the closed connection back in the pool
+        connection.close();
+        assertEquals(0, pool.getIdleCount());
+        connection = pool.getConnection();
+        assertEquals(0, count(connection));
+        connection.close();
+    }
+
+    @Test
+    public void refusesConnectionsAfterShutdown() throws SQLException {
+        Connection connection = pool.getConnection();
+        pool.shutdown();
+        try {
+            pool.getConnection();
+            fail("Borrowed a connection from a pool which was shut down");
+        } catch (SQLException ex) {
+        }
+        // Connections still borrowed are closed as they are returned
+        connection.close();
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(pool.toString().contains(" 1 opened, 1 closed"));
+    }
+
+    /**
+     * Creates a pool of two connections which gives up waiting for one after 250 ms
+     */
+    private ConnectionPool create(long leakThreshold, long abandonTimeout) {
+        return new ConnectionPool(url, 0, 2, "SELECT 1", 60000, leakThreshold, abandonTimeout, 250);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.executeUpdate(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static int count(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM Quotes");
+            resultSet.next();
+            return resultSet.getInt(1);
+        } finally {
+            statement.close();
+        }
+    }
+}
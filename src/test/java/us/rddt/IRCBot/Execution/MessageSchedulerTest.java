@@ -0,0 +1,251 @@
+package us.rddt.IRCBot.Execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Enums.MessagePriority;
+
+/**
+ * Tests the order and rate the scheduler sends messages at, using a clock
+ * which only moves when the scheduler sleeps, so every message's send time is
+ * known exactly. Messages queued while the first one is held in the output are
+ * all waiting when the scheduler picks the next one.
+ *
+ * @author Ryan Morrison
+ */
+public class MessageSchedulerTest {
+    private static final long START = 1000000;
+
+    private FakeClock clock;
+    private RecordingOutput output;
+    private int burst;
+    private long interval;
+
+    @BeforeClass
+    public static void loadConfiguration() throws Exception {
+        Configuration.loadConfiguration();
+    }
+
+    @Before
+    public void resetScheduler() throws InterruptedException {
+        clock = new FakeClock();
+        output = new RecordingOutput();
+        MessageScheduler.reset(clock, output);
+        burst = Configuration.getMessageBurst();
+        interval = Configuration.getMessageInterval();
+    }
+
+    @After
+    public void stopScheduler() throws InterruptedException {
+        output.release();
+        MessageScheduler.reset(clock, output);
+    }
+
+    @Test
+    public void sendsABurstThenOneMessagePerInterval() {
+        int count = burst + 3;
+        for(int i = 0; i < count; i++) send("#channel", "line " + i, MessagePriority.INTERACTIVE);
+        assertTrue(MessageScheduler.flush(5000));
+        assertEquals(count, output.sent.size());
+        for(int i = 0; i < count; i++) {
+            long expected = START + Math.max(0, i - burst + 1) * interval;
+            assertEquals("line " + i, expected, output.times.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void refillsTheBucketWhileIdle() {
+        for(int i = 0; i < burst; i++) send("#channel", "line " + i, MessagePriority.INTERACTIVE);
+        assertTrue(MessageScheduler.flush(5000));
+        // Time passing without messages refills the bucket, so the next burst goes out at once
+        clock.advance(burst * interval);
+        for(int i = 0; i < burst; i++) send("#channel", "again " + i, MessagePriority.INTERACTIVE);
+        assertTrue(MessageScheduler.flush(5000));
+        for(int i = 0; i < 2 * burst; i++) {
+            assertEquals(i < burst ? START : START + burst * interval, output.times.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void longMessagesTakeATokenForEachLine() {
+        // Three lines take three tokens, leaving one fewer for the short messages after it
+        char[] text = new char[900];
+        Arrays.fill(text, 'x');
+        send("#channel", new String(text), MessagePriority.INTERACTIVE);
+        for(int i = 0; i < burst; i++) send("#channel", "line " + i, MessagePriority.INTERACTIVE);
+        assertTrue(MessageScheduler.flush(5000));
+        int free = Math.max(0, burst - 3);
+        for(int i = 0; i < burst; i++) {
+            long expected = START + Math.max(0, i - free + 1) * interval;
+            assertEquals("line " + i, expected, output.times.get(i + 1).longValue());
+        }
+    }
+
+    @Test
+    public void sendsHigherPrioritiesFirst() {
+        output.hold();
+        send("#channel", "first", MessagePriority.BROADCAST);
+        output.awaitHeld();
+        send("#channel", "broadcast", MessagePriority.BROADCAST);
+        send("#channel", "interactive", MessagePriority.INTERACTIVE);
+        send("someone", "admin", MessagePriority.ADMIN);
+        send("#channel", "interactive again", MessagePriority.INTERACTIVE);
+        output.release();
+        assertTrue(MessageScheduler.flush(5000));
+        assertEquals(Arrays.asList("#channel first", "someone admin", "#channel interactive", "#channel interactive again", "#channel broadcast"), output.sent);
+    }
+
+    @Test
+    public void takesTurnsBetweenTargets() {
+        output.hold();
+        send("#gate", "first", MessagePriority.INTERACTIVE);
+        output.awaitHeld();
+        send("#a", "1", MessagePriority.INTERACTIVE);
+        send("#a", "2", MessagePriority.INTERACTIVE);
+        send("#a", "3", MessagePriority.INTERACTIVE);
+        send("#b", "1", MessagePriority.INTERACTIVE);
+        // Targets differing only in case are the same target
+        send("#C", "1", MessagePriority.INTERACTIVE);
+        send("#c", "2", MessagePriority.INTERACTIVE);
+        output.release();
+        assertTrue(MessageScheduler.flush(5000));
+        assertEquals(Arrays.asList("#gate first", "#a 1", "#b 1", "#c 1", "#a 2", "#c 2", "#a 3"), output.sent);
+    }
+
+    @Test
+    public void coalescesIdenticalBroadcasts() {
+        output.hold();
+        send("#gate", "first", MessagePriority.BROADCAST);
+        output.awaitHeld();
+        send("#a", "news", MessagePriority.BROADCAST);
+        send("#a", "news", MessagePriority.BROADCAST);
+        send("#b", "news", MessagePriority.BROADCAST);
+        send("#a", "other news", MessagePriority.BROADCAST);
+        // Only broadcasts are coalesced
+        send("#a", "reply", MessagePriority.INTERACTIVE);
+        send("#a", "reply", MessagePriority.INTERACTIVE);
+        output.release();
+        assertTrue(MessageScheduler.flush(5000));
+        assertEquals(Arrays.asList("#gate first", "#a reply", "#a reply", "#a news", "#b news", "#a other news"), output.sent);
+        assertTrue(MessageScheduler.getStatistics()[MessagePriority.BROADCAST.ordinal()].contains(" 1 coalesced"));
+
+        // A broadcast which has been sent may be sent again
+        send("#a", "news", MessagePriority.BROADCAST);
+        assertTrue(MessageScheduler.flush(5000));
+        assertEquals("#a news", output.sent.get(output.sent.size() - 1));
+    }
+
+    @Test
+    public void dropsMessagesWhenALaneIsFull() {
+        output.hold();
+        send("#gate", "first", MessagePriority.BROADCAST);
+        output.awaitHeld();
+        int size = Configuration.getMessageQueueSize();
+        for(int i = 0; i < size + 2; i++) send("#a", "line " + i, MessagePriority.BROADCAST);
+        // Other lanes still have room
+        send("#a", "reply", MessagePriority.INTERACTIVE);
+        String[] statistics = MessageScheduler.getStatistics();
+        assertTrue(statistics[MessagePriority.BROADCAST.ordinal()].contains(size + " waiting, 0 sent, 0 coalesced, 2 dropped"));
+        assertTrue(statistics[MessagePriority.INTERACTIVE.ordinal()].contains("1 waiting"));
+        output.release();
+        assertTrue(MessageScheduler.flush(5000));
+        assertEquals(size + 2, output.sent.size());
+    }
+
+    @Test
+    public void flushGivesUpAtItsTimeout() {
+        output.hold();
+        send("#channel", "held", MessagePriority.INTERACTIVE);
+        output.awaitHeld();
+        send("#channel", "waiting", MessagePriority.INTERACTIVE);
+        long started = System.currentTimeMillis();
+        assertFalse(MessageScheduler.flush(100));
+        assertTrue(System.currentTimeMillis() - started >= 100);
+        output.release();
+        assertTrue(MessageScheduler.flush(5000));
+        assertEquals(Arrays.asList("#channel held", "#channel waiting"), output.sent);
+        // Nothing waiting, nothing to wait for
+        assertTrue(MessageScheduler.flush(0));
+    }
+
+    private static void send(String target, String text, MessagePriority priority) {
+        MessageScheduler.enqueue(new MessageScheduler.Message(null, null, null, target, false, text), priority);
+    }
+
+    /**
+     * A clock which only moves when it is told to or when the scheduler sleeps
+     */
+    private static class FakeClock implements MessageScheduler.Clock {
+        private long now = START;
+
+        public synchronized long currentTimeMillis() {
+            return now;
+        }
+
+        public synchronized void sleep(long millis) {
+            now += millis;
+        }
+
+        private synchronized void advance(long millis) {
+            now += millis;
+        }
+    }
+
+    /**
+     * Records each message with the time it was sent, optionally holding the next message until it is released
+     */
+    private class RecordingOutput implements MessageScheduler.Output {
+        private final List<String> sent = new ArrayList<String>();
+        private final List<Long> times = new ArrayList<Long>();
+        private final AtomicBoolean holdNext = new AtomicBoolean();
+        private volatile CountDownLatch held = null;
+        private volatile CountDownLatch gate = null;
+
+        public void send(MessageScheduler.Message message) {
+            if(holdNext.compareAndSet(true, false)) {
+                held.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            // Read by the test once flush() has returned, which happens after the send
+            synchronized(this) {
+                sent.add(message.target + " " + message.text);
+                times.add(clock.currentTimeMillis());
+            }
+        }
+
+        private void hold() {
+            held = new CountDownLatch(1);
+            gate = new CountDownLatch(1);
+            holdNext.set(true);
+        }
+
+        private void awaitHeld() {
+            try {
+                held.await();
+            } catch (InterruptedException ex) {
+                throw new AssertionError(ex);
+            }
+        }
+
+        private void release() {
+            if(gate != null) gate.countDown();
+        }
+    }
+}
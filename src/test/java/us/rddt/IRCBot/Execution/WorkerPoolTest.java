@@ -0,0 +1,128 @@
+package us.rddt.IRCBot.Execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import us.rddt.IRCBot.Configuration;
+
+/**
+ * Tests that a pool runs no more tasks at once than it has threads, queues
+ * the tasks after them up to its queue size and rejects the rest, on platform
+ * threads and, where the JVM has them, on virtual threads.
+ *
+ * @author Ryan Morrison
+ */
+public class WorkerPoolTest {
+    private static final int THREADS = 2;
+    private static final int QUEUE = 3;
+
+    @BeforeClass
+    public static void loadConfiguration() throws Exception {
+        // Saturated pools and the lack of virtual threads are logged
+        Configuration.loadConfiguration();
+    }
+
+    @Test
+    public void boundsPlatformThreads() throws InterruptedException {
+        assertBounded(new WorkerPool("test", THREADS, QUEUE, false, false));
+    }
+
+    @Test
+    public void boundsVirtualThreads() throws InterruptedException {
+        WorkerPool pool = new WorkerPool("test", THREADS, QUEUE, false, true);
+        assumeTrue(pool.toString().contains("virtual"));
+        assertBounded(pool);
+    }
+
+    @Test
+    public void runsRejectedTasksOnTheCallerIfConfigured() throws InterruptedException {
+        WorkerPool pool = new WorkerPool("test", 1, 1, true, false);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        assertTrue(pool.submit(new Blocker(release, running)));
+        assertTrue(pool.submit(new Blocker(release, running)));
+        final Thread caller = Thread.currentThread();
+        final boolean[] ranOnCaller = new boolean[1];
+        assertFalse(pool.submit(new Runnable() {
+            public void run() {
+                ranOnCaller[0] = Thread.currentThread() == caller;
+            }
+        }));
+        assertTrue(ranOnCaller[0]);
+        release.countDown();
+        assertTrue(pool.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(3, pool.getCompletedCount());
+    }
+
+    private static void assertBounded(WorkerPool pool) throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        for(int i = 0; i < THREADS + QUEUE; i++) {
+            assertTrue(pool.submit(new Blocker(release, running, mostRunning)));
+        }
+        awaitActive(pool, THREADS);
+        assertFalse(pool.submit(new Blocker(release, running, mostRunning)));
+        assertEquals(THREADS, pool.getActiveCount());
+        assertEquals(QUEUE, pool.getQueueDepth());
+        assertEquals(1, pool.getRejectedCount());
+        assertTrue(pool.toString().contains(THREADS + " active, " + QUEUE + "/" + QUEUE + " queued"));
+
+        release.countDown();
+        assertTrue(pool.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(THREADS + QUEUE, pool.getCompletedCount());
+        assertEquals(THREADS, mostRunning.get());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(0, pool.getQueueDepth());
+    }
+
+    private static void awaitActive(WorkerPool pool, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while(pool.getActiveCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // Give any task beyond the limit a chance to start as well, so it is caught
+        Thread.sleep(100);
+    }
+
+    /**
+     * A task which waits to be released, keeping track of how many are running at once
+     */
+    private static class Blocker implements Runnable {
+        private final CountDownLatch release;
+        private final AtomicInteger running;
+        private final AtomicInteger mostRunning;
+
+        private Blocker(CountDownLatch release, AtomicInteger running) {
+            this(release, running, new AtomicInteger());
+        }
+
+        private Blocker(CountDownLatch release, AtomicInteger running, AtomicInteger mostRunning) {
+            this.release = release;
+            this.running = running;
+            this.mostRunning = mostRunning;
+        }
+
+        public void run() {
+            int now = running.incrementAndGet();
+            int most;
+            while(now > (most = mostRunning.get()) && !mostRunning.compareAndSet(most, now));
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
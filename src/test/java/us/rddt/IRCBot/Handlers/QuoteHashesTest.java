@@ -0,0 +1,83 @@
+package us.rddt.IRCBot.Handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.pircbotx.Colors;
+
+/**
+ * Tests quote hashing and the per-channel hash sets. The sets are shared by the
+ * whole JVM, so every test uses channels of its own.
+ *
+ * @author Ryan Morrison
+ */
+public class QuoteHashesTest {
+    @Test
+    public void hashIgnoresCaseFormattingAndSurroundingSpace() {
+        long hash = QuoteHashes.hash("THIS IS A SHOUT");
+        assertEquals(hash, QuoteHashes.hash("this is a shout"));
+        assertEquals(hash, QuoteHashes.hash("  THIS IS A SHOUT  "));
+        assertEquals(hash, QuoteHashes.hash(Colors.BOLD + "THIS IS " + Colors.RED + "A SHOUT" + Colors.NORMAL));
+        assertFalse(hash == QuoteHashes.hash("THIS IS ANOTHER SHOUT"));
+    }
+
+    @Test
+    public void containsOnlyWhatWasAddedToTheChannel() {
+        long hash = QuoteHashes.hash("ADDED");
+        QuoteHashes.add("#added", hash);
+        assertTrue(QuoteHashes.contains("#added", hash));
+        assertFalse(QuoteHashes.contains("#added", QuoteHashes.hash("NOT ADDED")));
+        assertFalse(QuoteHashes.contains("#unknown", hash));
+    }
+
+    @Test
+    public void removeForgetsTheHash() {
+        long hash = QuoteHashes.hash("PURGED");
+        QuoteHashes.add("#removed", hash);
+        QuoteHashes.remove("#removed", hash);
+        assertFalse(QuoteHashes.contains("#removed", hash));
+        // Removing something which isn't there is harmless
+        QuoteHashes.remove("#removed", hash);
+        QuoteHashes.remove("#never", hash);
+    }
+
+    @Test
+    public void zeroIsAValidHash() {
+        // An empty slot is marked with 0, so a hash of 0 has to be stored differently
+        QuoteHashes.add("#zero", 0);
+        assertTrue(QuoteHashes.contains("#zero", 0));
+        QuoteHashes.remove("#zero", 0);
+        assertFalse(QuoteHashes.contains("#zero", 0));
+    }
+
+    @Test
+    public void survivesGrowthAndRemovalsInsideProbeChains() {
+        Random random = new Random(42);
+        long[] hashes = new long[20000];
+        for(int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextLong();
+            QuoteHashes.add("#many", hashes[i]);
+        }
+        // Removing every other hash leaves holes in the probe chains the rest must still be found across
+        for(int i = 0; i < hashes.length; i += 2) {
+            QuoteHashes.remove("#many", hashes[i]);
+        }
+        for(int i = 0; i < hashes.length; i++) {
+            assertEquals("hash " + i, i % 2 == 1, QuoteHashes.contains("#many", hashes[i]));
+        }
+        // Hashes whose halves are equal all mix to slot 0, so they form a single long probe chain
+        for(long i = 1; i <= 200; i++) {
+            QuoteHashes.add("#colliding", i << 32 | i);
+        }
+        for(long i = 1; i <= 200; i += 3) {
+            QuoteHashes.remove("#colliding", i << 32 | i);
+        }
+        for(long i = 1; i <= 200; i++) {
+            assertEquals("hash " + i, (i - 1) % 3 != 0, QuoteHashes.contains("#colliding", i << 32 | i));
+        }
+    }
+}
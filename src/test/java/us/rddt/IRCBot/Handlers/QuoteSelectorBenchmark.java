@@ -0,0 +1,131 @@
+package us.rddt.IRCBot.Handlers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares ways of picking a random quote from a channel of 400,000 quotes, one
+ * in ten of them deleted: sorting the channel's quotes randomly in the database,
+ * sampling ids from the channel's id range until a live quote is hit, and picking
+ * from the ids QuoteSelector keeps in memory. The quotes are kept in an in-memory
+ * SQLite database, so the figures leave out the network round trip to MySQL,
+ * which every strategy pays once per query.
+ *
+ * @author Ryan Morrison
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuoteSelectorBenchmark {
+    private static final String CHANNEL = "#benchmark";
+    private static final int QUOTES = 400000;
+
+    private final Random random = new Random();
+    private Connection connection;
+    private int minimumId;
+    private int maximumId;
+
+    @Setup(Level.Trial)
+    public void createQuotes() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        Statement statement = connection.createStatement();
+        statement.executeUpdate("CREATE TABLE Quotes (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL, Quote VARCHAR(255) NOT NULL, Deleted BOOLEAN NOT NULL, QuoteHash BIGINT NULL)");
+        statement.executeUpdate("CREATE INDEX QuotesChannelDeletedNick ON Quotes (Channel, Deleted, Nick)");
+        statement.close();
+
+        connection.setAutoCommit(false);
+        PreparedStatement insert = connection.prepareStatement("INSERT INTO Quotes(Nick, Date, Channel, Quote, Deleted) VALUES (?, ?, ?, ?, ?)");
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for(int i = 0; i < QUOTES; i++) {
+            insert.setString(1, "nick" + (i % 500));
+            insert.setTimestamp(2, now);
+            // Interleave another channel's quotes, so the benchmarked channel's ids have gaps
+            insert.setString(3, i % 4 == 3 ? "#elsewhere" : CHANNEL);
+            insert.setString(4, "QUOTE NUMBER " + i + " WHICH IS ABOUT AS LONG AS A TYPICAL SHOUT");
+            insert.setInt(5, i % 10 == 0 ? 1 : 0);
+            insert.addBatch();
+            if(i % 10000 == 9999) insert.executeBatch();
+        }
+        insert.executeBatch();
+        insert.close();
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        statement = connection.createStatement();
+        ResultSet range = statement.executeQuery("SELECT MIN(ID), MAX(ID) FROM Quotes WHERE Channel = '" + CHANNEL + "'");
+        range.next();
+        minimumId = range.getInt(1);
+        maximumId = range.getInt(2);
+        statement.close();
+
+        // Load the selector's ids outside of the measurement
+        selectorIds();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public String orderByRandom() throws SQLException {
+        PreparedStatement statement = connection.prepareStatement("SELECT * FROM Quotes WHERE Channel = ? AND Deleted = '0' ORDER BY RANDOM() LIMIT 1");
+        try {
+            statement.setString(1, CHANNEL);
+            ResultSet resultSet = statement.executeQuery();
+            return resultSet.next() ? resultSet.getString("Quote") : null;
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Benchmark
+    public String idRangeSampling() throws SQLException {
+        PreparedStatement statement = connection.prepareStatement("SELECT * FROM Quotes WHERE ID = ? AND Channel = ? AND Deleted = '0'");
+        try {
+            statement.setString(2, CHANNEL);
+            // Ids belonging to other channels or deleted quotes are misses, so keep sampling until one hits
+            while(true) {
+                statement.setInt(1, minimumId + random.nextInt(maximumId - minimumId + 1));
+                ResultSet resultSet = statement.executeQuery();
+                if(resultSet.next()) return resultSet.getString("Quote");
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    @Benchmark
+    public String selectorIds() throws SQLException {
+        ResultSet resultSet = QuoteSelector.selectRandom(connection, CHANNEL);
+        try {
+            return resultSet.getString("Quote");
+        } finally {
+            resultSet.getStatement().close();
+        }
+    }
+}
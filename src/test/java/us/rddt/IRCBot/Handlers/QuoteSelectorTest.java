@@ -0,0 +1,124 @@
+package us.rddt.IRCBot.Handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests random quote selection against an in-memory SQLite database. The selector
+ * keeps each channel's ids for the whole JVM, so every test uses channels of its own.
+ *
+ * @author Ryan Morrison
+ */
+public class QuoteSelectorTest {
+    private Connection connection;
+
+    @Before
+    public void createDatabase() throws Exception {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        Statement statement = connection.createStatement();
+        statement.executeUpdate("CREATE TABLE Quotes (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL, Quote VARCHAR(255) NOT NULL, Deleted BOOLEAN NOT NULL, QuoteHash BIGINT NULL)");
+        statement.close();
+    }
+
+    @After
+    public void closeDatabase() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void emptyChannelHasNoQuote() throws Exception {
+        assertNull(QuoteSelector.selectRandom(connection, "#empty"));
+    }
+
+    @Test
+    public void picksEveryLiveQuoteOfTheChannelOnly() throws Exception {
+        Set<Integer> live = new HashSet<Integer>();
+        live.add(insert("#live", "FIRST", false));
+        live.add(insert("#live", "SECOND", false));
+        live.add(insert("#live", "THIRD", false));
+        insert("#live", "DELETED", true);
+        insert("#other", "SOMEWHERE ELSE", false);
+
+        assertEquals(live, pick("#live", 300));
+    }
+
+    @Test
+    public void followsAddsAndRemoves() throws Exception {
+        int kept = insert("#changes", "KEPT", false);
+        int removed = insert("#changes", "REMOVED", false);
+        // Loads the channel's ids
+        QuoteSelector.selectRandom(connection, "#changes");
+
+        int added = insert("#changes", "ADDED", false);
+        QuoteSelector.add("#changes", added);
+        execute("UPDATE Quotes SET Deleted = '1' WHERE ID = " + removed);
+        QuoteSelector.remove("#changes", removed);
+
+        Set<Integer> expected = new HashSet<Integer>();
+        expected.add(kept);
+        expected.add(added);
+        assertEquals(expected, pick("#changes", 300));
+    }
+
+    @Test
+    public void dropsQuotesRemovedBehindItsBack() throws Exception {
+        int kept = insert("#purged", "KEPT", false);
+        int purged = insert("#purged", "PURGED", false);
+        QuoteSelector.selectRandom(connection, "#purged");
+
+        // Removed without telling the selector, as a manual cleanup would
+        execute("DELETE FROM Quotes WHERE ID = " + purged);
+        Set<Integer> picked = pick("#purged", 100);
+        assertEquals(1, picked.size());
+        assertTrue(picked.contains(kept));
+
+        execute("DELETE FROM Quotes WHERE ID = " + kept);
+        assertNull(QuoteSelector.selectRandom(connection, "#purged"));
+    }
+
+    private Set<Integer> pick(String channel, int times) throws Exception {
+        Set<Integer> picked = new HashSet<Integer>();
+        for(int i = 0; i < times; i++) {
+            ResultSet resultSet = QuoteSelector.selectRandom(connection, channel);
+            assertEquals(channel, resultSet.getString("Channel"));
+            assertEquals(0, resultSet.getInt("Deleted"));
+            picked.add(resultSet.getInt("ID"));
+            resultSet.getStatement().close();
+        }
+        return picked;
+    }
+
+    private int insert(String channel, String quote, boolean deleted) throws Exception {
+        PreparedStatement statement = connection.prepareStatement("INSERT INTO Quotes(Nick, Date, Channel, Quote, Deleted) VALUES ('nick', ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+        statement.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+        statement.setString(2, channel);
+        statement.setString(3, quote);
+        statement.setInt(4, deleted ? 1 : 0);
+        statement.executeUpdate();
+        ResultSet keys = statement.getGeneratedKeys();
+        keys.next();
+        int id = keys.getInt(1);
+        statement.close();
+        return id;
+    }
+
+    private void execute(String sql) throws Exception {
+        Statement statement = connection.createStatement();
+        statement.executeUpdate(sql);
+        statement.close();
+    }
+}
@@ -0,0 +1,63 @@
+package us.rddt.IRCBot.Handlers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of answering !seen from the in-memory index once it holds
+ * a million nick and channel pairs, the size of the Seen table on our network.
+ *
+ * @author Ryan Morrison
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeenIndexBenchmark {
+    private static final int NICKS = 100000;
+    private static final int CHANNELS = 10;
+
+    private String[] nicks;
+    private String[] channels;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void fillIndex() {
+        nicks = new String[NICKS];
+        channels = new String[CHANNELS];
+        for(int i = 0; i < NICKS; i++) nicks[i] = "Nick" + i;
+        for(int i = 0; i < CHANNELS; i++) channels[i] = "#Channel" + i;
+        long now = System.currentTimeMillis();
+        for(int i = 0; i < NICKS; i++) {
+            for(int j = 0; j < CHANNELS; j++) {
+                SeenIndex.update(nicks[i], channels[j], now - i - j);
+            }
+        }
+    }
+
+    @Benchmark
+    public long lookupSeen() {
+        // Step through the nicks with a stride so successive lookups touch unrelated parts of the table
+        next = (next + 7919) % NICKS;
+        return SeenIndex.lookup(nicks[next], channels[next % CHANNELS]);
+    }
+
+    @Benchmark
+    public long lookupNeverSeen() {
+        next = (next + 7919) % NICKS;
+        return SeenIndex.lookup("Stranger" + (next & 63), channels[next % CHANNELS]);
+    }
+}
@@ -0,0 +1,62 @@
+package us.rddt.IRCBot.Handlers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the in-memory seen index. The index is shared by the whole JVM, so every
+ * test uses nicks of its own.
+ *
+ * @author Ryan Morrison
+ */
+public class SeenIndexTest {
+    @Test
+    public void returnsTheRecordedTime() {
+        SeenIndex.update("recorded", "#channel", 1000);
+        assertEquals(1000, SeenIndex.lookup("recorded", "#channel"));
+    }
+
+    @Test
+    public void unknownUsersAndChannelsAreNotSeen() {
+        SeenIndex.update("known", "#known", 1000);
+        assertEquals(-1, SeenIndex.lookup("unknown", "#known"));
+        assertEquals(-1, SeenIndex.lookup("known", "#unknown"));
+    }
+
+    @Test
+    public void channelsAreKeptApart() {
+        SeenIndex.update("traveller", "#first", 1000);
+        SeenIndex.update("traveller", "#second", 2000);
+        assertEquals(1000, SeenIndex.lookup("traveller", "#first"));
+        assertEquals(2000, SeenIndex.lookup("traveller", "#second"));
+    }
+
+    @Test
+    public void nicksAndChannelsIgnoreCase() {
+        SeenIndex.update("MixedCase", "#Channel", 1000);
+        assertEquals(1000, SeenIndex.lookup("mixedcase", "#channel"));
+        SeenIndex.update("MIXEDCASE", "#CHANNEL", 2000);
+        assertEquals(2000, SeenIndex.lookup("MixedCase", "#Channel"));
+    }
+
+    @Test
+    public void olderTimesAreIgnored() {
+        SeenIndex.update("reordered", "#channel", 2000);
+        // A late flush or the initial load may deliver an older time after a newer one
+        SeenIndex.update("reordered", "#channel", 1000);
+        assertEquals(2000, SeenIndex.lookup("reordered", "#channel"));
+    }
+
+    @Test
+    public void keepsEveryEntryAsTheTableGrows() {
+        int before = SeenIndex.size();
+        for(int i = 0; i < 20000; i++) {
+            SeenIndex.update("grow" + i, "#grow" + (i % 7), i + 1);
+        }
+        assertEquals(before + 20000, SeenIndex.size());
+        for(int i = 0; i < 20000; i++) {
+            assertEquals(i + 1, SeenIndex.lookup("grow" + i, "#grow" + (i % 7)));
+        }
+    }
+}
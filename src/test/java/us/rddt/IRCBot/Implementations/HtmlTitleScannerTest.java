@@ -0,0 +1,143 @@
+package us.rddt.IRCBot.Implementations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+/**
+ * Tests finding the title of a page as it is read, and that reading stops as
+ * soon as the title has been found.
+ *
+ * @author Ryan Morrison
+ */
+public class HtmlTitleScannerTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+    @Test
+    public void findsTheTitle() throws IOException {
+        assertEquals("Hello", scan("<html><head><title>Hello</title></head><body></body></html>"));
+        assertEquals(" Spaced  out ", scan("<title> Spaced  out </title>"));
+        assertEquals("", scan("<title></title>"));
+    }
+
+    @Test
+    public void matchesTagsCaseInsensitivelyWithAttributes() throws IOException {
+        assertEquals("Upper", scan("<HTML><HEAD><TITLE>Upper</TITLE></HEAD>"));
+        assertEquals("Attributes", scan("<title id=\"t\" data-x='a>b'>Attributes</tItLe >"));
+        assertEquals("Quoted", scan("<link href=\"x\" title=\"<title>Wrong</title>\"><title>Quoted</title>"));
+    }
+
+    @Test
+    public void keepsMarkupInsideTheTitle() throws IOException {
+        assertEquals("a <b>bold</b> &amp; title", scan("<title>a <b>bold</b> &amp; title</title>"));
+        assertEquals("x </titl y", scan("<title>x </titl y</title>"));
+    }
+
+    @Test
+    public void skipsCommentsScriptsAndStyles() throws IOException {
+        assertEquals("Real", scan("<!-- <title>Comment</title> --><title>Real</title>"));
+        assertEquals("Real", scan("<!-- dashes ---><title>Real</title>"));
+        assertEquals("Real", scan("<script>var s = '<title>Script</title>';</script><title>Real</title>"));
+        assertEquals("Real", scan("<STYLE>/* <title>Style</title> */</STYLE ><title>Real</title>"));
+    }
+
+    @Test
+    public void stopsAtTheEndOfTheHead() throws IOException {
+        String head = "<html><head><meta name=\"x\"></head>";
+        HtmlTitleScanner scanner = new HtmlTitleScanner(null, 100000);
+        assertNull(scanner.scan(stream(head + "<title>Too late</title>" + pad(10000))));
+        assertEquals(head.length(), scanner.getBytesRead());
+
+        scanner = new HtmlTitleScanner(null, 100000);
+        assertNull(scanner.scan(stream("<body><title>Too late</title>")));
+        assertEquals("<body>".length(), scanner.getBytesRead());
+    }
+
+    @Test
+    public void stopsReadingOnceTheTitleHasEnded() throws IOException {
+        String page = "<head><title>Early</title>";
+        HtmlTitleScanner scanner = new HtmlTitleScanner(UTF8, 100000);
+        assertEquals("Early", scanner.scan(stream(page + pad(100000))));
+        // Reading stops at "</title", before the closing tag's '>'
+        assertEquals(page.length() - 1, scanner.getBytesRead());
+    }
+
+    @Test
+    public void readsAtMostTheMaximumSize() throws IOException {
+        String page = pad(5000) + "<title>Far away</title>";
+        HtmlTitleScanner scanner = new HtmlTitleScanner(UTF8, 4096);
+        assertNull(scanner.scan(stream(page)));
+        assertEquals(4096, scanner.getBytesRead());
+        assertEquals("Far away", new HtmlTitleScanner(UTF8, 8192).scan(stream(page)));
+    }
+
+    @Test
+    public void findsTitlesSplitAcrossReads() throws IOException {
+        String page = "<!-- c --><script>x</script><title>One byte at a time</title>";
+        HtmlTitleScanner scanner = new HtmlTitleScanner(UTF8, 100000);
+        assertEquals("One byte at a time", scanner.scan(new OneByteInputStream(page.getBytes(UTF8))));
+        assertEquals(page.length() - 1, scanner.getBytesRead());
+    }
+
+    @Test
+    public void decodesWithTheDeclaredCharacterSet() throws IOException {
+        byte[] latin1 = "<meta charset=\"iso-8859-1\"><title>Caf\u00e9</title>".getBytes(LATIN1);
+        HtmlTitleScanner scanner = new HtmlTitleScanner(null, 100000);
+        assertEquals("Caf\u00e9", scanner.scan(new ByteArrayInputStream(latin1)));
+        assertEquals(LATIN1, scanner.getCharset());
+
+        byte[] httpEquiv = "<META HTTP-EQUIV=\"Content-Type\" CONTENT=\"text/html; charset=ISO-8859-1\"><title>Caf\u00e9</title>".getBytes(LATIN1);
+        assertEquals("Caf\u00e9", new HtmlTitleScanner(null, 100000).scan(new ByteArrayInputStream(httpEquiv)));
+
+        // The header's character set wins over the page's
+        byte[] utf8 = "<meta charset=\"iso-8859-1\"><title>Caf\u00e9</title>".getBytes(UTF8);
+        assertEquals("Caf\u00e9", new HtmlTitleScanner(UTF8, 100000).scan(new ByteArrayInputStream(utf8)));
+
+        // Without either, pages are read as UTF-8, and unknown or impossible character sets are ignored
+        assertEquals("Caf\u00e9", scan("<title>Caf\u00e9</title>"));
+        assertEquals("Caf\u00e9", scan("<meta charset=\"no-such-charset\"><title>Caf\u00e9</title>"));
+        assertEquals("Caf\u00e9", scan("<meta charset=\"utf-16le\"><title>Caf\u00e9</title>"));
+    }
+
+    @Test
+    public void returnsNullWithoutATitle() throws IOException {
+        assertNull(scan(""));
+        assertNull(scan("<html><head></head></html>"));
+        assertNull(scan("<title>Never closed"));
+    }
+
+    private static String scan(String page) throws IOException {
+        return new HtmlTitleScanner(null, 100000).scan(stream(page));
+    }
+
+    private static InputStream stream(String page) {
+        return new ByteArrayInputStream(page.getBytes(UTF8));
+    }
+
+    private static String pad(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        while(builder.length() < length) builder.append("<p>filler</p>");
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    /**
+     * Returns a single byte from every read, like a slow connection
+     */
+    private static class OneByteInputStream extends ByteArrayInputStream {
+        OneByteInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(1, len));
+        }
+    }
+}
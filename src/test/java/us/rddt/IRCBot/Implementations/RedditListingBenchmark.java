@@ -0,0 +1,105 @@
+package us.rddt.IRCBot.Implementations;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.rddt.IRCBot.IRCUtils;
+import us.rddt.IRCBot.Network.JsonReader;
+
+/**
+ * Compares reading a reddit listing with the streaming reader against building
+ * the whole document with org.json and walking it for every field, as the
+ * watcher used to. The listing is shaped like a page of /r/subreddit/new.json,
+ * with 25 submissions carrying the dozens of fields and nested objects reddit
+ * sends, of which the bot only reads seven. Run with -prof gc to compare the
+ * memory allocated as well as the time taken.
+ *
+ * @author Ryan Morrison
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedditListingBenchmark {
+    private static final int SUBMISSIONS = 25;
+
+    private String listing;
+
+    @Setup(Level.Trial)
+    public void createListing() {
+        StringBuilder builder = new StringBuilder("{\"kind\": \"Listing\", \"data\": {\"modhash\": \"\", \"children\": [");
+        for(int i = 0; i < SUBMISSIONS; i++) {
+            if(i > 0) builder.append(", ");
+            builder.append("{\"kind\": \"t3\", \"data\": {")
+                    .append("\"domain\": \"i.imgur.com\", \"banned_by\": null, \"media_embed\": {}, \"subreddit\": \"pics\", ")
+                    .append("\"selftext_html\": null, \"selftext\": \"\", \"likes\": null, \"user_reports\": [], \"secure_media\": null, ")
+                    .append("\"link_flair_text\": null, \"id\": \"1abc").append(i).append("\", \"gilded\": 0, \"archived\": false, ")
+                    .append("\"clicked\": false, \"report_reasons\": null, \"author\": \"someone").append(i).append("\", ")
+                    .append("\"media\": {\"type\": \"imgur.com\", \"oembed\": {\"provider_url\": \"http://imgur.com\", ")
+                    .append("\"description\": \"Imgur is home to the web's most popular image content, curated in real time by a dedicated community.\", ")
+                    .append("\"title\": \"Imgur\", \"thumbnail_width\": 600, \"height\": 450, \"width\": 600, \"version\": \"1.0\", ")
+                    .append("\"thumbnail_url\": \"http://i.imgur.com/abcdefg.jpg?fb\", \"thumbnail_height\": 315}}, ")
+                    .append("\"score\": ").append(1000 + i * 37).append(", \"approved_by\": null, \"over_18\": ").append(i % 7 == 0).append(", ")
+                    .append("\"hidden\": false, \"preview\": {\"images\": [{\"source\": {\"url\": \"https://i.redditmedia.com/abc").append(i)
+                    .append(".jpg?s=0123456789abcdef\", \"width\": 1920, \"height\": 1080}, \"resolutions\": [")
+                    .append("{\"url\": \"https://i.redditmedia.com/abc.jpg?w=108&amp;s=1\", \"width\": 108, \"height\": 60}, ")
+                    .append("{\"url\": \"https://i.redditmedia.com/abc.jpg?w=216&amp;s=2\", \"width\": 216, \"height\": 121}, ")
+                    .append("{\"url\": \"https://i.redditmedia.com/abc.jpg?w=320&amp;s=3\", \"width\": 320, \"height\": 180}], ")
+                    .append("\"variants\": {}, \"id\": \"xyz").append(i).append("\"}]}, ")
+                    .append("\"thumbnail\": \"http://b.thumbs.redditmedia.com/abcdefghijklmnop.jpg\", \"subreddit_id\": \"t5_2qh0u\", ")
+                    .append("\"edited\": false, \"link_flair_css_class\": null, \"author_flair_css_class\": null, \"downs\": 0, ")
+                    .append("\"mod_reports\": [], \"secure_media_embed\": {}, \"saved\": false, \"removal_reason\": null, ")
+                    .append("\"post_hint\": \"link\", \"stickied\": false, \"is_self\": false, ")
+                    .append("\"permalink\": \"/r/pics/comments/1abc").append(i).append("/a_picture_of_something_number_").append(i).append("/\", ")
+                    .append("\"locked\": false, \"name\": \"t3_1abc").append(i).append("\", \"created\": 1357030000.0, ")
+                    .append("\"url\": \"http://i.imgur.com/abcdefg.jpg\", \"author_flair_text\": null, \"quarantine\": false, ")
+                    .append("\"title\": \"A picture of something &amp; something else, number ").append(i).append("\", ")
+                    .append("\"created_utc\": ").append(1357000000 + i * 60).append(".0, \"distinguished\": null, ")
+                    .append("\"num_comments\": ").append(i * 3).append(", \"visited\": false, \"num_reports\": null, \"ups\": ").append(1000 + i * 37)
+                    .append("}}");
+        }
+        builder.append("], \"after\": \"t3_1abc24\", \"before\": null}}");
+        listing = builder.toString();
+    }
+
+    @Benchmark
+    public List<RedditLink> jsonReader() throws Exception {
+        return RedditLink.readListing(new JsonReader(new StringReader(listing)), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<RedditLink> orgJson() throws Exception {
+        List<RedditLink> links = new ArrayList<RedditLink>();
+        JSONArray children = new JSONObject(listing).getJSONObject("data").getJSONArray("children");
+        for(int i = 0; i < children.length(); i++) {
+            JSONObject data = children.getJSONObject(i).getJSONObject("data");
+            links.add(new RedditLink(data.getString("id"),
+                    IRCUtils.escapeHTMLEntities(data.getString("title")),
+                    data.getString("author"),
+                    data.getString("subreddit"),
+                    data.getLong("created_utc"),
+                    data.getInt("score"),
+                    data.getBoolean("over_18"),
+                    data.getString("title").toUpperCase().contains("NSFL")));
+        }
+        return links;
+    }
+}
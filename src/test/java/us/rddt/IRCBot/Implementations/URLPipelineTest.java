@@ -0,0 +1,105 @@
+package us.rddt.IRCBot.Implementations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+
+/**
+ * Tests that each channel's URL summaries are sent in the order their links
+ * were posted, and that a lookup past its deadline no longer holds up the
+ * links posted after it.
+ *
+ * @author Ryan Morrison
+ */
+public class URLPipelineTest {
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private final List<String> sent = new ArrayList<String>();
+    private final URLPipeline.ChannelQueue queue = new URLPipeline.ChannelQueue() {
+        void send(PircBotX bot, Channel channel, String line) {
+            sent.add(line);
+        }
+    };
+
+    @Test
+    public void sendsResultsInTheOrderTheyWerePosted() {
+        long first = reserve(HOUR);
+        long second = reserve(HOUR);
+        long third = reserve(HOUR);
+        queue.complete(third, "third");
+        queue.complete(second, "second");
+        assertTrue(sent.isEmpty());
+        queue.complete(first, "first");
+        assertEquals(Arrays.asList("first", "second", "third"), sent);
+    }
+
+    @Test
+    public void sendsResultsAtTheFrontStraightAway() {
+        long first = reserve(HOUR);
+        long second = reserve(HOUR);
+        queue.complete(first, "first");
+        assertEquals(Arrays.asList("first"), sent);
+        queue.complete(second, "second");
+        assertEquals(Arrays.asList("first", "second"), sent);
+    }
+
+    @Test
+    public void lookupsWithoutAResultDoNotHoldUpTheQueue() {
+        // A rejected or failed lookup completes without a line
+        long first = reserve(HOUR);
+        long second = reserve(HOUR);
+        queue.complete(second, "second");
+        queue.complete(first, null);
+        assertEquals(Arrays.asList("second"), sent);
+    }
+
+    @Test
+    public void skipsLookupsPastTheirDeadline() {
+        long late = reserve(-1);
+        long next = reserve(HOUR);
+        queue.complete(next, "next");
+        assertEquals(Arrays.asList("next"), sent);
+        // The late result arrives after the links behind it were sent, and is dropped
+        queue.complete(late, "late");
+        assertEquals(Arrays.asList("next"), sent);
+    }
+
+    @Test
+    public void flushSendsHeldResultsOnceTheDeadlinePasses() throws InterruptedException {
+        long slow = reserve(100);
+        long next = reserve(HOUR);
+        queue.complete(next, "next");
+        queue.flush();
+        assertTrue(sent.isEmpty());
+        Thread.sleep(200);
+        // Nothing else completes in the channel, the timer flushes the queue at the slow lookup's deadline
+        queue.flush();
+        assertEquals(Arrays.asList("next"), sent);
+        queue.complete(slow, "slow");
+        assertEquals(Arrays.asList("next"), sent);
+    }
+
+    @Test
+    public void keepsOrderAfterSkippingALookup() {
+        long late = reserve(-1);
+        long first = reserve(HOUR);
+        long second = reserve(HOUR);
+        queue.complete(second, "second");
+        assertTrue(sent.isEmpty());
+        queue.complete(first, "first");
+        assertEquals(Arrays.asList("first", "second"), sent);
+        queue.complete(late, "late");
+        assertEquals(Arrays.asList("first", "second"), sent);
+    }
+
+    private long reserve(long timeout) {
+        return queue.reserve(null, null, System.currentTimeMillis() + timeout);
+    }
+}
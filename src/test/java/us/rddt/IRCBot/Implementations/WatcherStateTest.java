@@ -0,0 +1,203 @@
+package us.rddt.IRCBot.Implementations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import us.rddt.IRCBot.Configuration;
+
+/**
+ * Tests keeping the watcher state in its append-only file: replaying it,
+ * escaping feeds and headers, compacting it, and skipping records which are
+ * malformed or were cut short by a crash.
+ *
+ * @author Ryan Morrison
+ */
+public class WatcherStateTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void loadConfiguration() throws Exception {
+        // Skipped records are logged
+        Configuration.loadConfiguration();
+    }
+
+    @Test
+    public void startsEmptyWithoutAFile() throws IOException {
+        File file = new File(folder.getRoot(), "watcher.state");
+        WatcherState.load(file);
+        assertNull(WatcherState.get("feed"));
+        assertNull(WatcherState.getValidators("feed"));
+        assertTrue(file.exists());
+    }
+
+    @Test
+    public void replaysWhatWasRecorded() throws IOException {
+        File file = new File(folder.getRoot(), "watcher.state");
+        WatcherState.load(file);
+        WatcherState.put("reddit:pics", mark(100, "a", "b"));
+        WatcherState.put("reddit:pics", mark(200, "c"));
+        WatcherState.put("youtube:someone", mark(50, "x"));
+        WatcherState.putValidators("reddit:pics", new WatcherState.Validators("\"etag\"", "Tue, 01 Jan 2013 00:00:00 GMT"));
+        WatcherState.putValidators("youtube:someone", new WatcherState.Validators(null, "Wed, 02 Jan 2013 00:00:00 GMT"));
+
+        WatcherState.load(file);
+        assertEquals(mark(200, "c"), WatcherState.get("reddit:pics"));
+        assertEquals(mark(50, "x"), WatcherState.get("youtube:someone"));
+        assertEquals(new WatcherState.Validators("\"etag\"", "Tue, 01 Jan 2013 00:00:00 GMT"), WatcherState.getValidators("reddit:pics"));
+        WatcherState.Validators validators = WatcherState.getValidators("youtube:someone");
+        assertNull(validators.getETag());
+        assertEquals("Wed, 02 Jan 2013 00:00:00 GMT", validators.getLastModified());
+    }
+
+    @Test
+    public void escapesSeparatorsInFeedsAndHeaders() throws IOException {
+        File file = new File(folder.getRoot(), "watcher.state");
+        WatcherState.load(file);
+        String feed = "http://example.com/feed?a=1\tb\\n\nc\r";
+        WatcherState.put(feed, mark(7, "id"));
+        WatcherState.putValidators(feed, new WatcherState.Validators("W/\"tab\there\\\"", "line\nbreak"));
+
+        WatcherState.load(file);
+        assertEquals(mark(7, "id"), WatcherState.get(feed));
+        assertEquals(new WatcherState.Validators("W/\"tab\there\\\"", "line\nbreak"), WatcherState.getValidators(feed));
+        // Each record is still one line
+        assertEquals(2, read(file).split("\n").length);
+    }
+
+    @Test
+    public void laterRecordsReplaceEarlierOnes() throws IOException {
+        File file = write("M\tfeed\t100\ta\n" + "V\tfeed\tone\t\n" + "M\tfeed\t300\tc,d\n" + "M\tfeed\t200\tb\n" + "V\tfeed\t\ttwo\n");
+        WatcherState.load(file);
+        assertEquals(mark(200, "b"), WatcherState.get("feed"));
+        assertEquals(new WatcherState.Validators(null, "two"), WatcherState.getValidators("feed"));
+    }
+
+    @Test
+    public void skipsMalformedRecords() throws IOException {
+        File file = write("M\tgood\t100\ta\n" + "M\tshort\t100\n" + "X\tunknown\t1\t2\n" + "M\tnumber\tabc\ta\n"
+                + "\n" + "M\ttoo\tmany\tfields\there\n" + "M\talso good\t5\t\n");
+        WatcherState.load(file);
+        assertEquals(mark(100, "a"), WatcherState.get("good"));
+        assertEquals(mark(5), WatcherState.get("also good"));
+        assertNull(WatcherState.get("short"));
+        assertNull(WatcherState.get("unknown"));
+        assertNull(WatcherState.get("number"));
+        assertNull(WatcherState.get("too"));
+    }
+
+    @Test
+    public void skipsARecordCutShortByACrash() throws IOException {
+        // The last record has all its fields, but its item list was cut off before the newline was written
+        File file = write("M\tfeed\t100\ta\n" + "M\tfeed\t200\tfirst,seco");
+        WatcherState.load(file);
+        assertEquals(mark(100, "a"), WatcherState.get("feed"));
+        // The incomplete record is dropped from the file, and new records start on a line of their own
+        WatcherState.put("other", mark(1, "z"));
+        WatcherState.load(file);
+        assertEquals(mark(100, "a"), WatcherState.get("feed"));
+        assertEquals(mark(1, "z"), WatcherState.get("other"));
+        assertFalse(read(file).contains("seco"));
+    }
+
+    @Test
+    public void compactsTheFileWhenItIsLoaded() throws IOException {
+        StringBuilder records = new StringBuilder();
+        for(int i = 0; i < 100; i++) {
+            records.append("M\tfeed").append(i % 3).append('\t').append(i).append("\tid").append(i).append('\n');
+        }
+        File file = write(records.toString());
+        WatcherState.load(file);
+        String compacted = read(file);
+        assertEquals(3, compacted.split("\n").length);
+        assertTrue(compacted.endsWith("\n"));
+        assertEquals(mark(99, "id99"), WatcherState.get("feed0"));
+        assertEquals(mark(97, "id97"), WatcherState.get("feed1"));
+        assertEquals(mark(98, "id98"), WatcherState.get("feed2"));
+    }
+
+    @Test
+    public void compactsTheFileAsItGrows() throws IOException {
+        File file = new File(folder.getRoot(), "watcher.state");
+        WatcherState.load(file);
+        for(int i = 0; i < 10000; i++) {
+            WatcherState.put("feed" + (i % 2), mark(i, "id" + i));
+        }
+        // Two feeds never need more than the minimum number of records before the file is compacted
+        assertTrue(read(file).split("\n").length <= 256);
+        WatcherState.load(file);
+        assertEquals(mark(9998, "id9998"), WatcherState.get("feed0"));
+        assertEquals(mark(9999, "id9999"), WatcherState.get("feed1"));
+    }
+
+    @Test
+    public void unchangedStateIsNotWrittenAgain() throws IOException {
+        File file = new File(folder.getRoot(), "watcher.state");
+        WatcherState.load(file);
+        WatcherState.put("feed", mark(1, "a", "b"));
+        WatcherState.put("feed", mark(1, "b", "a"));
+        WatcherState.putValidators("feed", new WatcherState.Validators("e", null));
+        WatcherState.putValidators("feed", new WatcherState.Validators("e", null));
+        assertEquals(2, read(file).split("\n").length);
+    }
+
+    @Test
+    public void marksAdvancePastAnnouncedItems() {
+        WatcherState.Mark mark = mark(100, "a");
+        assertFalse(mark.isNewer(99, "z"));
+        assertFalse(mark.isNewer(100, "a"));
+        assertTrue(mark.isNewer(100, "b"));
+        assertTrue(mark.isNewer(101, "a"));
+        assertEquals(mark(100, "a", "b"), mark.advance(100, "b"));
+        assertEquals(mark(101, "c"), mark.advance(101, "c"));
+        assertEquals(mark, mark.advance(50, "old"));
+    }
+
+    private static WatcherState.Mark mark(long time, String... items) {
+        return new WatcherState.Mark(time, items.length == 0 ? Collections.<String>emptySet() : new HashSet<String>(Arrays.asList(items)));
+    }
+
+    private File write(String contents) throws IOException {
+        File file = folder.newFile("watcher.state");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int)file.length()];
+            int read = 0;
+            while(read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if(n == -1) break;
+                read += n;
+            }
+            return new String(bytes, 0, read, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package us.rddt.IRCBot;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pircbotx.Colors;
+
+/**
+ * Compares classifying a channel message in a single pass with the regular
+ * expressions onMessage used to run on every line, over a corpus of typical
+ * channel lines: mostly chatter, with some shouts, links, commands and colors.
+ *
+ * @author Ryan Morrison
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageClassifierBenchmark {
+    private static final String URL_REGEX = "\\bhttps?://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]";
+    private static final Pattern URL_PATTERN = Pattern.compile(URL_REGEX);
+    private static final int LINES = 1024;
+
+    private String[] lines;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void createCorpus() {
+        String[] chatter = { "anyone around?", "i think the build is broken again", "lol", "that's what she said",
+                "has anybody tried the new release yet, it looks like they changed the config format", "brb", "ok",
+                "no idea, ask in the other channel", "yeah that works for me" };
+        String[] shouts = { "WHY IS EVERYTHING ON FIRE", "I CAN'T BELIEVE IT", "WHAT THE HECK IS GOING ON" };
+        String[] links = { "check this out http://www.youtube.com/watch?v=dQw4w9WgXcQ",
+                "https://www.reddit.com/r/programming/comments/abc123/some_title/ is relevant",
+                "http://example.com/a and http://example.org/b" };
+        String[] commands = { "!seen somebody", "!quote random", "!weather london", "!urban word" };
+        String[] colored = { Colors.BOLD + "important:" + Colors.NORMAL + " read the topic",
+                "\u00034,1RED ALERT" + Colors.NORMAL + " just kidding", Colors.UNDERLINE + "underlined" + Colors.NORMAL };
+        Random random = new Random(3);
+        lines = new String[LINES];
+        for(int i = 0; i < LINES; i++) {
+            int kind = random.nextInt(100);
+            String[] source;
+            if(kind < 70) source = chatter;
+            else if(kind < 78) source = shouts;
+            else if(kind < 88) source = links;
+            else if(kind < 95) source = commands;
+            else source = colored;
+            lines[i] = source[random.nextInt(source.length)];
+        }
+    }
+
+    @Benchmark
+    public int classifier() {
+        String message = nextLine();
+        MessageClassifier classified = MessageClassifier.classify(message, '!');
+        int result = (classified.isShout() ? 1 : 0) | (classified.isCommand() ? 2 : 0);
+        if(classified.hasUrl()) {
+            Matcher matcher = URL_PATTERN.matcher(message);
+            matcher.region(classified.getUrlStart(), message.length());
+            while(matcher.find()) result += 4;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int regularExpressions() {
+        String message = nextLine();
+        String stripped = Colors.removeFormattingAndColors(message);
+        int result = 0;
+        if(isUpperCase(stripped) && stripped.replaceAll("^\\s+", "").replaceAll("\\s+$", "").length() > 5) result |= 1;
+        if(message.charAt(0) == '!' || message.charAt(0) == '.') result |= 2;
+        Matcher matcher = Pattern.compile(URL_REGEX).matcher(message);
+        while(matcher.find()) result += 4;
+        return result;
+    }
+
+    private String nextLine() {
+        next = (next + 1) & (LINES - 1);
+        return lines[next];
+    }
+
+    private static boolean isUpperCase(String s) {
+        boolean includesLetter = false;
+        for(int i = 0; i < s.length(); i++) {
+            if(Character.isLetter(s.charAt(i))) includesLetter = true;
+            if(Character.isLowerCase(s.charAt(i))) return false;
+        }
+        return includesLetter;
+    }
+}
@@ -0,0 +1,119 @@
+package us.rddt.IRCBot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.pircbotx.Colors;
+
+/**
+ * Tests the single-pass message classifier, including that it agrees with the
+ * regular expressions it replaced on a large set of generated messages.
+ *
+ * @author Ryan Morrison
+ */
+public class MessageClassifierTest {
+    private static final Pattern URL_PATTERN = Pattern.compile("\\bhttps?://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]");
+
+    @Test
+    public void detectsShouts() {
+        assertTrue(classify("THIS IS A SHOUT").isShout());
+        assertTrue(classify("WHAT?! 123").isShout());
+        assertFalse(classify("This is not a shout").isShout());
+        assertFalse(classify("ALMOST a shout").isShout());
+        // Numbers and punctuation alone aren't shouts
+        assertFalse(classify("1234567890 !!!").isShout());
+        // Too short once surrounding whitespace is removed
+        assertFalse(classify("   HELLO   ").isShout());
+        assertTrue(classify("   HELLO!   ").isShout());
+        assertFalse(classify("").isShout());
+    }
+
+    @Test
+    public void ignoresFormattingWhenDetectingShouts() {
+        assertTrue(classify(Colors.BOLD + "LOUD " + Colors.RED + "NOISES" + Colors.NORMAL).isShout());
+        // The color codes' digits don't count towards the length
+        assertFalse(classify(Colors.RED + "HEY" + Colors.NORMAL + Colors.BLUE + "!" + Colors.NORMAL).isShout());
+        assertFalse(classify("\u00034,12HELLO").isShout());
+        assertTrue(classify("\u00034,12HELLO!").isShout());
+        // A comma not followed by a background color is text
+        assertTrue(classify("\u00034,HELLO").isShout());
+        assertFalse(classify(Colors.BOLD + "quiet" + Colors.BOLD).isShout());
+    }
+
+    @Test
+    public void detectsCommands() {
+        assertTrue(classify("!seen somebody").isCommand());
+        assertTrue(classify("!seen somebody  ").isCommand());
+        // As before, the prefix must be the very first character
+        assertFalse(classify(" !seen bob").isCommand());
+        assertFalse(classify("\t!seen bob").isCommand());
+        assertFalse(classify(Colors.BOLD + "!seen somebody").isCommand());
+        assertFalse(classify("seen !somebody").isCommand());
+        assertFalse(classify(".seen somebody").isCommand());
+        assertTrue(MessageClassifier.classify(".seen somebody", '.').isCommand());
+        assertFalse(classify("").isCommand());
+    }
+
+    @Test
+    public void findsTheFirstUrl() {
+        MessageClassifier message = classify("look at http://example.com and https://example.org");
+        assertTrue(message.hasUrl());
+        assertEquals(8, message.getUrlStart());
+        assertEquals(0, classify("https://example.com/").getUrlStart());
+        assertEquals(1, classify(Colors.BOLD + "http://example.com/").getUrlStart());
+        assertFalse(classify("no links here").hasUrl());
+        assertFalse(classify("ftp://example.com").hasUrl());
+        // The scheme must start a word, as \b requires
+        assertEquals(-1, classify("xhttp://example.com").getUrlStart());
+        assertEquals(-1, classify("HTTP://EXAMPLE.COM").getUrlStart());
+    }
+
+    @Test
+    public void agreesWithTheRegularExpressions() {
+        Random random = new Random(11);
+        String[] words = { "hello", "WORLD", "http://example.com/a?b=c", "https://www.reddit.com/r/all", "xhttp://nope",
+                "!seen", "LOL", "a", "123", "?!", "_http://", Colors.BOLD, Colors.NORMAL, Colors.UNDERLINE, Colors.REVERSE,
+                Colors.RED, "\u00034,12", "\u00031,", "\u0003", "\u000399", "\u00031234", " ", "  ", "\t" };
+        for(int i = 0; i < 100000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int count = random.nextInt(8);
+            for(int j = 0; j < count; j++) {
+                builder.append(words[random.nextInt(words.length)]);
+                if(random.nextBoolean()) builder.append(' ');
+            }
+            String line = builder.toString();
+            MessageClassifier message = classify(line);
+            assertEquals("shout: " + line, isLegacyShout(line), message.isShout());
+            Matcher matcher = URL_PATTERN.matcher(line);
+            if(matcher.find()) {
+                // The classifier may find a scheme the pattern rejects, but never starts after a URL the pattern matches
+                assertTrue("url: " + line, message.hasUrl() && message.getUrlStart() <= matcher.start());
+                matcher.region(message.getUrlStart(), line.length());
+                assertTrue("url region: " + line, matcher.find());
+            }
+        }
+    }
+
+    private static MessageClassifier classify(String message) {
+        return MessageClassifier.classify(message, '!');
+    }
+
+    /**
+     * The shout check onMessage made before MessageClassifier
+     */
+    private static boolean isLegacyShout(String message) {
+        String stripped = Colors.removeFormattingAndColors(message);
+        boolean includesLetter = false;
+        for(int i = 0; i < stripped.length(); i++) {
+            if(Character.isLetter(stripped.charAt(i))) includesLetter = true;
+            if(Character.isLowerCase(stripped.charAt(i))) return false;
+        }
+        return includesLetter && stripped.replaceAll("^\\s+", "").replaceAll("\\s+$", "").length() > 5;
+    }
+}
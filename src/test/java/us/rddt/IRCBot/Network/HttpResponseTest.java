@@ -0,0 +1,148 @@
+package us.rddt.IRCBot.Network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.concurrent.Semaphore;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import us.rddt.IRCBot.Configuration;
+import us.rddt.IRCBot.Implementations.HtmlTitleScanner;
+
+/**
+ * Tests that a response's body is cut off by the request's deadline and the
+ * maximum body size however it is read, using a local server which sends its
+ * response slowly or sends too much.
+ *
+ * @author Ryan Morrison
+ */
+public class HttpResponseTest {
+    private ServerSocket server;
+
+    @BeforeClass
+    public static void loadConfiguration() throws Exception {
+        Configuration.loadConfiguration();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        if(server != null) server.close();
+    }
+
+    @Test
+    public void trickledBodyIsCutOffAtTheDeadline() throws Exception {
+        // One byte every 50 ms never trips the read timeout, but the page would take over an hour to arrive
+        startServer(100000, 1, 50);
+        Semaphore permits = new Semaphore(0);
+        long started = System.currentTimeMillis();
+        HttpResponse response = request(permits, started + 1000);
+        try {
+            // The title scanner reads from getInputStream(), as URLGrabber does
+            new HtmlTitleScanner(null, 100000).scan(response.getInputStream());
+            fail("Read the whole trickled page");
+        } catch (SocketTimeoutException ex) {
+            long elapsed = System.currentTimeMillis() - started;
+            assertTrue("Cut off after " + elapsed + " ms", elapsed < 5000);
+        } finally {
+            response.close();
+        }
+        // Closing the response gives the host's slot back
+        assertEquals(1, permits.availablePermits());
+    }
+
+    @Test
+    public void oversizedBodyIsCutOffFromTheStream() throws Exception {
+        int size = Configuration.getHttpMaxBodySize() + 65536;
+        startServer(size, 8192, 0);
+        HttpResponse response = request(new Semaphore(0), System.currentTimeMillis() + 60000);
+        InputStream in = response.getInputStream();
+        long read = 0;
+        try {
+            byte[] buffer = new byte[4096];
+            int n;
+            while((n = in.read(buffer)) != -1) read += n;
+            fail("Read all " + read + " bytes");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("larger than"));
+            assertTrue(read <= Configuration.getHttpMaxBodySize());
+        } finally {
+            response.close();
+        }
+    }
+
+    @Test
+    public void trickledBodyIsCutOffFromTheReader() throws Exception {
+        startServer(100000, 1, 50);
+        HttpResponse response = request(new Semaphore(0), System.currentTimeMillis() + 500);
+        try {
+            Reader reader = response.getReader();
+            while(reader.read() != -1) {
+            }
+            fail("Read the whole trickled page");
+        } catch (SocketTimeoutException ex) {
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Sends the request to the local server and wraps its response as HttpClient does
+     */
+    private HttpResponse request(Semaphore permits, long deadline) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getLocalPort() + "/");
+        HttpURLConnection conn = (HttpURLConnection)url.openConnection();
+        conn.setReadTimeout(10000);
+        return new HttpResponse(url, conn, conn.getResponseCode(), permits, deadline);
+    }
+
+    /**
+     * Starts a server which answers one request with a body of the given length, sent in chunks with a pause between them
+     */
+    private void startServer(final int length, final int chunk, final long pause) throws IOException {
+        server = new ServerSocket(0);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Socket socket = server.accept();
+                    try {
+                        BufferedReader request = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+                        String line;
+                        while((line = request.readLine()) != null && line.length() > 0) {
+                        }
+                        OutputStream out = socket.getOutputStream();
+                        out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: " + length + "\r\n\r\n").getBytes("US-ASCII"));
+                        out.flush();
+                        byte[] bytes = new byte[chunk];
+                        for(int i = 0; i < bytes.length; i++) bytes[i] = 'x';
+                        for(int sent = 0; sent < length; sent += chunk) {
+                            out.write(bytes, 0, Math.min(chunk, length - sent));
+                            out.flush();
+                            if(pause > 0) Thread.sleep(pause);
+                        }
+                    } finally {
+                        socket.close();
+                    }
+                } catch (Exception ex) {
+                    // The client hung up, or the test has finished
+                }
+            }
+        }, "HttpResponseTest-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,315 @@
+package us.rddt.IRCBot.Network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import us.rddt.IRCBot.Enums.JsonToken;
+
+/**
+ * Tests reading JSON documents a token at a time, including documents larger
+ * than the reader's buffer and documents which arrive a few characters at a time.
+ *
+ * @author Ryan Morrison
+ */
+public class JsonReaderTest {
+    @Test
+    public void readsObjects() throws IOException {
+        JsonReader reader = reader("{\"id\": \"abc\", \"score\": 42, \"over_18\": false, \"edited\": true}");
+        reader.beginObject();
+        assertEquals("id", reader.nextName());
+        assertEquals("abc", reader.nextString());
+        assertEquals("score", reader.nextName());
+        assertEquals(42, reader.nextInt());
+        assertEquals("over_18", reader.nextName());
+        assertFalse(reader.nextBoolean());
+        assertEquals("edited", reader.nextName());
+        assertTrue(reader.nextBoolean());
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void readsArrays() throws IOException {
+        JsonReader reader = reader(" [ 1 , \"two\" ,[], {} ,null ] ");
+        reader.beginArray();
+        assertEquals(JsonToken.NUMBER, reader.peek());
+        assertEquals(1, reader.nextLong());
+        assertEquals("two", reader.nextString());
+        reader.beginArray();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        reader.beginObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(JsonToken.NULL, reader.peek());
+        assertNull(reader.nextString());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void skipsNestedValues() throws IOException {
+        JsonReader reader = reader("{\"skip\": {\"a\": [1, {\"b\": [[], \"]}\"]}, null], \"c\": {}}, \"keep\": \"yes\", \"last\": [true]}");
+        reader.beginObject();
+        assertEquals("skip", reader.nextName());
+        reader.skipValue();
+        assertEquals("keep", reader.nextName());
+        assertEquals("yes", reader.nextString());
+        assertEquals("last", reader.nextName());
+        reader.skipValue();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void readsDeeplyNestedDocuments() throws IOException {
+        int depth = 100;
+        StringBuilder document = new StringBuilder();
+        for(int i = 0; i < depth; i++) document.append("{\"a\":[");
+        document.append("\"bottom\"");
+        for(int i = 0; i < depth; i++) document.append("]}");
+
+        JsonReader reader = reader(document.toString());
+        for(int i = 0; i < depth; i++) {
+            reader.beginObject();
+            assertEquals("a", reader.nextName());
+            reader.beginArray();
+        }
+        assertEquals("bottom", reader.nextString());
+        for(int i = 0; i < depth; i++) {
+            reader.endArray();
+            reader.endObject();
+        }
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+
+        reader = reader(document.toString());
+        reader.skipValue();
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void readsEscapes() throws IOException {
+        JsonReader reader = reader("[\"quote \\\" backslash \\\\ slash \\/ \\b\\f\\n\\r\\t\", \"\\u00e9\\u4E2D\\ud83d\\ude00\", \"\\\"\"]");
+        reader.beginArray();
+        assertEquals("quote \" backslash \\ slash / \b\f\n\r\t", reader.nextString());
+        assertEquals("\u00e9\u4e2d\ud83d\ude00", reader.nextString());
+        assertEquals("\"", reader.nextString());
+        reader.endArray();
+    }
+
+    @Test
+    public void readsNumbers() throws IOException {
+        JsonReader reader = reader("[0, -17, 9007199254740993, 1357000000.0, 2.9, -0.5, 1.5e3, \"12\", 3]");
+        reader.beginArray();
+        assertEquals(0, reader.nextLong());
+        assertEquals(-17, reader.nextLong());
+        assertEquals(9007199254740993L, reader.nextLong());
+        // Reddit's timestamps are floating point, fractions are dropped
+        assertEquals(1357000000L, reader.nextLong());
+        assertEquals(2, reader.nextLong());
+        assertEquals(0, reader.nextLong());
+        assertEquals(1500, reader.nextLong());
+        assertEquals(12, reader.nextLong());
+        assertEquals("3", reader.nextString());
+        reader.endArray();
+    }
+
+    @Test
+    public void readsBooleansAndNullsAsStrings() throws IOException {
+        JsonReader reader = reader("{\"a\":true,\"b\":null,\"c\":-1.25}");
+        reader.beginObject();
+        reader.nextName();
+        assertEquals("true", reader.nextString());
+        reader.nextName();
+        assertEquals(JsonToken.NULL, reader.peek());
+        assertNull(reader.nextString());
+        reader.nextName();
+        assertEquals("-1.25", reader.nextString());
+        reader.endObject();
+    }
+
+    @Test
+    public void readsTopLevelValues() throws IOException {
+        JsonReader reader = reader("  \"text\"  ");
+        assertEquals("text", reader.nextString());
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+        reader = reader("12345");
+        assertEquals(12345, reader.nextLong());
+        assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void readsDocumentsLargerThanTheBuffer() throws IOException {
+        // Long strings and escapes straddle the end of the buffer at every possible offset
+        StringBuilder document = new StringBuilder("[");
+        StringBuilder expected = new StringBuilder();
+        for(int i = 0; i < 300; i++) {
+            if(i > 0) document.append(',');
+            document.append("{\"n\":").append(i).append(",\"s\":\"");
+            expected.setLength(0);
+            for(int j = 0; j < i; j++) expected.append((char)('a' + j % 26));
+            document.append(expected).append("\\n\\u0041\"}");
+        }
+        document.append("]");
+        assertTrue(document.length() > 4 * 4096);
+
+        for(int chunk : new int[] { Integer.MAX_VALUE, 4096, 1000, 7, 1 }) {
+            JsonReader reader = new JsonReader(new ChunkedReader(document.toString(), chunk));
+            reader.beginArray();
+            for(int i = 0; i < 300; i++) {
+                expected.setLength(0);
+                for(int j = 0; j < i; j++) expected.append((char)('a' + j % 26));
+                expected.append("\nA");
+                reader.beginObject();
+                assertEquals("n", reader.nextName());
+                assertEquals("chunk " + chunk, i, reader.nextInt());
+                assertEquals("s", reader.nextName());
+                assertEquals("chunk " + chunk, expected.toString(), reader.nextString());
+                reader.endObject();
+            }
+            reader.endArray();
+            assertEquals(JsonToken.END_DOCUMENT, reader.peek());
+        }
+    }
+
+    @Test
+    public void skipsDocumentsLargerThanTheBuffer() throws IOException {
+        StringBuilder document = new StringBuilder("{\"skip\":[");
+        for(int i = 0; i < 2000; i++) {
+            if(i > 0) document.append(',');
+            document.append("{\"s\":\"\\\"quoted ]}\\\"\",\"n\":").append(i).append(",\"b\":false}");
+        }
+        document.append("],\"after\":\"found\"}");
+        JsonReader reader = new JsonReader(new ChunkedReader(document.toString(), 333));
+        reader.beginObject();
+        assertEquals("skip", reader.nextName());
+        reader.skipValue();
+        assertEquals("after", reader.nextName());
+        assertEquals("found", reader.nextString());
+        reader.endObject();
+    }
+
+    @Test
+    public void rejectsMalformedDocuments() throws IOException {
+        assertMalformed("");
+        assertMalformed("{");
+        assertMalformed("{\"a\"}");
+        assertMalformed("{\"a\":1 \"b\":2}");
+        assertMalformed("{a:1}");
+        assertMalformed("[1 2]");
+        assertMalformed("[1,]");
+        assertMalformed("]");
+        assertMalformed("[\"unterminated");
+        assertMalformed("[\"bad escape \\x\"]");
+        assertMalformed("[\"bad unicode \\u12g4\"]");
+        assertMalformed("[@]");
+        assertMalformed("[1] [2]");
+    }
+
+    @Test
+    public void rejectsTokensOfTheWrongType() throws IOException {
+        JsonReader reader = reader("{\"a\": \"text\", \"b\": [], \"c\": tru}");
+        try {
+            reader.beginArray();
+            fail("Read an object as an array");
+        } catch (IOException ex) {
+        }
+        reader.beginObject();
+        reader.nextName();
+        try {
+            reader.nextLong();
+            fail("Read text as a number");
+        } catch (IOException ex) {
+        }
+        reader = reader("{\"b\": [], \"c\": tru}");
+        reader.beginObject();
+        reader.nextName();
+        try {
+            reader.nextString();
+            fail("Read an array as a string");
+        } catch (IOException ex) {
+        }
+        reader.skipValue();
+        reader.nextName();
+        try {
+            reader.nextBoolean();
+            fail("Read tru as a boolean");
+        } catch (IOException ex) {
+        }
+    }
+
+    private static JsonReader reader(String document) {
+        return new JsonReader(new StringReader(document));
+    }
+
+    /**
+     * Reads every value in a document, failing unless the document is rejected
+     */
+    private static void assertMalformed(String document) {
+        try {
+            JsonReader reader = reader(document);
+            readValue(reader);
+            reader.peek();
+            fail("Accepted " + document);
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().startsWith("Malformed JSON"));
+        }
+    }
+
+    private static void readValue(JsonReader reader) throws IOException {
+        switch(reader.peek()) {
+        case BEGIN_OBJECT:
+            reader.beginObject();
+            while(reader.hasNext()) {
+                reader.nextName();
+                readValue(reader);
+            }
+            reader.endObject();
+            break;
+        case BEGIN_ARRAY:
+            reader.beginArray();
+            while(reader.hasNext()) readValue(reader);
+            reader.endArray();
+            break;
+        default:
+            reader.nextString();
+        }
+    }
+
+    /**
+     * Returns at most a few characters from every read, like a slow connection
+     */
+    private static class ChunkedReader extends Reader {
+        private final String document;
+        private final int chunk;
+        private int position = 0;
+
+        ChunkedReader(String document, int chunk) {
+            this.document = document;
+            this.chunk = chunk;
+        }
+
+        public int read(char[] buffer, int offset, int length) {
+            if(position == document.length()) return -1;
+            int n = Math.min(Math.min(length, chunk), document.length() - position);
+            document.getChars(position, position + n, buffer, offset);
+            position += n;
+            return n;
+        }
+
+        public void close() {
+        }
+    }
+}
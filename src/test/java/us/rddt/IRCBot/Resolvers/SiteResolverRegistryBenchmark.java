@@ -0,0 +1,113 @@
+package us.rddt.IRCBot.Resolvers;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import us.rddt.IRCBot.Implementations.URLCache;
+
+/**
+ * Compares finding the resolver for a link through the registry with matching
+ * every site's regular expression against the link in turn, as URLGrabber used
+ * to. The corpus is mostly links to sites the bot doesn't summarize, which have
+ * to be checked against every site, and extra sites can be registered to show
+ * how the cost of each approach grows with the number of sites supported.
+ *
+ * @author Ryan Morrison
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SiteResolverRegistryBenchmark {
+    private static final int LINKS = 1024;
+    private static final URLCache.Summary MATCHED = new URLCache.Summary("benchmark", null, false);
+
+    // The sites registered on top of the seven the bot summarizes
+    @Param({ "0", "50" })
+    public int extraSites;
+
+    private URL[] links;
+    private SiteResolverRegistry registry;
+    private Pattern[] patterns;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void createSites() throws Exception {
+        List<Pattern> sequential = new ArrayList<Pattern>();
+        registry = new SiteResolverRegistry();
+        register(sequential, "/(?:#!/)?(\\w+)/status(es)?/(\\d+)", "https?:\\/\\/(www\\.)?twitter\\.com\\/(?:#!\\/)?(\\w+)\\/status(es)?\\/(\\d+)", "twitter.com");
+        register(sequential, "/r/.+/comments/.+/.+", "https?:\\/\\/(www.)?reddit\\.com\\/r\\/.+\\/comments\\/.+\\/.+(\\/)?", "reddit.com");
+        register(sequential, "/r/.+", "https?:\\/\\/(www.)?reddit\\.com\\/r\\/.+\\/?", "reddit.com");
+        register(sequential, "/user/.+", "https?:\\/\\/(www.)?reddit\\.com\\/user\\/.+", "reddit.com");
+        register(sequential, "/.+", "http:\\/\\/(www.)?(i.)?imgur\\.com\\/.+", "imgur.com");
+        register(sequential, "/watch\\?v=.+", "https?:\\/\\/(www.)?youtube\\.com\\/watch\\?v=.+", "youtube.com");
+        register(sequential, "/[0-9]+", "http:\\/\\/(www.)?vimeo\\.com\\/[0-9]+", "vimeo.com");
+        for(int i = 0; i < extraSites; i++) {
+            register(sequential, "/item/[0-9]+", "https?:\\/\\/(www.)?site" + i + "\\.com\\/item\\/[0-9]+", "site" + i + ".com");
+        }
+        patterns = sequential.toArray(new Pattern[sequential.size()]);
+
+        String[] summarized = { "https://twitter.com/somebody/status/123456789", "http://www.reddit.com/r/java/comments/abc123/a_title/",
+                "http://www.reddit.com/r/programming", "http://i.imgur.com/abcdef.png", "http://www.youtube.com/watch?v=dQw4w9WgXcQ",
+                "http://vimeo.com/12345678" };
+        String[] other = { "http://www.bbc.co.uk/news/technology-12345678", "https://github.com/somebody/project/pull/42",
+                "http://en.wikipedia.org/wiki/Space-saving_algorithm", "http://stackoverflow.com/questions/123/why-is-this-slow",
+                "https://news.ycombinator.com/item?id=1234567", "http://example.com/some/long/path/to/a/page.html?with=query" };
+        Random random = new Random(5);
+        links = new URL[LINKS];
+        for(int i = 0; i < LINKS; i++) {
+            // About one link in four is to a site the bot summarizes
+            String[] source = random.nextInt(4) == 0 ? summarized : other;
+            links[i] = new URL(source[random.nextInt(source.length)]);
+        }
+    }
+
+    @Benchmark
+    public URLCache.Summary registry() {
+        return registry.resolve(nextLink());
+    }
+
+    @Benchmark
+    public URLCache.Summary sequentialPatterns() {
+        URL url = nextLink();
+        for(Pattern pattern : patterns) {
+            Matcher matcher = pattern.matcher(url.toString());
+            if(matcher.find()) return MATCHED;
+        }
+        return null;
+    }
+
+    private URL nextLink() {
+        next = (next + 1) & (LINKS - 1);
+        return links[next];
+    }
+
+    private void register(List<Pattern> sequential, String path, String pattern, String host) {
+        registry.register(new SiteResolver(Pattern.compile(path), host) {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return MATCHED;
+            }
+        });
+        sequential.add(Pattern.compile(pattern));
+    }
+}
@@ -0,0 +1,107 @@
+package us.rddt.IRCBot.Resolvers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.net.URL;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import us.rddt.IRCBot.Implementations.URLCache;
+
+/**
+ * Tests looking up the resolvers for a link by its host and matching their path
+ * patterns.
+ *
+ * @author Ryan Morrison
+ */
+public class SiteResolverRegistryTest {
+    private SiteResolverRegistry registry;
+
+    @Before
+    public void createRegistry() {
+        registry = new SiteResolverRegistry();
+        registry.register(new TestResolver("tweet", "/(?:#!/)?(\\w+)/status(es)?/(\\d+)", "twitter.com"));
+        registry.register(new TestResolver("submission", "/r/.+/comments/.+/.+", "reddit.com"));
+        registry.register(new TestResolver("subreddit", "/r/.+", "reddit.com"));
+        registry.register(new TestResolver("user", "/user/.+", "reddit.com"));
+        registry.register(new TestResolver("video", "/watch\\?v=.+", "youtube.com", "youtu.be"));
+    }
+
+    @Test
+    public void resolvesByHostAndPath() throws Exception {
+        assertEquals("subreddit", resolve("http://reddit.com/r/java"));
+        assertEquals("user", resolve("http://reddit.com/user/somebody"));
+        assertEquals("video", resolve("https://youtube.com/watch?v=dQw4w9WgXcQ"));
+        assertEquals("video", resolve("http://youtu.be/watch?v=dQw4w9WgXcQ"));
+        assertNull(resolve("http://reddit.com/about"));
+        assertNull(resolve("http://example.com/r/java"));
+    }
+
+    @Test
+    public void triesResolversInTheOrderTheyWereRegistered() throws Exception {
+        // Both reddit patterns match a submission, the first one registered wins
+        assertEquals("submission", resolve("http://www.reddit.com/r/java/comments/abc/title"));
+    }
+
+    @Test
+    public void fallsThroughWhenAResolverDeclines() throws Exception {
+        registry.register(new TestResolver(null, "/.+", "imgur.com"));
+        registry.register(new TestResolver("page", "/.+", "imgur.com"));
+        assertEquals("page", resolve("http://imgur.com/gallery/abc"));
+    }
+
+    @Test
+    public void matchesSubdomainsAndIgnoresCase() throws Exception {
+        assertEquals("subreddit", resolve("http://www.reddit.com/r/java"));
+        assertEquals("subreddit", resolve("http://old.www.reddit.com/r/java"));
+        assertEquals("subreddit", resolve("http://WWW.Reddit.COM/r/java"));
+        registry.register(new TestResolver("upper", "/.+", "IMGUR.com"));
+        assertEquals("upper", resolve("http://i.imgur.com/abc.png"));
+        // Hosts which merely end with a registered host aren't subdomains of it
+        assertNull(resolve("http://notreddit.com/r/java"));
+    }
+
+    @Test
+    public void doesNotLookUpTopLevelDomains() throws Exception {
+        registry.register(new TestResolver("everything", "/.*", "com"));
+        assertNull(resolve("http://example.com/anything"));
+    }
+
+    @Test
+    public void givesResolversTheMatchedPath() throws Exception {
+        registry.register(new SiteResolver(Pattern.compile("/(?:#!/)?(\\w+)/status(es)?/(\\d+)"), "example.com") {
+            public URLCache.Summary resolve(URL url, Matcher matcher) {
+                return new URLCache.Summary("example", matcher.group(1) + ":" + matcher.group(3), false);
+            }
+        });
+        assertEquals("somebody:12345", registry.resolve(new URL("https://example.com/somebody/status/12345")).getText());
+        // Fragments are matched too, for old #! links
+        assertEquals("somebody:678", registry.resolve(new URL("https://www.example.com/#!/somebody/statuses/678")).getText());
+        assertEquals("tweet", resolve("https://twitter.com/#!/somebody/status/1"));
+    }
+
+    private String resolve(String url) throws Exception {
+        URLCache.Summary summary = registry.resolve(new URL(url));
+        return summary == null ? null : summary.getSite();
+    }
+
+    /**
+     * Summarizes every matching link as its name, or declines them all if it has none
+     */
+    private static class TestResolver extends SiteResolver {
+        private final String name;
+
+        TestResolver(String name, String path, String... hosts) {
+            super(Pattern.compile(path), hosts);
+            this.name = name;
+        }
+
+        public URLCache.Summary resolve(URL url, Matcher matcher) {
+            return name == null ? null : new URLCache.Summary(name, name, false);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package us.rddt.IRCBot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests creating and upgrading the schema of an in-memory SQLite database,
+ * including running the migrations again over a schema they have already
+ * partly or fully changed.
+ *
+ * @author Ryan Morrison
+ */
+public class SchemaMigratorTest {
+    private Connection connection;
+
+    @BeforeClass
+    public static void loadConfiguration() throws Exception {
+        // The migrator logs each migration it applies
+        Configuration.loadConfiguration();
+        Class.forName("org.sqlite.JDBC");
+    }
+
+    @Before
+    public void openDatabase() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @After
+    public void closeDatabase() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void createsAFreshDatabase() throws SQLException {
+        SchemaMigrator.migrate(connection, true);
+        assertEquals(SchemaMigrator.getLatestVersion(), query("SELECT MAX(Version) FROM SchemaVersion"));
+        assertSchemaIsCurrent();
+    }
+
+    @Test
+    public void upgradesTheBaselineSchema() throws SQLException {
+        // The tables as setup_tables.sql created them before there were migrations
+        execute("CREATE TABLE Quotes (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL, Quote VARCHAR(255) NOT NULL, Deleted BOOLEAN NOT NULL)");
+        execute("CREATE TABLE Seen (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Channel VARCHAR(32) NOT NULL)");
+        execute("CREATE TABLE GameStatus (ID INTEGER PRIMARY KEY AUTOINCREMENT, Nick VARCHAR(255) NOT NULL, Date DATETIME NOT NULL, Game VARCHAR(255) NOT NULL)");
+        execute("CREATE TABLE GameList (ID INTEGER PRIMARY KEY AUTOINCREMENT, GameID VARCHAR(10) NOT NULL, GameName VARCHAR(255) NOT NULL)");
+        execute("INSERT INTO Quotes (Nick, Date, Channel, Quote, Deleted) VALUES ('bob', '2012-01-01 00:00:00', '#channel', 'HELLO THERE', 0)");
+        // Older versions added a Seen row for every update
+        execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('bob', '2012-01-01 00:00:00', '#channel')");
+        execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('bob', '2012-03-01 00:00:00', '#channel')");
+        execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('bob', '2012-02-01 00:00:00', '#channel')");
+        execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('bob', '2012-01-01 00:00:00', '#other')");
+        // Nicks and channels differing only in case are the same user and channel
+        execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('Bob', '2012-02-15 00:00:00', '#Channel')");
+        execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('BOB', '2011-12-01 00:00:00', '#OTHER')");
+
+        SchemaMigrator.migrate(connection, true);
+
+        assertEquals(SchemaMigrator.getLatestVersion(), query("SELECT MAX(Version) FROM SchemaVersion"));
+        assertSchemaIsCurrent();
+        // Only the newest seen record for each nick and channel is kept
+        assertEquals(2, query("SELECT COUNT(*) FROM Seen"));
+        assertEquals(1, query("SELECT COUNT(*) FROM Seen WHERE Channel = '#channel' AND Date = '2012-03-01 00:00:00'"));
+        // Existing quotes are kept, their hashes are filled in later
+        assertEquals(1, query("SELECT COUNT(*) FROM Quotes WHERE Quote = 'HELLO THERE' AND QuoteHash IS NULL"));
+    }
+
+    @Test
+    public void seenRecordsIgnoreCase() throws SQLException {
+        SchemaMigrator.migrate(connection, true);
+        // The upsert SeenBuffer writes with, which must replace the record however the nick was written
+        execute("INSERT OR REPLACE INTO Seen (Nick, Date, Channel) VALUES ('Bob', '2012-01-01 00:00:00', '#Channel')");
+        execute("INSERT OR REPLACE INTO Seen (Nick, Date, Channel) VALUES ('bob', '2012-02-01 00:00:00', '#channel')");
+        assertEquals(1, query("SELECT COUNT(*) FROM Seen"));
+        // The lookup !seen falls back to
+        assertEquals(1, query("SELECT COUNT(*) FROM Seen WHERE Nick = 'BOB' AND Channel = '#CHANNEL' AND Date = '2012-02-01 00:00:00'"));
+    }
+
+    @Test
+    public void runningAgainChangesNothing() throws SQLException {
+        SchemaMigrator.migrate(connection, true);
+        execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('bob', '2012-01-01 00:00:00', '#channel')");
+        SchemaMigrator.migrate(connection, true);
+        assertEquals(SchemaMigrator.getLatestVersion(), query("SELECT COUNT(*) FROM SchemaVersion"));
+        assertEquals(1, query("SELECT COUNT(*) FROM Seen"));
+        assertSchemaIsCurrent();
+    }
+
+    @Test
+    public void finishesPartlyAppliedMigrations() throws SQLException {
+        // MySQL commits every statement of a migration as it runs, so one which failed partway is left partly applied
+        SchemaMigrator.migrate(connection, true);
+        execute("DELETE FROM SchemaVersion WHERE Version >= 3");
+        execute("DROP INDEX QuotesDeletedDate");
+        execute("DROP INDEX GameListGameID");
+
+        SchemaMigrator.migrate(connection, true);
+
+        assertEquals(SchemaMigrator.getLatestVersion(), query("SELECT MAX(Version) FROM SchemaVersion"));
+        assertSchemaIsCurrent();
+    }
+
+    @Test
+    public void failedMigrationsAreNotRecorded() throws SQLException {
+        // A Quotes table without the columns the quote indexes need, as if something else had left a broken table behind
+        execute("CREATE TABLE Quotes (ID INTEGER PRIMARY KEY AUTOINCREMENT)");
+        try {
+            SchemaMigrator.migrate(connection, true);
+            fail("Migrated a broken Quotes table");
+        } catch (SQLException ex) {
+        }
+        // The Seen migration still applies, but the quote index migration and everything after it is not recorded
+        assertEquals(2, query("SELECT MAX(Version) FROM SchemaVersion"));
+    }
+
+    /**
+     * Checks every table, column and index the latest schema has
+     */
+    private void assertSchemaIsCurrent() throws SQLException {
+        List<String> indexes = new ArrayList<String>();
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND sql IS NOT NULL");
+            while(resultSet.next()) indexes.add(resultSet.getString(1));
+            resultSet.close();
+        } finally {
+            statement.close();
+        }
+        String[] expected = { "SeenNickChannel", "QuotesChannelQuote", "QuotesChannelDeletedNick", "QuotesDeletedDate",
+                "GameStatusNick", "GameStatusGame", "GameStatusDate", "GameListGameID", "QuotesChannelHash" };
+        for(String index : expected) {
+            assertTrue("Missing index " + index + " in " + indexes, indexes.contains(index));
+        }
+        assertEquals(expected.length, indexes.size());
+        // Selecting the new column fails if it is missing
+        query("SELECT COUNT(QuoteHash) FROM Quotes");
+        query("SELECT COUNT(*) FROM GameStatus");
+        query("SELECT COUNT(*) FROM GameList");
+        // Seen records are unique for each nick and channel
+        execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('unique', '2012-01-01 00:00:00', '#unique')");
+        try {
+            execute("INSERT INTO Seen (Nick, Date, Channel) VALUES ('unique', '2012-01-02 00:00:00', '#unique')");
+            fail("Inserted a second seen record for the same nick and channel");
+        } catch (SQLException ex) {
+        }
+        execute("DELETE FROM Seen WHERE Nick = 'unique'");
+    }
+
+    private void execute(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.executeUpdate(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private int query(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery(sql);
+            resultSet.next();
+            return resultSet.getInt(1);
+        } finally {
+            statement.close();
+        }
+    }
+}
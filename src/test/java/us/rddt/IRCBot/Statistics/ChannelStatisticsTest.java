@@ -0,0 +1,152 @@
+package us.rddt.IRCBot.Statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+
+import us.rddt.IRCBot.Configuration;
+
+/**
+ * Stress tests the channel statistics from many handler threads at once, checking
+ * that no update is lost and that every thread is given the same statistics for
+ * a channel.
+ *
+ * @author Ryan Morrison
+ */
+public class ChannelStatisticsTest {
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 20000;
+    // Fewer nicks than statistics_tracked_users, so every nick's count is exact
+    private static final int NICKS = 10;
+
+    private final PircBotX bot = new PircBotX();
+
+    @BeforeClass
+    public static void loadConfiguration() throws Exception {
+        Configuration.loadConfiguration();
+    }
+
+    @After
+    public void clearStatistics() {
+        Statistics.clearStatistics();
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+        final Channel channel = bot.getChannel("#stress");
+        runConcurrently(new Task() {
+            public void run(int thread, int iteration) {
+                // Look the statistics up on every update, as the handlers do
+                ChannelStatistics statistics = Statistics.getChannelStatistics(channel);
+                String nick = "nick" + ((thread + iteration) % NICKS);
+                statistics.addLine(nick);
+                if(iteration % 2 == 0) statistics.addShout(nick);
+                if(iteration % 5 == 0) statistics.addUrl(nick);
+            }
+        });
+
+        ChannelStatistics statistics = Statistics.getChannelStatistics(channel);
+        assertEquals(THREADS * ITERATIONS, statistics.getTotalLines());
+        assertEquals(THREADS * ITERATIONS / 2, statistics.getTotalShouts());
+        assertEquals(THREADS * ITERATIONS / 5, statistics.getTotalUrls());
+
+        Map<String, Integer> lines = new HashMap<String, Integer>();
+        Map<String, Integer> shouts = new HashMap<String, Integer>();
+        Map<String, Integer> urls = new HashMap<String, Integer>();
+        for(int thread = 0; thread < THREADS; thread++) {
+            for(int iteration = 0; iteration < ITERATIONS; iteration++) {
+                String nick = "nick" + ((thread + iteration) % NICKS);
+                increment(lines, nick);
+                if(iteration % 2 == 0) increment(shouts, nick);
+                if(iteration % 5 == 0) increment(urls, nick);
+            }
+        }
+        assertCounts(lines, statistics.getTopLines(NICKS));
+        assertCounts(shouts, statistics.getTopShouts(NICKS));
+        assertCounts(urls, statistics.getTopUrls(NICKS));
+    }
+
+    @Test
+    public void concurrentLookupsShareStatistics() throws Exception {
+        final int channels = 50;
+        final ChannelStatistics[][] seen = new ChannelStatistics[THREADS][channels];
+        runConcurrently(new Task() {
+            public void run(int thread, int iteration) {
+                if(iteration >= channels) return;
+                ChannelStatistics statistics = Statistics.getChannelStatistics(bot.getChannel("#channel" + iteration));
+                statistics.addLine("nick" + thread);
+                seen[thread][iteration] = statistics;
+            }
+        });
+
+        assertEquals(channels, Statistics.getAllStatistics().size());
+        for(int i = 0; i < channels; i++) {
+            ChannelStatistics statistics = Statistics.getChannelStatistics(bot.getChannel("#channel" + i));
+            for(int thread = 0; thread < THREADS; thread++) {
+                assertSame(statistics, seen[thread][i]);
+            }
+            assertEquals(THREADS, statistics.getTotalLines());
+        }
+    }
+
+    /**
+     * Runs a task ITERATIONS times on each of THREADS threads, all starting together
+     */
+    private void runConcurrently(final Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[THREADS];
+            for(int i = 0; i < THREADS; i++) {
+                final int thread = i;
+                futures[i] = executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        start.await();
+                        for(int iteration = 0; iteration < ITERATIONS; iteration++) {
+                            task.run(thread, iteration);
+                        }
+                        return null;
+                    }
+                });
+            }
+            start.countDown();
+            for(Future<?> future : futures) {
+                // Rethrows anything a worker failed with
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void increment(Map<String, Integer> counts, String nick) {
+        Integer count = counts.get(nick);
+        counts.put(nick, count == null ? 1 : count + 1);
+    }
+
+    private static void assertCounts(Map<String, Integer> expected, List<Map.Entry<String, Integer>> top) {
+        assertEquals(expected.size(), top.size());
+        for(Map.Entry<String, Integer> entry : top) {
+            assertEquals("count for " + entry.getKey(), expected.get(entry.getKey()), entry.getValue());
+        }
+    }
+
+    private interface Task {
+        void run(int thread, int iteration);
+    }
+}
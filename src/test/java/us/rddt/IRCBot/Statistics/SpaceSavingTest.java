@@ -0,0 +1,105 @@
+package us.rddt.IRCBot.Statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the space-saving sketch's counts and its guarantees once it is full.
+ *
+ * @author Ryan Morrison
+ */
+public class SpaceSavingTest {
+    @Test
+    public void emptySketchHasNoMaximum() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        assertNull(sketch.getMaximum());
+        assertTrue(sketch.getTop(5).isEmpty());
+    }
+
+    @Test
+    public void countsExactlyWhileThereIsRoom() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        offer(sketch, "alice", 5);
+        offer(sketch, "bob", 3);
+        offer(sketch, "carol", 8);
+
+        List<Map.Entry<String, Integer>> top = sketch.getTop(10);
+        assertEquals(3, top.size());
+        assertEntry("carol", 8, top.get(0));
+        assertEntry("alice", 5, top.get(1));
+        assertEntry("bob", 3, top.get(2));
+        assertEntry("carol", 8, sketch.getMaximum());
+        assertEquals(2, sketch.getTop(2).size());
+    }
+
+    @Test
+    public void newItemReplacesTheLeastFrequentWhenFull() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        offer(sketch, "alice", 5);
+        offer(sketch, "bob", 2);
+        offer(sketch, "carol", 1);
+
+        // carol inherits bob's count, overestimating by at most that much
+        List<Map.Entry<String, Integer>> top = sketch.getTop(10);
+        assertEquals(2, top.size());
+        assertEntry("alice", 5, top.get(0));
+        assertEntry("carol", 3, top.get(1));
+    }
+
+    @Test
+    public void frequentItemsAreAlwaysTracked() {
+        // Any item making up more than 1/capacity of the stream must be tracked, and never undercounted
+        int capacity = 20;
+        SpaceSaving sketch = new SpaceSaving(capacity);
+        Map<String, Integer> actual = new HashMap<String, Integer>();
+        Random random = new Random(7);
+        int total = 0;
+        for(int i = 0; i < 100000; i++) {
+            String item;
+            if(random.nextInt(4) == 0) {
+                // A handful of heavy hitters make up a quarter of the stream
+                item = "heavy" + random.nextInt(3);
+            } else {
+                item = "light" + random.nextInt(5000);
+            }
+            sketch.offer(item);
+            Integer count = actual.get(item);
+            actual.put(item, count == null ? 1 : count + 1);
+            total++;
+        }
+
+        Map<String, Integer> estimated = new HashMap<String, Integer>();
+        for(Map.Entry<String, Integer> entry : sketch.getTop(capacity)) {
+            estimated.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(capacity, estimated.size());
+        for(Map.Entry<String, Integer> entry : actual.entrySet()) {
+            if(entry.getValue() <= total / capacity) continue;
+            Integer estimate = estimated.get(entry.getKey());
+            assertTrue(entry.getKey() + " is not tracked", estimate != null);
+            assertTrue(entry.getKey() + " is undercounted", estimate >= entry.getValue());
+            // The overestimate is bounded by the smallest count, which is at most total / capacity
+            assertTrue(entry.getKey() + " is overcounted", estimate - entry.getValue() <= total / capacity);
+        }
+        assertTrue(sketch.getMaximum().getKey().startsWith("heavy"));
+    }
+
+    private static void offer(SpaceSaving sketch, String item, int times) {
+        for(int i = 0; i < times; i++) {
+            sketch.offer(item);
+        }
+    }
+
+    private static void assertEntry(String item, int count, Map.Entry<String, Integer> entry) {
+        assertEquals(item, entry.getKey());
+        assertEquals(Integer.valueOf(count), entry.getValue());
+    }
+}